@@ -189,6 +189,12 @@ public class JRFillCategoryDataset extends JRFillChartDataset implements JRCateg
 		return new CategoryLabelGenerator(labelsMap, getLocale());
 	}
 
+	@Override
+	public Object getItemLabelsCopy()
+	{
+		return copyItemLabels(labelsMap);
+	}
+
 
 	@Override
 	public void collectExpressions(JRExpressionCollector collector)
@@ -234,6 +234,12 @@ public class JRFillGanttDataset extends JRFillChartDataset implements JRGanttDat
 		return new CategoryLabelGenerator(labelsMap, getLocale());
 	}
 
+	@Override
+	public Object getItemLabelsCopy()
+	{
+		return copyItemLabels(labelsMap);
+	}
+
 
 	@Override
 	public void collectExpressions(JRExpressionCollector collector)
@@ -336,6 +336,12 @@ public class JRFillPieDataset extends JRFillChartDataset implements JRPieDataset
 		JRExpression labelExpression = (pieSeries != null && pieSeries.length > 0 ? pieSeries[0].getLabelExpression() : null);
 		return (labelExpression == null) ? null : new PieLabelGenerator( labels );
 	}
+
+	@Override
+	public Object getItemLabelsCopy()
+	{
+		return labels == null ? null : new HashMap<Comparable<?>, String>(labels);
+	}
 	
 	@Override
 	public void collectExpressions(JRExpressionCollector collector)
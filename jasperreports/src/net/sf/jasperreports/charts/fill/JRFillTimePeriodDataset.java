@@ -214,6 +214,12 @@ public class JRFillTimePeriodDataset extends JRFillChartDataset implements JRTim
 		return new TimePeriodDatasetLabelGenerator(labelsMap, getLocale());
 	}
 
+	@Override
+	public Object getItemLabelsCopy()
+	{
+		return copyItemLabels(labelsMap);
+	}
+
 	@Override
 	public void collectExpressions(JRExpressionCollector collector)
 	{
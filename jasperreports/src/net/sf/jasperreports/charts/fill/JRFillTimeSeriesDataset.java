@@ -216,6 +216,12 @@ public class JRFillTimeSeriesDataset extends JRFillChartDataset implements JRTim
 	public Object getLabelGenerator(){
 		return new TimeSeriesLabelGenerator(labelsMap, getLocale());//FIXMETHEME this and other similar implementations should be able to return null and chart themes should be protected agains null;
 	}
+
+	@Override
+	public Object getItemLabelsCopy()
+	{
+		return copyItemLabels(labelsMap);
+	}
 	
 	
 	@Override
@@ -203,6 +203,12 @@ public class JRFillXyDataset extends JRFillChartDataset implements JRXyDataset
 	public Object getLabelGenerator(){
 		return new XYDatasetLabelGenerator(labelsMap, getLocale());
 	}
+
+	@Override
+	public Object getItemLabelsCopy()
+	{
+		return copyItemLabels(labelsMap);
+	}
 	
 	
 	@Override
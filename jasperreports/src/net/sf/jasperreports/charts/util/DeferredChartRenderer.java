@@ -0,0 +1,181 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.charts.util;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ObjectStreamException;
+import java.util.List;
+
+import org.jfree.chart.JFreeChart;
+
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintImageAreaHyperlink;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.renderers.AbstractRenderToImageAwareRenderer;
+import net.sf.jasperreports.renderers.AreaHyperlinksRenderable;
+import net.sf.jasperreports.renderers.DataRenderable;
+import net.sf.jasperreports.renderers.RenderToImageAwareRenderable;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.renderers.util.RendererUtil;
+
+
+/**
+ * Chart renderer that draws the chart image the first time the image data is requested.
+ * <p>
+ * The renderer delegates to the renderer produced by a {@link ChartRenderableFactory}
+ * that creates data renderers, such as the image and SVG chart renderer factories.
+ * When serialized, the renderer is replaced by the rendered image.
+ * @see net.sf.jasperreports.engine.JRChart#PROPERTY_CHART_RENDER_DEFERRED
+ */
+public class DeferredChartRenderer extends AbstractRenderToImageAwareRenderer implements DataRenderable, AreaHyperlinksRenderable
+{
+	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+	private transient JasperReportsContext jasperReportsContext;
+	private transient ChartRenderableFactory renderableFactory;
+	private transient JFreeChart chart;
+	private transient ChartHyperlinkProvider chartHyperlinkProvider;
+	private transient Rectangle2D rectangle;
+
+	private Renderable renderer;
+
+	public DeferredChartRenderer(
+		JasperReportsContext jasperReportsContext,
+		ChartRenderableFactory renderableFactory,
+		JFreeChart chart,
+		ChartHyperlinkProvider chartHyperlinkProvider,
+		Rectangle2D rectangle
+		)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.renderableFactory = renderableFactory;
+		this.chart = chart;
+		this.chartHyperlinkProvider = chartHyperlinkProvider;
+		this.rectangle = rectangle;
+	}
+
+	/**
+	 * Returns the renderer that contains the chart image, rendering the chart if not already done.
+	 */
+	public synchronized Renderable getRenderer()
+	{
+		if (renderer == null)
+		{
+			renderer = renderableFactory.getRenderable(jasperReportsContext, chart, chartHyperlinkProvider, rectangle);
+
+			// the chart is no longer needed
+			jasperReportsContext = null;
+			renderableFactory = null;
+			chart = null;
+			chartHyperlinkProvider = null;
+			rectangle = null;
+		}
+		return renderer;
+	}
+
+	/**
+	 * Determines whether the chart has been rendered.
+	 */
+	public synchronized boolean isRendered()
+	{
+		return renderer != null;
+	}
+
+	protected DataRenderable getDataRenderer() throws JRException
+	{
+		Renderable dataRenderer = getRenderer();
+		if (!(dataRenderer instanceof DataRenderable))
+		{
+			throw
+				new JRException(
+					RendererUtil.EXCEPTION_MESSAGE_KEY_RENDERABLE_MUST_IMPLEMENT_INTERFACE,
+					new Object[]{
+						dataRenderer.getClass().getName(),
+						DataRenderable.class.getName()
+						}
+					);
+		}
+		return (DataRenderable) dataRenderer;
+	}
+
+	@Override
+	public byte[] getData(JasperReportsContext jasperReportsContext) throws JRException
+	{
+		return getDataRenderer().getData(jasperReportsContext);
+	}
+
+	@Override
+	public List<JRPrintImageAreaHyperlink> getImageAreaHyperlinks(Rectangle2D renderingArea) throws JRException
+	{
+		Renderable dataRenderer = getRenderer();
+		if (dataRenderer instanceof AreaHyperlinksRenderable)
+		{
+			return ((AreaHyperlinksRenderable) dataRenderer).getImageAreaHyperlinks(renderingArea);
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized boolean hasImageAreaHyperlinks()
+	{
+		if (renderer == null)
+		{
+			// no need to render the chart
+			return chartHyperlinkProvider != null && chartHyperlinkProvider.hasHyperlinks();
+		}
+
+		return renderer instanceof AreaHyperlinksRenderable
+				&& ((AreaHyperlinksRenderable) renderer).hasImageAreaHyperlinks();
+	}
+
+	@Override
+	public int getImageDataDPI(JasperReportsContext jasperReportsContext)
+	{
+		Renderable dataRenderer = getRenderer();
+		if (dataRenderer instanceof RenderToImageAwareRenderable)
+		{
+			return ((RenderToImageAwareRenderable) dataRenderer).getImageDataDPI(jasperReportsContext);
+		}
+		return super.getImageDataDPI(jasperReportsContext);
+	}
+
+	@Override
+	public Graphics2D createGraphics(BufferedImage bi)
+	{
+		Renderable dataRenderer = getRenderer();
+		if (dataRenderer instanceof RenderToImageAwareRenderable)
+		{
+			return ((RenderToImageAwareRenderable) dataRenderer).createGraphics(bi);
+		}
+		return super.createGraphics(bi);
+	}
+
+	protected Object writeReplace() throws ObjectStreamException
+	{
+		return getRenderer();
+	}
+}
@@ -138,12 +138,15 @@ public class FillTable extends BaseFillComponent
 	protected void setTableInstanceCounter()
 	{
 		JRFillContext fillerContext = fillContext.getFiller().getFillContext();
-		AtomicInteger counter = (AtomicInteger) fillerContext.getFillCache(FILL_CACHE_KEY_TABLE_INSTANCE_COUNTER);
-		if (counter == null)
+		AtomicInteger counter;
+		synchronized (fillerContext)
 		{
-			// we just need a mutable integer, there's no actual concurrency here
-			counter = new AtomicInteger();
-			fillerContext.setFillCache(FILL_CACHE_KEY_TABLE_INSTANCE_COUNTER, counter);
+			counter = (AtomicInteger) fillerContext.getFillCache(FILL_CACHE_KEY_TABLE_INSTANCE_COUNTER);
+			if (counter == null)
+			{
+				counter = new AtomicInteger();
+				fillerContext.setFillCache(FILL_CACHE_KEY_TABLE_INSTANCE_COUNTER, counter);
+			}
 		}
 		
 		int instanceIndex = counter.getAndIncrement();
@@ -63,6 +63,47 @@ public abstract class BucketingService
 			)
 	public static final String PROPERTY_BUCKET_MEASURE_LIMIT = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.bucket.measure.limit";
 	
+	/**
+	 * Property that specifies the number of threads used to aggregate crosstab data.
+	 * 
+	 * <p>
+	 * When set to a positive value, the data rows are buffered in chunks which are aggregated
+	 * on a fork-join pool into partial results.
+	 * The partial results are merged into the bucket maps in the order in which the rows were
+	 * collected, using the incrementers to combine the measure values.
+	 * The bucket measure limit is checked when the partial results are merged.
+	 * </p>
+	 * <p>
+	 * The property does not apply to crosstabs that use presorted data.
+	 * The default value is 0, which means that the data is aggregated on the filling thread.
+	 * </p>
+	 * 
+	 * @see #PROPERTY_PARALLEL_AGGREGATION_CHUNK_SIZE
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_CROSSTAB,
+			valueType = Integer.class,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_PARALLEL_AGGREGATION_THREADS = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.parallel.aggregation.threads";
+	
+	/**
+	 * Property that specifies the number of data rows aggregated by a single task
+	 * when crosstab data is aggregated in parallel.
+	 * 
+	 * @see #PROPERTY_PARALLEL_AGGREGATION_THREADS
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_CROSSTAB,
+			valueType = Integer.class,
+			defaultValue = "10000",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_PARALLEL_AGGREGATION_CHUNK_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "crosstab.parallel.aggregation.chunk.size";
+	
 	protected static final byte DIMENSION_ROW = 0;
 
 	protected static final byte DIMENSION_COLUMN = 1;
@@ -100,6 +141,8 @@ public abstract class BucketingService
 	protected final int bucketMeasureLimit;
 	private int runningBucketMeasureCount;
 	
+	protected final ParallelBucketAggregator parallelAggregator;
+	
 	/**
 	 * Creates a crosstab bucketing engine.
 	 * 
@@ -162,7 +205,19 @@ public abstract class BucketingService
 		zeroMeasureValues = initMeasureValues();
 		zeroUserMeasureValues = initUserMeasureValues();
 		
-		bucketMeasureLimit = JRPropertiesUtil.getInstance(serviceContext.getJasperReportsContext()).getIntegerProperty(PROPERTY_BUCKET_MEASURE_LIMIT, 0);
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(serviceContext.getJasperReportsContext());
+		bucketMeasureLimit = propertiesUtil.getIntegerProperty(PROPERTY_BUCKET_MEASURE_LIMIT, 0);
+		
+		int parallelThreads = sorted ? 0 : propertiesUtil.getIntegerProperty(PROPERTY_PARALLEL_AGGREGATION_THREADS, 0);
+		if (parallelThreads > 0)
+		{
+			int chunkSize = propertiesUtil.getIntegerProperty(PROPERTY_PARALLEL_AGGREGATION_CHUNK_SIZE, 10000);
+			parallelAggregator = new ParallelBucketAggregator(this, parallelThreads, Math.max(chunkSize, 1));
+		}
+		else
+		{
+			parallelAggregator = null;
+		}
 	}
 
 
@@ -248,6 +303,11 @@ public abstract class BucketingService
 		processed = false;
 		dataCount = 0;
 		runningBucketMeasureCount = 0;
+		
+		if (parallelAggregator != null)
+		{
+			parallelAggregator.clear();
+		}
 	}
 	
 	protected BucketMap createBucketMap(int level)
@@ -334,6 +394,13 @@ public abstract class BucketingService
 		
 		++dataCount;
 		
+		if (parallelAggregator != null)
+		{
+			// the data is merged into the bucket maps as chunks are aggregated
+			parallelAggregator.addData(bucketValues, measureValues);
+			return;
+		}
+		
 		Bucket[] bucketVals = getBucketValues(bucketValues);
 
 		MeasureValue[] values = bucketValueMap.insertMeasureValues(bucketVals, true, 0);
@@ -431,6 +498,11 @@ public abstract class BucketingService
 		{
 			if (dataCount > 0)
 			{
+				if (parallelAggregator != null)
+				{
+					parallelAggregator.mergeData();
+				}
+				
 				if (allBuckets[rowBucketCount - 1].computeTotal() || allBuckets[allBuckets.length - 1].computeTotal())
 				{
 					//FIXME doing this just to insert total entries, we don't actually need to sum anything
@@ -0,0 +1,236 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.crosstabs.fill.calculation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import net.sf.jasperreports.crosstabs.fill.calculation.BucketDefinition.Bucket;
+import net.sf.jasperreports.crosstabs.fill.calculation.MeasureDefinition.MeasureValue;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRRuntimeException;
+
+/**
+ * Aggregates crosstab data on a fork-join pool for {@link BucketingService}.
+ * <p>
+ * The data rows are buffered in chunks, and each chunk is aggregated by a pool task into
+ * a partial map of cells.
+ * The partial maps are merged into the bucket maps of the service on the filling thread,
+ * in the order in which the chunks were created, by combining measure values via
+ * {@link net.sf.jasperreports.engine.fill.JRExtendedIncrementer#combine(net.sf.jasperreports.engine.fill.JRCalculable, net.sf.jasperreports.engine.fill.JRCalculable, net.sf.jasperreports.engine.fill.AbstractValueProvider) JRExtendedIncrementer.combine()}
+ * just like the crosstab totals are computed.
+ * @see BucketingService#PROPERTY_PARALLEL_AGGREGATION_THREADS
+ */
+class ParallelBucketAggregator
+{
+
+	private final BucketingService service;
+	private final int threads;
+	private final int chunkSize;
+	private final int maxPendingChunks;
+
+	private ForkJoinPool pool;
+	private final Deque<ForkJoinTask<Map<List<Bucket>, MeasureValue[]>>> pendingChunks;
+
+	private Object[][] chunkBucketValues;
+	private Object[][] chunkMeasureValues;
+	private int chunkRowCount;
+
+	ParallelBucketAggregator(BucketingService service, int threads, int chunkSize)
+	{
+		this.service = service;
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+		// bounds the memory used by buffered chunks and partial maps
+		this.maxPendingChunks = 2 * threads;
+		this.pendingChunks = new ArrayDeque<ForkJoinTask<Map<List<Bucket>, MeasureValue[]>>>();
+
+		initChunk();
+	}
+
+	private void initChunk()
+	{
+		chunkBucketValues = new Object[chunkSize][];
+		chunkMeasureValues = new Object[chunkSize][];
+		chunkRowCount = 0;
+	}
+
+	void addData(Object[] bucketValues, Object[] measureValues) throws JRException
+	{
+		// the arrays are reused by the callers
+		chunkBucketValues[chunkRowCount] = bucketValues.clone();
+		chunkMeasureValues[chunkRowCount] = measureValues.clone();
+		++chunkRowCount;
+
+		if (chunkRowCount == chunkSize)
+		{
+			submitChunk();
+
+			while (pendingChunks.size() > maxPendingChunks
+					|| (!pendingChunks.isEmpty() && pendingChunks.peekFirst().isDone()))
+			{
+				mergeFirstChunk();
+			}
+		}
+	}
+
+	private void submitChunk()
+	{
+		if (pool == null)
+		{
+			pool = new ForkJoinPool(threads);
+		}
+
+		final Object[][] bucketValues = chunkBucketValues;
+		final Object[][] measureValues = chunkMeasureValues;
+		final int rowCount = chunkRowCount;
+		ForkJoinTask<Map<List<Bucket>, MeasureValue[]>> task = pool.submit(
+				() -> aggregateChunk(bucketValues, measureValues, rowCount));
+		pendingChunks.addLast(task);
+
+		initChunk();
+	}
+
+	/**
+	 * Called on the pool threads, it only relies on state of the service that is not modified
+	 * while the data is collected.
+	 */
+	protected Map<List<Bucket>, MeasureValue[]> aggregateChunk(Object[][] bucketValues, Object[][] measureValues, int rowCount)
+	{
+		MeasureDefinition[] measures = service.measures;
+		int[] measureIndexes = service.measureIndexes;
+
+		Map<List<Bucket>, MeasureValue[]> cells = new LinkedHashMap<List<Bucket>, MeasureValue[]>();
+		try
+		{
+			for (int row = 0; row < rowCount; ++row)
+			{
+				List<Bucket> key = Arrays.asList(service.getBucketValues(bucketValues[row]));
+				MeasureValue[] values = cells.get(key);
+				if (values == null)
+				{
+					values = service.initMeasureValues();
+					cells.put(key, values);
+				}
+
+				Object[] rowMeasureValues = measureValues[row];
+				for (int i = 0; i < measures.length; ++i)
+				{
+					values[i].addValue(rowMeasureValues[measureIndexes[i]]);
+				}
+			}
+		}
+		catch (JRException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+		return cells;
+	}
+
+	private void mergeFirstChunk() throws JRException
+	{
+		Map<List<Bucket>, MeasureValue[]> cells = joinChunk(pendingChunks.removeFirst());
+		for (Map.Entry<List<Bucket>, MeasureValue[]> entry : cells.entrySet())
+		{
+			Bucket[] bucketVals = entry.getKey().toArray(new Bucket[service.allBuckets.length]);
+
+			MeasureValue[] values = service.bucketValueMap.insertMeasureValues(bucketVals, true, 0);
+			service.sumVals(values, entry.getValue());
+
+			// collect column bucket values
+			service.columnBucketMap.insertMeasureValues(bucketVals, false, service.rowBucketCount);
+		}
+	}
+
+	private Map<List<Bucket>, MeasureValue[]> joinChunk(ForkJoinTask<Map<List<Bucket>, MeasureValue[]>> task) throws JRException
+	{
+		try
+		{
+			return task.join();
+		}
+		catch (JRRuntimeException e)
+		{
+			// the pool might wrap the exception thrown by the task
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+			{
+				if (cause instanceof JRException)
+				{
+					throw (JRException) cause;
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Aggregates the buffered rows and merges all the pending chunks into the bucket maps.
+	 */
+	void mergeData() throws JRException
+	{
+		try
+		{
+			if (chunkRowCount > 0)
+			{
+				submitChunk();
+			}
+
+			while (!pendingChunks.isEmpty())
+			{
+				mergeFirstChunk();
+			}
+		}
+		finally
+		{
+			dispose();
+		}
+	}
+
+	void clear()
+	{
+		for (ForkJoinTask<?> task : pendingChunks)
+		{
+			task.cancel(false);
+		}
+		pendingChunks.clear();
+		initChunk();
+
+		dispose();
+	}
+
+	private void dispose()
+	{
+		if (pool != null)
+		{
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+}
@@ -33,4 +33,14 @@ public interface ExcelDataAdapter extends XlsDataAdapter
 	public ExcelFormatEnum getFormat();
 	
 	public void setFormat(ExcelFormatEnum format);
+	
+	/**
+	 * Specifies whether the data is read one row at a time, without loading the whole workbook in memory.
+	 * Streaming is only used when the format is {@link ExcelFormatEnum#XLSX}.
+	 * 
+	 * @see net.sf.jasperreports.engine.data.StreamingXlsxDataSource
+	 */
+	public boolean isStreaming();
+	
+	public void setStreaming(boolean streaming);
 }
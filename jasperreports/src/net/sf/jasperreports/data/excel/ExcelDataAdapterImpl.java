@@ -31,6 +31,7 @@ import net.sf.jasperreports.data.xls.XlsDataAdapterImpl;
 public class ExcelDataAdapterImpl  extends XlsDataAdapterImpl implements ExcelDataAdapter
 {
 	private ExcelFormatEnum format;
+	private boolean streaming;
 	
 	@Override
 	public ExcelFormatEnum getFormat() {
@@ -41,4 +42,14 @@ public class ExcelDataAdapterImpl  extends XlsDataAdapterImpl implements ExcelDa
 	public void setFormat(ExcelFormatEnum format) {
 		this.format = format;
 	}
+
+	@Override
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	@Override
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
 }
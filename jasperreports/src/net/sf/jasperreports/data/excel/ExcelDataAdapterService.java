@@ -31,6 +31,7 @@ import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.ParameterContributorContext;
 import net.sf.jasperreports.engine.data.AbstractXlsDataSource;
 import net.sf.jasperreports.engine.data.ExcelDataSource;
+import net.sf.jasperreports.engine.data.StreamingXlsxDataSource;
 import net.sf.jasperreports.engine.query.ExcelQueryExecuterFactory;
 
 /**
@@ -68,6 +69,7 @@ public class ExcelDataAdapterService extends AbstractXlsDataAdapterService
 				{
 					parameters.put( ExcelQueryExecuterFactory.XLS_FORMAT, format);
 				}
+				parameters.put( ExcelQueryExecuterFactory.XLSX_STREAMING, xlsDataAdapter.isStreaming());
 			}
 		}
 	}
@@ -80,11 +82,18 @@ public class ExcelDataAdapterService extends AbstractXlsDataAdapterService
 		AbstractXlsDataSource dataSource = null;
 		try
 		{
-			dataSource =
-				new ExcelDataSource(
-					dataStream,
-					excelDataAdapter.getFormat()
-					);
+			if (excelDataAdapter.isStreaming() && excelDataAdapter.getFormat() == ExcelFormatEnum.XLSX)
+			{
+				dataSource = new StreamingXlsxDataSource(dataStream);
+			}
+			else
+			{
+				dataSource =
+					new ExcelDataSource(
+						dataStream,
+						excelDataAdapter.getFormat()
+						);
+			}
 		}
 		catch (IOException e)
 		{
@@ -30,4 +30,12 @@ import net.sf.jasperreports.data.xls.XlsDataAdapter;
  */
 public interface XlsxDataAdapter extends XlsDataAdapter 
 {
+	/**
+	 * Specifies whether the XLSX data is read one row at a time, without loading the whole workbook in memory.
+	 * 
+	 * @see net.sf.jasperreports.engine.data.StreamingXlsxDataSource
+	 */
+	public boolean isStreaming();
+	
+	public void setStreaming(boolean streaming);
 }
@@ -30,4 +30,15 @@ import net.sf.jasperreports.data.xls.XlsDataAdapterImpl;
  */
 public class XlsxDataAdapterImpl extends XlsDataAdapterImpl implements XlsxDataAdapter
 {
+	private boolean streaming;
+
+	@Override
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	@Override
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
 }
@@ -28,11 +28,11 @@ import java.util.Map;
 
 import net.sf.jasperreports.data.excel.ExcelFormatEnum;
 import net.sf.jasperreports.data.xls.AbstractXlsDataAdapterService;
-import net.sf.jasperreports.data.xls.XlsDataAdapter;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.ParameterContributorContext;
 import net.sf.jasperreports.engine.data.AbstractXlsDataSource;
 import net.sf.jasperreports.engine.data.JRXlsxDataSource;
+import net.sf.jasperreports.engine.data.StreamingXlsxDataSource;
 import net.sf.jasperreports.engine.query.ExcelQueryExecuterFactory;
 
 /**
@@ -59,12 +59,13 @@ public class XlsxDataAdapterService extends AbstractXlsDataAdapterService
 	{
 		super.contributeParameters(parameters);
 
-		XlsDataAdapter xlsDataAdapter = getXlsDataAdapter();
-		if (xlsDataAdapter != null)
+		XlsxDataAdapter xlsxDataAdapter = getXlsxDataAdapter();
+		if (xlsxDataAdapter != null)
 		{
-			if (xlsDataAdapter.isQueryExecuterMode())
+			if (xlsxDataAdapter.isQueryExecuterMode())
 			{	
 				parameters.put( ExcelQueryExecuterFactory.XLS_FORMAT, ExcelFormatEnum.XLSX);//add this just for the sake of ExcelQueryExecuter, which is called when queryMode=true
+				parameters.put( ExcelQueryExecuterFactory.XLSX_STREAMING, xlsxDataAdapter.isStreaming());
 			}
 		}
 	}
@@ -75,7 +76,14 @@ public class XlsxDataAdapterService extends AbstractXlsDataAdapterService
 		AbstractXlsDataSource dataSource = null;
 		try
 		{
-			dataSource = new JRXlsxDataSource(dataStream);
+			if (getXlsxDataAdapter().isStreaming())
+			{
+				dataSource = new StreamingXlsxDataSource(dataStream);
+			}
+			else
+			{
+				dataSource = new JRXlsxDataSource(dataStream);
+			}
 		}
 		catch (IOException e)
 		{
@@ -66,6 +66,71 @@ public interface JRChart extends JRElement, JREvaluation, JRAnchor, JRHyperlink,
 			)
 	public static final String PROPERTY_CHART_THEME = JRPropertiesUtil.PROPERTY_PREFIX + "chart.theme";
 
+	/**
+	 * Property that determines whether chart renderers are reused during a report fill for charts that have
+	 * identical content.
+	 * <p>
+	 * The content of a chart is identified by the chart element, the theme, the render type, the size and
+	 * a digest of the evaluated chart dataset, labels, style, properties and expressions.
+	 * Charts that have customizers, item hyperlinks or multiple axes are not cached.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.CHART_ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_CHART_RENDER_CACHE = JRPropertiesUtil.PROPERTY_PREFIX + "chart.render.cache";
+
+	/**
+	 * Property that specifies the maximum number of chart renderers cached during a report fill
+	 * when {@link #PROPERTY_CHART_RENDER_CACHE} is set.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Integer.class,
+			defaultValue = "100",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_CHART_RENDER_CACHE_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "chart.render.cache.size";
+
+	/**
+	 * Property that specifies the maximum number of chart renderers kept in a cache shared by all report fills
+	 * when {@link #PROPERTY_CHART_RENDER_CACHE} is set.
+	 * <p>
+	 * Only image and SVG chart renderers are shared across fills.
+	 * The shared cache is disabled by default.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Integer.class,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_CHART_RENDER_SHARED_CACHE_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "chart.render.shared.cache.size";
+
+	/**
+	 * Property that determines whether charts having the <code>image</code> or <code>svg</code> render type
+	 * are rendered when the image data is first needed, usually at export time, instead of during the report fill.
+	 * <p>
+	 * The chart is still created and evaluated during the fill, only the drawing of the image is deferred.
+	 * Deferred charts are rendered when the report is serialized, for instance when pages are virtualized.
+	 * <p>
+	 * The property has no effect on charts having the default <code>draw</code> render type,
+	 * as these charts are drawn directly by the exporters.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.CHART_ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_CHART_RENDER_DEFERRED = JRPropertiesUtil.PROPERTY_PREFIX + "chart.render.deferred";
+
 
 	/**
 	 *
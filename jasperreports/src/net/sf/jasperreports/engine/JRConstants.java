@@ -142,4 +142,6 @@ public interface JRConstants
 	public static final String VERSION_6_12_0 = "6.12.0";
 	
 	public static final String VERSION_6_13_0 = "6.13.0";
+	
+	public static final String VERSION_6_16_0 = "6.16.0";
 }
@@ -143,6 +143,7 @@ public class JRExpressionCollector
 	private final JRExpressionCollector parent;
 
 	private Map<JRExpression,Integer> expressionIds;
+	private Set<JRExpression> booleanExpressions;
 	
 	private LinkedList<Object> contextStack;
 	private Map<JRExpression, Object> expressionContextMap;
@@ -226,6 +227,7 @@ public class JRExpressionCollector
 		if (parent == null)
 		{
 			expressionIds = new HashMap<JRExpression,Integer>();
+			booleanExpressions = new HashSet<JRExpression>();
 			datasetCollectors = new HashMap<String,JRExpressionCollector>();
 			crosstabCollectors = new HashMap<JRCrosstab,JRExpressionCollector>();
 			contextStack = new LinkedList<Object>();
@@ -235,6 +237,7 @@ public class JRExpressionCollector
 		else
 		{
 			expressionIds = this.parent.expressionIds;
+			booleanExpressions = this.parent.booleanExpressions;
 			contextStack = this.parent.contextStack;
 			expressionContextMap = this.parent.expressionContextMap;
 			crosstabIds = parent.crosstabIds;
@@ -287,6 +290,34 @@ public class JRExpressionCollector
 		}
 	}
 
+	/**
+	 * Collects an expression that produces <code>java.lang.Boolean</code> values,
+	 * such as a print when or a filter expression.
+	 * 
+	 * @param expression the expression to collect
+	 * @see #isBooleanExpression(JRExpression)
+	 */
+	public void addBooleanExpression(JRExpression expression)
+	{
+		if (expression != null)
+		{
+			addExpression(expression);
+			booleanExpressions.add(expression);
+		}
+	}
+
+	/**
+	 * Determines whether an expression has been collected as an expression that produces
+	 * <code>java.lang.Boolean</code> values.
+	 * 
+	 * @param expression the expression
+	 * @return whether the expression is a boolean expression
+	 */
+	public boolean isBooleanExpression(JRExpression expression)
+	{
+		return booleanExpressions.contains(expression);
+	}
+
 	private void setGeneratedId(JRExpression expression, Integer id)
 	{
 		Object existingId = expressionIds.put(expression, id);
@@ -689,7 +720,7 @@ public class JRExpressionCollector
 			{
 				for (int i = 0; i < conditionalStyles.length; i++)
 				{
-					addExpression(conditionalStyles[i].getConditionExpression());
+					addBooleanExpression(conditionalStyles[i].getConditionExpression());
 				}
 			}
 
@@ -794,7 +825,7 @@ public class JRExpressionCollector
 	{
 		if (band != null)
 		{
-			addExpression(band.getPrintWhenExpression());
+			addBooleanExpression(band.getPrintWhenExpression());
 
 			JRElement[] elements = band.getElements();
 			if (elements != null && elements.length > 0)
@@ -823,7 +854,7 @@ public class JRExpressionCollector
 	{
 		if (part != null)
 		{
-			addExpression(part.getPrintWhenExpression());
+			addBooleanExpression(part.getPrintWhenExpression());
 			addExpression(part.getPartNameExpression());
 
 			ComponentKey componentKey = part.getComponentKey();
@@ -839,7 +870,7 @@ public class JRExpressionCollector
 	private void collectElement(JRElement element)
 	{
 		collect(element.getStyle());
-		addExpression(element.getPrintWhenExpression());
+		addBooleanExpression(element.getPrintWhenExpression());
 		collectPropertyExpressions(element.getPropertyExpressions());
 	}
 
@@ -1545,7 +1576,7 @@ public class JRExpressionCollector
 		collector.collect(dataset.getVariables());
 		collector.collect(dataset.getGroups());
 
-		collector.addExpression(dataset.getFilterExpression());
+		collector.addBooleanExpression(dataset.getFilterExpression());
 
 		return getExpressions(dataset);
 	}
@@ -1564,7 +1595,7 @@ public class JRExpressionCollector
 		if (incrementWhenExpression != null)
 		{
 			JRExpressionCollector datasetCollector = getCollector(dataset);
-			datasetCollector.addExpression(incrementWhenExpression);
+			datasetCollector.addBooleanExpression(incrementWhenExpression);
 		}
 	}
 
@@ -43,9 +43,11 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
 
 import org.apache.commons.logging.Log;
@@ -133,6 +135,15 @@ public class JRResultSetDataSource implements JRDataSource
 	private boolean timeZoneOverride;
 	private TimeZone reportTimeZone;
 	private Map<JRField, Calendar> fieldCalendars = new HashMap<JRField, Calendar>();
+	private Map<Integer, Integer> columnTypes = new HashMap<Integer, Integer>();
+	
+	private static final int MAX_ACCESSORS = 1024;
+	
+	private ColumnAccessor[] accessors = new ColumnAccessor[0];
+	private JRField[] accessorFields = new JRField[0];
+	private int accessorCount;
+	private int accessorPosition;
+	private Map<AccessorKey, Integer> accessorPositions = new HashMap<AccessorKey, Integer>();
 
 
 	/**
@@ -158,6 +169,7 @@ public class JRResultSetDataSource implements JRDataSource
 	public boolean next() throws JRException
 	{
 		boolean hasNext = false;
+		accessorPosition = 0;
 		
 		if (resultSet != null)
 		{
@@ -186,207 +198,17 @@ public class JRResultSetDataSource implements JRDataSource
 
 		if (field != null && resultSet != null)
 		{
-			Integer columnIndex = getColumnIndex(field);
-			Class<?> clazz = field.getValueClass();
-
+			ColumnAccessor accessor = getColumnAccessor(field);
 			try
 			{
-				if (clazz.equals(java.lang.Boolean.class))
-				{
-					objValue = resultSet.getBoolean(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.lang.Byte.class))
-				{
-					objValue = resultSet.getByte(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (
-					clazz.equals(java.util.Date.class)
-					|| clazz.equals(java.sql.Date.class)
-					)
-				{
-					objValue = readDate(columnIndex, field);
-				}
-				else if (clazz.equals(java.sql.Timestamp.class))
-				{
-					objValue = readTimestamp(columnIndex, field);
-				}
-				else if (clazz.equals(java.sql.Time.class))
-				{
-					objValue = readTime(columnIndex, field);
-				}
-				else if (clazz.equals(java.lang.Double.class))
-				{
-					objValue = resultSet.getDouble(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.lang.Float.class))
-				{
-					objValue = resultSet.getFloat(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.lang.Integer.class))
-				{
-					objValue = resultSet.getInt(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.io.InputStream.class))
-				{
-					byte[] bytes = readBytes(columnIndex);
-					
-					if(bytes == null)
-					{
-						objValue = null;
-					}
-					else
-					{
-						objValue = new ByteArrayInputStream(bytes);
-					}					
-				}
-				else if (clazz.equals(java.lang.Long.class))
-				{
-					objValue = resultSet.getLong(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.lang.Short.class))
-				{
-					objValue = resultSet.getShort(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.math.BigDecimal.class))
-				{
-					objValue = resultSet.getBigDecimal(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(java.lang.String.class))
-				{
-					int columnType = resultSet.getMetaData().getColumnType(columnIndex);
-					switch (columnType)
-					{
-						case Types.CLOB:
-							Clob clob = resultSet.getClob(columnIndex);
-							if (resultSet.wasNull())
-							{
-								objValue = null;
-							}
-							else
-							{
-								objValue = clobToString(clob);
-							}
-							break;
-							
-						default:
-							objValue = resultSet.getString(columnIndex);
-							if(resultSet.wasNull())
-							{
-								objValue = null;
-							}
-							break;
-					}
-				}
-				else if (clazz.equals(Clob.class))
-				{
-					objValue = resultSet.getClob(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(Reader.class))
-				{
-					Reader reader = null;
-					long size = -1;
-					
-					int columnType = resultSet.getMetaData().getColumnType(columnIndex);
-					switch (columnType)
-					{
-						case Types.CLOB:
-							Clob clob = resultSet.getClob(columnIndex);
-							if (!resultSet.wasNull())
-							{
-								reader = clob.getCharacterStream();
-								size = clob.length();
-							}
-							break;
-							
-						default:
-							reader = resultSet.getCharacterStream(columnIndex);
-							if (resultSet.wasNull())
-							{
-								reader = null; 
-							}
-					}
-					
-					if (reader == null)
-					{
-						objValue = null;
-					}
-					else
-					{
-						objValue = getArrayReader(reader, size);
-					}
-				}
-				else if (clazz.equals(Blob.class))
-				{
-					objValue = resultSet.getBlob(columnIndex);
-					if(resultSet.wasNull())
-					{
-						objValue = null;
-					}
-				}
-				else if (clazz.equals(Image.class))
-				{
-					byte[] bytes = readBytes(columnIndex);
-					
-					if(bytes == null)
-					{
-						objValue = null;
-					}
-					else
-					{
-						objValue = JRImageLoader.getInstance(jasperReportsContext).loadAwtImageFromBytes(bytes);
-					}					
-				}
-				else if (clazz.equals(byte[].class))
-				{
-					objValue = readBytes(columnIndex);
-				}
-				else
-				{
-					objValue = resultSet.getObject(columnIndex);
-				}
+				objValue = accessor.getValue();
 			}
 			catch (Exception e)
 			{
 				throw 
 					new JRException(
 						EXCEPTION_MESSAGE_KEY_RESULT_SET_FIELD_VALUE_NOT_RETRIEVED,
-						new Object[]{field.getName(), clazz.getName()}, 
+						new Object[]{field.getName(), field.getValueClass().getName()}, 
 						e);
 			}
 		}
@@ -395,6 +217,202 @@ public class JRResultSetDataSource implements JRDataSource
 	}
 
 
+	/**
+	 * Returns the accessor for a field.
+	 * 
+	 * <p>
+	 * Fields are usually requested in the same order for every record, hence accessors are
+	 * kept in an array in the order in which the fields were first requested and the next
+	 * expected position is tracked per record.
+	 * When the field at the expected position matches, the accessor is returned directly,
+	 * otherwise the position of the field is looked up and the accessor is created if needed.
+	 * </p>
+	 */
+	private ColumnAccessor getColumnAccessor(JRField field) throws JRException
+	{
+		int position = accessorPosition;
+		if (position < accessorCount && accessorFields[position] == field)
+		{
+			accessorPosition = position + 1;
+			return accessors[position];
+		}
+		
+		// field objects are matched by name, description and type so that
+		// field instances created for each request do not add accessors
+		AccessorKey key = new AccessorKey(field);
+		Integer fieldPosition = accessorPositions.get(key);
+		if (fieldPosition == null)
+		{
+			ColumnAccessor accessor = createColumnAccessor(getColumnIndex(field), field);
+			
+			if (accessorCount == MAX_ACCESSORS)
+			{
+				// not expected for regular datasets, starting over
+				accessorCount = 0;
+				accessorPositions.clear();
+				Arrays.fill(accessors, null);
+				Arrays.fill(accessorFields, null);
+			}
+			
+			if (accessorCount == accessors.length)
+			{
+				int newLength = Math.max(8, accessorCount * 2);
+				accessors = Arrays.copyOf(accessors, newLength);
+				accessorFields = Arrays.copyOf(accessorFields, newLength);
+			}
+			
+			fieldPosition = accessorCount++;
+			accessors[fieldPosition] = accessor;
+			accessorFields[fieldPosition] = field;
+			accessorPositions.put(key, fieldPosition);
+		}
+		
+		accessorPosition = fieldPosition + 1;
+		return accessors[fieldPosition];
+	}
+
+
+	/**
+	 * Creates the accessor used to read the values of a field from the result set.
+	 * 
+	 * <p>
+	 * The accessor is created once per field and it resolves the result set getter
+	 * based on the field value class and the column type for character values.
+	 * Date/time and binary values are read by the protected <code>readDate</code>, 
+	 * <code>readTimestamp</code>, <code>readTime</code> and <code>readBytes</code> methods,
+	 * which subclasses can override.
+	 * </p>
+	 * 
+	 * @param columnIndex the result set column index of the field
+	 * @param field the field
+	 * @return the accessor for the field
+	 * @throws JRException
+	 */
+	protected ColumnAccessor createColumnAccessor(int columnIndex, JRField field) throws JRException
+	{
+		Class<?> clazz = field.getValueClass();
+		
+		try
+		{
+			ColumnAccessor accessor;
+			if (clazz.equals(java.lang.Boolean.class))
+			{
+				accessor = new BooleanAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.lang.Byte.class))
+			{
+				accessor = new ByteAccessor(columnIndex);
+			}
+			else if (
+				clazz.equals(java.util.Date.class)
+				|| clazz.equals(java.sql.Date.class)
+				)
+			{
+				accessor = new DateAccessor(columnIndex, field);
+			}
+			else if (clazz.equals(java.sql.Timestamp.class))
+			{
+				accessor = new TimestampAccessor(columnIndex, field);
+			}
+			else if (clazz.equals(java.sql.Time.class))
+			{
+				accessor = new TimeAccessor(columnIndex, field);
+			}
+			else if (clazz.equals(java.lang.Double.class))
+			{
+				accessor = new DoubleAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.lang.Float.class))
+			{
+				accessor = new FloatAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.lang.Integer.class))
+			{
+				accessor = new IntegerAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.io.InputStream.class))
+			{
+				accessor = new InputStreamAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.lang.Long.class))
+			{
+				accessor = new LongAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.lang.Short.class))
+			{
+				accessor = new ShortAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.math.BigDecimal.class))
+			{
+				accessor = new BigDecimalAccessor(columnIndex);
+			}
+			else if (clazz.equals(java.lang.String.class))
+			{
+				accessor = isClobColumn(columnIndex) 
+						? new ClobStringAccessor(columnIndex) 
+						: new StringAccessor(columnIndex);
+			}
+			else if (clazz.equals(Clob.class))
+			{
+				accessor = new ClobAccessor(columnIndex);
+			}
+			else if (clazz.equals(Reader.class))
+			{
+				accessor = new ReaderAccessor(columnIndex, isClobColumn(columnIndex));
+			}
+			else if (clazz.equals(Blob.class))
+			{
+				accessor = new BlobAccessor(columnIndex);
+			}
+			else if (clazz.equals(Image.class))
+			{
+				accessor = new ImageAccessor(columnIndex);
+			}
+			else if (clazz.equals(byte[].class))
+			{
+				accessor = new BytesAccessor(columnIndex);
+			}
+			else
+			{
+				accessor = new ObjectAccessor(columnIndex);
+			}
+			return accessor;
+		}
+		catch (SQLException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_RESULT_SET_FIELD_VALUE_NOT_RETRIEVED,
+					new Object[]{field.getName(), clazz.getName()}, 
+					e);
+		}
+	}
+
+
+	private boolean isClobColumn(int columnIndex) throws SQLException
+	{
+		return getColumnType(columnIndex) == Types.CLOB;
+	}
+
+
+	private boolean isBlobColumn(int columnIndex) throws SQLException
+	{
+		return getColumnType(columnIndex) == Types.BLOB;
+	}
+
+
+	private int getColumnType(int columnIndex) throws SQLException
+	{
+		Integer columnType = columnTypes.get(columnIndex);
+		if (columnType == null)
+		{
+			columnType = resultSet.getMetaData().getColumnType(columnIndex);
+			columnTypes.put(columnIndex, columnType);
+		}
+		return columnType;
+	}
+
+
 	protected Object readDate(Integer columnIndex, JRField field) throws SQLException
 	{
 		Calendar calendar = getFieldCalendar(field);
@@ -696,28 +714,31 @@ public class JRResultSetDataSource implements JRDataSource
 	}
 
 	protected byte[] readBytes(Integer columnIndex) throws SQLException, IOException
+	{
+		return readBytes(columnIndex, isBlobColumn(columnIndex));
+	}
+
+	private byte[] readBytes(int columnIndex, boolean blobColumn) throws SQLException, IOException
 	{
 		InputStream is = null;
 		long size = -1;
 		
-		int columnType = resultSet.getMetaData().getColumnType(columnIndex);
-		switch (columnType)
+		if (blobColumn)
 		{
-			case Types.BLOB:
-				Blob blob = resultSet.getBlob(columnIndex);
-				if (!resultSet.wasNull())
-				{
-					is = blob.getBinaryStream();
-					size = blob.length();
-				}
-				break;
-				
-			default:
-				is = resultSet.getBinaryStream(columnIndex);
-				if (resultSet.wasNull())
-				{
-					is = null; 
-				}
+			Blob blob = resultSet.getBlob(columnIndex);
+			if (!resultSet.wasNull())
+			{
+				is = blob.getBinaryStream();
+				size = blob.length();
+			}
+		}
+		else
+		{
+			is = resultSet.getBinaryStream(columnIndex);
+			if (resultSet.wasNull())
+			{
+				is = null; 
+			}
 		}
 		
 		byte[] bytes = null;
@@ -853,4 +874,386 @@ public class JRResultSetDataSource implements JRDataSource
 		return tz;
 	}
 
+
+	/**
+	 * Identifies the fields that share a column accessor.
+	 */
+	private static final class AccessorKey
+	{
+		private final String name;
+		private final String description;
+		private final String valueClassName;
+		
+		AccessorKey(JRField field)
+		{
+			this.name = field.getName();
+			this.description = field.getDescription();
+			this.valueClassName = field.getValueClassName();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(name, description, valueClassName);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof AccessorKey))
+			{
+				return false;
+			}
+			AccessorKey key = (AccessorKey) obj;
+			return Objects.equals(name, key.name) && Objects.equals(description, key.description)
+					&& Objects.equals(valueClassName, key.valueClassName);
+		}
+	}
+
+
+	/**
+	 * Reads the value of a field from the current result set row.
+	 * 
+	 * @see JRResultSetDataSource#createColumnAccessor(int, JRField)
+	 */
+	protected static abstract class ColumnAccessor
+	{
+		protected final int columnIndex;
+		
+		protected ColumnAccessor(int columnIndex)
+		{
+			this.columnIndex = columnIndex;
+		}
+		
+		public abstract Object getValue() throws SQLException, IOException, JRException;
+	}
+	
+	private class BooleanAccessor extends ColumnAccessor
+	{
+		BooleanAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			boolean value = resultSet.getBoolean(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class ByteAccessor extends ColumnAccessor
+	{
+		ByteAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			byte value = resultSet.getByte(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class ShortAccessor extends ColumnAccessor
+	{
+		ShortAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			short value = resultSet.getShort(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class IntegerAccessor extends ColumnAccessor
+	{
+		IntegerAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			int value = resultSet.getInt(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class LongAccessor extends ColumnAccessor
+	{
+		LongAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			long value = resultSet.getLong(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class FloatAccessor extends ColumnAccessor
+	{
+		FloatAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			float value = resultSet.getFloat(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class DoubleAccessor extends ColumnAccessor
+	{
+		DoubleAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			double value = resultSet.getDouble(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class BigDecimalAccessor extends ColumnAccessor
+	{
+		BigDecimalAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			java.math.BigDecimal value = resultSet.getBigDecimal(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class StringAccessor extends ColumnAccessor
+	{
+		StringAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			String value = resultSet.getString(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class ClobStringAccessor extends ColumnAccessor
+	{
+		ClobStringAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException, JRException
+		{
+			Clob clob = resultSet.getClob(columnIndex);
+			return resultSet.wasNull() ? null : clobToString(clob);
+		}
+	}
+	
+	private class ClobAccessor extends ColumnAccessor
+	{
+		ClobAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			Clob value = resultSet.getClob(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class BlobAccessor extends ColumnAccessor
+	{
+		BlobAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			Blob value = resultSet.getBlob(columnIndex);
+			return resultSet.wasNull() ? null : value;
+		}
+	}
+	
+	private class ReaderAccessor extends ColumnAccessor
+	{
+		private final boolean clobColumn;
+		
+		ReaderAccessor(int columnIndex, boolean clobColumn)
+		{
+			super(columnIndex);
+			this.clobColumn = clobColumn;
+		}
+
+		@Override
+		public Object getValue() throws SQLException, IOException
+		{
+			Reader reader = null;
+			long size = -1;
+			
+			if (clobColumn)
+			{
+				Clob clob = resultSet.getClob(columnIndex);
+				if (!resultSet.wasNull())
+				{
+					reader = clob.getCharacterStream();
+					size = clob.length();
+				}
+			}
+			else
+			{
+				reader = resultSet.getCharacterStream(columnIndex);
+				if (resultSet.wasNull())
+				{
+					reader = null; 
+				}
+			}
+			
+			return reader == null ? null : getArrayReader(reader, size);
+		}
+	}
+	
+	private class BytesAccessor extends ColumnAccessor
+	{
+		BytesAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException, IOException, JRException
+		{
+			return readBytes(columnIndex);
+		}
+	}
+	
+	private class InputStreamAccessor extends ColumnAccessor
+	{
+		InputStreamAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException, IOException
+		{
+			byte[] bytes = readBytes(columnIndex);
+			return bytes == null ? null : new ByteArrayInputStream(bytes);
+		}
+	}
+	
+	private class ImageAccessor extends ColumnAccessor
+	{
+		ImageAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException, IOException, JRException
+		{
+			byte[] bytes = readBytes(columnIndex);
+			return bytes == null ? null 
+					: JRImageLoader.getInstance(jasperReportsContext).loadAwtImageFromBytes(bytes);
+		}
+	}
+	
+	private class DateAccessor extends ColumnAccessor
+	{
+		private final JRField field;
+		
+		DateAccessor(int columnIndex, JRField field)
+		{
+			super(columnIndex);
+			this.field = field;
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			return readDate(columnIndex, field);
+		}
+	}
+	
+	private class TimestampAccessor extends ColumnAccessor
+	{
+		private final JRField field;
+		
+		TimestampAccessor(int columnIndex, JRField field)
+		{
+			super(columnIndex);
+			this.field = field;
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			return readTimestamp(columnIndex, field);
+		}
+	}
+	
+	private class TimeAccessor extends ColumnAccessor
+	{
+		private final JRField field;
+		
+		TimeAccessor(int columnIndex, JRField field)
+		{
+			super(columnIndex);
+			this.field = field;
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			return readTime(columnIndex, field);
+		}
+	}
+	
+	private class ObjectAccessor extends ColumnAccessor
+	{
+		ObjectAccessor(int columnIndex)
+		{
+			super(columnIndex);
+		}
+
+		@Override
+		public Object getValue() throws SQLException
+		{
+			return resultSet.getObject(columnIndex);
+		}
+	}
+
 }
@@ -28,9 +28,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.sf.jasperreports.crosstabs.JRCrosstab;
+import net.sf.jasperreports.engine.design.BatchCompileResult;
 import net.sf.jasperreports.engine.design.JRCompiler;
 import net.sf.jasperreports.engine.design.JRJavacCompiler;
 import net.sf.jasperreports.engine.design.JRJdk13Compiler;
@@ -359,6 +366,86 @@ public final class JasperCompileManager
 	}
 
 
+	/**
+	 * Compiles a list of report design objects on a pool of worker threads.
+	 * <p>
+	 * Each report design is compiled independently, the source code generation and the expressions 
+	 * compilation of different reports running in parallel.
+	 * A report that fails to compile does not stop the compilation of the other reports, 
+	 * its faults are available in the corresponding result.
+	 * 
+	 * @param jasperDesigns source report design objects
+	 * @param threads the number of worker threads; if not positive, the number of available processors is used
+	 * @return the compilation results, in the order of the report designs
+	 * @see BatchCompileResult#getFaults()
+	 */
+	public List<BatchCompileResult> compile(List<JasperDesign> jasperDesigns, int threads) throws JRException
+	{
+		List<BatchCompileResult> results = new ArrayList<BatchCompileResult>(jasperDesigns.size());
+		int poolSize = Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), 
+				jasperDesigns.size());
+		if (poolSize <= 1)
+		{
+			for (JasperDesign jasperDesign : jasperDesigns)
+			{
+				results.add(compileResult(jasperDesign));
+			}
+			return results;
+		}
+		
+		// the workers use the classloader of the calling thread to load the compiled classes
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		ExecutorService executor = Executors.newFixedThreadPool(poolSize, runnable -> 
+		{
+			Thread thread = new Thread(runnable);
+			thread.setName("JR report compilation " + thread.getId());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		});
+		try
+		{
+			List<Future<BatchCompileResult>> futures = new ArrayList<Future<BatchCompileResult>>(jasperDesigns.size());
+			for (JasperDesign jasperDesign : jasperDesigns)
+			{
+				futures.add(executor.submit(() -> compileResult(jasperDesign)));
+			}
+			
+			for (Future<BatchCompileResult> future : futures)
+			{
+				results.add(future.get());
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new JRException(e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new JRRuntimeException(e.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		return results;
+	}
+	
+	protected BatchCompileResult compileResult(JasperDesign jasperDesign)
+	{
+		try
+		{
+			return BatchCompileResult.success(jasperDesign, compile(jasperDesign));
+		}
+		catch (JRException | RuntimeException e)
+		{
+			// any failure is specific to the report design, the other designs are still compiled
+			return BatchCompileResult.failure(jasperDesign, e);
+		}
+	}
+
+
 	/**
 	 * Verifies the validity and consistency of the report design object.
 	 * Returns a collection of {@link JRValidationFault errors}, if problems are found in the report design.
@@ -619,6 +706,15 @@ public final class JasperCompileManager
 	}
 
 
+	/**
+	 * @see #compile(List, int)
+	 */
+	public static List<BatchCompileResult> compileReports(List<JasperDesign> jasperDesigns, int threads) throws JRException
+	{
+		return getDefaultInstance().compile(jasperDesigns, threads);
+	}
+
+
 	/**
 	 * @see #verify(JasperDesign)
 	 */
@@ -0,0 +1,59 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+/**
+ * {@link JRDataSource} extension that can advance over several records at once and
+ * return the field values of the records in columnar arrays.
+ * 
+ * <p>
+ * The fill dataset uses this interface, when enabled via 
+ * {@link net.sf.jasperreports.engine.fill.JRFillDataset#PROPERTY_BATCH_SIZE}, to avoid
+ * calling {@link #next()} and {@link #getFieldValue(JRField)} for every record and field.
+ * Once a data source has been iterated by batches, {@link #next()} should not be used
+ * for the same iteration.
+ * After a batch is fetched, the current record of the data source is the last record in the batch.
+ */
+public interface BatchDataSource extends JRDataSource
+{
+
+	/**
+	 * Advances the data source by at most <code>maxRecords</code> records and 
+	 * collects the values of the specified fields.
+	 * 
+	 * @param fields the fields for which values are collected
+	 * @param values the array in which values are collected, indexed by the position
+	 * of the field in <code>fields</code> and then by the position of the record in the batch.
+	 * Each field array has a length of at least <code>maxRecords</code>.
+	 * @param maxRecords the maximum number of records to advance
+	 * @return the number of records fetched in the batch, 0 if the data source is exhausted
+	 * @throws JRException
+	 */
+	int nextBatch(JRField[] fields, Object[][] values, int maxRecords) throws JRException;
+
+}
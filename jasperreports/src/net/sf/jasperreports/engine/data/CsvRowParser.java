@@ -0,0 +1,365 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JRException;
+
+/**
+ * Splits CSV rows into field values for {@link JRCsvDataSource}.
+ * <p>
+ * The parser does not keep any state between rows, so the same instance can be used
+ * by several threads.
+ */
+class CsvRowParser
+{
+
+	/**
+	 * Source of rows, which are sequences of characters separated by the record delimiter.
+	 */
+	interface RowReader
+	{
+		/**
+		 * Returns the next row, or <code>null</code> if the end of data has been reached.
+		 */
+		String readRow() throws IOException;
+	}
+
+	/**
+	 * Reads rows from a text that has already been loaded.
+	 */
+	static class TextRowReader implements RowReader
+	{
+		private final String text;
+		private final String recordDelimiter;
+		private int position;
+
+		TextRowReader(String text, String recordDelimiter)
+		{
+			this.text = text;
+			this.recordDelimiter = recordDelimiter;
+		}
+
+		@Override
+		public String readRow()
+		{
+			if (position >= text.length())
+			{
+				return null;
+			}
+
+			String row;
+			int end = text.indexOf(recordDelimiter, position);
+			if (end < 0)
+			{
+				row = text.substring(position);
+				position = text.length();
+			}
+			else
+			{
+				row = text.substring(position, end);
+				position = end + recordDelimiter.length();
+			}
+			return row;
+		}
+	}
+
+	private final char fieldDelimiter;
+	private final String recordDelimiter;
+	private final boolean isStrictCsv;
+
+	CsvRowParser(char fieldDelimiter, String recordDelimiter, boolean isStrictCsv)
+	{
+		this.fieldDelimiter = fieldDelimiter;
+		this.recordDelimiter = recordDelimiter;
+		this.isStrictCsv = isStrictCsv;
+	}
+
+	/**
+	 * Parses a row of CSV data and extracts the fields it contains
+	 *
+	 * @param rowReader the source of rows, more rows are read when a quoted field contains record delimiters
+	 * @param columnCount the number of columns, used to fill missing field values in the row
+	 * @return the field values, or <code>null</code> if there are no more rows
+	 */
+	List<String> parseRow(RowReader rowReader, int columnCount) throws IOException, JRException
+	{
+		int pos = 0;
+		int startFieldPos = 0;
+		int addedFields = 0;
+		boolean insideQuotes = false;
+		boolean isQuoted = false;
+		boolean misplacedQuote = false;
+		boolean startPosition = false;
+		char c;
+		int leadingSpaces = 0;
+		List<String> values = new ArrayList<String>();
+
+		String row = rowReader.readRow();
+		if (row == null)// || row.length() == 0)
+		{
+			return null;
+		}
+
+		//removing the unicode BOM which occurs only once, at the beginning of the file
+		if(row.length() > 0 && row.charAt(0) == '\ufeff')
+		{
+			row = row.substring(1);
+		}
+
+		while (pos < row.length()) {
+			c = row.charAt(pos);
+
+			if(pos == startFieldPos)
+			{
+				//determining the number of white spaces at the beginning of a field
+				//this is necessary in order to determine if a trimmed field is quoted
+				while( pos + leadingSpaces < row.length()
+						&& row.charAt(pos + leadingSpaces) <= ' '  // this is how trim() works in java sun jdk 1.5; only chars <= ' ' are trimmed
+						&& row.charAt(pos + leadingSpaces) != fieldDelimiter
+						)
+					{
+						++leadingSpaces;
+					}
+			}
+			if (c == '"') {
+				startPosition = pos == startFieldPos + leadingSpaces || (!insideQuotes && row.charAt(pos-1) == fieldDelimiter);
+
+				if (startPosition)
+				{
+					// starting a quoted text
+					insideQuotes = true;
+					isQuoted = true;
+				}
+				else {
+					if (insideQuotes )
+					{
+						if(pos+1 < row.length())
+						{
+							// when already inside quotes, expecting two consecutive quotes,
+							// otherwise it should be a closing quote
+
+							if(row.charAt(pos+1) == '"')
+							{
+								pos++;
+							}
+							else
+							{
+								//testing if white spaces follow after the closing quote;
+								int trailingSpaces = 1;
+								while (pos + trailingSpaces < row.length())
+								{
+									char nextChar = row.charAt(pos + trailingSpaces);
+									if (nextChar <= ' ' && nextChar != fieldDelimiter)
+									{
+										++trailingSpaces;
+									}
+									else
+									{
+										break;
+									}
+								}
+
+								//TODO: handling misplaced quotes along with parametrized isStrictCsv;
+								if(pos + trailingSpaces < row.length() && row.charAt(pos + trailingSpaces) != fieldDelimiter)
+								{
+									misplacedQuote = true;
+									if(isStrictCsv)
+									{
+										throw
+											new JRException(
+												JRCsvDataSource.EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
+												new Object[]{pos, row});
+									}
+								}
+								insideQuotes = false;
+							}
+						}
+						else
+						{
+							insideQuotes = false;
+						}
+					}
+					else
+					{
+						if(isStrictCsv)
+						{
+							throw
+								new JRException(
+									JRCsvDataSource.EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
+									new Object[]{pos, row});
+						}
+					}
+				}
+			}
+
+			// field delimiter found, copy the field contents to the field array
+			if (c == fieldDelimiter && !insideQuotes)
+			{
+				String field = row.substring(startFieldPos, pos);
+				field = field.trim();
+
+				if (isQuoted)
+				{
+					if (field.endsWith("\""))
+					{
+						field = field.substring(0, field.length() - 1);
+					}
+					else if(isStrictCsv)
+					{
+						throw
+							new JRException(
+								JRCsvDataSource.EXCEPTION_MESSAGE_KEY_MALFORMED_QUOTED_FIELD,
+								new Object[]{field});
+					}
+					field = field.substring(1);
+					field = replaceAll(field, "\"\"", "\"");
+				}
+
+				// if an illegal quote was found, the occurrence will be logged
+				if (misplacedQuote)
+				{
+					//TODO: handle misplaced quotes along with parametrized isStrictCsv;
+					//if !isStrictCsv the misplaced quote is allowed to be printed as part of quoted field,
+					//although it is not doubled; the presence of a misplaced quote inside a field is
+					//logged at logger debug level
+					misplacedQuote = false;
+					if (JRCsvDataSource.log.isDebugEnabled())
+					{
+						JRCsvDataSource.log.debug("Undoubled quote found in quoted field: " + field);
+					}
+				}
+
+				isQuoted = false;
+				insideQuotes = false;
+				values.add(field);
+				++addedFields;
+
+				// if many rows were concatenated due to misplacing of starting and ending quotes in a multiline field
+				// is possible to get more fields in the resulting row than the number of columns
+				if(addedFields == columnCount)
+				{
+					addedFields = 0;
+				}
+				startFieldPos = pos + 1;
+				leadingSpaces = 0;
+			}
+
+			pos++;
+
+			// if the record delimiter was found inside a quoted field, it is not an actual record delimiter,
+			// so another line should be read
+			if ((pos == row.length()) && insideQuotes)
+			{
+				String newRow = rowReader.readRow();
+				if(newRow != null)
+				{
+					row = row + recordDelimiter + newRow;
+				}
+			}
+		}
+
+		// end of row was reached, so the final characters form the last field in the record
+		String field = row.substring(startFieldPos, pos);
+		if (field == null)
+		{
+			return values;
+		}
+
+		if (misplacedQuote)
+		{
+			//TODO: handle misplaced quotes along with parametrized isStrictCsv;
+			//if !isStrictCsv the misplaced quote is allowed to be printed as part of quoted field,
+			//although it is not doubled; the presence of a misplaced quote inside a field is
+			//logged at logger debug level
+			if(isStrictCsv)
+			{
+				throw
+					new JRException(
+						JRCsvDataSource.EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
+						new Object[]{field});
+			}
+
+			if (JRCsvDataSource.log.isDebugEnabled())
+			{
+				JRCsvDataSource.log.debug("Undoubled quote found in field: " + field);
+			}
+		}
+
+		field = field.trim();
+		if (isQuoted)
+		{
+			if (field.endsWith("\""))
+			{
+				field = field.substring(0, field.length() - 1);
+			}
+			else if(isStrictCsv)
+			{
+				throw
+					new JRException(
+						JRCsvDataSource.EXCEPTION_MESSAGE_KEY_MALFORMED_QUOTED_FIELD,
+						new Object[]{field});
+			}
+			field = field.substring(1);
+			field = replaceAll(field, "\"\"", "\"");
+		}
+
+		values.add(field);
+		++addedFields;
+		while(addedFields < columnCount)
+		{
+			values.add("");
+			++addedFields;
+		}
+
+		return values;
+	}
+
+
+	private String replaceAll(String string, String substring, String replacement)
+	{
+		StringBuilder result = new StringBuilder();
+		int index = string.indexOf(substring);
+		int oldIndex = 0;
+		while (index >= 0) {
+			result.append(string.substring(oldIndex, index));
+			result.append(replacement);
+			index += substring.length();
+			oldIndex = index;
+
+			index = string.indexOf(substring, index);
+		}
+
+		if (oldIndex <  string.length())
+		{
+			result.append(string.substring(oldIndex, string.length()));
+		}
+
+		return result.toString();
+	}
+
+}
@@ -33,6 +33,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -72,6 +73,8 @@ import net.sf.jasperreports.repo.SimpleRepositoryContext;
  * Since CSV does not specify column names, the default naming convention is to name report fields COLUMN_x and map each
  * column with the field found at index x in each row (these indices start with 0). To avoid this situation, users can
  * either specify a collection of column names or set a flag to read the column names from the first row of the CSV file.
+ * <p>
+ * When created from a file, the data source can parse the file on several threads, see {@link #setParallelThreads(int)}.
  *
  * @author Ionut Nedelcu (ionutned@users.sourceforge.net)
  */
@@ -82,6 +85,7 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	public static final String EXCEPTION_MESSAGE_KEY_MALFORMED_QUOTED_FIELD = "data.csv.malformed.quoted.field";
 	public static final String EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE = "data.csv.misplaced.quote";
 	public static final String EXCEPTION_MESSAGE_KEY_NO_MORE_CHARS = "data.csv.no.more.chars";
+	public static final String EXCEPTION_MESSAGE_KEY_RECORD_TOO_LARGE = "data.csv.record.too.large";
 	
 	/**
 	 * Property specifying the CSV column name for the dataset field.
@@ -109,6 +113,13 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	public static final String INDEXED_COLUMN_PREFIX = "COLUMN_";
 	private static final int INDEXED_COLUMN_PREFIX_LENGTH = INDEXED_COLUMN_PREFIX.length();
 
+	/**
+	 * The default size in bytes of the chunks of data parsed by the threads in parallel mode.
+	 * 
+	 * @see #setParallelChunkSize(int)
+	 */
+	public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1 << 23;
+
 	private DateFormat dateFormat;
 	private NumberFormat numberFormat;
 	private char fieldDelimiter = ',';
@@ -118,6 +129,15 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	private boolean useFirstRowAsHeader;
 
 	private List<String> crtRecordColumnValues;
+	private CsvRowParser rowParser;
+	private final CsvRowParser.RowReader rowReader = new CsvRowParser.RowReader()
+	{
+		@Override
+		public String readRow() throws IOException
+		{
+			return getRow();
+		}
+	};
 	private Reader reader;
 	private char buffer[] = new char[1024];
 	private int position;
@@ -125,6 +145,16 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	private boolean processingStarted;
 	private boolean toClose;
 
+	private File file;
+	private Charset charset;
+	private int parallelThreads;
+	private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+	private JRField[] parallelFields;
+	private Map<String, Integer> parallelFieldIndexes;
+	private ParallelCsvReader parallelReader;
+	private ParallelCsvReader.CsvChunk currentChunk;
+	private int chunkRecord;
+
 	//TODO: parametrize this value
 	private boolean isStrictCsv = true;
 
@@ -182,6 +212,8 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 		this(new FileInputStream(file));
 		
 		toClose = true;
+		this.file = file;
+		this.charset = Charset.defaultCharset();
 	}
 
 
@@ -195,6 +227,8 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 		this(new FileInputStream(file), charsetName);
 		
 		toClose = true;
+		this.file = file;
+		this.charset = Charset.forName(charsetName);
 	}
 
 
@@ -268,20 +302,102 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	{
 		try {
 			if (!processingStarted) {
+				rowParser = new CsvRowParser(fieldDelimiter, recordDelimiter, isStrictCsv);
+				if (parallelThreads > 0)
+				{
+					parallelReader = createParallelReader();
+				}
+				
 				if (useFirstRowAsHeader) 
 				{
-					parseRow();
+					if (parallelReader == null)
+					{
+						parseRow();
+					}
+					else
+					{
+						crtRecordColumnValues = parallelReader.parseFirstRecord(columnNames.size());
+					}
 					assignColumnNames();
 				}
+				
+				if (parallelReader != null)
+				{
+					startParallelReading();
+				}
 				processingStarted = true;
 			}
 
-			return parseRow();
+			return parallelReader == null ? parseRow() : nextParallelRecord();
 		} catch (IOException e) {
 			throw new JRException(e);
 		}
 	}
 	
+	private ParallelCsvReader createParallelReader() throws IOException
+	{
+		if (file == null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("CSV data is not read from a file, parsing on a single thread");
+			}
+			return null;
+		}
+		
+		if (!ParallelCsvReader.isSupported(charset, fieldDelimiter, recordDelimiter))
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Charset " + charset + " not supported for parallel parsing, parsing on a single thread");
+			}
+			return null;
+		}
+		
+		return new ParallelCsvReader(this, file, charset, rowParser, fieldDelimiter, recordDelimiter, 
+				parallelThreads, parallelChunkSize);
+	}
+	
+	private void startParallelReading()
+	{
+		JRField[] fields = parallelFields == null ? new JRField[0] : parallelFields;
+		int[] fieldColumns = new int[fields.length];
+		parallelFieldIndexes = new HashMap<String, Integer>();
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldColumns[i] = -1;
+			// string values do not need to be converted
+			if (!String.class.equals(fields[i].getValueClass()))
+			{
+				try
+				{
+					fieldColumns[i] = getColumnIndex(fields[i]);
+					parallelFieldIndexes.put(fields[i].getName(), i);
+				}
+				catch (JRException e)
+				{
+					// the error is raised when the field value is requested
+				}
+			}
+		}
+		parallelReader.setColumns(columnNames.size(), fields, fieldColumns);
+	}
+	
+	private boolean nextParallelRecord() throws JRException
+	{
+		++chunkRecord;
+		while (currentChunk == null || chunkRecord >= currentChunk.getRecordCount())
+		{
+			currentChunk = parallelReader.nextChunk();
+			chunkRecord = 0;
+			if (currentChunk == null)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	protected void assignColumnNames()
 	{
 		BidiMap<Integer, String> indexColumns = new DualHashBidiMap<Integer, String>();
@@ -323,66 +439,99 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	{
 		Integer columnIndex = getColumnIndex(jrField);
 
+		if (parallelReader != null)
+		{
+			return getParallelFieldValue(jrField, columnIndex);
+		}
+		
 		if (crtRecordColumnValues.size() > columnIndex) 
 		{
-			String fieldValue = crtRecordColumnValues.get(columnIndex);
-			Class<?> valueClass = jrField.getValueClass();
-			
-			if (valueClass.equals(String.class))
-			{
-				return fieldValue;
-			}
+			return convertFieldValue(jrField, crtRecordColumnValues.get(columnIndex));
+		}
 
-			fieldValue = fieldValue.trim();
-			
-			if (fieldValue.length() == 0)
+		return null;
+	}
+	
+	private Object getParallelFieldValue(JRField jrField, int columnIndex) throws JRException
+	{
+		if (currentChunk == null)
+		{
+			return null;
+		}
+		
+		Integer fieldIndex = parallelFieldIndexes.get(jrField.getName());
+		if (fieldIndex != null && currentChunk.hasFieldValues(fieldIndex)
+				&& parallelFields[fieldIndex].getValueClass().equals(jrField.getValueClass()))
+		{
+			// converted by the parsing thread
+			return currentChunk.getFieldValue(fieldIndex, chunkRecord);
+		}
+		
+		String fieldValue = currentChunk.getColumnValue(columnIndex, chunkRecord);
+		return fieldValue == null ? null : convertFieldValue(jrField, fieldValue);
+	}
+	
+	/**
+	 * Converts a CSV value to the type of a field.
+	 * Used by the parsing threads in parallel mode on instances created by {@link #createConverter()}.
+	 */
+	Object convertFieldValue(JRField jrField, String value) throws JRException
+	{
+		String fieldValue = value;
+		Class<?> valueClass = jrField.getValueClass();
+		
+		if (valueClass.equals(String.class))
+		{
+			return fieldValue;
+		}
+
+		fieldValue = fieldValue.trim();
+		
+		if (fieldValue.length() == 0)
+		{
+			return null;
+		}
+		
+		try {
+			if (valueClass.equals(Boolean.class)) 
 			{
-				return null;
+				return fieldValue.equalsIgnoreCase("true");
 			}
-			
-			try {
-				if (valueClass.equals(Boolean.class)) 
+			else if (Number.class.isAssignableFrom(valueClass))
+			{
+				if (numberFormat != null)
 				{
-					return fieldValue.equalsIgnoreCase("true");
+					return FormatUtils.getFormattedNumber(numberFormat, fieldValue, valueClass);
 				}
-				else if (Number.class.isAssignableFrom(valueClass))
+				else 
 				{
-					if (numberFormat != null)
-					{
-						return FormatUtils.getFormattedNumber(numberFormat, fieldValue, valueClass);
-					}
-					else 
-					{
-						return convertStringValue(fieldValue, valueClass);
-					}
-				}
-				else if (Date.class.isAssignableFrom(valueClass)){
-					if (dateFormat != null)
-					{
-						return FormatUtils.getFormattedDate(dateFormat, fieldValue, valueClass);
-					} 
-					else
-					{
-						return convertStringValue(fieldValue, valueClass);
-					}
+					return convertStringValue(fieldValue, valueClass);
 				}
+			}
+			else if (Date.class.isAssignableFrom(valueClass)){
+				if (dateFormat != null)
+				{
+					return FormatUtils.getFormattedDate(dateFormat, fieldValue, valueClass);
+				} 
 				else
 				{
-					throw 
-						new JRException(
-							EXCEPTION_MESSAGE_KEY_CANNOT_CONVERT_FIELD_TYPE,
-							new Object[]{jrField.getName(), valueClass.getName()});
+					return convertStringValue(fieldValue, valueClass);
 				}
-			} catch (Exception e) {
+			}
+			else
+			{
 				throw 
 					new JRException(
-						EXCEPTION_MESSAGE_KEY_CSV_FIELD_VALUE_NOT_RETRIEVED,
-						new Object[]{jrField.getName(), valueClass.getName()}, 
-						e);
+						EXCEPTION_MESSAGE_KEY_CANNOT_CONVERT_FIELD_TYPE,
+						new Object[]{jrField.getName(), valueClass.getName()});
 			}
+		} catch (Exception e) {
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_CSV_FIELD_VALUE_NOT_RETRIEVED,
+					new Object[]{jrField.getName(), valueClass.getName()}, 
+					e);
 		}
-
-		return null;
 	}
 
 
@@ -453,234 +602,14 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	 */
 	private boolean parseRow() throws IOException, JRException
 	{
-		int pos = 0;
-		int startFieldPos = 0;
-		int addedFields = 0;
-		boolean insideQuotes = false;
-		boolean isQuoted = false;
-		boolean misplacedQuote = false;
-		boolean startPosition = false;
-		char c;
-		int leadingSpaces = 0;
-		crtRecordColumnValues = new ArrayList<String>();
-
-		String row = getRow();
-		if (row == null)// || row.length() == 0)
+		List<String> values = rowParser.parseRow(rowReader, columnNames.size());
+		if (values == null)
 		{
+			crtRecordColumnValues = new ArrayList<String>();
 			return false;
 		}
 		
-		//removing the unicode BOM which occurs only once, at the beginning of the file
-		if(row.length() > 0 && row.charAt(0) == '\ufeff')
-		{
-			row = row.substring(1);
-		}
-
-		while (pos < row.length()) {
-			c = row.charAt(pos);
-			
-			if(pos == startFieldPos)
-			{
-				//determining the number of white spaces at the beginning of a field
-				//this is necessary in order to determine if a trimmed field is quoted
-				while( pos + leadingSpaces < row.length() 
-						&& row.charAt(pos + leadingSpaces) <= ' '  // this is how trim() works in java sun jdk 1.5; only chars <= ' ' are trimmed
-						&& row.charAt(pos + leadingSpaces) != fieldDelimiter
-						)
-					{
-						++leadingSpaces;
-					}
-			}
-			if (c == '"') {
-				startPosition = pos == startFieldPos + leadingSpaces || (!insideQuotes && row.charAt(pos-1) == fieldDelimiter);
-
-				if (startPosition) 
-				{
-					// starting a quoted text
-					insideQuotes = true;
-					isQuoted = true;
-				}
-				else {
-					if (insideQuotes )
-					{
-						if(pos+1 < row.length())
-						{
-							// when already inside quotes, expecting two consecutive quotes, 
-							// otherwise it should be a closing quote
-
-							if(row.charAt(pos+1) == '"')
-							{
-								pos++;
-							}
-							else
-							{
-								//testing if white spaces follow after the closing quote; 
-								int trailingSpaces = 1;
-								while (pos + trailingSpaces < row.length())
-								{
-									char nextChar = row.charAt(pos + trailingSpaces);
-									if (nextChar <= ' ' && nextChar != fieldDelimiter)
-									{
-										++trailingSpaces;
-									}
-									else
-									{
-										break;
-									}
-								}
-								
-								//TODO: handling misplaced quotes along with parametrized isStrictCsv; 
-								if(pos + trailingSpaces < row.length() && row.charAt(pos + trailingSpaces) != fieldDelimiter)
-								{
-									misplacedQuote = true;
-									if(isStrictCsv)
-									{
-										throw 
-											new JRException(
-												EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
-												new Object[]{pos, row});
-									}
-								}
-								insideQuotes = false;
-							}
-						}
-						else
-						{
-							insideQuotes = false;
-						}
-					}
-					else
-					{
-						if(isStrictCsv)
-						{
-							throw 
-								new JRException(
-									EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
-									new Object[]{pos, row});
-						}
-					}
-				}
-			}
-			
-			// field delimiter found, copy the field contents to the field array
-			if (c == fieldDelimiter && !insideQuotes) 
-			{
-				String field = row.substring(startFieldPos, pos);
-				field = field.trim();
-				
-				if (isQuoted) 
-				{
-					if (field.endsWith("\"")) 
-					{
-						field = field.substring(0, field.length() - 1);
-					}
-					else if(isStrictCsv)
-					{
-						throw 
-							new JRException(
-								EXCEPTION_MESSAGE_KEY_MALFORMED_QUOTED_FIELD,
-								new Object[]{field});
-					}
-					field = field.substring(1);
-					field = replaceAll(field, "\"\"", "\"");
-				}
-					
-				// if an illegal quote was found, the occurrence will be logged
-				if (misplacedQuote) 
-				{
-					//TODO: handle misplaced quotes along with parametrized isStrictCsv; 
-					//if !isStrictCsv the misplaced quote is allowed to be printed as part of quoted field, 
-					//although it is not doubled; the presence of a misplaced quote inside a field is
-					//logged at logger debug level
-					misplacedQuote = false;
-					if (log.isDebugEnabled())
-					{
-						log.debug("Undoubled quote found in quoted field: " + field);
-					}
-				}
-
-				isQuoted = false;
-				insideQuotes = false;
-				crtRecordColumnValues.add(field);
-				++addedFields;
-				
-				// if many rows were concatenated due to misplacing of starting and ending quotes in a multiline field 
-				// is possible to get more fields in the resulting row than the number of columns
-				if(addedFields == columnNames.size())
-				{
-					addedFields = 0;
-				}
-				startFieldPos = pos + 1;
-				leadingSpaces = 0;
-			}
-
-			pos++;
-			
-			// if the record delimiter was found inside a quoted field, it is not an actual record delimiter,
-			// so another line should be read
-			if ((pos == row.length()) && insideQuotes) 
-			{
-				String newRow = getRow();
-				if(newRow != null)
-				{
-					row = row + recordDelimiter + newRow;
-				}
-			}
-		}
-
-		// end of row was reached, so the final characters form the last field in the record
-		String field = row.substring(startFieldPos, pos);
-		if (field == null)
-		{
-			return true;
-		}
-
-		if (misplacedQuote)
-		{
-			//TODO: handle misplaced quotes along with parametrized isStrictCsv; 
-			//if !isStrictCsv the misplaced quote is allowed to be printed as part of quoted field, 
-			//although it is not doubled; the presence of a misplaced quote inside a field is
-			//logged at logger debug level
-			if(isStrictCsv)
-			{
-				throw 
-					new JRException(
-						EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
-						new Object[]{field});
-			}
-
-			if (log.isDebugEnabled())
-			{
-				log.debug("Undoubled quote found in field: " + field);
-			}
-		}
-		
-		field = field.trim();
-		if (isQuoted) 
-		{
-			if (field.endsWith("\"")) 
-			{
-				field = field.substring(0, field.length() - 1);
-			}
-			else if(isStrictCsv)
-			{
-				throw 
-					new JRException(
-						EXCEPTION_MESSAGE_KEY_MALFORMED_QUOTED_FIELD,
-						new Object[]{field});
-			}
-			field = field.substring(1);
-			field = replaceAll(field, "\"\"", "\"");
-		}
-		
-		crtRecordColumnValues.add(field);
-		++addedFields;
-		while(addedFields < columnNames.size())
-		{
-			crtRecordColumnValues.add("");
-			++addedFields;
-		}
-		
+		crtRecordColumnValues = values;
 		return true;
 	}
 
@@ -877,11 +806,103 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	}
 
 
+	/**
+	 * Sets the number of threads used to parse the CSV data.
+	 * <p>
+	 * When a positive number of threads is set and the data source has been created from a file,
+	 * the file is memory mapped and split into chunks of records which are parsed in parallel.
+	 * The values of the fields set via {@link #setFields(JRField[])} are converted by the parsing threads as well.
+	 * The charset of the file needs to encode quotes and the record delimiter as single ASCII bytes, 
+	 * which is the case for UTF-8 and single byte charsets; otherwise the data is parsed on a single thread.
+	 * <p>
+	 * By default, the data is parsed on the thread that iterates the data source.
+	 * 
+	 * @param parallelThreads the number of threads
+	 */
+	public void setParallelThreads(int parallelThreads)
+	{
+		if (processingStarted)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MODIFY_PROPERTIES_AFTER_START,
+					(Object[])null);
+		}
+		this.parallelThreads = parallelThreads;
+	}
+
+
+	public int getParallelThreads()
+	{
+		return parallelThreads;
+	}
+
+
+	/**
+	 * Sets the size in bytes of the chunks of data parsed by the threads in parallel mode.
+	 * Chunks are extended to the end of the last record they contain.
+	 * 
+	 * @param parallelChunkSize the chunk size
+	 * @see #DEFAULT_PARALLEL_CHUNK_SIZE
+	 */
+	public void setParallelChunkSize(int parallelChunkSize)
+	{
+		if (processingStarted)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MODIFY_PROPERTIES_AFTER_START,
+					(Object[])null);
+		}
+		this.parallelChunkSize = Math.max(parallelChunkSize, 1);
+	}
+
+
+	/**
+	 * Specifies the fields whose values are converted ahead by the parsing threads in parallel mode.
+	 * Values of other fields are converted when requested.
+	 * 
+	 * @param fields the fields, usually the fields of the dataset
+	 * @see #setParallelThreads(int)
+	 */
+	public void setFields(JRField[] fields)
+	{
+		if (processingStarted)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MODIFY_PROPERTIES_AFTER_START,
+					(Object[])null);
+		}
+		this.parallelFields = fields;
+	}
+
+
+	/**
+	 * Creates a data source used to convert values on a parsing thread, with its own copies of the formats.
+	 */
+	JRCsvDataSource createConverter()
+	{
+		JRCsvDataSource converter = new JRCsvDataSource((Reader) null);
+		converter.setTextAttributes(this);
+		converter.dateFormat = dateFormat == null ? null : (DateFormat) dateFormat.clone();
+		converter.numberFormat = numberFormat == null ? null : (NumberFormat) numberFormat.clone();
+		return converter;
+	}
+
+
 	/**
 	 * Closes the reader. Users of this data source should close it after usage.
 	 */
 	public void close()
 	{
+		if (parallelReader != null)
+		{
+			parallelReader.close();
+			parallelReader = null;
+			currentChunk = null;
+		}
+		
 		if (toClose)
 		{
 			try
@@ -896,29 +917,6 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	}
 
 
-	private String replaceAll(String string, String substring, String replacement)
-	{
-		StringBuilder result = new StringBuilder();
-		int index = string.indexOf(substring);
-		int oldIndex = 0;
-		while (index >= 0) {
-			result.append(string.substring(oldIndex, index));
-			result.append(replacement);
-			index += substring.length();
-			oldIndex = index;
-
-			index = string.indexOf(substring, index);
-		}
-
-		if (oldIndex <  string.length())
-		{
-			result.append(string.substring(oldIndex, string.length()));
-		}
-
-		return result.toString();
-	}
-
-
 	public NumberFormat getNumberFormat() {
 		return numberFormat;
 	}
@@ -485,6 +485,17 @@ public class JRXmlDataSource extends AbstractXmlDataSource<JRXmlDataSource>
 		return currentNode;
 	}
 
+	/**
+	 * Sets the node on which field expressions are evaluated, used by {@link StreamingXmlDataSource}
+	 * for the records that it reads.
+	 *
+	 * @param node the record node
+	 */
+	void setCurrentNode(Node node)
+	{
+		currentNode = node;
+	}
+
 	@Override
 	public Object getSelectObject(Node currentNode, String expression) throws JRException 
 	{
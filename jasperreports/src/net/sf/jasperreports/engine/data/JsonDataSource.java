@@ -339,7 +339,18 @@ public class JsonDataSource extends JRAbstractTextDataSource implements JsonData
 		
 		return value;
 	}
-	
+
+	/**
+	 * Sets a node on which field expressions are evaluated, used by {@link StreamingJsonDataSource}
+	 * for the records that it reads.
+	 *
+	 * @param node the record node
+	 */
+	void setCurrentNode(JsonNode node)
+	{
+		currentJsonNode = node;
+	}
+
 	/**
 	 * Extracts the JSON nodes based on the query expression
 	 * 
@@ -37,7 +37,7 @@ import net.sf.jasperreports.engine.JRRuntimeException;
 /**
  * @author Teodor Danciu (teodord@users.sourceforge.net)
  */
-public class ListOfArrayDataSource implements JRRewindableDataSource
+public class ListOfArrayDataSource implements JRRewindableDataSource, BatchDataSource
 {
 	public static final String EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND = "data.array.list.field.not.found";
 
@@ -48,6 +48,8 @@ public class ListOfArrayDataSource implements JRRewindableDataSource
 	private ListIterator<Object[]> iterator;
 	protected Object[] currentRecord;
 	private Map<String, Integer> columnNamesMap = new HashMap<String, Integer>();
+	private JRField[] batchFields;
+	private int[] batchFieldIndexes;
 
 
 	/**
@@ -90,6 +92,40 @@ public class ListOfArrayDataSource implements JRRewindableDataSource
 
 	@Override
 	public Object getFieldValue(JRField jrField)
+	{
+		return currentRecord[getFieldIndex(jrField)];
+	}
+
+
+	@Override
+	public int nextBatch(JRField[] fields, Object[][] values, int maxRecords)
+	{
+		int count = 0;
+		while (count < maxRecords && next())
+		{
+			if (batchFields != fields)
+			{
+				// resolving the field indexes once the first record is available
+				int[] fieldIndexes = new int[fields.length];
+				for (int i = 0; i < fields.length; i++)
+				{
+					fieldIndexes[i] = getFieldIndex(fields[i]);
+				}
+				batchFieldIndexes = fieldIndexes;
+				batchFields = fields;
+			}
+			
+			for (int i = 0; i < batchFieldIndexes.length; i++)
+			{
+				values[i][count] = currentRecord[batchFieldIndexes[i]];
+			}
+			++count;
+		}
+		return count;
+	}
+
+
+	protected int getFieldIndex(JRField jrField)
 	{
 		Integer fieldIndex = columnNamesMap.get(jrField.getName());
 
@@ -101,7 +137,7 @@ public class ListOfArrayDataSource implements JRRewindableDataSource
 					new Object[]{jrField.getName()});
 		}
 
-		return currentRecord[fieldIndex];
+		return fieldIndex;
 	}
 
 
@@ -0,0 +1,493 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRuntimeException;
+
+/**
+ * Reads a CSV file for {@link JRCsvDataSource} by memory mapping it and parsing chunks of
+ * records on a fork-join pool.
+ * <p>
+ * The file is split into chunks that end on record delimiters which are not inside quoted fields.
+ * Finding the chunk boundaries is done on the calling thread by scanning the mapped bytes for quotes,
+ * field and record delimiters, which is why the charset needs to encode these characters as single ASCII bytes
+ * that cannot be part of other characters.
+ * Quotes are interpreted as in {@link CsvRowParser}: a quote only starts a quoted field at the beginning of a field,
+ * and two consecutive quotes inside a quoted field stand for an escaped quote.
+ * Each chunk is decoded and parsed by a pool task into columnar arrays of field values,
+ * and the values of the fields that require conversion are converted by the task as well.
+ * The chunks are returned in file order.
+ * @see JRCsvDataSource#setParallelThreads(int)
+ */
+class ParallelCsvReader
+{
+
+	private static final int SCAN_WINDOW_SIZE = 1 << 26;
+
+	/**
+	 * Determines whether the boundaries of records can be found by looking at the bytes of the file.
+	 */
+	static boolean isSupported(Charset charset, char fieldDelimiter, String recordDelimiter)
+	{
+		if (!StandardCharsets.UTF_8.equals(charset))
+		{
+			// single byte charsets do not use ASCII bytes for other characters
+			try
+			{
+				if (charset.newEncoder().maxBytesPerChar() != 1f)
+				{
+					return false;
+				}
+			}
+			catch (UnsupportedOperationException e)
+			{
+				return false;
+			}
+		}
+
+		String boundaryChars = "\"" + fieldDelimiter + recordDelimiter;
+		byte[] bytes = boundaryChars.getBytes(charset);
+		if (bytes.length != boundaryChars.length())
+		{
+			return false;
+		}
+		for (int i = 0; i < bytes.length; i++)
+		{
+			if (boundaryChars.charAt(i) >= 0x80 || bytes[i] != boundaryChars.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private final JRCsvDataSource dataSource;
+	private final Charset charset;
+	private final CsvRowParser rowParser;
+	private final byte fieldDelimiterByte;
+	private final String recordDelimiter;
+	private final byte[] recordDelimiterBytes;
+	private final int threads;
+	private final int chunkSize;
+	private final int maxPendingChunks;
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private long position;
+
+	private MappedByteBuffer scanBuffer;
+	private long scanBufferStart;
+
+	private int columnCount;
+	private JRField[] fields;
+	private int[] fieldColumns;
+
+	private ForkJoinPool pool;
+	private final Deque<ForkJoinTask<CsvChunk>> pendingChunks;
+
+	ParallelCsvReader(JRCsvDataSource dataSource, File file, Charset charset, CsvRowParser rowParser,
+			char fieldDelimiter, String recordDelimiter, int threads, int chunkSize) throws IOException
+	{
+		this.dataSource = dataSource;
+		this.charset = charset;
+		this.rowParser = rowParser;
+		this.fieldDelimiterByte = (byte) fieldDelimiter;
+		this.recordDelimiter = recordDelimiter;
+		this.recordDelimiterBytes = recordDelimiter.getBytes(charset);
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+		// bounds the memory used by parsed chunks
+		this.maxPendingChunks = 2 * threads;
+		this.pendingChunks = new ArrayDeque<ForkJoinTask<CsvChunk>>();
+
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.fileSize = channel.size();
+	}
+
+	/**
+	 * Parses the first record of the file on the calling thread, used to read the header.
+	 */
+	List<String> parseFirstRecord(int columnCount) throws JRException
+	{
+		try
+		{
+			long end = findRecordEnd(position, position);
+			String text = decode(position, end);
+			position = end;
+
+			List<String> values = rowParser.parseRow(new CsvRowParser.TextRowReader(text, recordDelimiter), columnCount);
+			return values == null ? new ArrayList<String>() : values;
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+	}
+
+	/**
+	 * Sets the fields whose values are converted by the pool tasks.
+	 *
+	 * @param columnCount the number of columns
+	 * @param fields the fields, indexed as in {@link CsvChunk#getFieldValue(int, int)}
+	 * @param fieldColumns the column indexes of the fields, negative for fields that are not converted
+	 */
+	void setColumns(int columnCount, JRField[] fields, int[] fieldColumns)
+	{
+		this.columnCount = columnCount;
+		this.fields = fields;
+		this.fieldColumns = fieldColumns;
+	}
+
+	/**
+	 * Returns the next chunk of records, or <code>null</code> if the end of the file has been reached.
+	 */
+	CsvChunk nextChunk() throws JRException
+	{
+		try
+		{
+			while (pendingChunks.size() < maxPendingChunks && position < fileSize)
+			{
+				submitChunk();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+
+		if (pendingChunks.isEmpty())
+		{
+			return null;
+		}
+		return joinChunk(pendingChunks.removeFirst());
+	}
+
+	private void submitChunk() throws IOException
+	{
+		if (pool == null)
+		{
+			pool = new ForkJoinPool(threads);
+		}
+
+		final long start = position;
+		final long end = findRecordEnd(start, Math.min(start + chunkSize, fileSize));
+		position = end;
+
+		// created on the calling thread as it copies the formats of the data source
+		final JRCsvDataSource converter = fieldColumns.length > 0 ? dataSource.createConverter() : null;
+		ForkJoinTask<CsvChunk> task = pool.submit(() -> parseChunk(start, end, converter));
+		pendingChunks.addLast(task);
+	}
+
+	/**
+	 * Finds the end of the first record that ends at or after a position.
+	 *
+	 * @param start the start of a record
+	 * @param target the position after which the record should end
+	 * @return the position after the record delimiter, or the file size
+	 */
+	private long findRecordEnd(long start, long target) throws IOException
+	{
+		boolean insideQuotes = false;
+		boolean fieldStart = true;
+		for (long offset = skipByteOrderMark(start); offset < fileSize; ++offset)
+		{
+			byte b = byteAt(offset);
+			if (insideQuotes)
+			{
+				if (b == '"')
+				{
+					if (offset + 1 < fileSize && byteAt(offset + 1) == '"')
+					{
+						// escaped quote
+						++offset;
+					}
+					else
+					{
+						insideQuotes = false;
+					}
+				}
+			}
+			else if (b == '"' && fieldStart)
+			{
+				insideQuotes = true;
+				fieldStart = false;
+			}
+			else if (b == fieldDelimiterByte)
+			{
+				fieldStart = true;
+			}
+			else if (b == recordDelimiterBytes[0] && matchesRecordDelimiter(offset))
+			{
+				if (offset >= target)
+				{
+					return offset + recordDelimiterBytes.length;
+				}
+				offset += recordDelimiterBytes.length - 1;
+				fieldStart = true;
+			}
+			else if (b < 0 || b > ' ')
+			{
+				// leading white spaces are trimmed from fields, other characters end the field start
+				// and quotes that follow are part of the field value
+				fieldStart = false;
+			}
+		}
+		return fileSize;
+	}
+
+	private long skipByteOrderMark(long start) throws IOException
+	{
+		// the row parser removes the byte order mark from the beginning of the file
+		if (start == 0 && fileSize >= 3 && StandardCharsets.UTF_8.equals(charset)
+				&& byteAt(0) == (byte) 0xEF && byteAt(1) == (byte) 0xBB && byteAt(2) == (byte) 0xBF)
+		{
+			return 3;
+		}
+		return start;
+	}
+
+	private boolean matchesRecordDelimiter(long offset) throws IOException
+	{
+		if (offset + recordDelimiterBytes.length > fileSize)
+		{
+			return false;
+		}
+
+		for (int i = 1; i < recordDelimiterBytes.length; i++)
+		{
+			if (byteAt(offset + i) != recordDelimiterBytes[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte byteAt(long offset) throws IOException
+	{
+		if (scanBuffer == null || offset < scanBufferStart || offset >= scanBufferStart + scanBuffer.limit())
+		{
+			long size = Math.min(SCAN_WINDOW_SIZE, fileSize - offset);
+			scanBuffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+			scanBufferStart = offset;
+		}
+		return scanBuffer.get((int) (offset - scanBufferStart));
+	}
+
+	private String decode(long start, long end) throws IOException
+	{
+		if (end - start > Integer.MAX_VALUE)
+		{
+			throw
+				new JRRuntimeException(
+					JRCsvDataSource.EXCEPTION_MESSAGE_KEY_RECORD_TOO_LARGE,
+					new Object[]{start});
+		}
+
+		ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		// replaces malformed input just like InputStreamReader
+		return charset.decode(bytes).toString();
+	}
+
+	/**
+	 * Called on the pool threads.
+	 */
+	protected CsvChunk parseChunk(long start, long end, JRCsvDataSource converter)
+	{
+		try
+		{
+			String text = decode(start, end);
+			CsvRowParser.TextRowReader rowReader = new CsvRowParser.TextRowReader(text, recordDelimiter);
+
+			List<List<String>> records = new ArrayList<List<String>>();
+			int valueCount = columnCount;
+			List<String> record;
+			while ((record = rowParser.parseRow(rowReader, columnCount)) != null)
+			{
+				records.add(record);
+				valueCount = Math.max(valueCount, record.size());
+			}
+
+			String[][] columns = new String[valueCount][records.size()];
+			for (int i = 0; i < records.size(); i++)
+			{
+				record = records.get(i);
+				for (int j = 0; j < record.size(); j++)
+				{
+					columns[j][i] = record.get(j);
+				}
+			}
+
+			Object[][] fieldValues = new Object[fieldColumns.length][];
+			for (int field = 0; field < fieldColumns.length; field++)
+			{
+				int column = fieldColumns[field];
+				if (column >= 0 && column < valueCount)
+				{
+					String[] columnValues = columns[column];
+					Object[] values = new Object[columnValues.length];
+					for (int i = 0; i < columnValues.length; i++)
+					{
+						String value = columnValues[i];
+						if (value != null)
+						{
+							try
+							{
+								values[i] = converter.convertFieldValue(fields[field], value);
+							}
+							catch (JRException e)
+							{
+								// thrown when the value is requested
+								values[i] = e;
+							}
+						}
+					}
+					fieldValues[field] = values;
+				}
+			}
+
+			return new CsvChunk(records.size(), columns, fieldValues);
+		}
+		catch (IOException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+		catch (JRException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+	}
+
+	private CsvChunk joinChunk(ForkJoinTask<CsvChunk> task) throws JRException
+	{
+		try
+		{
+			return task.join();
+		}
+		catch (JRRuntimeException e)
+		{
+			// the pool might wrap the exception thrown by the task
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+			{
+				if (cause instanceof JRException)
+				{
+					throw (JRException) cause;
+				}
+			}
+			throw e;
+		}
+	}
+
+	void close()
+	{
+		for (ForkJoinTask<?> task : pendingChunks)
+		{
+			task.cancel(false);
+		}
+		pendingChunks.clear();
+
+		if (pool != null)
+		{
+			pool.shutdown();
+			pool = null;
+		}
+
+		scanBuffer = null;
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			//nothing to do
+		}
+	}
+
+	/**
+	 * Records parsed from a chunk of the file.
+	 */
+	static class CsvChunk
+	{
+		private final int recordCount;
+		private final String[][] columns;
+		private final Object[][] fieldValues;
+
+		CsvChunk(int recordCount, String[][] columns, Object[][] fieldValues)
+		{
+			this.recordCount = recordCount;
+			this.columns = columns;
+			this.fieldValues = fieldValues;
+		}
+
+		int getRecordCount()
+		{
+			return recordCount;
+		}
+
+		/**
+		 * Returns the value of a column in a record, or <code>null</code> if the record does not have the column.
+		 */
+		String getColumnValue(int column, int record)
+		{
+			return column < columns.length ? columns[column][record] : null;
+		}
+
+		/**
+		 * Determines whether the values of a field have been converted by the pool task.
+		 */
+		boolean hasFieldValues(int field)
+		{
+			return fieldValues[field] != null;
+		}
+
+		Object getFieldValue(int field, int record) throws JRException
+		{
+			Object value = fieldValues[field][record];
+			if (value instanceof JRException)
+			{
+				throw (JRException) value;
+			}
+			return value;
+		}
+	}
+
+}
@@ -0,0 +1,462 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.JsonUtil;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+
+/**
+ * JSON data source implementation that reads the JSON input as a stream of tokens
+ * instead of loading it into a tree.
+ * <p/>
+ * Only the node of the current record is materialized, field expressions being evaluated on it
+ * the same way {@link JsonDataSource} does.
+ * The select expression is restricted to a simple path of property names separated by dots,
+ * array indexes and attribute selections are not supported.
+ * 
+ * @see JsonDataSource
+ */
+public class StreamingJsonDataSource extends JRAbstractTextDataSource implements JsonData<JsonDataSource>
+{
+	
+	private static final Log log = LogFactory.getLog(StreamingJsonDataSource.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION = "data.json.streaming.unsupported.expression";
+	public static final String EXCEPTION_MESSAGE_KEY_CANNOT_MOVE_FIRST = "data.json.streaming.cannot.move.first";
+	
+	private static final String PROPERTY_SEPARATOR = ".";
+
+	private final String selectExpression;
+	private final String[] path;
+	
+	private File file;
+	private RepositoryContext repositoryContext;
+	private String location;
+	private InputStream inputStream;
+	private boolean inputStreamUsed;
+	
+	private final ObjectMapper mapper;
+	private final JsonDataSource recordEvaluator;
+	
+	private JsonParser parser;
+	private List<Frame> frames;
+	private boolean started;
+	private JsonNode currentNode;
+	
+	public StreamingJsonDataSource(InputStream jsonStream) throws JRException
+	{
+		this(jsonStream, null);
+	}
+	
+	public StreamingJsonDataSource(InputStream jsonStream, String selectExpression) throws JRException
+	{
+		this(selectExpression);
+		
+		this.inputStream = jsonStream;
+	}
+	
+	public StreamingJsonDataSource(File file) throws JRException
+	{
+		this(file, null);
+	}
+	
+	public StreamingJsonDataSource(File file, String selectExpression) throws JRException
+	{
+		this(selectExpression);
+		
+		this.file = file;
+	}
+
+	/**
+	 * Creates a data source instance that reads JSON data from a given location
+	 * @param jasperReportsContext the JasperReportsContext
+	 * @param location a String representing JSON data source
+	 * @param selectExpression a String representing the select expression
+	 */
+	public StreamingJsonDataSource(JasperReportsContext jasperReportsContext, String location, String selectExpression) throws JRException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location, selectExpression);
+	}
+	
+	public StreamingJsonDataSource(RepositoryContext repositoryContext, String location, String selectExpression) throws JRException
+	{
+		this(selectExpression);
+		
+		this.repositoryContext = repositoryContext;
+		this.location = location;
+	}
+
+	/**
+	 * @see #StreamingJsonDataSource(JasperReportsContext, String, String)
+	 */
+	public StreamingJsonDataSource(String location, String selectExpression) throws JRException 
+	{
+		this(DefaultJasperReportsContext.getInstance(), location, selectExpression);
+	}
+	
+	private StreamingJsonDataSource(String selectExpression) throws JRException
+	{
+		if (!isSupportedExpression(selectExpression))
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION,
+					new Object[]{selectExpression});
+		}
+		
+		this.selectExpression = selectExpression;
+		this.path = parsePath(selectExpression);
+		
+		this.mapper = JsonUtil.createObjectMapper();
+		this.recordEvaluator = new JsonDataSource(mapper.createObjectNode(), null);
+	}
+	
+	/**
+	 * Determines whether a select expression can be used with a streaming data source.
+	 * 
+	 * @param selectExpression the select expression
+	 * @return whether the expression consists only of property names separated by dots
+	 */
+	public static boolean isSupportedExpression(String selectExpression)
+	{
+		if (selectExpression == null)
+		{
+			return true;
+		}
+		
+		for (int i = 0; i < selectExpression.length(); i++)
+		{
+			char c = selectExpression.charAt(i);
+			if (c == '[' || c == ']' || c == '(' || c == ')')
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static String[] parsePath(String selectExpression)
+	{
+		if (selectExpression == null)
+		{
+			return new String[0];
+		}
+		
+		StringTokenizer tokenizer = new StringTokenizer(selectExpression, PROPERTY_SEPARATOR);
+		String[] tokens = new String[tokenizer.countTokens()];
+		for (int i = 0; i < tokens.length; i++)
+		{
+			tokens[i] = tokenizer.nextToken();
+		}
+		return tokens;
+	}
+
+	@Override
+	public void moveFirst() throws JRException
+	{
+		if (inputStream != null && inputStreamUsed)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MOVE_FIRST,
+					(Object[])null);
+		}
+		
+		close();
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		try
+		{
+			if (parser == null)
+			{
+				open();
+			}
+			
+			currentNode = nextRecord();
+			return currentNode != null;
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+	}
+
+	protected void open() throws JRException, IOException
+	{
+		InputStream jsonStream;
+		if (file != null)
+		{
+			try
+			{
+				jsonStream = new FileInputStream(file);
+			}
+			catch (FileNotFoundException e)
+			{
+				throw new JRException(e);
+			}
+		}
+		else if (location != null)
+		{
+			jsonStream = RepositoryUtil.getInstance(repositoryContext).getInputStreamFromLocation(location);
+		}
+		else
+		{
+			if (inputStreamUsed)
+			{
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_CANNOT_MOVE_FIRST,
+						(Object[])null);
+			}
+			
+			jsonStream = inputStream;
+			inputStreamUsed = true;
+		}
+		
+		parser = mapper.getFactory().createParser(jsonStream);
+		frames = new ArrayList<Frame>();
+		started = false;
+		
+		recordEvaluator.setTextAttributes(this);
+	}
+	
+	protected JsonNode nextRecord() throws IOException
+	{
+		while (true)
+		{
+			JsonNode record = null;
+			if (frames.isEmpty())
+			{
+				if (started)
+				{
+					// only the first root value is read, as the tree model does
+					return null;
+				}
+				
+				started = true;
+				JsonToken token = parser.nextToken();
+				if (token == null)
+				{
+					return null;
+				}
+				
+				record = readValue(token, 0, false, false);
+			}
+			else
+			{
+				Frame frame = frames.get(frames.size() - 1);
+				JsonToken token = parser.nextToken();
+				if (token == null)
+				{
+					// truncated input
+					frames.clear();
+					return null;
+				}
+				
+				if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT)
+				{
+					frames.remove(frames.size() - 1);
+				}
+				else if (frame.array)
+				{
+					record = readValue(token, frame.depth, true, true);
+				}
+				else
+				{
+					// the token is a field name
+					String fieldName = parser.getCurrentName();
+					JsonToken valueToken = parser.nextToken();
+					if (path[frame.depth].equals(fieldName))
+					{
+						record = readValue(valueToken, frame.depth + 1, false, frame.inArray);
+					}
+					else
+					{
+						parser.skipChildren();
+					}
+				}
+			}
+			
+			if (record != null)
+			{
+				return record;
+			}
+		}
+	}
+	
+	/**
+	 * Processes a value found while going down the select path.
+	 * <p/>
+	 * The logic follows {@link JsonDataSource#getJsonData(JsonNode, String)}:
+	 * arrays found on the path are flattened, and once an array has been traversed
+	 * all the values found at the end of the path are records.
+	 * Otherwise only an object or the elements of an array are records.
+	 * 
+	 * @param token the current token, starting the value
+	 * @param depth the number of path elements consumed to reach the value
+	 * @param arrayElement whether the value is an element of an array
+	 * @param inArray whether an array was traversed to reach the value
+	 * @return the record node, if the value is a record
+	 */
+	private JsonNode readValue(JsonToken token, int depth, boolean arrayElement, boolean inArray) throws IOException
+	{
+		if (token == JsonToken.START_ARRAY && !arrayElement)
+		{
+			frames.add(new Frame(depth, true, true));
+			return null;
+		}
+		
+		if (depth == path.length)
+		{
+			if (token == JsonToken.START_OBJECT || inArray)
+			{
+				return mapper.readTree(parser);
+			}
+		}
+		else if (token == JsonToken.START_OBJECT)
+		{
+			frames.add(new Frame(depth, false, inArray));
+			return null;
+		}
+		
+		parser.skipChildren();
+		return null;
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		if (currentNode == null)
+		{
+			return null;
+		}
+		
+		recordEvaluator.setCurrentNode(currentNode);
+		return recordEvaluator.getFieldValue(jrField);
+	}
+
+	/**
+	 * Creates a tree based sub data source using the current record node.
+	 * 
+	 * @return the JSON sub data source
+	 * @throws JRException
+	 */
+	@Override
+	public JsonDataSource subDataSource() throws JRException
+	{
+		return subDataSource(null);
+	}
+
+	/**
+	 * Creates a tree based sub data source using the current record node.
+	 * An additional expression specifies the select criteria that will be applied to the
+	 * record node. 
+	 * 
+	 * @param selectExpression
+	 * @return the JSON sub data source
+	 * @throws JRException
+	 */
+	@Override
+	public JsonDataSource subDataSource(String selectExpression) throws JRException
+	{
+		if (currentNode == null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NODE_NOT_AVAILABLE,
+					(Object[])null);
+		}
+
+		JsonDataSource subDataSource = new JsonDataSource(currentNode, selectExpression);
+		subDataSource.setTextAttributes(this);
+		return subDataSource;
+	}
+	
+	/**
+	 * Closes the JSON input.
+	 */
+	public void close()
+	{
+		currentNode = null;
+		frames = null;
+		if (parser != null)
+		{
+			try
+			{
+				parser.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to close JSON parser", e);
+			}
+			parser = null;
+		}
+	}
+	
+	public String getSelectExpression()
+	{
+		return selectExpression;
+	}
+	
+	private static class Frame
+	{
+		final int depth;
+		final boolean array;
+		final boolean inArray;
+		
+		Frame(int depth, boolean array, boolean inArray)
+		{
+			this.depth = depth;
+			this.array = array;
+			this.inArray = inArray;
+		}
+	}
+}
@@ -0,0 +1,847 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.FormatUtils;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+
+/**
+ * This data source implementation reads an XLSX stream without loading the whole workbook in memory.
+ * <p>
+ * The sheets of the workbook are parsed as XML streams, one row at a time, using the package
+ * parts exposed by the POI event API.
+ * Shared strings are kept encoded in off-heap buffers and are only decoded for the cells
+ * whose values are retrieved.
+ * Cell values are read from the values cached in the file, formulas are not evaluated.
+ * </p>
+ * <p>
+ * Column names and indexes are mapped to fields as in {@link JRXlsxDataSource}.
+ * </p>
+ */
+public class StreamingXlsxDataSource extends AbstractXlsDataSource
+{
+	private static final Log log = LogFactory.getLog(StreamingXlsxDataSource.class);
+	
+	private static final byte CELL_NONE = 0;
+	private static final byte CELL_NUMERIC = 1;
+	private static final byte CELL_STRING = 2;
+	private static final byte CELL_SHARED_STRING = 3;
+	private static final byte CELL_BOOLEAN = 4;
+	private static final byte CELL_ERROR = 5;
+	private static final byte CELL_BLANK = 6;
+	
+	private File tempFile;
+	
+	private OPCPackage xlsxPackage;
+	private XSSFReader reader;
+	private XMLInputFactory xmlInputFactory;
+	
+	private List<String> sheetNames = new ArrayList<String>();
+	private List<String> sheetRelationIds = new ArrayList<String>();
+	private boolean date1904;
+	private SharedStrings sharedStrings;
+
+	private int sheetIndex = -1;
+	private InputStream sheetStream;
+	private XMLStreamReader sheetReader;
+	private int sheetRowCount;
+	private boolean headerRead;
+	
+	private int rowLength;
+	private byte[] cellTypes = new byte[16];
+	private String[] cellValues = new String[16];
+
+
+	/**
+	 * Creates a data source instance from an XLSX data input stream.
+	 * 
+	 * The stream is copied to a temporary file which is deleted when the data source is closed.
+	 * 
+	 * @param is an input stream containing XLSX data
+	 */
+	public StreamingXlsxDataSource(InputStream is) throws JRException, IOException
+	{
+		open(copyToTempFile(is));
+	}
+
+
+	/**
+	 * Creates a data source instance from an XLSX file.
+	 * @param file a file containing XLSX data
+	 */
+	public StreamingXlsxDataSource(File file) throws JRException, IOException
+	{
+		open(file);
+	}
+
+	
+	/**
+	 * Creates a data source instance that reads XLSX data from a given location.
+	 * @param jasperReportsContext the JasperReportsContext
+	 * @param location a String representing XLSX data source
+	 */
+	public StreamingXlsxDataSource(JasperReportsContext jasperReportsContext, String location) throws JRException, IOException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location);
+	}
+
+	public StreamingXlsxDataSource(RepositoryContext context, String location) throws JRException, IOException
+	{
+		try (InputStream is = RepositoryUtil.getInstance(context).getInputStreamFromLocation(location))
+		{
+			open(copyToTempFile(is));
+		}
+	}
+	
+	/**
+	 * @see #StreamingXlsxDataSource(JasperReportsContext, String)
+	 */
+	public StreamingXlsxDataSource(String location) throws JRException, IOException
+	{
+		this(DefaultJasperReportsContext.getInstance(), location);
+	}
+
+
+	protected File copyToTempFile(InputStream is) throws IOException
+	{
+		tempFile = File.createTempFile("jr_xlsx_", ".xlsx");
+		try (OutputStream out = new FileOutputStream(tempFile))
+		{
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = is.read(buffer)) > 0)
+			{
+				out.write(buffer, 0, read);
+			}
+		}
+		catch (IOException e)
+		{
+			deleteTempFile();
+			throw e;
+		}
+		return tempFile;
+	}
+
+
+	protected void open(File file) throws JRException
+	{
+		xmlInputFactory = XMLInputFactory.newInstance();
+		xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		
+		try
+		{
+			xlsxPackage = OPCPackage.open(file, PackageAccess.READ);
+			reader = new XSSFReader(xlsxPackage);
+			
+			readWorkbook();
+			readSharedStrings();
+		}
+		catch (IOException | OpenXML4JException | XMLStreamException | RuntimeException e)
+		{
+			close();
+			throw new JRException(e);
+		}
+	}
+
+
+	protected void readWorkbook() throws IOException, OpenXML4JException, XMLStreamException
+	{
+		try (InputStream workbookStream = reader.getWorkbookData())
+		{
+			XMLStreamReader workbookReader = xmlInputFactory.createXMLStreamReader(workbookStream);
+			try
+			{
+				while (workbookReader.hasNext())
+				{
+					if (workbookReader.next() == XMLStreamConstants.START_ELEMENT)
+					{
+						String name = workbookReader.getLocalName();
+						if ("workbookPr".equals(name))
+						{
+							String date1904Value = workbookReader.getAttributeValue(null, "date1904");
+							date1904 = "1".equals(date1904Value) || "true".equals(date1904Value);
+						}
+						else if ("sheet".equals(name))
+						{
+							sheetNames.add(workbookReader.getAttributeValue(null, "name"));
+							sheetRelationIds.add(getRelationId(workbookReader));
+						}
+					}
+				}
+			}
+			finally
+			{
+				workbookReader.close();
+			}
+		}
+	}
+
+
+	private String getRelationId(XMLStreamReader xmlReader)
+	{
+		for (int i = 0; i < xmlReader.getAttributeCount(); i++)
+		{
+			if ("id".equals(xmlReader.getAttributeLocalName(i)))
+			{
+				return xmlReader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+
+	protected void readSharedStrings() throws IOException, OpenXML4JException, XMLStreamException
+	{
+		sharedStrings = new SharedStrings();
+		
+		InputStream stringsStream = reader.getSharedStringsData();
+		if (stringsStream == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			XMLStreamReader stringsReader = xmlInputFactory.createXMLStreamReader(stringsStream);
+			try
+			{
+				while (stringsReader.hasNext())
+				{
+					if (stringsReader.next() == XMLStreamConstants.START_ELEMENT
+							&& "si".equals(stringsReader.getLocalName()))
+					{
+						sharedStrings.add(readText(stringsReader, "si"));
+					}
+				}
+			}
+			finally
+			{
+				stringsReader.close();
+			}
+		}
+		finally
+		{
+			stringsStream.close();
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("read " + sharedStrings.size() + " shared strings");
+		}
+	}
+
+
+	/**
+	 * Reads the text of a string item, which can either be a single text element or several text runs.
+	 * Phonetic runs are ignored.
+	 */
+	private String readText(XMLStreamReader xmlReader, String endElement) throws XMLStreamException
+	{
+		String text = null;
+		StringBuilder textBuilder = null;
+		int phoneticDepth = 0;
+		while (xmlReader.hasNext())
+		{
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String name = xmlReader.getLocalName();
+				if ("t".equals(name))
+				{
+					String value = xmlReader.getElementText();
+					if (phoneticDepth == 0)
+					{
+						if (text == null)
+						{
+							text = value;
+						}
+						else
+						{
+							if (textBuilder == null)
+							{
+								textBuilder = new StringBuilder(text);
+							}
+							textBuilder.append(value);
+						}
+					}
+				}
+				else if ("rPh".equals(name))
+				{
+					++phoneticDepth;
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				String name = xmlReader.getLocalName();
+				if (endElement.equals(name))
+				{
+					break;
+				}
+				if ("rPh".equals(name))
+				{
+					--phoneticDepth;
+				}
+			}
+		}
+		return textBuilder != null ? textBuilder.toString() : (text == null ? "" : text);
+	}
+
+
+	@Override
+	public boolean next() throws JRException
+	{
+		if (xlsxPackage == null)
+		{
+			return false;
+		}
+		
+		try
+		{
+			if (sheetIndex < 0)
+			{
+				sheetIndex = getFirstSheetIndex();
+				openSheet();
+			}
+			
+			while (true)
+			{
+				if (sheetReader != null && readRow())
+				{
+					if (sheetRowCount == 1 && useFirstRowAsHeader 
+							&& (sheetSelection != null || sheetIndex == 0))
+					{
+						if (!headerRead)
+						{
+							readHeader();
+							headerRead = true;
+						}
+						continue;
+					}
+					return true;
+				}
+				
+				closeSheet();
+				
+				// when no sheet is selected, all sheets are read
+				if (sheetSelection != null || sheetIndex + 1 >= sheetRelationIds.size())
+				{
+					return false;
+				}
+				
+				++sheetIndex;
+				openSheet();
+			}
+		}
+		catch (IOException | OpenXML4JException | XMLStreamException e)
+		{
+			throw new JRException(e);
+		}
+	}
+
+
+	protected int getFirstSheetIndex()
+	{
+		if (sheetSelection == null)
+		{
+			return 0;
+		}
+		
+		int index = -1;
+		try
+		{
+			index = Integer.parseInt(sheetSelection);
+			if (index < 0 || index > sheetRelationIds.size() - 1)
+			{
+				throw 
+					new JRRuntimeException(
+						EXCEPTION_MESSAGE_KEY_XLS_SHEET_INDEX_OUT_OF_RANGE,
+						new Object[]{index, (sheetRelationIds.size() - 1)});
+			}
+		}
+		catch (NumberFormatException e)
+		{
+		}
+		
+		if (index < 0)
+		{
+			index = sheetNames.indexOf(sheetSelection);
+			if (index < 0)
+			{
+				throw 
+					new JRRuntimeException(
+						EXCEPTION_MESSAGE_KEY_XLS_SHEET_NOT_FOUND,
+						new Object[]{sheetSelection});
+			}
+		}
+		return index;
+	}
+
+
+	protected void openSheet() throws IOException, OpenXML4JException, XMLStreamException
+	{
+		sheetRowCount = 0;
+		if (sheetIndex < sheetRelationIds.size())
+		{
+			sheetStream = reader.getSheet(sheetRelationIds.get(sheetIndex));
+			sheetReader = xmlInputFactory.createXMLStreamReader(sheetStream);
+		}
+	}
+
+
+	protected void closeSheet()
+	{
+		if (sheetReader != null)
+		{
+			try
+			{
+				sheetReader.close();
+			}
+			catch (XMLStreamException e)
+			{
+				//nothing to do
+			}
+			sheetReader = null;
+		}
+		
+		if (sheetStream != null)
+		{
+			try
+			{
+				sheetStream.close();
+			}
+			catch (IOException e)
+			{
+				//nothing to do
+			}
+			sheetStream = null;
+		}
+	}
+
+
+	private boolean readRow() throws XMLStreamException
+	{
+		while (sheetReader.hasNext())
+		{
+			if (sheetReader.next() == XMLStreamConstants.START_ELEMENT
+					&& "row".equals(sheetReader.getLocalName()))
+			{
+				Arrays.fill(cellTypes, 0, rowLength, CELL_NONE);
+				Arrays.fill(cellValues, 0, rowLength, null);
+				rowLength = 0;
+				
+				readCells();
+				++sheetRowCount;
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private void readCells() throws XMLStreamException
+	{
+		int nextColumn = 0;
+		while (sheetReader.hasNext())
+		{
+			int event = sheetReader.next();
+			if (event == XMLStreamConstants.END_ELEMENT && "row".equals(sheetReader.getLocalName()))
+			{
+				break;
+			}
+			
+			if (event == XMLStreamConstants.START_ELEMENT && "c".equals(sheetReader.getLocalName()))
+			{
+				String reference = sheetReader.getAttributeValue(null, "r");
+				int column = reference == null ? nextColumn : getColumnIndex(reference);
+				byte type = getCellType(sheetReader.getAttributeValue(null, "t"));
+				
+				String value = null;
+				while (sheetReader.hasNext())
+				{
+					event = sheetReader.next();
+					if (event == XMLStreamConstants.START_ELEMENT)
+					{
+						String name = sheetReader.getLocalName();
+						if ("v".equals(name))
+						{
+							value = sheetReader.getElementText();
+						}
+						else if ("is".equals(name))
+						{
+							value = readText(sheetReader, "is");
+						}
+					}
+					else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(sheetReader.getLocalName()))
+					{
+						break;
+					}
+				}
+				
+				setCell(column, value == null ? CELL_BLANK : type, value);
+				nextColumn = column + 1;
+			}
+		}
+	}
+
+
+	private static int getColumnIndex(String reference)
+	{
+		int column = 0;
+		for (int i = 0; i < reference.length(); i++)
+		{
+			char c = reference.charAt(i);
+			if (c < 'A' || c > 'Z')
+			{
+				break;
+			}
+			column = column * 26 + (c - 'A' + 1);
+		}
+		return column - 1;
+	}
+
+
+	private static byte getCellType(String type)
+	{
+		if (type == null || "n".equals(type))
+		{
+			return CELL_NUMERIC;
+		}
+		switch (type)
+		{
+			case "s":
+				return CELL_SHARED_STRING;
+			case "str":
+			case "inlineStr":
+				return CELL_STRING;
+			case "b":
+				return CELL_BOOLEAN;
+			case "e":
+				return CELL_ERROR;
+			default:
+				return CELL_NUMERIC;
+		}
+	}
+
+
+	private void setCell(int column, byte type, String value)
+	{
+		if (column < 0)
+		{
+			return;
+		}
+		
+		if (column >= cellTypes.length)
+		{
+			int newLength = Math.max(cellTypes.length * 2, column + 1);
+			cellTypes = Arrays.copyOf(cellTypes, newLength);
+			cellValues = Arrays.copyOf(cellValues, newLength);
+		}
+		
+		cellTypes[column] = type;
+		cellValues[column] = value;
+		if (column >= rowLength)
+		{
+			rowLength = column + 1;
+		}
+	}
+
+
+	private String getCellText(int column)
+	{
+		String value = cellValues[column];
+		switch (cellTypes[column])
+		{
+			case CELL_SHARED_STRING:
+				return sharedStrings.get(Integer.parseInt(value.trim()));
+			case CELL_BLANK:
+				return "";
+			default:
+				return value;
+		}
+	}
+
+
+	@Override
+	public void moveFirst()
+	{
+		closeSheet();
+		this.sheetIndex = -1;
+	}
+
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		Class<?> valueClass = jrField.getValueClass();
+		try 
+		{
+			int columnIndex = getColumnIndex(jrField);
+			byte cellType = columnIndex < rowLength ? cellTypes[columnIndex] : CELL_NONE;
+			if (cellType == CELL_NONE || cellType == CELL_ERROR)
+			{
+				return null;
+			}
+			
+			String value = getCellText(columnIndex);
+			if (valueClass.equals(String.class)) 
+			{
+				return value;
+			}
+			
+			if (value.trim().length() == 0)
+			{
+				return null;
+			}
+			
+			if (valueClass.equals(Boolean.class)) 
+			{
+				if (cellType == CELL_BOOLEAN)
+				{
+					return "1".equals(value) || "true".equalsIgnoreCase(value);
+				}
+				return convertStringValue(value, valueClass);
+			}
+			else if (Number.class.isAssignableFrom(valueClass))
+			{
+				if (cellType == CELL_NUMERIC)
+				{
+					return convertNumber(Double.parseDouble(value), valueClass);
+				}
+				if (numberFormat != null)
+				{
+					return FormatUtils.getFormattedNumber(numberFormat, value, valueClass);
+				}
+				return convertStringValue(value, valueClass);
+			}
+			else if (Date.class.isAssignableFrom(valueClass))
+			{
+				if (cellType == CELL_NUMERIC)
+				{
+					return DateUtil.getJavaDate(Double.parseDouble(value), date1904);
+				}
+				if (dateFormat != null)
+				{
+					return FormatUtils.getFormattedDate(dateFormat, value, valueClass);
+				}
+				return convertStringValue(value, valueClass);
+			}
+			else
+			{
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_CANNOT_CONVERT_FIELD_TYPE,
+						new Object[]{jrField.getName(), valueClass.getName()});
+			}
+		}
+		catch (Exception e) 
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_XLS_FIELD_VALUE_NOT_RETRIEVED,
+					new Object[]{jrField.getName(), valueClass.getName()}, 
+					e);
+		}
+	}
+
+
+	/**
+	 *
+	 */
+	private void readHeader()
+	{
+		if (columnNames.size() == 0)
+		{
+			for (int columnIndex = 0; columnIndex < rowLength; columnIndex++)
+			{
+				if (cellTypes[columnIndex] == CELL_NONE)
+				{
+					columnNames.put("COLUMN_" + columnIndex, columnIndex);
+				}
+				else
+				{
+					columnNames.put(getCellText(columnIndex), columnIndex);
+				}
+			}
+		}
+		else
+		{
+			Map<String, Integer> newColumnNames = new LinkedHashMap<String, Integer>();
+			for (Integer columnIndex : columnNames.values())
+			{
+				if (columnIndex < rowLength && cellTypes[columnIndex] != CELL_NONE)
+				{
+					newColumnNames.put(getCellText(columnIndex), columnIndex);
+				}
+			}
+			columnNames = newColumnNames;
+		}
+	}
+
+
+	/**
+	 * Closes the reader. Users of this data source should close it after usage.
+	 */
+	@Override
+	public void close()
+	{
+		closeSheet();
+		
+		if (xlsxPackage != null)
+		{
+			// the package is opened read only, nothing to save
+			xlsxPackage.revert();
+			xlsxPackage = null;
+		}
+		
+		if (sharedStrings != null)
+		{
+			sharedStrings.dispose();
+		}
+		
+		deleteTempFile();
+	}
+
+
+	private void deleteTempFile()
+	{
+		if (tempFile != null)
+		{
+			if (!tempFile.delete() && log.isDebugEnabled())
+			{
+				log.debug("could not delete temporary file " + tempFile);
+			}
+			tempFile = null;
+		}
+	}
+
+
+	@Override
+	protected void checkReadStarted()
+	{
+		if (sheetIndex >= 0)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MODIFY_PROPERTIES_AFTER_START,
+					(Object[])null);
+		}
+	}
+	
+	
+	/**
+	 * Shared strings table that keeps the UTF-8 encoded strings in direct buffers.
+	 */
+	private static class SharedStrings
+	{
+		private static final int CHUNK_SIZE = 1 << 20;
+		
+		private List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+		private ByteBuffer currentChunk;
+		private long[] positions = new long[256];
+		private int count;
+		
+		public void add(String text)
+		{
+			byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+			int length = bytes.length + 4;
+			if (currentChunk == null || currentChunk.remaining() < length)
+			{
+				currentChunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, length));
+				chunks.add(currentChunk);
+			}
+			
+			if (count == positions.length)
+			{
+				positions = Arrays.copyOf(positions, count * 2);
+			}
+			positions[count++] = (((long) chunks.size() - 1) << 32) | currentChunk.position();
+			
+			currentChunk.putInt(bytes.length);
+			currentChunk.put(bytes);
+		}
+		
+		public String get(int index)
+		{
+			if (index < 0 || index >= count)
+			{
+				throw new IndexOutOfBoundsException("Shared string index " + index + " out of range " + count);
+			}
+			
+			long position = positions[index];
+			ByteBuffer chunk = chunks.get((int) (position >>> 32)).duplicate();
+			chunk.position((int) position);
+			byte[] bytes = new byte[chunk.getInt()];
+			chunk.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		
+		public int size()
+		{
+			return count;
+		}
+		
+		public void dispose()
+		{
+			chunks.clear();
+			currentChunk = null;
+			count = 0;
+		}
+	}
+}
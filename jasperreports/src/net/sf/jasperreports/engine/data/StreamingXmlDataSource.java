@@ -0,0 +1,597 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.JRXmlUtils;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+
+/**
+ * XML data source implementation that reads the XML input as a stream of events
+ * instead of loading it into a document.
+ * <p/>
+ * Only the element of the current record is materialized, as the root of a small document.
+ * Field expressions are XPath expressions evaluated on the record element the same way
+ * {@link JRXmlDataSource} does, but they cannot select nodes outside the record element.
+ * <p/>
+ * The select expression is restricted to an absolute path of element names, such as <code>/A/B</code>,
+ * where each step can have a single predicate that is either a position (<code>/A/B[2]</code>),
+ * an attribute test (<code>/A/B[@id]</code>) or an attribute value comparison (<code>/A/B[@id='1']</code>).
+ * The <code>*</code> wildcard can be used as element name.
+ * Other expressions require the full document and are supported by {@link JRXmlDataSource}.
+ * @see JRXmlDataSource
+ */
+public class StreamingXmlDataSource extends JRAbstractTextDataSource implements JRRewindableDataSource, HierarchicalDataSource<JRXmlDataSource>
+{
+
+	private static final Log log = LogFactory.getLog(StreamingXmlDataSource.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION = "data.xml.streaming.unsupported.expression";
+	public static final String EXCEPTION_MESSAGE_KEY_CANNOT_MOVE_FIRST = "data.xml.streaming.cannot.move.first";
+
+	private static final String NAME_PATTERN = "[A-Za-z_][\\w.\\-]*";
+	private static final Pattern STEP_PATTERN = Pattern.compile(
+			"(\\*|" + NAME_PATTERN + ")"
+			+ "(?:\\[\\s*(?:(\\d+)|@(" + NAME_PATTERN + ")(?:\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\"))?)\\s*\\])?");
+
+	private final String selectExpression;
+	private final Step[] steps;
+
+	private File file;
+	private RepositoryContext repositoryContext;
+	private String location;
+	private InputStream inputStream;
+	private boolean inputStreamUsed;
+
+	private final XMLInputFactory xmlInputFactory;
+	private final JRXmlDataSource recordEvaluator;
+
+	private InputStream xmlStream;
+	private XMLStreamReader reader;
+	private DocumentBuilder documentBuilder;
+	private List<Frame> frames;
+	private Element currentRecord;
+
+	public StreamingXmlDataSource(InputStream xmlStream, String selectExpression) throws JRException
+	{
+		this(DefaultJasperReportsContext.getInstance(), selectExpression);
+
+		this.inputStream = xmlStream;
+	}
+
+	public StreamingXmlDataSource(JasperReportsContext jasperReportsContext, InputStream xmlStream, String selectExpression) throws JRException
+	{
+		this(jasperReportsContext, selectExpression);
+
+		this.inputStream = xmlStream;
+	}
+
+	public StreamingXmlDataSource(File file, String selectExpression) throws JRException
+	{
+		this(DefaultJasperReportsContext.getInstance(), file, selectExpression);
+	}
+
+	public StreamingXmlDataSource(JasperReportsContext jasperReportsContext, File file, String selectExpression) throws JRException
+	{
+		this(jasperReportsContext, selectExpression);
+
+		this.file = file;
+	}
+
+	/**
+	 * Creates a data source instance that reads XML data from a given location
+	 * @param jasperReportsContext the JasperReportsContext
+	 * @param location a String representing XML data source
+	 * @param selectExpression a String representing the select expression
+	 */
+	public StreamingXmlDataSource(JasperReportsContext jasperReportsContext, String location, String selectExpression) throws JRException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location, selectExpression);
+	}
+
+	public StreamingXmlDataSource(RepositoryContext repositoryContext, String location, String selectExpression) throws JRException
+	{
+		this(repositoryContext.getJasperReportsContext(), selectExpression);
+
+		this.repositoryContext = repositoryContext;
+		this.location = location;
+	}
+
+	/**
+	 * @see #StreamingXmlDataSource(JasperReportsContext, String, String)
+	 */
+	public StreamingXmlDataSource(String location, String selectExpression) throws JRException
+	{
+		this(DefaultJasperReportsContext.getInstance(), location, selectExpression);
+	}
+
+	private StreamingXmlDataSource(JasperReportsContext jasperReportsContext, String selectExpression) throws JRException
+	{
+		this.steps = parseSteps(selectExpression);
+		if (steps == null)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION,
+					new Object[]{selectExpression});
+		}
+
+		this.selectExpression = selectExpression;
+
+		this.xmlInputFactory = XMLInputFactory.newInstance();
+		this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		// same as the default of JRXmlDataSource
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+		this.recordEvaluator = new JRXmlDataSource(jasperReportsContext,
+				JRXmlUtils.createDocumentBuilder().newDocument(), ".");
+	}
+
+	/**
+	 * Determines whether a select expression can be used with a streaming data source.
+	 *
+	 * @param selectExpression the select expression
+	 * @return whether the expression is an absolute path of element names with simple predicates
+	 */
+	public static boolean isSupportedExpression(String selectExpression)
+	{
+		return parseSteps(selectExpression) != null;
+	}
+
+	private static Step[] parseSteps(String selectExpression)
+	{
+		if (selectExpression == null)
+		{
+			return null;
+		}
+
+		String expression = selectExpression.trim();
+		List<Step> steps = new ArrayList<Step>();
+		Matcher matcher = STEP_PATTERN.matcher(expression);
+		int position = 0;
+		while (position < expression.length())
+		{
+			if (expression.charAt(position) != '/')
+			{
+				return null;
+			}
+
+			matcher.region(position + 1, expression.length());
+			if (!matcher.lookingAt())
+			{
+				// also rejects descendant and axis selections
+				return null;
+			}
+
+			String name = matcher.group(1);
+			String index = matcher.group(2);
+			String attributeValue = matcher.group(4) == null ? matcher.group(5) : matcher.group(4);
+			steps.add(new Step(
+					"*".equals(name) ? null : name,
+					index == null ? 0 : Integer.parseInt(index),
+					matcher.group(3),
+					attributeValue));
+
+			position = matcher.end();
+		}
+
+		return steps.isEmpty() ? null : steps.toArray(new Step[steps.size()]);
+	}
+
+	@Override
+	public void moveFirst() throws JRException
+	{
+		if (inputStream != null && inputStreamUsed)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MOVE_FIRST,
+					(Object[])null);
+		}
+
+		close();
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		try
+		{
+			if (reader == null)
+			{
+				open();
+			}
+
+			currentRecord = nextRecord();
+			return currentRecord != null;
+		}
+		catch (XMLStreamException e)
+		{
+			throw new JRException(e);
+		}
+	}
+
+	protected void open() throws JRException, XMLStreamException
+	{
+		if (file != null)
+		{
+			try
+			{
+				xmlStream = new FileInputStream(file);
+			}
+			catch (FileNotFoundException e)
+			{
+				throw new JRException(e);
+			}
+		}
+		else if (location != null)
+		{
+			xmlStream = RepositoryUtil.getInstance(repositoryContext).getInputStreamFromLocation(location);
+		}
+		else
+		{
+			if (inputStreamUsed)
+			{
+				throw
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_CANNOT_MOVE_FIRST,
+						(Object[])null);
+			}
+
+			// the input stream is closed by the caller
+			inputStreamUsed = true;
+			xmlStream = null;
+		}
+
+		reader = xmlInputFactory.createXMLStreamReader(xmlStream == null ? inputStream : xmlStream);
+		documentBuilder = JRXmlUtils.createDocumentBuilder();
+		frames = new ArrayList<Frame>();
+		// the document
+		frames.add(new Frame(0));
+
+		recordEvaluator.setTextAttributes(this);
+	}
+
+	protected Element nextRecord() throws XMLStreamException
+	{
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				Frame parent = frames.get(frames.size() - 1);
+				if (matches(steps[parent.matchedSteps], parent))
+				{
+					if (parent.matchedSteps + 1 == steps.length)
+					{
+						return readRecord();
+					}
+
+					frames.add(new Frame(parent.matchedSteps + 1));
+				}
+				else
+				{
+					skipElement();
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				// only the elements on the select path are not skipped
+				frames.remove(frames.size() - 1);
+			}
+		}
+		return null;
+	}
+
+	private boolean matches(Step step, Frame parent)
+	{
+		if (step.name != null && !step.name.equals(getName(reader.getPrefix(), reader.getLocalName())))
+		{
+			return false;
+		}
+
+		if (step.position > 0)
+		{
+			// positions count the siblings that match the name test
+			++parent.childCount;
+			return parent.childCount == step.position;
+		}
+
+		if (step.attributeName != null)
+		{
+			String value = getAttributeValue(step.attributeName);
+			return value != null && (step.attributeValue == null || step.attributeValue.equals(value));
+		}
+
+		return true;
+	}
+
+	private String getAttributeValue(String name)
+	{
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			if (name.equals(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i))))
+			{
+				return reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	private static String getName(String prefix, String localName)
+	{
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+
+	private void skipElement() throws XMLStreamException
+	{
+		int depth = 1;
+		while (depth > 0)
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				++depth;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				--depth;
+			}
+		}
+	}
+
+	/**
+	 * Reads the current element into a new document.
+	 * Comments and processing instructions are ignored, as done by {@link JRXmlUtils#createDocumentBuilder()}.
+	 */
+	private Element readRecord() throws XMLStreamException
+	{
+		Document document = documentBuilder.newDocument();
+		Element record = createElement(document);
+		document.appendChild(record);
+
+		Node current = record;
+		while (true)
+		{
+			int event = reader.next();
+			switch (event)
+			{
+				case XMLStreamConstants.START_ELEMENT:
+				{
+					Element element = createElement(document);
+					current.appendChild(element);
+					current = element;
+					break;
+				}
+				case XMLStreamConstants.END_ELEMENT:
+				{
+					if (current == record)
+					{
+						return record;
+					}
+					current = current.getParentNode();
+					break;
+				}
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+				{
+					current.appendChild(document.createTextNode(reader.getText()));
+					break;
+				}
+				case XMLStreamConstants.CDATA:
+				{
+					current.appendChild(document.createCDATASection(reader.getText()));
+					break;
+				}
+				default:
+				{
+					break;
+				}
+			}
+		}
+	}
+
+	private Element createElement(Document document)
+	{
+		Element element = document.createElement(getName(reader.getPrefix(), reader.getLocalName()));
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			element.setAttribute(
+					getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+					reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		if (currentRecord == null)
+		{
+			return null;
+		}
+
+		recordEvaluator.setCurrentNode(currentRecord);
+		return recordEvaluator.getFieldValue(jrField);
+	}
+
+	/**
+	 * Returns the element of the current record.
+	 * The element is the root of a document that only contains the record.
+	 *
+	 * @return the current record element
+	 */
+	public Node getCurrentNode()
+	{
+		return currentRecord;
+	}
+
+	/**
+	 * Creates a document based sub data source using the current record element.
+	 * The data source will contain exactly one record consisting of the document node itself.
+	 *
+	 * @return the XML sub data source
+	 * @throws JRException
+	 */
+	@Override
+	public JRXmlDataSource subDataSource() throws JRException
+	{
+		return subDataSource(".");
+	}
+
+	/**
+	 * Creates a document based sub data source using the current record element as the root
+	 * of the document. An additional XPath expression specifies the select criteria applied to
+	 * this new document and that produces the nodes (records) for the data source.
+	 *
+	 * @param selectExpr the XPath select expression
+	 * @return the XML sub data source
+	 * @throws JRException
+	 * @see JRXmlDataSource#subDataSource(String)
+	 */
+	@Override
+	public JRXmlDataSource subDataSource(String selectExpr) throws JRException
+	{
+		JRXmlDataSource subDataSource = new JRXmlDataSource(subDocument(), selectExpr);
+		subDataSource.setTextAttributes(this);
+		return subDataSource;
+	}
+
+	/**
+	 * Creates a document using the current record element as root.
+	 *
+	 * @return a document having the current record element as root
+	 * @throws JRException
+	 */
+	public Document subDocument() throws JRException
+	{
+		if (currentRecord == null)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NODE_NOT_AVAILABLE,
+					(Object[])null);
+		}
+
+		return JRXmlUtils.createDocument(currentRecord);
+	}
+
+	/**
+	 * Closes the XML input.
+	 * Input streams passed to the data source are not closed.
+	 */
+	public void close()
+	{
+		currentRecord = null;
+		frames = null;
+		documentBuilder = null;
+		if (reader != null)
+		{
+			try
+			{
+				reader.close();
+			}
+			catch (XMLStreamException e)
+			{
+				log.warn("Failed to close XML reader", e);
+			}
+			reader = null;
+		}
+		if (xmlStream != null)
+		{
+			try
+			{
+				xmlStream.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to close XML input", e);
+			}
+			xmlStream = null;
+		}
+	}
+
+	public String getSelectExpression()
+	{
+		return selectExpression;
+	}
+
+	private static class Step
+	{
+		final String name;
+		final int position;
+		final String attributeName;
+		final String attributeValue;
+
+		Step(String name, int position, String attributeName, String attributeValue)
+		{
+			this.name = name;
+			this.position = position;
+			this.attributeName = attributeName;
+			this.attributeValue = attributeValue;
+		}
+	}
+
+	private static class Frame
+	{
+		final int matchedSteps;
+		int childCount;
+
+		Frame(int matchedSteps)
+		{
+			this.matchedSteps = matchedSteps;
+		}
+	}
+}
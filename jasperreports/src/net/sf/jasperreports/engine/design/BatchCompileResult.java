@@ -0,0 +1,126 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.design;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import net.sf.jasperreports.engine.JasperReport;
+
+/**
+ * The result of compiling a report design as part of a batch.
+ * @see net.sf.jasperreports.engine.JasperCompileManager#compile(java.util.List, int)
+ */
+public class BatchCompileResult
+{
+
+	private final JasperDesign jasperDesign;
+	private final JasperReport jasperReport;
+	private final Exception exception;
+
+	private BatchCompileResult(JasperDesign jasperDesign, JasperReport jasperReport, Exception exception)
+	{
+		this.jasperDesign = jasperDesign;
+		this.jasperReport = jasperReport;
+		this.exception = exception;
+	}
+
+	public static BatchCompileResult success(JasperDesign jasperDesign, JasperReport jasperReport)
+	{
+		return new BatchCompileResult(jasperDesign, jasperReport, null);
+	}
+
+	public static BatchCompileResult failure(JasperDesign jasperDesign, Exception exception)
+	{
+		return new BatchCompileResult(jasperDesign, null, exception);
+	}
+
+	/**
+	 * Returns the compiled report design.
+	 *
+	 * @return the report design
+	 */
+	public JasperDesign getJasperDesign()
+	{
+		return jasperDesign;
+	}
+
+	/**
+	 * Returns the compiled report, if the compilation was successful.
+	 *
+	 * @return the compiled report, or <code>null</code> if the compilation failed
+	 */
+	public JasperReport getJasperReport()
+	{
+		return jasperReport;
+	}
+
+	/**
+	 * Determines whether the report design was successfully compiled.
+	 *
+	 * @return whether the report design was successfully compiled
+	 */
+	public boolean isSuccessful()
+	{
+		return exception == null;
+	}
+
+	/**
+	 * Returns the exception that caused the compilation to fail.
+	 *
+	 * @return the compilation exception, or <code>null</code> if the compilation was successful
+	 */
+	public Exception getException()
+	{
+		return exception;
+	}
+
+	/**
+	 * Returns the faults that caused the compilation to fail.
+	 * <p>
+	 * If the report design failed the validation, the validation faults are returned.
+	 * For other failures, such as expression compile errors, a single fault having the
+	 * exception message and the report design as source is returned.
+	 *
+	 * @return the compilation faults, empty if the compilation was successful
+	 */
+	public Collection<JRValidationFault> getFaults()
+	{
+		if (exception == null)
+		{
+			return Collections.emptyList();
+		}
+
+		if (exception instanceof JRValidationException)
+		{
+			return ((JRValidationException) exception).getFaults();
+		}
+
+		JRValidationFault fault = new JRValidationFault();
+		fault.setMessage(exception.getMessage() == null ? exception.toString() : exception.getMessage());
+		fault.setSource(jasperDesign);
+		return Collections.singletonList(fault);
+	}
+
+}
@@ -0,0 +1,246 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.design;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+
+/**
+ * Directory based cache of report compilation results.
+ * <p>
+ * The cache entries are addressed by a digest of the source code generated for the report
+ * compilation units, along with the compiler class, the JasperReports version and the Java version.
+ * The random name suffix of the compilation units is left out of the digest, and the suffix used
+ * when the entry was created is stored with the entry so that the cached evaluator classes can be used
+ * for reports compiled later.
+ * @see JRCompiler#COMPILER_CACHE_DIR
+ */
+public class CompileDataCache
+{
+
+	private static final Log log = LogFactory.getLog(CompileDataCache.class);
+
+	private static final String FILE_EXTENSION = ".jrcache";
+
+	private final JasperReportsContext jasperReportsContext;
+	private final File cacheDir;
+
+	public CompileDataCache(JasperReportsContext jasperReportsContext, File cacheDir)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Returns the cache configured by {@link JRCompiler#COMPILER_CACHE_DIR} in a context.
+	 *
+	 * @param jasperReportsContext the context
+	 * @return the configured cache, or <code>null</code> if the compile results are not to be cached
+	 */
+	public static CompileDataCache getInstance(JasperReportsContext jasperReportsContext)
+	{
+		String cacheDirName = JRPropertiesUtil.getInstance(jasperReportsContext).getProperty(JRCompiler.COMPILER_CACHE_DIR);
+		if (cacheDirName == null || cacheDirName.trim().isEmpty())
+		{
+			return null;
+		}
+
+		File cacheDir = new File(cacheDirName);
+		if (!cacheDir.isDirectory() && !cacheDir.mkdirs())
+		{
+			log.warn("Report compile cache directory " + cacheDir + " could not be created");
+			return null;
+		}
+		return new CompileDataCache(jasperReportsContext, cacheDir);
+	}
+
+	/**
+	 * Computes the key of the cache entry for a set of compilation units.
+	 *
+	 * @param compilerClass the compiler class
+	 * @param units the compilation units that have source code
+	 * @param nameSuffix the name suffix of the compilation units
+	 * @param classpath the compilation classpath
+	 * @return the cache entry key
+	 */
+	public String createKey(Class<?> compilerClass, JRCompilationUnit[] units, String nameSuffix, String classpath)
+	{
+		MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+
+		update(digest, compilerClass.getName());
+		update(digest, String.valueOf(JRConstants.SERIAL_VERSION_UID));
+		update(digest, JasperReport.class.getPackage().getImplementationVersion());
+		update(digest, System.getProperty("java.specification.version"));
+		update(digest, classpath);
+		for (JRCompilationUnit unit : units)
+		{
+			update(digest, unit.getName().replace(nameSuffix, ""));
+			update(digest, unit.getSourceCode().replace(nameSuffix, ""));
+		}
+
+		StringBuilder key = new StringBuilder(64);
+		for (byte b : digest.digest())
+		{
+			key.append(Character.forDigit((b >> 4) & 0xF, 16));
+			key.append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	private static void update(MessageDigest digest, String value)
+	{
+		if (value != null)
+		{
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+		// separator
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Sets the cached compile data on the compilation units.
+	 *
+	 * @param key the cache entry key
+	 * @param units the compilation units that have source code
+	 * @return the name suffix of the cached compile data, or <code>null</code> if the entry was not found
+	 */
+	public String loadCompileData(String key, JRCompilationUnit[] units)
+	{
+		File file = new File(cacheDir, key + FILE_EXTENSION);
+		if (!file.isFile())
+		{
+			return null;
+		}
+
+		Entry entry;
+		try
+		{
+			entry = (Entry) JRLoader.loadObject(jasperReportsContext, file);
+		}
+		catch (JRException | ClassCastException e)
+		{
+			log.warn("Failed to load report compile cache entry " + file, e);
+			return null;
+		}
+
+		if (entry.compileData.length != units.length)
+		{
+			return null;
+		}
+
+		for (int i = 0; i < units.length; i++)
+		{
+			units[i].setCompileData(entry.compileData[i]);
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("loaded compile data from " + file);
+		}
+		return entry.nameSuffix;
+	}
+
+	/**
+	 * Saves the compile data of a set of compilation units.
+	 * <p>
+	 * Failures are logged and do not affect the report compilation.
+	 *
+	 * @param key the cache entry key
+	 * @param nameSuffix the name suffix of the compilation units
+	 * @param units the compiled units
+	 */
+	public void saveCompileData(String key, String nameSuffix, JRCompilationUnit[] units)
+	{
+		Serializable[] compileData = new Serializable[units.length];
+		for (int i = 0; i < units.length; i++)
+		{
+			compileData[i] = units[i].getCompileData();
+		}
+		Entry entry = new Entry(nameSuffix, compileData);
+
+		File file = new File(cacheDir, key + FILE_EXTENSION);
+		File tempFile = null;
+		try
+		{
+			// writing to a temporary file and moving it so that concurrent readers never see partial entries
+			tempFile = File.createTempFile(key, ".tmp", cacheDir);
+			JRSaver.saveObject(entry, tempFile);
+			Files.move(tempFile.toPath(), file.toPath(),
+					StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			tempFile = null;
+		}
+		catch (JRException | IOException e)
+		{
+			log.warn("Failed to save report compile cache entry " + file, e);
+		}
+		finally
+		{
+			if (tempFile != null)
+			{
+				tempFile.delete();
+			}
+		}
+	}
+
+	protected static class Entry implements Serializable
+	{
+		private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+		private final String nameSuffix;
+		private final Serializable[] compileData;
+
+		public Entry(String nameSuffix, Serializable[] compileData)
+		{
+			this.nameSuffix = nameSuffix;
+			this.compileData = compileData;
+		}
+	}
+
+}
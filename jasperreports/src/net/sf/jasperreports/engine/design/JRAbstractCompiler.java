@@ -223,13 +223,31 @@ public abstract class JRAbstractCompiler implements JRCompiler
 		{
 			if (sourceUnits.length > 0)
 			{
-				String compileErrors = compileUnits(sourceUnits, classpath, tempDirFile);
-				if (compileErrors != null)
+				CompileDataCache compileCache = CompileDataCache.getInstance(jasperReportsContext);
+				String cacheKey = compileCache == null ? null 
+						: compileCache.createKey(getClass(), sourceUnits, nameSuffix, classpath);
+				String cachedNameSuffix = cacheKey == null ? null 
+						: compileCache.loadCompileData(cacheKey, sourceUnits);
+				if (cachedNameSuffix != null)
 				{
-					throw 
-						new JRException(
-							EXCEPTION_MESSAGE_KEY_REPORT_EXPRESSIONS_COMPILE_ERROR,
-							new Object[]{compileErrors});
+					// the cached evaluator classes were compiled with the suffix of the cached entry
+					nameSuffix = cachedNameSuffix;
+				}
+				else
+				{
+					String compileErrors = compileUnits(sourceUnits, classpath, tempDirFile);
+					if (compileErrors != null)
+					{
+						throw 
+							new JRException(
+								EXCEPTION_MESSAGE_KEY_REPORT_EXPRESSIONS_COMPILE_ERROR,
+								new Object[]{compileErrors});
+					}
+					
+					if (cacheKey != null)
+					{
+						compileCache.saveCompileData(cacheKey, nameSuffix, sourceUnits);
+					}
 				}
 			}
 
@@ -29,10 +29,13 @@
 package net.sf.jasperreports.engine.design;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Map;
-
-import org.apache.commons.collections4.map.ReferenceMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sf.jasperreports.annotations.properties.Property;
 import net.sf.jasperreports.annotations.properties.PropertyScope;
@@ -83,10 +86,10 @@ public abstract class JRAbstractJavaCompiler extends JRAbstractCompiler
 
 
 	private static final Object CLASS_CACHE_NULL_KEY = new Object();
-	private static Map<Object,Map<String,Class<?>>> classCache = 
-		new ReferenceMap<Object,Map<String,Class<?>>>(
-			ReferenceMap.ReferenceStrength.WEAK, ReferenceMap.ReferenceStrength.SOFT
-			);
+	// classloaders are weakly referenced, loaded classes are softly referenced
+	private static final ReferenceQueue<Object> classCacheQueue = new ReferenceQueue<Object>();
+	private static final ConcurrentMap<ClassCacheKey, ConcurrentMap<String, SoftReference<Class<?>>>> classCache = 
+		new ConcurrentHashMap<ClassCacheKey, ConcurrentMap<String, SoftReference<Class<?>>>>();
 	
 	/**
 	 * 
@@ -150,28 +153,75 @@ public abstract class JRAbstractJavaCompiler extends JRAbstractCompiler
 	}
 
 	
-	protected static synchronized Class<?> getClassFromCache(String className)
+	protected static Class<?> getClassFromCache(String className)
 	{
-		Object key = classCacheKey();
-		Map<String,Class<?>> contextMap = classCache.get(key);
-		Class<?> cachedClass = null;
-		if (contextMap != null)
-		{
-			cachedClass = contextMap.get(className);
-		}
-		return cachedClass;
+		ConcurrentMap<String, SoftReference<Class<?>>> contextMap = classCache.get(new ClassCacheKey(classCacheKey(), null));
+		SoftReference<Class<?>> classRef = contextMap == null ? null : contextMap.get(className);
+		return classRef == null ? null : classRef.get();
 	}
 
 
-	protected static synchronized void putClassInCache(String className, Class<?> loadedClass)
+	protected static void putClassInCache(String className, Class<?> loadedClass)
 	{
-		Object key = classCacheKey();
-		Map<String,Class<?>> contextMap = classCache.get(key);
+		expungeClassCache();
+		
+		ConcurrentMap<String, SoftReference<Class<?>>> contextMap = classCache.get(new ClassCacheKey(classCacheKey(), null));
 		if (contextMap == null)
 		{
-			contextMap = new ReferenceMap<String,Class<?>>(ReferenceMap.ReferenceStrength.HARD, ReferenceMap.ReferenceStrength.SOFT);
-			classCache.put(key, contextMap);
+			ConcurrentMap<String, SoftReference<Class<?>>> newContextMap = new ConcurrentHashMap<String, SoftReference<Class<?>>>();
+			contextMap = classCache.putIfAbsent(new ClassCacheKey(classCacheKey(), classCacheQueue), newContextMap);
+			if (contextMap == null)
+			{
+				contextMap = newContextMap;
+			}
+		}
+		contextMap.put(className, new SoftReference<Class<?>>(loadedClass));
+	}
+	
+	
+	private static void expungeClassCache()
+	{
+		for (Reference<?> ref; (ref = classCacheQueue.poll()) != null;)
+		{
+			classCache.remove(ref);
+		}
+	}
+	
+	
+	/**
+	 * Weak reference to a classloader that compares referents by identity.
+	 */
+	private static class ClassCacheKey extends WeakReference<Object>
+	{
+		private final int hash;
+		
+		ClassCacheKey(Object key, ReferenceQueue<Object> queue)
+		{
+			super(key, queue);
+			this.hash = System.identityHashCode(key);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			
+			if (!(obj instanceof ClassCacheKey))
+			{
+				return false;
+			}
+			
+			Object key = get();
+			return key != null && key == ((ClassCacheKey) obj).get();
 		}
-		contextMap.put(className, loadedClass);
 	}
 }
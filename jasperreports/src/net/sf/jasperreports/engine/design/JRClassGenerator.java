@@ -182,6 +182,17 @@ public class JRClassGenerator
 			sb.append(generateMethod(JRExpression.EVALUATION_ESTIMATED, expressions));
 		}
 		
+		List<JRExpression> booleanExpressions = getBooleanExpressions(expressions);
+		if (!booleanExpressions.isEmpty())
+		{
+			sb.append(generateBooleanMethod(booleanExpressions.iterator(), JRExpression.EVALUATION_DEFAULT));
+			if (!sourceTask.isOnlyDefaultEvaluation())
+			{
+				sb.append(generateBooleanMethod(booleanExpressions.iterator(), JRExpression.EVALUATION_OLD));
+				sb.append(generateBooleanMethod(booleanExpressions.iterator(), JRExpression.EVALUATION_ESTIMATED));
+			}
+		}
+		
 		sb.append("}\n");
 
 		String code = sb.toString();
@@ -569,11 +580,21 @@ public class JRClassGenerator
 		sb.append(sourceTask.getExpressionId(expression)); 
 		sb.append(" : \n");
 		sb.append("            {\n");
-		sb.append("                value = ");
-		sb.append(this.generateExpression(expression, evaluationType));
-		sb.append(";");
-		appendExpressionComment(sb, expression);
-		sb.append("\n");
+		if (sourceTask.isBooleanExpression(expression))
+		{
+			// the expression code is only generated in the boolean method
+			sb.append("                value = Boolean.valueOf(evaluateBoolean");
+			sb.append(methodSuffixMap.get(evaluationType));
+			sb.append("(id));\n");
+		}
+		else
+		{
+			sb.append("                value = ");
+			sb.append(this.generateExpression(expression, evaluationType));
+			sb.append(";");
+			appendExpressionComment(sb, expression);
+			sb.append("\n");
+		}
 		sb.append("                break;\n");
 		sb.append("            }\n");
 	}
@@ -600,6 +621,130 @@ public class JRClassGenerator
 
 
 
+	protected List<JRExpression> getBooleanExpressions(List<JRExpression> expressions)
+	{
+		List<JRExpression> booleanExpressions = new ArrayList<JRExpression>();
+		for (JRExpression expression : expressions)
+		{
+			if (sourceTask.isBooleanExpression(expression))
+			{
+				booleanExpressions.add(expression);
+			}
+		}
+		return booleanExpressions;
+	}
+
+
+	/**
+	 * Generates the methods that evaluate expressions producing boolean values.
+	 * The expression is passed to one of the <code>JREvaluator.booleanValue</code> overloads,
+	 * so that primitive expression results are not boxed.
+	 * The object evaluation methods delegate to these methods for boolean expressions.
+	 */
+	private String generateBooleanMethod(Iterator<JRExpression> it, byte evaluationType)
+	{
+		int methodIndex = 0;
+		StringBuilder sb = new StringBuilder();
+
+		writeBooleanMethodStart(sb, evaluationType, methodIndex);
+		++methodIndex;
+
+		StringBuilder expressionBuilder = new StringBuilder();
+		int methodExpressionIndex = 0;
+		int methodBuilderStartPosition = sb.length();
+		while (it.hasNext())
+		{
+			JRExpression expression = it.next();
+			
+			expressionBuilder.setLength(0);
+			writeBooleanExpression(expressionBuilder, expression, evaluationType);
+			if (methodExpressionIndex >= EXPR_MAX_COUNT_PER_METHOD
+					|| (methodExpressionIndex > 0 && sb.length() - methodBuilderStartPosition > maxMethodSize))
+			{
+				writeBooleanMethodEnd(sb, evaluationType, methodIndex);
+				
+				writeBooleanMethodStart(sb, evaluationType, methodIndex);
+				++methodIndex;
+				methodExpressionIndex = 0;
+				methodBuilderStartPosition = sb.length();
+			}
+			
+			sb.append(expressionBuilder);
+			++methodExpressionIndex;
+		}
+		
+		writeBooleanMethodEnd(sb, evaluationType, null);
+		
+		return sb.toString();
+	}
+
+	protected void writeBooleanMethodStart(StringBuilder sb, byte evaluationType, int methodIndex)
+	{
+		sb.append("    /**\n");
+		sb.append("     *\n");
+		sb.append("     */\n");
+		if (methodIndex > 0)
+		{
+			sb.append("    private boolean evaluateBoolean");
+			sb.append(methodSuffixMap.get(evaluationType));
+			sb.append(methodIndex);
+		}
+		else
+		{
+			sb.append("    public boolean evaluateBoolean");
+			sb.append(methodSuffixMap.get(evaluationType));
+		}
+		sb.append("(int id) throws Throwable\n");
+		sb.append("    {\n");
+		sb.append("        boolean value = false;\n");
+		sb.append("\n");
+		sb.append("        switch (id)\n");
+		sb.append("        {\n");
+	}
+
+	protected void writeBooleanExpression(StringBuilder sb, JRExpression expression, byte evaluationType)
+	{
+		sb.append("            case "); 
+		sb.append(sourceTask.getExpressionId(expression)); 
+		sb.append(" : \n");
+		sb.append("            {\n");
+		sb.append("                value = booleanValue(");
+		sb.append(this.generateExpression(expression, evaluationType));
+		sb.append(");");
+		appendExpressionComment(sb, expression);
+		sb.append("\n");
+		sb.append("                break;\n");
+		sb.append("            }\n");
+	}
+	
+	protected void writeBooleanMethodEnd(StringBuilder sb, byte evaluationType, Integer nextMethodIndex)
+	{
+		sb.append("           default :\n");
+		sb.append("           {\n");
+		if (nextMethodIndex == null)
+		{
+			// not a boolean expression, evaluate it as an object
+			sb.append("               value = booleanValue(evaluate");
+			sb.append(methodSuffixMap.get(evaluationType));
+			sb.append("(id));\n");
+		}
+		else
+		{
+			sb.append("               value = evaluateBoolean");
+			sb.append(methodSuffixMap.get(evaluationType));
+			sb.append(nextMethodIndex);
+			sb.append("(id);\n");
+		}
+		sb.append("           }\n");
+		sb.append("        }\n");
+		sb.append("        \n");
+		sb.append("        return value;\n");
+		sb.append("    }\n");
+		sb.append("\n");
+		sb.append("\n");
+	}
+
+
 	/**
 	 *
 	 */
@@ -170,6 +170,25 @@ public interface JRCompiler
 			)
 	public static final String COMPILER_CLASSPATH = JRPropertiesUtil.PROPERTY_PREFIX + "compiler.classpath";
 
+	/**
+	 * The directory where report compilers persist the results of compiling report expressions.
+	 * <p>
+	 * When set, the compiled expression evaluator classes are saved in the directory under a digest of
+	 * the generated source code, and are reused when a report that produces the same source code is compiled again.
+	 * The cache contents are not invalidated when classes referenced by report expressions change,
+	 * the directory needs to be cleared in such cases.
+	 * <p>
+	 * No default value, compile results are not persisted.
+	 * 
+	 * @see CompileDataCache
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_COMPILE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String COMPILER_CACHE_DIR = JRPropertiesUtil.PROPERTY_PREFIX + "compiler.cache.dir";
+
 	
 	/**
 	 * Compiles a report design.
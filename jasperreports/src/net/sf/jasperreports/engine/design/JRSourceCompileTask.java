@@ -196,6 +196,16 @@ public class JRSourceCompileTask
 		return expressionCollector.getExpression(expressionId);
 	}
 	
+	/**
+	 * Determines whether an expression produces <code>java.lang.Boolean</code> values.
+	 * 
+	 * @see JRExpressionCollector#isBooleanExpression(JRExpression)
+	 */
+	public boolean isBooleanExpression(JRExpression expression)
+	{
+		return expressionCollector.isBooleanExpression(expression);
+	}
+	
 	public JasperReportsContext getJasperReportsContext()
 	{
 		return expressionCollector.getJasperReportsContext();
@@ -52,12 +52,17 @@ import java.text.BreakIterator;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -126,6 +131,7 @@ import net.sf.jasperreports.engine.PrintPageFormat;
 import net.sf.jasperreports.engine.base.JRBaseFont;
 import net.sf.jasperreports.engine.base.JRBasePen;
 import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
 import net.sf.jasperreports.engine.export.type.PdfFieldBorderStyleEnum;
 import net.sf.jasperreports.engine.export.type.PdfFieldCheckTypeEnum;
 import net.sf.jasperreports.engine.export.type.PdfFieldTypeEnum;
@@ -574,6 +580,9 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 
 	private BookmarkStack bookmarkStack;
 
+	private ExecutorService pagePreparationExecutor;
+	private Map<JRPrintText, JRStyledText> preparedTexts;
+
 	private SplitCharacter splitCharacter;
 	private int crtOddPageOffsetX;
 	private int crtOddPageOffsetY;
@@ -1045,6 +1054,12 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 					int startPageIndex = (pageRange == null || pageRange.getStartPageIndex() == null) ? 0 : pageRange.getStartPageIndex();
 					int endPageIndex = (pageRange == null || pageRange.getEndPageIndex() == null) ? (pages.size() - 1) : pageRange.getEndPageIndex();
 
+					int parallelThreads = propertiesUtil.getIntegerProperty(jasperPrint, 
+							PdfExporterConfiguration.PROPERTY_PARALLEL_THREADS, 0);
+					PagePreparation pagePreparation = parallelThreads > 0 
+							? new PagePreparation(pages, startPageIndex, endPageIndex, parallelThreads) 
+							: null;
+
 					for (int pageIndex = startPageIndex; pageIndex <= endPageIndex; pageIndex++)
 					{
 						if (Thread.interrupted())
@@ -1071,9 +1086,16 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 						
 						crtDocumentPageNumber++;
 
+						if (pagePreparation != null)
+						{
+							preparedTexts = pagePreparation.getPreparedTexts(pageIndex);
+						}
+
 						/*   */
 						exportPage(page);
 						
+						preparedTexts = null;
+
 						oldPageFormat = pageFormat;
 					}
 				}
@@ -1107,6 +1129,13 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 		}
 		finally
 		{
+			preparedTexts = null;
+			if (pagePreparationExecutor != null)
+			{
+				pagePreparationExecutor.shutdownNow();
+				pagePreparationExecutor = null;
+			}
+
 			if (closeDocuments) //only on exception
 			{
 				try
@@ -1133,6 +1162,127 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 	}
 
 
+	private ExecutorService getPagePreparationExecutor(int threads)
+	{
+		if (pagePreparationExecutor == null)
+		{
+			pagePreparationExecutor = Executors.newFixedThreadPool(threads, runnable -> 
+			{
+				Thread thread = new Thread(runnable);
+				thread.setName("JR PDF page preparation " + thread.getId());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return pagePreparationExecutor;
+	}
+
+
+	/**
+	 * Prepares the styled texts of the text elements in the specified collection, including the ones in frames.
+	 * 
+	 * Called on the page preparation threads, it should only rely on thread safe state.
+	 */
+	protected Map<JRPrintText, JRStyledText> prepareTexts(Collection<JRPrintElement> elements)
+	{
+		Map<JRPrintText, JRStyledText> texts = new IdentityHashMap<JRPrintText, JRStyledText>();
+		collectPreparedTexts(elements, texts);
+		return texts;
+	}
+
+
+	private void collectPreparedTexts(Collection<JRPrintElement> elements, Map<JRPrintText, JRStyledText> texts)
+	{
+		if (elements == null)
+		{
+			return;
+		}
+
+		for (JRPrintElement element : elements)
+		{
+			if (element instanceof JRPrintText)
+			{
+				JRPrintText text = (JRPrintText) element;
+				JRStyledText styledText = styledTextUtil.getProcessedStyledText(text, noBackcolorSelector, null);
+				if (styledText != null)
+				{
+					texts.put(text, styledText);
+				}
+			}
+			else if (element instanceof JRPrintFrame)
+			{
+				collectPreparedTexts(((JRPrintFrame) element).getElements(), texts);
+			}
+		}
+	}
+
+
+	/**
+	 * Keeps the page preparation threads busy with the pages following the one being exported.
+	 * 
+	 * The page elements are retrieved on the exporting thread and the worker threads only read the element objects.
+	 * Virtualized pages are not prepared ahead because retrieving their elements would load them
+	 * from the virtualizer before they are exported, possibly evicting the pages that are being exported.
+	 */
+	private class PagePreparation
+	{
+		private final List<JRPrintPage> pages;
+		private final int endPageIndex;
+		private final int lookahead;
+		private final ExecutorService executor;
+		private final Map<Integer, Future<Map<JRPrintText, JRStyledText>>> preparations = 
+				new HashMap<Integer, Future<Map<JRPrintText, JRStyledText>>>();
+		private int nextPageIndex;
+		
+		PagePreparation(List<JRPrintPage> pages, int startPageIndex, int endPageIndex, int threads)
+		{
+			this.pages = pages;
+			this.endPageIndex = endPageIndex;
+			this.lookahead = 2 * threads;
+			this.executor = getPagePreparationExecutor(threads);
+			this.nextPageIndex = startPageIndex;
+		}
+		
+		Map<JRPrintText, JRStyledText> getPreparedTexts(int pageIndex) throws ExportInterruptedException
+		{
+			while (nextPageIndex <= endPageIndex && nextPageIndex <= pageIndex + lookahead)
+			{
+				JRPrintPage page = pages.get(nextPageIndex);
+				if (!(page instanceof JRVirtualPrintPage))
+				{
+					List<JRPrintElement> elements = new ArrayList<JRPrintElement>(page.getElements());
+					preparations.put(nextPageIndex, executor.submit(() -> prepareTexts(elements)));
+				}
+				++nextPageIndex;
+			}
+			
+			Future<Map<JRPrintText, JRStyledText>> preparation = preparations.remove(pageIndex);
+			if (preparation == null)
+			{
+				return null;
+			}
+			
+			try
+			{
+				return preparation.get();
+			}
+			catch (InterruptedException e)
+			{
+				throw new ExportInterruptedException();
+			}
+			catch (ExecutionException e)
+			{
+				if (log.isWarnEnabled())
+				{
+					log.warn("Failed to prepare page " + pageIndex + ", exporting it without preparation", e.getCause());
+				}
+				//the texts will be processed while exporting, reporting the error if it persists
+				return null;
+			}
+		}
+	}
+
+
 	protected void writePageAnchor(int pageIndex) throws DocumentException 
 	{
 		Map<Attribute,Object> attributes = new HashMap<Attribute,Object>();
@@ -2799,7 +2949,11 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 	 */
 	public void exportText(JRPrintText text) throws DocumentException
 	{
-		JRStyledText styledText = styledTextUtil.getProcessedStyledText(text, noBackcolorSelector, null);
+		JRStyledText styledText = preparedTexts == null ? null : preparedTexts.get(text);
+		if (styledText == null)
+		{
+			styledText = styledTextUtil.getProcessedStyledText(text, noBackcolorSelector, null);
+		}
 
 		if (styledText == null)
 		{
@@ -438,6 +438,19 @@ public abstract class BaseReportFiller implements ReportFiller
 		mainDataset.setDatasourceParameterValue(parameterValues, ds);
 	}
 	
+	protected void addFactoryFillListeners(ReportContext reportContext)
+	{
+		List<FillListenerFactory> listenerFactories = jasperReportsContext.getExtensions(FillListenerFactory.class);
+		for (FillListenerFactory listenerFactory : listenerFactories)
+		{
+			FillListener listener = listenerFactory.createFillListener(jasperReportsContext, jasperReport, reportContext);
+			if (listener != null)
+			{
+				addFillListener(listener);
+			}
+		}
+	}
+	
 	protected void setParameters(Map<String,Object> parameterValues) throws JRException
 	{
 		initVirtualizationContext(parameterValues);
@@ -450,6 +463,8 @@ public abstract class BaseReportFiller implements ReportFiller
 		{
 			ReportContext reportContext = (ReportContext) parameterValues.get(JRParameter.REPORT_CONTEXT);
 			fillContext.setReportContext(reportContext);
+
+			addFactoryFillListeners(reportContext);
 		}
 
 		mainDataset.setParameterValues(parameterValues);
@@ -553,6 +568,27 @@ public abstract class BaseReportFiller implements ReportFiller
 		this.isInterrupted = isInterrupted;
 	}
 
+	/**
+	 * Resets the state of a filler that has completed a fill, so that the filler can be used
+	 * for another fill with new parameter values.
+	 * 
+	 * <p>
+	 * The state which is initialized by each fill (parameter values, data source, variables)
+	 * does not need to be reset.
+	 */
+	protected void resetFillState()
+	{
+		isInterrupted = false;
+		threadInterrupted = false;
+		bookmarkHelper = null;
+		
+		delayedActions = new DelayedFillActions(this);
+		if (log.isDebugEnabled())
+		{
+			log.debug("created delayed actions " + delayedActions.getId() + " for filler " + fillerId);
+		}
+	}
+
 	protected void checkInterrupted()
 	{
 		if (Thread.interrupted())
@@ -704,6 +740,18 @@ public abstract class BaseReportFiller implements ReportFiller
 		return mainDataset.evaluateExpression(expression, evaluation);
 	}
 
+	/**
+	 * Evaluates an expression that produces a <code>java.lang.Boolean</code> value
+	 * @param expression the expression
+	 * @param evaluation the evaluation type
+	 * @return the evaluation result, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws JRException
+	 */
+	public boolean evaluateBooleanExpression(JRExpression expression, byte evaluation) throws JRException
+	{
+		return mainDataset.evaluateBooleanExpression(expression, evaluation);
+	}
+
 	protected final void setFormatFactory(Map<String,Object> parameterValues)
 	{
 		formatFactory = (FormatFactory)parameterValues.get(JRParameter.REPORT_FORMAT_FACTORY);
@@ -812,7 +860,7 @@ public abstract class BaseReportFiller implements ReportFiller
 		resolveBoundElements(JREvaluationTime.EVALUATION_TIME_MASTER, JRExpression.EVALUATION_DEFAULT);
 	}
 	
-	public void recordUsedPageWidth(int width)
+	public synchronized void recordUsedPageWidth(int width)
 	{
 		if (width > usedPageWidth)
 		{
@@ -820,7 +868,7 @@ public abstract class BaseReportFiller implements ReportFiller
 		}
 	}
 	
-	public int getUsedPageWidth()
+	public synchronized int getUsedPageWidth()
 	{
 		return usedPageWidth;
 	}
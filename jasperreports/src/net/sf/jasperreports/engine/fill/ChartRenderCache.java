@@ -0,0 +1,149 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jasperreports.charts.util.ChartHyperlinkProvider;
+import net.sf.jasperreports.engine.JRChart;
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.renderers.Renderable;
+
+/**
+ * Least recently used cache of chart renderers, keyed by the chart element and a digest of the chart content.
+ * @see JRChart#PROPERTY_CHART_RENDER_CACHE
+ */
+public class ChartRenderCache
+{
+
+	protected static final String FILL_CACHE_KEY = ChartRenderCache.class.getName();
+
+	private static final Object SHARED_CACHE_LOCK = new Object();
+	private static ChartRenderCache sharedCache;
+
+	private final int maxSize;
+	private final Map<List<Object>, Entry> entries;
+
+	public ChartRenderCache(final int maxSize)
+	{
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<List<Object>, ChartRenderCache.Entry>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, ChartRenderCache.Entry> eldest)
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cache used during a report fill, creating it if needed.
+	 *
+	 * @param fillContext the fill context
+	 * @param maxSize the maximum number of cached renderers
+	 * @return the fill cache
+	 */
+	public static ChartRenderCache getFillCache(JRFillContext fillContext, int maxSize)
+	{
+		synchronized (fillContext)
+		{
+			ChartRenderCache cache = (ChartRenderCache) fillContext.getFillCache(FILL_CACHE_KEY);
+			if (cache == null)
+			{
+				cache = new ChartRenderCache(maxSize);
+				fillContext.setFillCache(FILL_CACHE_KEY, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Returns the cache shared by all report fills.
+	 *
+	 * @param maxSize the maximum number of cached renderers, the cache is recreated when the size changes
+	 * @return the shared cache, or <code>null</code> if the size is not positive
+	 */
+	public static ChartRenderCache getSharedCache(int maxSize)
+	{
+		if (maxSize <= 0)
+		{
+			return null;
+		}
+
+		synchronized (SHARED_CACHE_LOCK)
+		{
+			if (sharedCache == null || sharedCache.maxSize != maxSize)
+			{
+				sharedCache = new ChartRenderCache(maxSize);
+			}
+			return sharedCache;
+		}
+	}
+
+	public synchronized Entry get(List<Object> key)
+	{
+		return entries.get(key);
+	}
+
+	public synchronized void put(List<Object> key, Entry entry)
+	{
+		entries.put(key, entry);
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * A cached chart renderer.
+	 */
+	public static class Entry
+	{
+		private final Renderable renderer;
+		private final ChartHyperlinkProvider hyperlinkProvider;
+
+		public Entry(Renderable renderer, ChartHyperlinkProvider hyperlinkProvider)
+		{
+			this.renderer = renderer;
+			this.hyperlinkProvider = hyperlinkProvider;
+		}
+
+		public Renderable getRenderer()
+		{
+			return renderer;
+		}
+
+		public ChartHyperlinkProvider getHyperlinkProvider()
+		{
+			return hyperlinkProvider;
+		}
+	}
+
+}
@@ -51,5 +51,41 @@ public interface DatasetExpressionEvaluator
 	Object evaluateOld(JRExpression expression) throws JRExpressionEvalException;
 	
 	Object evaluateEstimated(JRExpression expression) throws JRExpressionEvalException;
+
+	/**
+	 * Evaluates an expression that produces a <code>java.lang.Boolean</code> value,
+	 * such as a print when or a filter expression.
+	 * 
+	 * @param expression the expression
+	 * @return the expression value, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws JRExpressionEvalException
+	 */
+	default boolean evaluateBoolean(JRExpression expression) throws JRExpressionEvalException
+	{
+		Boolean value = (Boolean) evaluate(expression);
+		return value != null && value;
+	}
+	
+	/**
+	 * Evaluates a boolean expression using old fields and variables values.
+	 * 
+	 * @see #evaluateBoolean(JRExpression)
+	 */
+	default boolean evaluateBooleanOld(JRExpression expression) throws JRExpressionEvalException
+	{
+		Boolean value = (Boolean) evaluateOld(expression);
+		return value != null && value;
+	}
+	
+	/**
+	 * Evaluates a boolean expression using estimated variables values.
+	 * 
+	 * @see #evaluateBoolean(JRExpression)
+	 */
+	default boolean evaluateBooleanEstimated(JRExpression expression) throws JRExpressionEvalException
+	{
+		Boolean value = (Boolean) evaluateEstimated(expression);
+		return value != null && value;
+	}
 	
 }
@@ -26,15 +26,23 @@ package net.sf.jasperreports.engine.fill;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRScriptletException;
 import net.sf.jasperreports.engine.JRSortField;
@@ -44,6 +52,7 @@ import net.sf.jasperreports.engine.fill.DatasetSortInfo.RecordField;
 import net.sf.jasperreports.engine.fill.DatasetSortInfo.SortFieldInfo;
 import net.sf.jasperreports.engine.fill.SortedDataSource.SortRecord;
 import net.sf.jasperreports.engine.type.SortFieldTypeEnum;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 
 /**
@@ -51,9 +60,31 @@ import net.sf.jasperreports.engine.type.SortFieldTypeEnum;
  */
 public class DatasetSortUtil
 {
+	private static final Log log = LogFactory.getLog(DatasetSortUtil.class);
+	
 	public static final String EXCEPTION_MESSAGE_KEY_SORT_FIELD_NOT_FOUND = "fill.dataset.sort.field.not.found";
 	public static final String EXCEPTION_MESSAGE_KEY_SORT_VARIABLE_NOT_FOUND = "fill.dataset.sort.variable.not.found";
 
+	/**
+	 * Property that specifies the maximum number of records that are kept in memory while sorting a dataset.
+	 * 
+	 * <p>
+	 * When the number of records exceeds this limit, sorted runs of records are written to temporary files
+	 * and the sorted data source merges the runs while iterating. A value of zero or less means that
+	 * all records are sorted in memory.
+	 * 
+	 * <p>
+	 * Records are always sorted in memory when the dataset is recording a data snapshot.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_MAX_MEMORY_RECORDS = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.sort.max.memory.records";
+
 
 	/**
 	 * Returns all current sort field criteria, including the dynamic ones provided as report parameter.
@@ -111,6 +142,16 @@ public class DatasetSortUtil
 		
 		List<SortedDataSource.SortRecord> records = sortDatasetRun.sort();
 		
+		return createSortedDataSource(sortInfo, locale, records);
+	}
+
+
+	private static SortedDataSource createSortedDataSource(
+		DatasetSortInfo sortInfo, 
+		Locale locale, 
+		List<SortedDataSource.SortRecord> records
+		)
+	{
 		// using indirect sorting in order to also preserve the original record order for data caching
 		int recordCount = records.size();
 		// we need wrapper objects for Arrays.sort with comparator
@@ -133,6 +174,86 @@ public class DatasetSortUtil
 	}
 
 
+	/**
+	 * Creates a sorted data source, writing sorted runs of records to temporary files
+	 * when the number of records exceeds a limit.
+	 * 
+	 * <p>
+	 * If all the records fit into the memory limit, a {@link SortedDataSource} is returned,
+	 * otherwise an {@link ExternalSortedDataSource} which merges the sorted runs.
+	 * 
+	 * @param filler the report filler
+	 * @param dataset the dataset to sort
+	 * @param locale the locale used for string comparisons
+	 * @param maxMemoryRecords the maximum number of records to keep in memory;
+	 * a value of zero or less means that all records are sorted in memory
+	 * @return the sorted data source
+	 * @throws JRException
+	 * @see #PROPERTY_MAX_MEMORY_RECORDS
+	 */
+	public static JRDataSource getSortedDataSource(
+		BaseReportFiller filler, 
+		JRFillDataset dataset, 
+		Locale locale,
+		int maxMemoryRecords
+		) throws JRException
+	{
+		if (maxMemoryRecords <= 0)
+		{
+			return getSortedDataSource(filler, dataset, locale);
+		}
+		
+		DatasetSortInfo sortInfo = createSortInfo(dataset);
+		RecordValuesComparator comparator = new RecordValuesComparator(sortInfo, locale);
+		
+		SortFillDatasetRun sortDatasetRun = new SortFillDatasetRun(filler, dataset, sortInfo);
+		sortDatasetRun.setSpill(comparator, maxMemoryRecords);
+		
+		boolean success = false;
+		try
+		{
+			List<SortedDataSource.SortRecord> records = sortDatasetRun.sort();
+			if (sortDatasetRun.getSortRuns().isEmpty())
+			{
+				// all records fitted in memory
+				success = true;
+				return createSortedDataSource(sortInfo, locale, records);
+			}
+			
+			sortDatasetRun.spillRecords();
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("sorted dataset " + dataset.getName() + " in " + sortDatasetRun.getSortRuns().size() + " runs");
+			}
+			
+			ExternalSortedDataSource dataSource = new ExternalSortedDataSource(sortInfo, comparator, 
+					sortDatasetRun.getSortRuns());
+			success = true;
+			return dataSource;
+		}
+		finally
+		{
+			if (!success)
+			{
+				ExternalSortedDataSource.deleteRuns(sortDatasetRun.getSortRuns());
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the maximum number of records to be sorted in memory for a dataset.
+	 * 
+	 * @see #PROPERTY_MAX_MEMORY_RECORDS
+	 */
+	public static int getMaxMemoryRecords(JRFillDataset dataset)
+	{
+		return JRPropertiesUtil.getInstance(dataset.getJasperReportsContext()).getIntegerProperty(
+				dataset, PROPERTY_MAX_MEMORY_RECORDS, 0);
+	}
+
+
 	/**
 	 *
 	 */
@@ -220,26 +341,43 @@ public class DatasetSortUtil
  */
 class DataSourceComparator implements Comparator<Integer>
 {
-	private final Collator collator;
-	private final List<SortFieldInfo> sortFields;
+	private final RecordValuesComparator valuesComparator;
 	private final List<SortedDataSource.SortRecord> records;
 
 	public DataSourceComparator(DatasetSortInfo sortFieldInfo, Locale locale, 
 			List<SortedDataSource.SortRecord> records)
 	{
-		this.collator = Collator.getInstance(locale);
-		this.sortFields = sortFieldInfo.getSortFields();
+		this.valuesComparator = new RecordValuesComparator(sortFieldInfo, locale);
 		this.records = records;
 	}
 
 	@Override
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public int compare(Integer idx1, Integer idx2)
 	{
 		// assuming random access records list
-		Object[] record1 = records.get(idx1).getValues();
-		Object[] record2 = records.get(idx2).getValues();
-		
+		return valuesComparator.compare(records.get(idx1).getValues(), records.get(idx2).getValues());
+	}
+}
+
+
+/**
+ * Compares sort record values according to the dataset sort fields.
+ */
+class RecordValuesComparator implements Comparator<Object[]>
+{
+	private final Collator collator;
+	private final List<SortFieldInfo> sortFields;
+
+	public RecordValuesComparator(DatasetSortInfo sortFieldInfo, Locale locale)
+	{
+		this.collator = Collator.getInstance(locale);
+		this.sortFields = sortFieldInfo.getSortFields();
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public int compare(Object[] record1, Object[] record2)
+	{
 		int ret = 0;
 
 		for (SortFieldInfo info : sortFields)
@@ -294,6 +432,10 @@ class SortFillDatasetRun extends JRFillDatasetRun
 	private DatasetSortInfo sortInfo;
 	private int recordIndex;
 	private List<SortedDataSource.SortRecord> records;
+	
+	private Comparator<Object[]> spillComparator;
+	private int maxMemoryRecords;
+	private List<ExternalSortedDataSource.SortRun> sortRuns;
 
 	
 	public SortFillDatasetRun(BaseReportFiller filler, JRFillDataset dataset, DatasetSortInfo sortInfo) throws JRException
@@ -308,10 +450,22 @@ class SortFillDatasetRun extends JRFillDatasetRun
 	}
 
 	
+	/**
+	 * Enables writing sorted runs of records to temporary files whenever the number
+	 * of records held in memory reaches the specified limit.
+	 */
+	public void setSpill(Comparator<Object[]> spillComparator, int maxMemoryRecords)
+	{
+		this.spillComparator = spillComparator;
+		this.maxMemoryRecords = maxMemoryRecords;
+	}
+
+	
 	public List<SortedDataSource.SortRecord> sort() throws JRException
 	{
 		recordIndex = 0;
 		records = new ArrayList<SortedDataSource.SortRecord>();
+		sortRuns = new ArrayList<ExternalSortedDataSource.SortRun>();
 
 		try
 		{
@@ -361,6 +515,42 @@ class SortFillDatasetRun extends JRFillDatasetRun
 		++recordIndex;
 		
 		records.add(sortRecord);
+		
+		if (spillComparator != null && records.size() >= maxMemoryRecords)
+		{
+			spillRecords();
+		}
+	}
+
+
+	/**
+	 * Sorts the records currently held in memory and writes them to a temporary run file.
+	 */
+	public void spillRecords() throws JRException
+	{
+		if (records.isEmpty())
+		{
+			return;
+		}
+		
+		int recordSize = sortInfo.getRecordFields().size();
+		List<Object[]> values = new ArrayList<Object[]>(records.size());
+		for (SortedDataSource.SortRecord sortRecord : records)
+		{
+			values.add(sortRecord.getValues());
+		}
+		records.clear();
+		
+		// stable sort, preserving the original order of equal records
+		Collections.sort(values, spillComparator);
+		
+		sortRuns.add(ExternalSortedDataSource.writeRun(values, recordSize));
+	}
+
+	
+	public List<ExternalSortedDataSource.SortRun> getSortRuns()
+	{
+		return sortRuns;
 	}
 
 
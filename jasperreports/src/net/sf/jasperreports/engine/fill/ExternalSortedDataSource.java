@@ -0,0 +1,383 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.fill.DatasetSortInfo.RecordField;
+import net.sf.jasperreports.engine.virtualization.VirtualizationInput;
+import net.sf.jasperreports.engine.virtualization.VirtualizationOutput;
+
+/**
+ * Sorted data source that merges sorted runs of records written to temporary files.
+ * 
+ * <p>
+ * The runs are produced by {@link DatasetSortUtil} when the number of records of a sorted
+ * dataset exceeds the limit specified by {@link DatasetSortUtil#PROPERTY_MAX_MEMORY_RECORDS}.
+ * Record values are written using the virtualization serializers, and only the current record
+ * of each run is kept in memory while iterating.
+ * 
+ * @see DatasetSortUtil#getSortedDataSource(BaseReportFiller, JRFillDataset, java.util.Locale, int)
+ */
+public class ExternalSortedDataSource implements JRRewindableDataSource
+{
+	
+	private static final Log log = LogFactory.getLog(ExternalSortedDataSource.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND = SortedDataSource.EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND;
+	public static final String EXCEPTION_MESSAGE_KEY_DATA_SOURCE_DISPOSED = "data.sorted.external.disposed";
+	
+	/**
+	 * A temporary file containing a sorted run of records. 
+	 */
+	public static class SortRun
+	{
+		private final File file;
+		private final int recordCount;
+		
+		protected SortRun(File file, int recordCount)
+		{
+			this.file = file;
+			this.recordCount = recordCount;
+		}
+
+		public File getFile()
+		{
+			return file;
+		}
+
+		public int getRecordCount()
+		{
+			return recordCount;
+		}
+	}
+	
+	/**
+	 * Writes a sorted run of records to a temporary file.
+	 * 
+	 * @param records the records, already sorted
+	 * @param recordSize the number of values in a record
+	 * @return the run
+	 * @throws JRException
+	 */
+	protected static SortRun writeRun(List<Object[]> records, int recordSize) throws JRException
+	{
+		File file = null;
+		boolean success = false;
+		try
+		{
+			file = File.createTempFile("jr_sort_", ".run");
+			
+			VirtualizationOutput output = new VirtualizationOutput(
+					new BufferedOutputStream(new FileOutputStream(file)), null);
+			try
+			{
+				for (Object[] record : records)
+				{
+					for (int i = 0; i < recordSize; i++)
+					{
+						// not storing references, the values are read one record at a time
+						output.writeJRObject(record[i], false, false);
+					}
+					// discard arbitrary objects written via standard serialization
+					output.reset();
+				}
+			}
+			finally
+			{
+				output.close();
+			}
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("wrote " + records.size() + " sort records to " + file);
+			}
+			
+			success = true;
+			return new SortRun(file, records.size());
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+		finally
+		{
+			if (!success && file != null)
+			{
+				deleteFile(file);
+			}
+		}
+	}
+	
+	/**
+	 * Deletes the temporary files of a list of runs.
+	 */
+	protected static void deleteRuns(List<SortRun> runs)
+	{
+		if (runs != null)
+		{
+			for (SortRun run : runs)
+			{
+				deleteFile(run.getFile());
+			}
+		}
+	}
+	
+	private static void deleteFile(File file)
+	{
+		if (!file.delete() && file.exists())
+		{
+			if (log.isWarnEnabled())
+			{
+				log.warn("Could not delete sort run file " + file);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the records of a sort run.
+	 */
+	protected static class RunReader
+	{
+		private final int runIndex;
+		private final int recordSize;
+		private final VirtualizationInput input;
+		private int remainingRecords;
+		private Object[] current;
+		
+		public RunReader(int runIndex, SortRun run, int recordSize) throws IOException
+		{
+			this.runIndex = runIndex;
+			this.recordSize = recordSize;
+			this.input = new VirtualizationInput(
+					new BufferedInputStream(new FileInputStream(run.getFile())), null);
+			this.remainingRecords = run.getRecordCount();
+		}
+		
+		public boolean advance() throws IOException
+		{
+			if (remainingRecords <= 0)
+			{
+				current = null;
+				return false;
+			}
+			
+			Object[] record = new Object[recordSize];
+			for (int i = 0; i < recordSize; i++)
+			{
+				record[i] = input.readJRObject(false);
+			}
+			
+			current = record;
+			--remainingRecords;
+			return true;
+		}
+		
+		public Object[] getCurrent()
+		{
+			return current;
+		}
+		
+		public void close()
+		{
+			try
+			{
+				input.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Error closing sort run reader", e);
+			}
+		}
+	}
+	
+	private final List<SortRun> runs;
+	private final int recordSize;
+	private final Comparator<RunReader> readerComparator;
+	private final Map<String, Integer> columnNamesMap = new HashMap<String, Integer>();
+	
+	private List<RunReader> readers;
+	private PriorityQueue<RunReader> readersQueue;
+	private Object[] currentRecord;
+	private boolean disposed;
+	
+	public ExternalSortedDataSource(DatasetSortInfo sortInfo, 
+			final Comparator<Object[]> recordComparator, List<SortRun> runs)
+	{
+		this.runs = runs;
+		this.recordSize = sortInfo.getRecordFields().size();
+		this.readerComparator = new Comparator<RunReader>()
+		{
+			@Override
+			public int compare(RunReader reader1, RunReader reader2)
+			{
+				int ret = recordComparator.compare(reader1.getCurrent(), reader2.getCurrent());
+				if (ret == 0)
+				{
+					// records from earlier runs come first to preserve the original order
+					ret = Integer.compare(reader1.runIndex, reader2.runIndex);
+				}
+				return ret;
+			}
+		};
+		
+		for (ListIterator<RecordField> it = sortInfo.getRecordFields().listIterator(); it.hasNext();)
+		{
+			RecordField recordField = it.next();
+			if (!recordField.isVariable())
+			{
+				columnNamesMap.put(recordField.getName(), it.previousIndex());
+			}
+		}
+	}
+	
+	protected void openReaders() throws JRException
+	{
+		if (disposed)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_DATA_SOURCE_DISPOSED,
+					(Object[])null);
+		}
+		
+		readers = new ArrayList<RunReader>(runs.size());
+		readersQueue = new PriorityQueue<RunReader>(Math.max(runs.size(), 1), readerComparator);
+		try
+		{
+			for (ListIterator<SortRun> it = runs.listIterator(); it.hasNext();)
+			{
+				RunReader reader = new RunReader(it.nextIndex(), it.next(), recordSize);
+				readers.add(reader);
+				if (reader.advance())
+				{
+					readersQueue.add(reader);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			closeReaders();
+			throw new JRException(e);
+		}
+	}
+	
+	protected void closeReaders()
+	{
+		if (readers != null)
+		{
+			for (RunReader reader : readers)
+			{
+				reader.close();
+			}
+			readers = null;
+		}
+		readersQueue = null;
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		if (readersQueue == null)
+		{
+			openReaders();
+		}
+		
+		RunReader reader = readersQueue.poll();
+		if (reader == null)
+		{
+			currentRecord = null;
+			return false;
+		}
+		
+		currentRecord = reader.getCurrent();
+		try
+		{
+			if (reader.advance())
+			{
+				readersQueue.add(reader);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+		return true;
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField)
+	{
+		Integer fieldIndex = columnNamesMap.get(jrField.getName());
+		if (fieldIndex == null)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_FIELD_NOT_FOUND,
+					new Object[]{jrField.getName()});
+		}
+		return currentRecord[fieldIndex];
+	}
+
+	@Override
+	public void moveFirst()
+	{
+		closeReaders();
+		currentRecord = null;
+	}
+
+	/**
+	 * Closes the run files and deletes them.
+	 * 
+	 * The data source can no longer be used after being disposed.
+	 */
+	public void dispose()
+	{
+		if (!disposed)
+		{
+			closeReaders();
+			deleteRuns(runs);
+			disposed = true;
+		}
+	}
+}
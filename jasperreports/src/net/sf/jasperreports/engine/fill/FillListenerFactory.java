@@ -0,0 +1,51 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.ReportContext;
+
+/**
+ * Extension that creates listeners for report fills.
+ * <p>
+ * Factories are registered as extensions in the {@link JasperReportsContext} used by the fill,
+ * and are called for each master report fill when the report parameters are set.
+ * 
+ * @see FillListener
+ */
+public interface FillListenerFactory
+{
+
+	/**
+	 * Creates a listener for a report fill.
+	 * 
+	 * @param jasperReportsContext the context used by the fill
+	 * @param jasperReport the report being filled
+	 * @param reportContext the report context passed to the fill, <code>null</code> if the fill does not use one
+	 * @return a listener that is notified of the fill events, or <code>null</code> if the fill does not need a listener
+	 */
+	FillListener createFillListener(JasperReportsContext jasperReportsContext, JasperReport jasperReport, ReportContext reportContext);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+/**
+ * Extension notified when a profiled report fill ends.
+ * <p>
+ * Listeners are registered as extensions in the {@link net.sf.jasperreports.engine.JasperReportsContext}
+ * used by the fill.
+ * 
+ * @see FillProfiler#PROPERTY_SAMPLE_RATE
+ */
+public interface FillProfileListener
+{
+
+	/**
+	 * Called after a profiled report fill has ended.
+	 * 
+	 * @param profiler the profiler that contains the fill measurements
+	 */
+	void profileCompleted(FillProfiler profiler);
+
+}
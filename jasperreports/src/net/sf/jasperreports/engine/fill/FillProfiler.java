@@ -0,0 +1,483 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.JRStringUtil;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Collects the time spent in the main activities of a report fill.
+ * <p>
+ * A profiler is created for a report fill when the fill is sampled according to
+ * {@link #PROPERTY_SAMPLE_RATE}.
+ * The time is recorded per activity, dataset and location (expression, field, element or virtualized object type),
+ * and the results are made available when the fill ends as JSON in the log, as
+ * <code>net.sf.jasperreports.FillProfile</code> JFR events when running on a JVM that includes
+ * Flight Recorder, and to the registered {@link FillProfileListener} extensions.
+ * <p>
+ * When a report fill is not profiled the fill objects keep a <code>null</code> profiler reference,
+ * and the instrumented code only checks the reference.
+ */
+public class FillProfiler
+{
+	
+	private static final Log log = LogFactory.getLog(FillProfiler.class);
+
+	/**
+	 * Property that specifies the fraction of report fills that are profiled.
+	 * <p>
+	 * The value is a number between 0 and 1, 0 meaning that no fills are profiled
+	 * and 1 meaning that all fills are profiled.
+	 * Values in between can be used to sample fills in production environments.
+	 * <p>
+	 * The property can be set globally or at master report level, and defaults to 0.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Double.class
+			)
+	public static final String PROPERTY_SAMPLE_RATE = JRPropertiesUtil.PROPERTY_PREFIX + "fill.profiler.sample.rate";
+	
+	/**
+	 * Activities recorded by the profiler.
+	 */
+	public enum Activity
+	{
+		EXPRESSION_EVALUATION("expressionEvaluation"),
+		DATA_SOURCE_NEXT("dataSourceNext"),
+		FIELD_VALUE("fieldValue"),
+		TEXT_MEASUREMENT("textMeasurement"),
+		VIRTUALIZER_EVICTION("virtualizerEviction"),
+		VIRTUALIZER_LOAD("virtualizerLoad"),
+		SUBREPORT_FILL("subreportFill");
+		
+		private final String name;
+		
+		private Activity(String name)
+		{
+			this.name = name;
+		}
+		
+		public String getName()
+		{
+			return name;
+		}
+	}
+	
+	/**
+	 * Creates a profiler for a master report fill, if the fill is sampled.
+	 * 
+	 * @param masterFiller the master report filler
+	 * @return a profiler, or <code>null</code> if the fill is not to be profiled
+	 */
+	public static FillProfiler create(BaseReportFiller masterFiller)
+	{
+		JasperReport report = masterFiller.getJasperReport();
+		Double sampleRate = masterFiller.getPropertiesUtil().getDoubleProperty(report, PROPERTY_SAMPLE_RATE);
+		if (sampleRate == null || sampleRate <= 0
+				|| (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate))
+		{
+			return null;
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("profiling fill of " + report.getName());
+		}
+		
+		return new FillProfiler(masterFiller.getJasperReportsContext(), report.getName());
+	}
+	
+	private final JasperReportsContext jasperReportsContext;
+	private final String reportName;
+	private final long startTime;
+	private volatile long endTime;
+	private final Map<Key, Measurement> measurements;
+	
+	protected FillProfiler(JasperReportsContext jasperReportsContext, String reportName)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.reportName = reportName;
+		this.startTime = System.nanoTime();
+		this.measurements = new ConcurrentHashMap<Key, Measurement>();
+	}
+
+	/**
+	 * Returns the current time, to be passed to {@link #record(Activity, String, Object, long)}
+	 * after the activity ends.
+	 */
+	public long start()
+	{
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the time spent in an activity.
+	 * 
+	 * @param activity the activity
+	 * @param dataset the name of the dataset, or <code>null</code> if the activity is not related to a dataset
+	 * @param subject the object for which the activity was performed, such as an expression, a field or an element
+	 * @param startTime the time returned by {@link #start()} before the activity
+	 */
+	public void record(Activity activity, String dataset, Object subject, long startTime)
+	{
+		long duration = System.nanoTime() - startTime;
+		Key key = new Key(activity, dataset, subject);
+		Measurement measurement = measurements.get(key);
+		if (measurement == null)
+		{
+			measurement = measurements.computeIfAbsent(key, k -> new Measurement());
+		}
+		measurement.add(duration);
+	}
+	
+	protected void done()
+	{
+		endTime = System.nanoTime();
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("fill profile for " + reportName + ": " + toJson());
+		}
+		
+		FillProfilerEvents.emit(this);
+		
+		List<FillProfileListener> listeners = jasperReportsContext.getExtensions(FillProfileListener.class);
+		for (FillProfileListener listener : listeners)
+		{
+			listener.profileCompleted(this);
+		}
+	}
+
+	/**
+	 * Returns the name of the master report.
+	 */
+	public String getReportName()
+	{
+		return reportName;
+	}
+
+	/**
+	 * Returns the duration of the report fill in nanoseconds, or the time elapsed so far
+	 * if the fill has not ended.
+	 */
+	public long getFillTime()
+	{
+		long end = endTime;
+		return (end == 0 ? System.nanoTime() : end) - startTime;
+	}
+
+	/**
+	 * Returns the recorded measurements, in the descending order of the total time.
+	 * <p>
+	 * Measurements for objects that have the same description, such as elements 
+	 * cloned by the fill process, are merged.
+	 */
+	public List<Entry> getEntries()
+	{
+		Map<Entry, Entry> entries = new LinkedHashMap<Entry, Entry>();
+		for (Map.Entry<Key, Measurement> measurementEntry : measurements.entrySet())
+		{
+			Key key = measurementEntry.getKey();
+			Measurement measurement = measurementEntry.getValue();
+			Entry entry = new Entry(key.activity, key.dataset, describe(key.subject));
+			Entry existing = entries.get(entry);
+			if (existing == null)
+			{
+				entries.put(entry, entry);
+				existing = entry;
+			}
+			existing.count += measurement.count.sum();
+			existing.totalTime += measurement.totalTime.sum();
+			existing.maxTime = Math.max(existing.maxTime, measurement.maxTime.get());
+		}
+		
+		List<Entry> entryList = new ArrayList<Entry>(entries.values());
+		Collections.sort(entryList, (e1, e2) -> Long.compare(e2.totalTime, e1.totalTime));
+		return entryList;
+	}
+	
+	/**
+	 * Returns the profile as a JSON object.
+	 * <p>
+	 * The object contains the report name, the fill time and a list of measurements
+	 * having the activity, dataset, location, count, total time and maximum time.
+	 * Times are expressed in nanoseconds.
+	 */
+	public String toJson()
+	{
+		StringBuilder json = new StringBuilder();
+		json.append("{\"report\":");
+		appendJsonString(json, reportName);
+		json.append(",\"fillTime\":").append(getFillTime());
+		json.append(",\"measurements\":[");
+		boolean first = true;
+		for (Entry entry : getEntries())
+		{
+			if (!first)
+			{
+				json.append(',');
+			}
+			first = false;
+			
+			json.append("{\"activity\":");
+			appendJsonString(json, entry.activity.getName());
+			json.append(",\"dataset\":");
+			appendJsonString(json, entry.dataset);
+			json.append(",\"location\":");
+			appendJsonString(json, entry.location);
+			json.append(",\"count\":").append(entry.count);
+			json.append(",\"totalTime\":").append(entry.totalTime);
+			json.append(",\"maxTime\":").append(entry.maxTime);
+			json.append('}');
+		}
+		json.append("]}");
+		return json.toString();
+	}
+	
+	protected void appendJsonString(StringBuilder json, String value)
+	{
+		if (value == null)
+		{
+			json.append("null");
+		}
+		else
+		{
+			json.append('"').append(JRStringUtil.escapeJSONString(value)).append('"');
+		}
+	}
+	
+	protected String describe(Object subject)
+	{
+		if (subject == null)
+		{
+			return null;
+		}
+		
+		if (subject instanceof JRExpression)
+		{
+			JRExpression expression = (JRExpression) subject;
+			return "expression " + expression.getId() + ": " + expression.getText();
+		}
+		
+		if (subject instanceof JRFillField)
+		{
+			return "field " + ((JRFillField) subject).getName();
+		}
+		
+		if (subject instanceof JRFillElement)
+		{
+			JRFillElement element = (JRFillElement) subject;
+			StringBuilder description = new StringBuilder();
+			JRFillBand band = element.getBand();
+			JROrigin origin = band == null ? null : band.getOrigin();
+			if (origin != null)
+			{
+				description.append(origin.getBandTypeValue().getName());
+				if (origin.getGroupName() != null)
+				{
+					description.append(' ').append(origin.getGroupName());
+				}
+				description.append('/');
+			}
+			String key = element.getKey();
+			description.append(key == null ? element.getUUID().toString() : key);
+			return description.toString();
+		}
+		
+		return subject.toString();
+	}
+	
+	protected static class Key
+	{
+		private final Activity activity;
+		private final String dataset;
+		private final Object subject;
+		private final int hash;
+		
+		protected Key(Activity activity, String dataset, Object subject)
+		{
+			this.activity = activity;
+			this.dataset = dataset;
+			this.subject = subject;
+			
+			int hashCode = activity.hashCode();
+			hashCode = 31 * hashCode + (dataset == null ? 0 : dataset.hashCode());
+			hashCode = 31 * hashCode + (subject == null ? 0 : subject.hashCode());
+			this.hash = hashCode;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			
+			Key key = (Key) obj;
+			return activity == key.activity
+					&& (dataset == null ? key.dataset == null : dataset.equals(key.dataset))
+					&& (subject == null ? key.subject == null : subject.equals(key.subject));
+		}
+	}
+	
+	protected static class Measurement
+	{
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalTime = new LongAdder();
+		private final AtomicLong maxTime = new AtomicLong();
+		
+		protected void add(long duration)
+		{
+			count.increment();
+			totalTime.add(duration);
+			if (duration > maxTime.get())
+			{
+				maxTime.accumulateAndGet(duration, Math::max);
+			}
+		}
+	}
+	
+	/**
+	 * Measurement of an activity for a dataset and a location.
+	 */
+	public static class Entry
+	{
+		private final Activity activity;
+		private final String dataset;
+		private final String location;
+		private long count;
+		private long totalTime;
+		private long maxTime;
+		
+		protected Entry(Activity activity, String dataset, String location)
+		{
+			this.activity = activity;
+			this.dataset = dataset;
+			this.location = location;
+		}
+
+		public Activity getActivity()
+		{
+			return activity;
+		}
+
+		public String getDataset()
+		{
+			return dataset;
+		}
+
+		/**
+		 * Returns the description of the object for which the activity was performed.
+		 */
+		public String getLocation()
+		{
+			return location;
+		}
+
+		public long getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * Returns the total time in nanoseconds.
+		 */
+		public long getTotalTime()
+		{
+			return totalTime;
+		}
+
+		/**
+		 * Returns the maximum time of a single activity in nanoseconds.
+		 */
+		public long getMaxTime()
+		{
+			return maxTime;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hashCode = activity.hashCode();
+			hashCode = 31 * hashCode + (dataset == null ? 0 : dataset.hashCode());
+			hashCode = 31 * hashCode + (location == null ? 0 : location.hashCode());
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			
+			if (!(obj instanceof Entry))
+			{
+				return false;
+			}
+			
+			Entry entry = (Entry) obj;
+			return activity == entry.activity
+					&& (dataset == null ? entry.dataset == null : dataset.equals(entry.dataset))
+					&& (location == null ? entry.location == null : location.equals(entry.location));
+		}
+	}
+}
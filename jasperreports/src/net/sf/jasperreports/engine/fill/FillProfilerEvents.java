@@ -0,0 +1,155 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Emits fill profile measurements as Flight Recorder events.
+ * <p>
+ * The events are defined dynamically via <code>jdk.jfr.EventFactory</code>, which is accessed by reflection
+ * so that the code does not depend on the Flight Recorder API being present at compile time or at runtime.
+ */
+final class FillProfilerEvents
+{
+	
+	private static final Log log = LogFactory.getLog(FillProfilerEvents.class);
+	
+	public static final String EVENT_NAME = "net.sf.jasperreports.FillProfile";
+	
+	private static final Object EVENT_FACTORY;
+	private static final Method NEW_EVENT;
+	private static final Method SET;
+	private static final Method COMMIT;
+	
+	static
+	{
+		Object eventFactory = null;
+		Method newEvent = null;
+		Method set = null;
+		Method commit = null;
+		try
+		{
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			Constructor<?> annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+			Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+			Constructor<?> valueDescriptorConstructor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+			
+			List<Object> eventAnnotations = new ArrayList<Object>();
+			eventAnnotations.add(annotationElementConstructor.newInstance(annotationClass("jdk.jfr.Name"), EVENT_NAME));
+			eventAnnotations.add(annotationElementConstructor.newInstance(annotationClass("jdk.jfr.Label"), "Fill Profile"));
+			eventAnnotations.add(annotationElementConstructor.newInstance(annotationClass("jdk.jfr.Category"), 
+					new String[]{"JasperReports"}));
+			
+			List<Object> timespanAnnotations = Collections.singletonList(
+					annotationElementConstructor.newInstance(annotationClass("jdk.jfr.Timespan"), "NANOSECONDS"));
+			
+			List<Object> fields = new ArrayList<Object>();
+			fields.add(valueDescriptorConstructor.newInstance(String.class, "report", Collections.emptyList()));
+			fields.add(valueDescriptorConstructor.newInstance(String.class, "activity", Collections.emptyList()));
+			fields.add(valueDescriptorConstructor.newInstance(String.class, "dataset", Collections.emptyList()));
+			fields.add(valueDescriptorConstructor.newInstance(String.class, "location", Collections.emptyList()));
+			fields.add(valueDescriptorConstructor.newInstance(long.class, "count", Collections.emptyList()));
+			fields.add(valueDescriptorConstructor.newInstance(long.class, "totalTime", timespanAnnotations));
+			fields.add(valueDescriptorConstructor.newInstance(long.class, "maxTime", timespanAnnotations));
+			
+			Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+			eventFactory = eventFactoryClass.getMethod("create", List.class, List.class)
+					.invoke(null, eventAnnotations, fields);
+			newEvent = eventFactoryClass.getMethod("newEvent");
+			
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			set = eventClass.getMethod("set", int.class, Object.class);
+			commit = eventClass.getMethod("commit");
+		}
+		catch (ClassNotFoundException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Flight Recorder events not available: " + e);
+			}
+			eventFactory = null;
+		}
+		catch (Exception | LinkageError e)
+		{
+			log.warn("Failed to create Flight Recorder event type for fill profiles", e);
+			eventFactory = null;
+		}
+		
+		EVENT_FACTORY = eventFactory;
+		NEW_EVENT = newEvent;
+		SET = set;
+		COMMIT = commit;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Annotation> annotationClass(String name) throws ClassNotFoundException
+	{
+		return (Class<? extends Annotation>) Class.forName(name);
+	}
+	
+	private FillProfilerEvents()
+	{
+	}
+	
+	/**
+	 * Emits an event for each measurement of a profile, if Flight Recorder is available.
+	 */
+	public static void emit(FillProfiler profiler)
+	{
+		if (EVENT_FACTORY == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			for (FillProfiler.Entry entry : profiler.getEntries())
+			{
+				Object event = NEW_EVENT.invoke(EVENT_FACTORY);
+				SET.invoke(event, 0, profiler.getReportName());
+				SET.invoke(event, 1, entry.getActivity().getName());
+				SET.invoke(event, 2, entry.getDataset());
+				SET.invoke(event, 3, entry.getLocation());
+				SET.invoke(event, 4, entry.getCount());
+				SET.invoke(event, 5, entry.getTotalTime());
+				SET.invoke(event, 6, entry.getMaxTime());
+				COMMIT.invoke(event);
+			}
+		}
+		catch (Exception e)
+		{
+			log.warn("Failed to emit fill profile events", e);
+		}
+	}
+	
+}
@@ -134,6 +134,11 @@ public class FillerSubreportParent implements BandReportFillerParent
 		this.subreportRunner = subreportRunner;
 	}
 
+	public boolean isFillerLockRequired()
+	{
+		return subreportRunner == null || subreportRunner.isFillerLockRequired();
+	}
+
 	@Override
 	@continuable
 	public void addPage(FillerPageAddedEvent pageAdded) throws JRException
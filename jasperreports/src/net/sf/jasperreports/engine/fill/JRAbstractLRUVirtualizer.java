@@ -532,6 +532,8 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 				}
 				
 				// unvirtualize
+				FillProfiler profiler = o.getContext().getProfiler();
+				long profileStart = profiler == null ? 0 : profiler.start();
 				try
 				{
 					pageIn(o);
@@ -541,6 +543,11 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 					log.error("Error devirtualizing object", e);
 					throw new JRRuntimeException(e);
 				}
+				
+				if (profiler != null)
+				{
+					profiler.record(FillProfiler.Activity.VIRTUALIZER_LOAD, null, o.getClass().getSimpleName(), profileStart);
+				}
 
 				synchronized (this)
 				{
@@ -595,6 +602,8 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 			o.beforeExternalization();
 
 			// virtualize
+			FillProfiler profiler = o.getContext().getProfiler();
+			long profileStart = profiler == null ? 0 : profiler.start();
 			try
 			{
 				pageOut(o);
@@ -604,6 +613,11 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 				log.error("Error virtualizing object", e);
 				throw new JRRuntimeException(e);
 			}
+			
+			if (profiler != null)
+			{
+				profiler.record(FillProfiler.Activity.VIRTUALIZER_EVICTION, null, o.getClass().getSimpleName(), profileStart);
+			}
 
 			o.afterExternalization();
 
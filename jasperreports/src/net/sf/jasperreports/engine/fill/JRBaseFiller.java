@@ -113,7 +113,7 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	
 	protected BandReportFillerParent bandReportParent;
 
-	private JRStyledTextParser styledTextParser = JRStyledTextParser.getInstance();
+	private JRStyledTextParser styledTextParser;
 
 	/**
 	 *
@@ -262,6 +262,11 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	
 	protected int usedPageHeight = 0;
 
+	/**
+	 * Whether the filler has been reset after a previous fill, in which case the styles are already loaded.
+	 */
+	private boolean reusedFill;
+
 	/**
 	 *
 	 */
@@ -274,6 +279,8 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 		super(jasperReportsContext, reportSource, parent);
 		
 		this.bandReportParent = parent;
+		
+		styledTextParser = JRStyledTextParser.getInstance(jasperReportsContext, jasperReport);
 
 		groups = mainDataset.groups;
 
@@ -585,7 +592,10 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 
 			setBookmarkHelper();
 			
-			loadStyles();
+			if (!reusedFill)
+			{
+				loadStyles();
+			}
 
 			jasperPrint.setName(name);
 			jasperPrint.setPageWidth(pageWidth);
@@ -606,7 +616,7 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 			jasperPrint.setDefaultStyle(defaultStyle);
 
 			/*   */
-			if (styles != null && styles.length > 0)
+			if (!reusedFill && styles != null && styles.length > 0)
 			{
 				for (int i = 0; i < styles.length; i++)
 				{
@@ -618,7 +628,14 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 			mainDataset.start();
 
 			/*   */
-			fillReport();
+			if (isFillerLockRequired())
+			{
+				fillReportLocked();
+			}
+			else
+			{
+				fillReport();
+			}
 			
 			mainDataset.evaluateProperties(PropertyEvaluationTimeEnum.REPORT);
 			
@@ -651,6 +668,8 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 			{
 				// commit the cached data
 				fillContext.cacheDone();
+				
+				fillContext.profileDone();
 			}
 
 			if (parent != null)
@@ -957,6 +976,72 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	}
 
 
+	/**
+	 * Resets the state of a subreport filler that has completed a fill.
+	 * 
+	 * <p>
+	 * The filler state that is left by a completed fill (current page, element ranges, pagination flags
+	 * and group states) is set to the values of a new filler.
+	 * The fill elements and styles are kept, which means that the filler can only be reused when the
+	 * report template has no style templates and when all its elements are evaluated immediately
+	 * and do not keep values between records.
+	 * 
+	 * @see JRFillSubreport#PROPERTY_FILLER_REUSE
+	 */
+	@Override
+	protected void resetFillState()
+	{
+		super.resetFillState();
+		
+		reusedFill = true;
+		
+		printPage = null;
+		printPageContentsWidth = 0;
+		if (subfillers != null)
+		{
+			subfillers.clear();
+		}
+		
+		groupFooterPositionElementRange = null;
+		detailElementRange = null;
+		orphanGroupFooterDetailElementRange = null;
+		orphanGroupFooterElementRange = null;
+		floatColumnFooterElementRange = null;
+		
+		isCreatingNewPage = false;
+		isNewPage = false;
+		isNewColumn = false;
+		preventOrphanFootersMinLevel = null;
+		crtGroupFootersLevel = 0;
+		usedPageHeight = 0;
+		usedPageWidth = 0;
+		
+		if (groups != null)
+		{
+			for (JRFillGroup group : groups)
+			{
+				group.setHasChanged(true);
+				group.setTopLevelChange(false);
+				group.setHeaderPrinted(false);
+				group.setFooterPrinted(true);
+				group.resetDetailsCount();
+				group.setKeepTogetherElementRange(null);
+			}
+		}
+		
+		// old field values are not carried to the first record of the next fill
+		if (mainDataset.fields != null)
+		{
+			for (JRFillField field : mainDataset.fields)
+			{
+				field.setValue(null);
+				field.setOldValue(null);
+				field.setPreviousOldValue(null);
+			}
+		}
+	}
+
+
 	private void abortSubfillers()
 	{
 		if (subfillers != null && !subfillers.isEmpty())
@@ -983,6 +1068,27 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	@continuable
 	protected abstract void fillReport() throws JRException;
 
+	/**
+	 * Fills the report while owning the lock on the filler object, which is used by
+	 * the thread based subreport runners to pass control between the master and subreport threads.
+	 */
+	@continuable
+	protected synchronized void fillReportLocked() throws JRException
+	{
+		fillReport();
+	}
+
+	/**
+	 * Decides whether the report is to be filled while owning the lock on the filler object.
+	 * 
+	 * @see JRSubreportRunner#isFillerLockRequired()
+	 */
+	protected boolean isFillerLockRequired()
+	{
+		return !(parent instanceof FillerSubreportParent) 
+				|| ((FillerSubreportParent) parent).isFillerLockRequired();
+	}
+
 	@Override
 	protected void ignorePaginationSet(Map<String, Object> parameterValues)
 	{
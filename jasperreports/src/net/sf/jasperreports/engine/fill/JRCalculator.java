@@ -105,6 +105,9 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 * The expression evaluator
 	 */
 	private final DatasetExpressionEvaluator evaluator;
+	
+	private FillProfiler profiler;
+	private String datasetName;
 
 
 	/**
@@ -158,6 +161,9 @@ public class JRCalculator implements JRFillExpressionEvaluator
 					);
 		evaluator.init(parsm, fldsm,varsm, whenResourceMissingType, ignoreNPE);
 		
+		profiler = dataset.getProfiler();
+		datasetName = dataset.getName();
+		
 		legacyBandEvaluationEnabled = 
 			JRPropertiesUtil.getInstance(getFillDataset().getJasperReportsContext())
 				.getBooleanProperty(
@@ -195,14 +201,21 @@ public class JRCalculator implements JRFillExpressionEvaluator
 			{
 				JRFillVariable variable = variables[i];
 				Object expressionValue = evaluate(variable.getExpression());
-				Object newValue = variable.getIncrementer().increment(variable, expressionValue, AbstractValueProvider.getCurrentValueProvider());
-				variable.setValue(newValue);
+				if (variable.isPrimitiveValue())
+				{
+					variable.incrementPrimitiveValue(expressionValue);
+				}
+				else
+				{
+					Object newValue = variable.getIncrementer().increment(variable, expressionValue, AbstractValueProvider.getCurrentValueProvider());
+					variable.setValue(newValue);
+				}
 				variable.setInitialized(false);
-				variable.setPreviousIncrementedValue(variable.getIncrementedValue());
+				variable.savePreviousIncrementedValue();
 
 				if (variable.getIncrementTypeValue() == IncrementTypeEnum.NONE)
 				{
-					variable.setIncrementedValue(variable.getValue());
+					variable.saveIncrementedValue();
 				}
 			}
 		}
@@ -647,12 +660,59 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	}
 	
 
+	@Override
+	public boolean evaluateBoolean(
+		JRExpression expression,
+		byte evaluationType
+		) throws JRException
+	{
+		boolean value;
+		
+		long profileStart = profiler == null ? 0 : profiler.start();
+		
+		switch (evaluationType)
+		{
+			case JRExpression.EVALUATION_OLD :
+			{
+				value = evaluator.evaluateBooleanOld(expression);
+				break;
+			}
+			case JRExpression.EVALUATION_ESTIMATED :
+			{
+				value = evaluator.evaluateBooleanEstimated(expression);
+				break;
+			}
+			case JRExpression.EVALUATION_DEFAULT :
+			default :
+			{
+				value = evaluator.evaluateBoolean(expression);
+				break;
+			}
+		}
+		
+		if (profiler != null)
+		{
+			profiler.record(FillProfiler.Activity.EXPRESSION_EVALUATION, datasetName, expression, profileStart);
+		}
+
+		return value;
+	}
+	
+
 	/**
 	 *
 	 */
 	public Object evaluateOld(JRExpression expression) throws JRExpressionEvalException
 	{
-		return evaluator.evaluateOld(expression);
+		if (profiler == null)
+		{
+			return evaluator.evaluateOld(expression);
+		}
+		
+		long profileStart = profiler.start();
+		Object value = evaluator.evaluateOld(expression);
+		profiler.record(FillProfiler.Activity.EXPRESSION_EVALUATION, datasetName, expression, profileStart);
+		return value;
 	}
 
 
@@ -661,7 +721,15 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 */
 	public Object evaluateEstimated(JRExpression expression) throws JRExpressionEvalException
 	{
-		return evaluator.evaluateEstimated(expression);
+		if (profiler == null)
+		{
+			return evaluator.evaluateEstimated(expression);
+		}
+		
+		long profileStart = profiler.start();
+		Object value = evaluator.evaluateEstimated(expression);
+		profiler.record(FillProfiler.Activity.EXPRESSION_EVALUATION, datasetName, expression, profileStart);
+		return value;
 	}
 
 
@@ -670,7 +738,34 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 */
 	public Object evaluate(JRExpression expression) throws JRExpressionEvalException
 	{
-		return evaluator.evaluate(expression);
+		if (profiler == null)
+		{
+			return evaluator.evaluate(expression);
+		}
+		
+		long profileStart = profiler.start();
+		Object value = evaluator.evaluate(expression);
+		profiler.record(FillProfiler.Activity.EXPRESSION_EVALUATION, datasetName, expression, profileStart);
+		return value;
+	}
+
+
+	/**
+	 * Evaluates a boolean expression using current fields and variables values.
+	 * 
+	 * @see #evaluateBoolean(JRExpression, byte)
+	 */
+	public boolean evaluateBoolean(JRExpression expression) throws JRExpressionEvalException
+	{
+		if (profiler == null)
+		{
+			return evaluator.evaluateBoolean(expression);
+		}
+		
+		long profileStart = profiler.start();
+		boolean value = evaluator.evaluateBoolean(expression);
+		profiler.record(FillProfiler.Activity.EXPRESSION_EVALUATION, datasetName, expression, profileStart);
+		return value;
 	}
 
 
@@ -313,19 +313,11 @@ public abstract class JREvaluator implements DatasetExpressionEvaluator
 					value = evaluate(expression.getId());
 				}
 			}
-			catch (NullPointerException e) //NOPMD
-			{
-				if (!ignoreNPE) throw new JRExpressionEvalException(expression, e);
-			}
-			catch (OutOfMemoryError e)
-			{
-				throw e;
-			}
 			// we have to catch Throwable because there is no way we could modify the signature
 			// of the evaluate method, without breaking backward compatibility of compiled report templates 
 			catch (Throwable e) //NOPMD
 			{
-				value = handleEvaluationException(expression, e);
+				value = evaluationFailed(expression, e);
 			}
 		}
 		
@@ -352,19 +344,11 @@ public abstract class JREvaluator implements DatasetExpressionEvaluator
 					value = evaluateOld(expression.getId());
 				}
 			}
-			catch (NullPointerException e) //NOPMD
-			{
-				if (!ignoreNPE) throw new JRExpressionEvalException(expression, e);
-			}
-			catch (OutOfMemoryError e)
-			{
-				throw e;
-			}
 			// we have to catch Throwable because there is no way we could modify the signature
 			// of the evaluate method, without breaking backward compatibility of compiled report templates 
 			catch (Throwable e) //NOPMD
 			{
-				value = handleEvaluationException(expression, e);
+				value = evaluationFailed(expression, e);
 			}
 		}
 		
@@ -391,19 +375,83 @@ public abstract class JREvaluator implements DatasetExpressionEvaluator
 					value = evaluateEstimated(expression.getId());
 				}
 			}
-			catch (NullPointerException e) //NOPMD
+			// we have to catch Throwable because there is no way we could modify the signature
+			// of the evaluate method, without breaking backward compatibility of compiled report templates 
+			catch (Throwable e) //NOPMD
 			{
-				if (!ignoreNPE) throw new JRExpressionEvalException(expression, e);
+				value = evaluationFailed(expression, e);
 			}
-			catch (OutOfMemoryError e)
+		}
+		
+		return value;
+	}
+
+	
+	@Override
+	public boolean evaluateBoolean(JRExpression expression) throws JRExpressionEvalException
+	{
+		return evaluateBooleanExpression(expression, JRExpression.EVALUATION_DEFAULT);
+	}
+
+
+	@Override
+	public boolean evaluateBooleanOld(JRExpression expression) throws JRExpressionEvalException
+	{
+		return evaluateBooleanExpression(expression, JRExpression.EVALUATION_OLD);
+	}
+
+
+	@Override
+	public boolean evaluateBooleanEstimated(JRExpression expression) throws JRExpressionEvalException
+	{
+		return evaluateBooleanExpression(expression, JRExpression.EVALUATION_ESTIMATED);
+	}
+
+
+	private boolean evaluateBooleanExpression(JRExpression expression, byte evaluation) throws JRExpressionEvalException
+	{
+		boolean value = false;
+		
+		if (expression != null)
+		{
+			DirectExpressionEvaluator directEvaluator = directEvaluator(expression);
+			try
 			{
-				throw e;
+				if (directEvaluator != null)
+				{
+					switch (evaluation)
+					{
+						case JRExpression.EVALUATION_OLD:
+							value = booleanValue(directEvaluator.evaluateOld());
+							break;
+						case JRExpression.EVALUATION_ESTIMATED:
+							value = booleanValue(directEvaluator.evaluateEstimated());
+							break;
+						default:
+							value = booleanValue(directEvaluator.evaluate());
+							break;
+					}
+				}
+				else
+				{
+					switch (evaluation)
+					{
+						case JRExpression.EVALUATION_OLD:
+							value = evaluateBooleanOld(expression.getId());
+							break;
+						case JRExpression.EVALUATION_ESTIMATED:
+							value = evaluateBooleanEstimated(expression.getId());
+							break;
+						default:
+							value = evaluateBoolean(expression.getId());
+							break;
+					}
+				}
 			}
-			// we have to catch Throwable because there is no way we could modify the signature
-			// of the evaluate method, without breaking backward compatibility of compiled report templates 
+			// see evaluationFailed(JRExpression, Throwable)
 			catch (Throwable e) //NOPMD
 			{
-				value = handleEvaluationException(expression, e);
+				value = booleanValue(evaluationFailed(expression, e));
 			}
 		}
 		
@@ -411,6 +459,37 @@ public abstract class JREvaluator implements DatasetExpressionEvaluator
 	}
 
 	
+	/**
+	 * Handles an exception thrown by an expression evaluation.
+	 * <p>
+	 * Null pointer exceptions are ignored if {@link #PROPERTY_IGNORE_NPE} is set,
+	 * other exceptions are handled by {@link #handleEvaluationException(JRExpression, Throwable)}.
+	 * 
+	 * @param expression the expression that was evaluated
+	 * @param e the exception thrown by the evaluation
+	 * @return the value to use for the expression
+	 * @throws JRExpressionEvalException
+	 */
+	private Object evaluationFailed(JRExpression expression, Throwable e) throws JRExpressionEvalException
+	{
+		if (e instanceof NullPointerException)
+		{
+			if (!ignoreNPE)
+			{
+				throw new JRExpressionEvalException(expression, e);
+			}
+			return null;
+		}
+		
+		if (e instanceof OutOfMemoryError)
+		{
+			throw (OutOfMemoryError) e;
+		}
+		
+		return handleEvaluationException(expression, e);
+	}
+
+
 	/**
 	 * Handles the case when a resource is missing.
 	 * 
@@ -510,6 +589,84 @@ public abstract class JREvaluator implements DatasetExpressionEvaluator
 	protected abstract Object evaluateEstimated(int id) throws Throwable; //NOSONAR
 
 
+	/**
+	 * Evaluates a boolean expression using current fields and variables values.
+	 * <p>
+	 * Generated evaluator classes override this method for print when, filter and
+	 * conditional style expressions, so that expressions producing primitive <code>boolean</code>
+	 * values are evaluated without boxing the result.
+	 * The default implementation delegates to {@link #evaluate(int)}.
+	 * 
+	 * @param id the expression id
+	 * @return the result of the evaluation, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws Throwable
+	 */
+	protected boolean evaluateBoolean(int id) throws Throwable //NOSONAR
+	{
+		return booleanValue(evaluate(id));
+	}
+
+
+	/**
+	 * Evaluates a boolean expression using old fields and variables values.
+	 * 
+	 * @param id the expression id
+	 * @return the result of the evaluation, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws Throwable
+	 * @see #evaluateBoolean(int)
+	 */
+	protected boolean evaluateBooleanOld(int id) throws Throwable //NOSONAR
+	{
+		return booleanValue(evaluateOld(id));
+	}
+
+
+	/**
+	 * Evaluates a boolean expression using estimated variables values.
+	 * 
+	 * @param id the expression id
+	 * @return the result of the evaluation, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws Throwable
+	 * @see #evaluateBoolean(int)
+	 */
+	protected boolean evaluateBooleanEstimated(int id) throws Throwable //NOSONAR
+	{
+		return booleanValue(evaluateEstimated(id));
+	}
+
+
+	/**
+	 * Returns the value of a boolean expression.
+	 * 
+	 * <p>
+	 * Generated code calls this method with the expression as argument,
+	 * the compiler picks this overload for expressions of primitive type.
+	 */
+	protected static boolean booleanValue(boolean value)
+	{
+		return value;
+	}
+
+
+	/**
+	 * Returns the value of a boolean expression, <code>false</code> for <code>null</code>.
+	 */
+	protected static boolean booleanValue(Boolean value)
+	{
+		return value != null && value;
+	}
+
+
+	/**
+	 * Returns the value of an expression that is expected to produce a <code>java.lang.Boolean</code>,
+	 * <code>false</code> for <code>null</code>.
+	 */
+	protected static boolean booleanValue(Object value)
+	{
+		return booleanValue((Boolean) value);
+	}
+
+
 	/**
 	 * 
 	 */
@@ -354,15 +354,7 @@ public class JRFillBand extends JRFillElementContainer implements JRBand, JROrig
 		JRExpression expression = getPrintWhenExpression();
 		if (expression != null)
 		{
-			Boolean printWhenExpressionValue = (Boolean)filler.evaluateExpression(expression, evaluation);
-			if (printWhenExpressionValue == null)
-			{
-				isPrintTrue = false;
-			}
-			else
-			{
-				isPrintTrue = printWhenExpressionValue;
-			}
+			isPrintTrue = filler.evaluateBooleanExpression(expression, evaluation);
 		}
 
 		setPrintWhenTrue(isPrintTrue);
@@ -28,11 +28,15 @@ import java.awt.geom.Rectangle2D;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TimeZone;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.AxisLocation;
 import org.jfree.chart.plot.CategoryPlot;
@@ -43,6 +47,7 @@ import org.jfree.chart.renderer.category.CategoryItemRenderer;
 import org.jfree.chart.renderer.xy.XYItemRenderer;
 import org.jfree.data.Range;
 import org.jfree.data.general.Dataset;
+import org.jfree.util.PublicCloneable;
 
 import net.sf.jasperreports.charts.ChartContext;
 import net.sf.jasperreports.charts.ChartTheme;
@@ -85,7 +90,9 @@ import net.sf.jasperreports.charts.type.AxisPositionEnum;
 import net.sf.jasperreports.charts.type.EdgeEnum;
 import net.sf.jasperreports.charts.util.CategoryChartHyperlinkProvider;
 import net.sf.jasperreports.charts.util.ChartHyperlinkProvider;
+import net.sf.jasperreports.charts.util.ChartRenderableFactory;
 import net.sf.jasperreports.charts.util.ChartUtil;
+import net.sf.jasperreports.charts.util.DeferredChartRenderer;
 import net.sf.jasperreports.charts.util.HighLowChartHyperlinkProvider;
 import net.sf.jasperreports.charts.util.JRMeterInterval;
 import net.sf.jasperreports.charts.util.MultiAxisChartHyperlinkProvider;
@@ -111,7 +118,9 @@ import net.sf.jasperreports.engine.JRPrintHyperlinkParameters;
 import net.sf.jasperreports.engine.JRPrintImage;
 import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRStyle;
 import net.sf.jasperreports.engine.JRVisitor;
+import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.NamedChartCustomizer;
 import net.sf.jasperreports.engine.base.JRBaseChart;
@@ -122,6 +131,7 @@ import net.sf.jasperreports.engine.util.JRClassLoader;
 import net.sf.jasperreports.engine.util.JRStringUtil;
 import net.sf.jasperreports.engine.util.StyleUtil;
 import net.sf.jasperreports.export.HtmlReportConfiguration;
+import net.sf.jasperreports.renderers.DataRenderable;
 import net.sf.jasperreports.renderers.Renderable;
 
 
@@ -131,6 +141,8 @@ import net.sf.jasperreports.renderers.Renderable;
  */
 public class JRFillChart extends JRFillElement implements JRChart
 {
+	private static final Log log = LogFactory.getLog(JRFillChart.class);
+
 	public static final String EXCEPTION_MESSAGE_KEY_CUSTOMIZER_INSTANCE_ERROR = "charts.customizer.instance.error";
 	public static final String EXCEPTION_MESSAGE_KEY_MULTIAXIS_PLOT_TYPES_MIX_NOT_ALLOWED = "charts.multiaxis.plot.types.mix.not.allowed";
 	public static final String EXCEPTION_MESSAGE_KEY_MULTIAXIS_PLOT_NOT_SUPPORTED = "charts.multiaxis.plot.not.supported";
@@ -176,6 +188,13 @@ public class JRFillChart extends JRFillElement implements JRChart
 	protected JFreeChart jfreeChart;
 	protected ChartHyperlinkProvider chartHyperlinkProvider;
 
+	private String themeName;
+	private Boolean renderCacheEnabled;
+	private Boolean deferredRendering;
+	private List<JRExpression> themeExpressions;
+	private List<JRExpression> recordedThemeExpressions;
+	private List<Object> recordedThemeValues;
+
 	/**
 	 *
 	 */
@@ -804,17 +823,251 @@ public class JRFillChart extends JRFillElement implements JRChart
 	 */
 	protected void evaluateRenderer(byte evaluation) throws JRException
 	{
-		JFreeChart chart = evaluateChart(evaluation);
-		
+		if (!isRenderCacheEnabled())
+		{
+			JFreeChart chart = evaluateChart(evaluation);
+			renderer = createRenderable(chart);
+			return;
+		}
+
+		prepareChart(evaluation);
+
+		ChartRenderCache.Entry cacheEntry = null;
+		if (themeExpressions != null)
+		{
+			// the expressions that the theme evaluated when the chart was last created are evaluated
+			// to check whether a chart with the same content has already been rendered
+			chartHyperlinkProvider = createChartHyperlinkProvider();
+			if (chartHyperlinkProvider == null || !chartHyperlinkProvider.hasHyperlinks())
+			{
+				List<Object> themeValues = new ArrayList<Object>(themeExpressions.size());
+				for (JRExpression expression : themeExpressions)
+				{
+					themeValues.add(evaluateExpression(expression, evaluation));
+				}
+
+				List<Object> cacheKey = createRenderCacheKey(themeExpressions, themeValues);
+				if (cacheKey != null)
+				{
+					cacheEntry = getCachedRenderer(cacheKey);
+				}
+			}
+		}
+
+		if (cacheEntry == null)
+		{
+			List<JRExpression> expressions = new ArrayList<JRExpression>();
+			List<Object> values = new ArrayList<Object>();
+			recordedThemeExpressions = expressions;
+			recordedThemeValues = values;
+			try
+			{
+				createChart(evaluation);
+			}
+			finally
+			{
+				recordedThemeExpressions = null;
+				recordedThemeValues = null;
+			}
+			themeExpressions = expressions;
+
+			renderer = createRenderable(jfreeChart);
+
+			if (chartHyperlinkProvider == null || !chartHyperlinkProvider.hasHyperlinks())
+			{
+				List<Object> cacheKey = createRenderCacheKey(expressions, values);
+				if (cacheKey != null)
+				{
+					putCachedRenderer(cacheKey, new ChartRenderCache.Entry(renderer, chartHyperlinkProvider));
+				}
+			}
+		}
+		else
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("using cached renderer for chart " + getUUID());
+			}
+
+			jfreeChart = null;
+			renderer = cacheEntry.getRenderer();
+			chartHyperlinkProvider = cacheEntry.getHyperlinkProvider();
+		}
+
+		evaluateHyperlinks(evaluation);
+	}
+
+	protected Renderable createRenderable(JFreeChart chart)
+	{
+		JasperReportsContext jasperReportsContext = filler.getJasperReportsContext();
+		ChartRenderableFactory renderableFactory = ChartUtil.getInstance(jasperReportsContext).getChartRenderableFactory(getRenderType());
 		Rectangle2D rectangle = new Rectangle2D.Double(0,0,getWidth(),getHeight());
 
-		renderer = 
-			ChartUtil.getInstance(filler.getJasperReportsContext()).getChartRenderableFactory(getRenderType()).getRenderable(
-				filler.getJasperReportsContext(),
-				chart, 
-				chartHyperlinkProvider,
-				rectangle
-				);
+		if (isDeferredRendering())
+		{
+			return new DeferredChartRenderer(jasperReportsContext, renderableFactory, chart, chartHyperlinkProvider, rectangle);
+		}
+
+		return renderableFactory.getRenderable(jasperReportsContext, chart, chartHyperlinkProvider, rectangle);
+	}
+
+	protected boolean isDeferredRendering()
+	{
+		if (deferredRendering == null)
+		{
+			deferredRendering = 
+				(JRChart.RENDER_TYPE_IMAGE.equals(getRenderType()) || JRChart.RENDER_TYPE_SVG.equals(getRenderType()))
+				&& filler.getPropertiesUtil().getBooleanProperty(this, JRChart.PROPERTY_CHART_RENDER_DEFERRED, false);
+		}
+		return deferredRendering;
+	}
+
+	protected boolean isRenderCacheEnabled()
+	{
+		if (renderCacheEnabled == null)
+		{
+			// charts that have customizers are not cached as the customizers could depend on state that is not part of the cache key
+			renderCacheEnabled = 
+				getChartType() != JRChart.CHART_TYPE_MULTI_AXIS
+				&& chartCustomizers.isEmpty()
+				&& filler.getPropertiesUtil().getBooleanProperty(this, JRChart.PROPERTY_CHART_RENDER_CACHE, false);
+		}
+		return renderCacheEnabled;
+	}
+
+	/**
+	 * Creates the key of a chart renderer cache entry.
+	 * 
+	 * The key consists of the chart settings, a copy of the evaluated dataset and item labels,
+	 * and the values of the expressions evaluated by the chart theme.
+	 * 
+	 * @param expressions the expressions evaluated by the chart theme
+	 * @param values the values of the expressions
+	 * @return the cache key, or <code>null</code> if the chart cannot be cached
+	 */
+	protected List<Object> createRenderCacheKey(List<JRExpression> expressions, List<Object> values)
+	{
+		if (providerStyle != null)
+		{
+			// styles set by style providers have no name
+			return null;
+		}
+
+		Dataset chartDataset = dataset.getDataset();
+		Object datasetCopy = null;
+		if (chartDataset != null)
+		{
+			// the dataset can be further incremented after the chart has been rendered
+			if (!(chartDataset instanceof PublicCloneable))
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("chart " + getUUID() + " cannot be cached, dataset " + chartDataset.getClass().getName() + " cannot be copied");
+				}
+				return null;
+			}
+			
+			try
+			{
+				datasetCopy = ((PublicCloneable) chartDataset).clone();
+			}
+			catch (CloneNotSupportedException e)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("chart " + getUUID() + " cannot be cached: " + e.getMessage());
+				}
+				return null;
+			}
+		}
+
+		JasperReport report = filler.getJasperReport();
+		JRStyle style = getStyle();
+		List<Object> key = new ArrayList<Object>(16 + 2 * expressions.size());
+		key.add(report.getName());
+		key.add(report.getCompileNameSuffix());
+		key.add(getUUID());
+		key.add(themeName);
+		key.add(theme.getClass().getName());
+		key.add(getRenderType());
+		key.add(getWidth());
+		key.add(getHeight());
+		key.add(style == null ? null : style.getName());
+		key.add(getLocale());
+		key.add(getTimeZone());
+		key.add(dynamicPropertiesKey());
+		key.add(datasetCopy);
+		key.add(dataset.getItemLabelsCopy());
+
+		for (int i = 0; i < expressions.size(); i++)
+		{
+			// themes can evaluate null expressions, such as a missing subtitle
+			JRExpression expression = expressions.get(i);
+			key.add(expression == null ? -1 : expression.getId());
+			key.add(values.get(i));
+		}
+		return key;
+	}
+
+	private Map<String, String> dynamicPropertiesKey()
+	{
+		if (dynamicProperties == null)
+		{
+			return null;
+		}
+		
+		Map<String, String> properties = new LinkedHashMap<String, String>();
+		for (String propertyName : dynamicProperties.getPropertyNames())
+		{
+			properties.put(propertyName, dynamicProperties.getProperty(propertyName));
+		}
+		return properties;
+	}
+
+	protected ChartRenderCache.Entry getCachedRenderer(List<Object> cacheKey)
+	{
+		ChartRenderCache fillCache = getFillRenderCache();
+		ChartRenderCache.Entry entry = fillCache.get(cacheKey);
+		if (entry == null)
+		{
+			ChartRenderCache sharedCache = getSharedRenderCache();
+			if (sharedCache != null)
+			{
+				entry = sharedCache.get(cacheKey);
+				if (entry != null)
+				{
+					fillCache.put(cacheKey, entry);
+				}
+			}
+		}
+		return entry;
+	}
+
+	protected void putCachedRenderer(List<Object> cacheKey, ChartRenderCache.Entry entry)
+	{
+		getFillRenderCache().put(cacheKey, entry);
+
+		// only image data is shared as charts could be drawn by several threads
+		if (entry.getRenderer() instanceof DataRenderable)
+		{
+			ChartRenderCache sharedCache = getSharedRenderCache();
+			if (sharedCache != null)
+			{
+				sharedCache.put(cacheKey, entry);
+			}
+		}
+	}
+
+	protected ChartRenderCache getFillRenderCache()
+	{
+		int cacheSize = filler.getPropertiesUtil().getIntegerProperty(JRChart.PROPERTY_CHART_RENDER_CACHE_SIZE, 100);
+		return ChartRenderCache.getFillCache(filler.fillContext, cacheSize);
+	}
+
+	protected ChartRenderCache getSharedRenderCache()
+	{
+		int cacheSize = filler.getPropertiesUtil().getIntegerProperty(JRChart.PROPERTY_CHART_RENDER_SHARED_CACHE_SIZE, 0);
+		return ChartRenderCache.getSharedCache(cacheSize);
 	}
 	
 	protected ChartHyperlinkProvider getHyperlinkProvider()
@@ -826,6 +1079,18 @@ public class JRFillChart extends JRFillElement implements JRChart
 	 *
 	 */
 	protected JFreeChart evaluateChart(byte evaluation) throws JRException
+	{
+		prepareChart(evaluation);
+		createChart(evaluation);
+		evaluateHyperlinks(evaluation);
+
+		return jfreeChart;
+	}
+
+	/**
+	 * Evaluates the chart properties, dataset and style, and loads the chart theme.
+	 */
+	protected void prepareChart(byte evaluation) throws JRException
 	{
 		evaluateProperties(evaluation);
 		evaluateDatasetRun(evaluation);
@@ -835,7 +1100,7 @@ public class JRFillChart extends JRFillElement implements JRChart
 		// as the filler main dataset is not yet set, if the current band is a group band
 		if (theme == null)
 		{
-			String themeName = getTheme();
+			themeName = getTheme();
 			if(themeName == null)
 			{
 				themeName = filler.getPropertiesUtil().getProperty(getParentProperties(), JRChart.PROPERTY_CHART_THEME);
@@ -843,7 +1108,13 @@ public class JRFillChart extends JRFillElement implements JRChart
 
 			theme = ChartUtil.getInstance(filler.getJasperReportsContext()).getTheme(themeName);
 		}
-		
+	}
+
+	/**
+	 * Creates the JFreeChart object and applies the chart customizers.
+	 */
+	protected void createChart(byte evaluation) throws JRException
+	{
 		if (getChartType() == JRChart.CHART_TYPE_MULTI_AXIS)
 		{
 			//FIXMECHARTTHEME multi axis charts do not support themes
@@ -860,7 +1131,10 @@ public class JRFillChart extends JRFillElement implements JRChart
 		{
 			chartCustomizer.customize(jfreeChart, this);
 		}
+	}
 
+	protected void evaluateHyperlinks(byte evaluation) throws JRException
+	{
 		anchorName = (String) evaluateExpression(getAnchorNameExpression(), evaluation);
 		hyperlinkReference = (String) evaluateExpression(getHyperlinkReferenceExpression(), evaluation);
 		hyperlinkWhen = (Boolean) evaluateExpression(getHyperlinkWhenExpression(), evaluation);
@@ -868,8 +1142,17 @@ public class JRFillChart extends JRFillElement implements JRChart
 		hyperlinkPage = (Integer) evaluateExpression(getHyperlinkPageExpression(), evaluation);
 		hyperlinkTooltip = (String) evaluateExpression(getHyperlinkTooltipExpression(), evaluation);
 		hyperlinkParameters = JRFillHyperlinkHelper.evaluateHyperlinkParameters(this, expressionEvaluator, evaluation);
+	}
 
-		return jfreeChart;
+	protected Object evaluateThemeExpression(JRExpression expression, byte evaluation) throws JRException
+	{
+		Object value = evaluateExpression(expression, evaluation);
+		if (recordedThemeExpressions != null)
+		{
+			recordedThemeExpressions.add(expression);
+			recordedThemeValues.add(value);
+		}
+		return value;
 	}
 
 
@@ -1491,12 +1774,12 @@ public class JRFillChart extends JRFillElement implements JRChart
 		
 		@Override
 		public String evaluateTextExpression(JRExpression expression) throws JRException {
-			return JRStringUtil.getString(JRFillChart.this.evaluateExpression(expression, evaluation));
+			return JRStringUtil.getString(JRFillChart.this.evaluateThemeExpression(expression, evaluation));
 		}
 
 		@Override
 		public Object evaluateExpression(JRExpression expression) throws JRException {
-			return JRFillChart.this.evaluateExpression(expression, evaluation);
+			return JRFillChart.this.evaluateThemeExpression(expression, evaluation);
 		}
 
 		@Override
@@ -23,6 +23,9 @@
  */
 package net.sf.jasperreports.engine.fill;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import net.sf.jasperreports.engine.JRChartDataset;
 
 import org.jfree.data.general.Dataset;
@@ -63,4 +66,31 @@ public abstract class JRFillChartDataset extends JRFillElementDataset implements
 	 *
 	 */
 	public abstract Object getLabelGenerator();//FIXMETHEME this could return some sort of base label generator interface from JFreeChart
+
+	/**
+	 * Returns a copy of the item labels evaluated by the dataset.
+	 * 
+	 * The copy is used along with a copy of the dataset to identify charts that have already been rendered.
+	 * 
+	 * @return the item labels, or <code>null</code> if the dataset has no item labels
+	 */
+	public Object getItemLabelsCopy()
+	{
+		return null;
+	}
+
+	protected static <K, L> Map<K, Map<L, String>> copyItemLabels(Map<K, Map<L, String>> labels)
+	{
+		if (labels == null)
+		{
+			return null;
+		}
+		
+		Map<K, Map<L, String>> copy = new HashMap<K, Map<L, String>>(labels.size() * 4 / 3 + 1);
+		for (Map.Entry<K, Map<L, String>> entry : labels.entrySet())
+		{
+			copy.put(entry.getKey(), new HashMap<L, String>(entry.getValue()));
+		}
+		return copy;
+	}
 }
@@ -24,10 +24,13 @@
 package net.sf.jasperreports.engine.fill;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -79,7 +82,7 @@ public class JRFillContext
 	private DeduplicableRegistry deduplicableRegistry;
 	private boolean usingVirtualizer;
 	private JRPrintPage printPage;
-	private JRQueryExecuter queryExecuter;
+	private final Set<JRQueryExecuter> runningQueryExecuters = new LinkedHashSet<JRQueryExecuter>();
 	
 	private JasperReportsContext jasperReportsContext;
 	private JRStyledTextUtil styledTextUtil;
@@ -91,6 +94,8 @@ public class JRFillContext
 
 	private JRVirtualizationContext virtualizationContext;
 	
+	private final FillProfiler profiler;
+	
 	private FormatFactory masterFormatFactory;
 	private Locale masterLocale;
 	private TimeZone masterTimeZone;
@@ -122,10 +127,11 @@ public class JRFillContext
 		this.jasperReportsContext = masterFiller.getJasperReportsContext();
 		this.styledTextUtil = JRStyledTextUtil.getInstance(jasperReportsContext);
 		
-		loadedImageRenderers = new HashMap<Object,Renderable>();
+		// the maps can be accessed by several threads when parts are filled concurrently
+		loadedImageRenderers = Collections.synchronizedMap(new HashMap<Object,Renderable>());
 		renderersCache = new RenderersCache(jasperReportsContext);
-		loadedSubreports = new HashMap<>();
-		loadedTemplates = new HashMap<>();
+		loadedSubreports = Collections.synchronizedMap(new HashMap<>());
+		loadedTemplates = Collections.synchronizedMap(new HashMap<>());
 		deduplicableRegistry = new DeduplicableRegistry();
 		
 		FontUtil.getInstance(jasperReportsContext).resetThreadMissingFontsCache();
@@ -139,6 +145,8 @@ public class JRFillContext
 			JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(
 				JRCalculator.PROPERTY_LEGACY_BAND_EVALUATION_ENABLED
 				);
+		
+		profiler = FillProfiler.create(masterFiller);
 	}
 
 	public BaseReportFiller getMasterFiller()
@@ -260,6 +268,7 @@ public class JRFillContext
 		if (usingVirtualizer && virtualizationContext == null)
 		{
 			virtualizationContext = new JRVirtualizationContext(jasperReportsContext);
+			virtualizationContext.setProfiler(profiler);
 		}
 	}
 	
@@ -333,44 +342,61 @@ public class JRFillContext
 	
 	
 	/**
-	 * Sets the running query executer.
+	 * Adds a running query executer.
 	 * <p>
 	 * This method is called before firing the query.
+	 * Several queries can run at the same time when book parts are filled in parallel.
 	 * 
 	 * @param queryExecuter the running query executer
+	 * @see #clearRunningQueryExecuter(JRQueryExecuter)
 	 */
 	public synchronized void setRunningQueryExecuter(JRQueryExecuter queryExecuter)
 	{
-		this.queryExecuter = queryExecuter;
+		runningQueryExecuters.add(queryExecuter);
 	}
 	
 	
 	/**
-	 * Clears the running query executer.
-	 * <p>
-	 * This method is called after the query has ended.
+	 * Clears all the running query executers.
 	 *
+	 * @deprecated Replaced by {@link #clearRunningQueryExecuter(JRQueryExecuter)}.
 	 */
 	public synchronized void clearRunningQueryExecuter()
 	{
-		this.queryExecuter = null;
+		runningQueryExecuters.clear();
+	}
+	
+	
+	/**
+	 * Clears a running query executer.
+	 * <p>
+	 * This method is called after the query has ended.
+	 * 
+	 * @param queryExecuter the query executer, <code>null</code> is ignored
+	 */
+	public synchronized void clearRunningQueryExecuter(JRQueryExecuter queryExecuter)
+	{
+		if (queryExecuter != null)
+		{
+			runningQueryExecuters.remove(queryExecuter);
+		}
 	}
 	
 	
 	/**
-	 * Cancels the running query.
+	 * Cancels the running queries.
 	 * 
 	 * @return <code>true</code> if and only if there is a running query and it has been canceled.
 	 * @throws JRException
 	 */
 	public synchronized boolean cancelRunningQuery() throws JRException
 	{
-		if (queryExecuter != null)
+		boolean canceled = false;
+		for (JRQueryExecuter queryExecuter : runningQueryExecuters)
 		{
-			return queryExecuter.cancelQuery();
+			canceled |= queryExecuter.cancelQuery();
 		}
-		
-		return false;
+		return canceled;
 	}
 	
 	
@@ -485,7 +511,7 @@ public class JRFillContext
 	 * @param object the object to be searched or added
 	 * @return a duplicate of the object if found, or the passed object if not
 	 */
-	public <T extends Deduplicable> T deduplicate(T object)
+	public synchronized <T extends Deduplicable> T deduplicate(T object)
 	{
 		return deduplicableRegistry.deduplicate(object);
 	}
@@ -565,7 +591,7 @@ public class JRFillContext
 		return dataRecorder;
 	}
 
-	public void addDataRecordResult(FillDatasetPosition fillPosition, Object recorded)
+	public synchronized void addDataRecordResult(FillDatasetPosition fillPosition, Object recorded)
 	{
 		recordedData.add(new Pair<FillDatasetPosition, Object>(fillPosition, recorded));
 	}
@@ -584,6 +610,34 @@ public class JRFillContext
 		}
 	}
 	
+	/**
+	 * Returns the profiler of the fill, if the fill is profiled.
+	 * 
+	 * @return the fill profiler, or <code>null</code> if the fill is not profiled
+	 * @see FillProfiler#PROPERTY_SAMPLE_RATE
+	 */
+	public FillProfiler getProfiler()
+	{
+		return profiler;
+	}
+	
+	/**
+	 * Ends the profiling of the fill and publishes the results.
+	 */
+	public void profileDone()
+	{
+		if (profiler != null)
+		{
+			if (virtualizationContext != null)
+			{
+				// the virtualizer can page the print object after the fill
+				virtualizationContext.setProfiler(null);
+			}
+			
+			profiler.done();
+		}
+	}
+	
 	public void markCanceled()
 	{
 		canceled = true;
@@ -594,12 +648,12 @@ public class JRFillContext
 		return canceled;
 	}
 	
-	public Object getFillCache(String key)
+	public synchronized Object getFillCache(String key)
 	{
 		return fillCaches.get(key);
 	}
 	
-	public void setFillCache(String key, Object value)
+	public synchronized void setFillCache(String key, Object value)
 	{
 		fillCaches.put(key, value);
 	}
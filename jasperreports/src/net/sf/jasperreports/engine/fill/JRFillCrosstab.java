@@ -963,12 +963,15 @@ public class JRFillCrosstab extends JRFillElement implements JRCrosstab, JROrigi
 	protected int getChunkIndex()
 	{
 		JRFillContext fillerContext = filler.getFillContext();
-		AtomicInteger counter = (AtomicInteger) fillerContext.getFillCache(FILL_CACHE_KEY_CROSSTAB_CHUNK_COUNTER);
-		if (counter == null)
+		AtomicInteger counter;
+		synchronized (fillerContext)
 		{
-			// we just need a mutable integer, there's no actual concurrency here
-			counter = new AtomicInteger();
-			fillerContext.setFillCache(FILL_CACHE_KEY_CROSSTAB_CHUNK_COUNTER, counter);
+			counter = (AtomicInteger) fillerContext.getFillCache(FILL_CACHE_KEY_CROSSTAB_CHUNK_COUNTER);
+			if (counter == null)
+			{
+				counter = new AtomicInteger();
+				fillerContext.setFillCache(FILL_CACHE_KEY_CROSSTAB_CHUNK_COUNTER, counter);
+			}
 		}
 		
 		int chunkIndex = counter.getAndIncrement();
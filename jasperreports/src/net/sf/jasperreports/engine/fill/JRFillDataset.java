@@ -40,6 +40,8 @@ import java.util.UUID;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
 import net.sf.jasperreports.data.cache.CachedDataset;
 import net.sf.jasperreports.data.cache.DataCacheHandler;
 import net.sf.jasperreports.data.cache.DataRecorder;
@@ -73,6 +75,7 @@ import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.ParameterContributor;
 import net.sf.jasperreports.engine.ParameterContributorContext;
 import net.sf.jasperreports.engine.ParameterContributorFactory;
+import net.sf.jasperreports.engine.data.BatchDataSource;
 import net.sf.jasperreports.engine.data.IndexedDataSource;
 import net.sf.jasperreports.engine.design.JRDesignVariable;
 import net.sf.jasperreports.engine.query.JRQueryExecuter;
@@ -91,6 +94,7 @@ import net.sf.jasperreports.engine.util.JRDataUtils;
 import net.sf.jasperreports.engine.util.JRQueryExecuterUtils;
 import net.sf.jasperreports.engine.util.JRResourcesUtil;
 import net.sf.jasperreports.engine.util.MD5Digest;
+import net.sf.jasperreports.properties.PropertyConstants;
 import net.sf.jasperreports.repo.RepositoryContext;
 import net.sf.jasperreports.repo.SimpleRepositoryContext;
 
@@ -108,11 +112,61 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	public static final String EXCEPTION_MESSAGE_KEY_NO_SUCH_SNAPSHOT_PARAMETER = "fill.dataset.no.such.snapshot.parameter";
 	public static final String EXCEPTION_MESSAGE_KEY_NO_SUCH_VARIABLE = "fill.dataset.no.such.variable";
 	
+	/**
+	 * Property that specifies the number of records fetched at once from data sources
+	 * that implement {@link BatchDataSource}.
+	 * 
+	 * <p>
+	 * When the property is set to a positive value, the dataset fetches records by batches
+	 * and reads the field values from the arrays filled by the data source instead of
+	 * calling {@link JRDataSource#next()} and {@link JRDataSource#getFieldValue(JRField)}
+	 * for every record.
+	 * Batching should not be used when the data source is also iterated outside the dataset,
+	 * for instance when the data source is passed to a subreport, since the records of
+	 * a batch are fetched ahead.
+	 * 
+	 * <p>
+	 * A value of zero or less, which is the default, disables batching.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_BATCH_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.batch.size";
+
+	/**
+	 * Property that determines whether variables that use the built-in sum, count or average calculations
+	 * on <code>java.lang.Integer</code>, <code>java.lang.Long</code> or <code>java.lang.Double</code> values
+	 * keep their values as primitives during the fill.
+	 * 
+	 * <p>
+	 * Primitive variables produce the same values as the default incrementers, but do not allocate
+	 * a new value object for each record. The value object is only created when the variable value is used.
+	 * Variables that have an incrementer factory class, or other value classes such as <code>java.math.BigDecimal</code>,
+	 * are not affected by this property.
+	 * 
+	 * <p>
+	 * The property is not set by default, primitive variables need to be enabled explicitly.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_PRIMITIVE_VARIABLES = JRPropertiesUtil.PROPERTY_PREFIX + "dataset.primitive.variables";
+	
 	/**
 	 * The filler that created this object.
 	 */
 	private final BaseReportFiller filler;
 	
+	private final FillProfiler profiler;
+	
 	/**
 	 *
 	 */
@@ -266,6 +320,15 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	private CachedDataset cachedDataset;
 	private boolean sortedDataSource;
 	
+	private BatchDataSource batchDataSource;
+	private JRField[] batchFields;
+	private int batchSize;
+	private Object[][] batchValues;
+	private int batchCount;
+	private int batchPosition;
+	
+	private SubreportPrefetch queryPrefetch;
+	
 	private boolean ended;
 	private int cacheRecordCount;
 	private int previousCacheRecordIndex;
@@ -284,6 +347,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		this.filler = filler;
 		this.propertiesUtil = filler == null ? JRPropertiesUtil.getInstance(DefaultJasperReportsContext.getInstance()) 
 				: filler.getPropertiesUtil();
+		this.profiler = filler == null ? null : filler.getFillContext().getProfiler();
 		this.parent = dataset;
 		this.isMain = dataset.isMainDataset();
 		
@@ -448,6 +512,15 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		{
 			variablesMap.put(variables[i].getName(), variables[i]);
 		}
+
+		if (propertiesUtil.getBooleanProperty(parent, PROPERTY_PRIMITIVE_VARIABLES, false))
+		{
+			// helper variables come before the variables that use them
+			for (int i = 0; i < variables.length; i++)
+			{
+				variables[i].initPrimitiveValues();
+			}
+		}
 	}
 
 
@@ -489,6 +562,17 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	}
 
 
+	/**
+	 * Returns the profiler of the fill, if the fill is profiled.
+	 * 
+	 * @return the fill profiler, or <code>null</code> if the fill is not profiled
+	 */
+	protected FillProfiler getProfiler()
+	{
+		return profiler;
+	}
+
+
 	/**
 	 * Initializes the calculator.
 	 * 
@@ -723,16 +807,22 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 			dataSource = (JRDataSource) getParameterValue(JRParameter.REPORT_DATA_SOURCE);
 			if (!useDatasourceParamValue && (useConnectionParamValue || dataSource == null))
 			{
-				dataSource = createQueryDatasource();
+				dataSource = queryPrefetch == null ? null : queryPrefetch.getDataSource(this);
+				if (dataSource == null)
+				{
+					dataSource = createQueryDatasource();
+				}
 				setParameter(JRParameter.REPORT_DATA_SOURCE, dataSource);
 			}
 		}
 
 		if (DatasetSortUtil.needSorting(this))
 		{
-			dataSource = DatasetSortUtil.getSortedDataSource(filler, this, locale);
+			// recording the data snapshot of a sorted dataset requires all records to be kept in memory
+			int maxMemorySortRecords = dataRecorder == null ? DatasetSortUtil.getMaxMemoryRecords(this) : 0;
+			dataSource = DatasetSortUtil.getSortedDataSource(filler, this, locale, maxMemorySortRecords);
 			setParameter(JRParameter.REPORT_DATA_SOURCE, dataSource);
-			sortedDataSource = true;
+			sortedDataSource = dataSource instanceof SortedDataSource;
 		}
 	}
 
@@ -1234,7 +1324,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	 * @return the data source to be used
 	 * @throws JRException
 	 */
-	private JRDataSource createQueryDatasource() throws JRException
+	JRDataSource createQueryDatasource() throws JRException
 	{
 		if (query == null)
 		{
@@ -1258,11 +1348,23 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		}
 		finally
 		{
-			filler.fillContext.clearRunningQueryExecuter();
+			filler.fillContext.clearRunningQueryExecuter(queryExecuter);
 		}
 	}
 
 
+	/**
+	 * Sets the object that can provide the query results of the dataset from
+	 * a batched query executed for several master records.
+	 * 
+	 * @param queryPrefetch the prefetch object, <code>null</code> to always execute the query
+	 */
+	protected void setQueryPrefetch(SubreportPrefetch queryPrefetch)
+	{
+		this.queryPrefetch = queryPrefetch;
+	}
+
+
 	protected void reset()
 	{
 		useDatasourceParamValue = false;
@@ -1313,6 +1415,13 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	public void closeDatasource()
 	{
 		closeQueryExecuter();
+		
+		if (dataSource instanceof ExternalSortedDataSource)
+		{
+			// delete the temporary sort files
+			((ExternalSortedDataSource) dataSource).dispose();
+		}
+		
 		reset();
 
 		if (ended)
@@ -1352,6 +1461,34 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		cacheRecordCount = 0;
 		previousCacheRecordIndex = 0;
 		currentCacheRecordIndex = 0;
+		
+		startBatch();
+	}
+
+	
+	protected void startBatch()
+	{
+		batchDataSource = null;
+		batchFields = null;
+		batchValues = null;
+		batchCount = 0;
+		batchPosition = 0;
+		
+		if (dataSource instanceof BatchDataSource)
+		{
+			batchSize = propertiesUtil.getIntegerProperty(this, PROPERTY_BATCH_SIZE, 0);
+			if (batchSize > 0)
+			{
+				batchDataSource = (BatchDataSource) dataSource;
+				batchFields = fields == null ? new JRField[0] : fields;
+				batchValues = new Object[batchFields.length][batchSize];
+				
+				if (log.isDebugEnabled())
+				{
+					log.debug("dataset " + getName() + ": fetching records by batches of " + batchSize);
+				}
+			}
+		}
 	}
 
 	
@@ -1412,9 +1549,8 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 						JRExpression filterExpression = getFilterExpression();
 						if (filterExpression != null)
 						{
-							Boolean filterExprResult = (Boolean) calculator.evaluate(
+							includeRow = calculator.evaluateBoolean(
 									filterExpression, JRExpression.EVALUATION_ESTIMATED);
-							includeRow = filterExprResult != null && filterExprResult;
 						}
 
 						if (includeRow)
@@ -1479,6 +1615,11 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		{
 			// ugly cast
 			int dataSourceIndex = ((IndexedDataSource) dataSource).getRecordIndex();
+			if (batchDataSource != null)
+			{
+				// the data source is positioned on the last record of the batch
+				dataSourceIndex -= batchCount - batchPosition;
+			}
 			// indexes are 1-based
 			currentCacheRecordIndex = dataSourceIndex + 1;
 		}
@@ -1498,7 +1639,20 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 				JRFillField field = fields[i];
 				field.setPreviousOldValue(field.getOldValue());
 				field.setOldValue(field.getValue());
-				field.setValue(dataSource.getFieldValue(field));
+				if (batchDataSource != null)
+				{
+					field.setValue(batchValues[i][batchPosition - 1]);
+				}
+				else if (profiler == null)
+				{
+					field.setValue(dataSource.getFieldValue(field));
+				}
+				else
+				{
+					long profileStart = profiler.start();
+					field.setValue(dataSource.getFieldValue(field));
+					profiler.record(FillProfiler.Activity.FIELD_VALUE, getName(), field, profileStart);
+				}
 			}
 		}
 
@@ -1507,8 +1661,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 			for (int i = 0; i < variables.length; i++)
 			{
 				JRFillVariable variable = variables[i];
-				variable.setPreviousOldValue(variable.getOldValue());
-				variable.setOldValue(variable.getValue());
+				variable.saveOldValue();
 			}
 		}
 	}
@@ -1537,8 +1690,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 			for (int i = 0; i < variables.length; i++)
 			{
 				JRFillVariable variable = variables[i];
-				variable.setValue(variable.getOldValue());
-				variable.setOldValue(variable.getPreviousOldValue());
+				variable.revertToOldValue();
 			}
 		}
 	}
@@ -1553,10 +1705,47 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		}
 		else
 		{
-			hasNext = dataSource.next();
+			long profileStart = profiler == null ? 0 : profiler.start();
+			
+			if (batchDataSource != null)
+			{
+				hasNext = advanceBatch();
+			}
+			else
+			{
+				hasNext = dataSource.next();
+			}
+			
+			if (profiler != null)
+			{
+				profiler.record(FillProfiler.Activity.DATA_SOURCE_NEXT, getName(), null, profileStart);
+			}
 		}
 		return hasNext;
 	}
+
+	protected boolean advanceBatch() throws JRException
+	{
+		if (batchPosition >= batchCount)
+		{
+			// clearing the values of the previous batch
+			for (Object[] fieldValues : batchValues)
+			{
+				Arrays.fill(fieldValues, 0, batchCount, null);
+			}
+			
+			batchCount = batchDataSource.nextBatch(batchFields, batchValues, batchSize);
+			batchPosition = 0;
+			if (batchCount <= 0)
+			{
+				batchCount = 0;
+				return false;
+			}
+		}
+		
+		++batchPosition;
+		return true;
+	}
 	
 	/**
 	 * Sets the value of a parameter.
@@ -1721,6 +1910,64 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		return fieldsMap.get(fieldName);
 	}
 	
+	/**
+	 * Returns the values of a field in the records that follow the current record.
+	 * <p>
+	 * The records are read ahead from the data source and kept in memory until the dataset
+	 * advances to them.
+	 * Values are only returned when the dataset iterates its data source directly or by batches,
+	 * for sorted data sources or cached data an empty list is returned.
+	 * The data source is wrapped in order to read ahead, and the wrapper replaces the value of
+	 * the data source parameter.
+	 * Indexed data sources are not read ahead, as the wrapper does not preserve the record index.
+	 * The records that are read ahead are not filtered, so some of the values might belong
+	 * to records that will be skipped by the dataset.
+	 * 
+	 * @param fieldName the field name
+	 * @param count the maximum number of values to return
+	 * @return the field values in the following records
+	 * @throws JRException
+	 */
+	protected List<Object> lookAheadFieldValues(String fieldName, int count) throws JRException
+	{
+		if (dataSource == null || fields == null || reportCount == 0 || ended || count <= 0
+				|| cachedDataset != null || sortedDataSource)
+		{
+			return new ArrayList<Object>(0);
+		}
+		
+		if (batchDataSource != null)
+		{
+			List<Object> values = new ArrayList<Object>();
+			for (int i = 0; i < batchFields.length; i++)
+			{
+				if (batchFields[i].getName().equals(fieldName))
+				{
+					for (int j = batchPosition; j < batchCount && values.size() < count; j++)
+					{
+						values.add(batchValues[i][j]);
+					}
+					break;
+				}
+			}
+			return values;
+		}
+		
+		if (!(dataSource instanceof LookAheadDataSource))
+		{
+			if (dataSource instanceof IndexedDataSource)
+			{
+				// the wrapper would hide the record index
+				return new ArrayList<Object>(0);
+			}
+			
+			dataSource = LookAheadDataSource.wrap(dataSource, fields);
+			// expressions that use the data source parameter need to see the records in the dataset order
+			setParameter(JRParameter.REPORT_DATA_SOURCE, dataSource);
+		}
+		return ((LookAheadDataSource) dataSource).lookAhead(fieldName, count);
+	}
+	
 	/**
 	 * Class used to hold expression calculation  requirements.
 	 */
@@ -2027,6 +2274,19 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	{
 		return calculator.evaluate(expression, evaluation);
 	}
+
+	/**
+	 * Evaluates an expression that produces a <code>java.lang.Boolean</code> value.
+	 * 
+	 * @param expression the expression
+	 * @param evaluation the evaluation type
+	 * @return the evaluation result, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws JRException
+	 */
+	public boolean evaluateBooleanExpression(JRExpression expression, byte evaluation) throws JRException
+	{
+		return calculator.evaluateBoolean(expression, evaluation);
+	}
 	
 	@Override
 	public Locale getLocale()
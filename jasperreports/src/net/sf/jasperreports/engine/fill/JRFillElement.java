@@ -812,15 +812,7 @@ public abstract class JRFillElement implements JRElement, JRFillCloneable, JRSty
 		if (expression != null)
 		{
 			isExprNull = false;
-			Boolean printWhenExpressionValue = (Boolean) evaluateExpression(expression, evaluation);
-			if (printWhenExpressionValue == null)
-			{
-				isExprTrue = false;
-			}
-			else
-			{
-				isExprTrue = printWhenExpressionValue;
-			}
+			isExprTrue = evaluateBooleanExpression(expression, evaluation);
 		}
 
 		setPrintWhenExpressionNull(isExprNull);
@@ -1174,6 +1166,20 @@ public abstract class JRFillElement implements JRElement, JRFillCloneable, JRSty
 	}
 
 
+	/**
+	 * Evaluates an expression that produces a <code>java.lang.Boolean</code> value.
+	 * 
+	 * @param expression the expression
+	 * @param evaluation the evaluation type
+	 * @return the evaluation result, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws JRException
+	 */
+	public final boolean evaluateBooleanExpression(JRExpression expression, byte evaluation) throws JRException
+	{
+		return expressionEvaluator.evaluateBoolean(expression, evaluation);
+	}
+
+
 	/**
 	 * Decides whether the value for this element is repeating.
 	 * <p>
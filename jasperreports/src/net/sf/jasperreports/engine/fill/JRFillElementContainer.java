@@ -1263,22 +1263,12 @@ public abstract class JRFillElementContainer extends JRFillElementGroup implemen
 			for (int j = 0; j < conditionalStyles.length; j++) 
 			{
 				JRConditionalStyle conditionalStyle = conditionalStyles[j];
-				Boolean expressionValue = 
-					(Boolean) expressionEvaluator.evaluate(
+				boolean condition = 
+					expressionEvaluator.evaluateBoolean(
 						conditionalStyle.getConditionExpression(),
 						evaluation
 						);
 				
-				boolean condition;
-				if (expressionValue == null)
-				{
-					condition = false;
-				}
-				else
-				{
-					condition = expressionValue;
-				}
-				
 				code.append(condition ? '1' : '0');
 				anyTrue = anyTrue | condition;
 
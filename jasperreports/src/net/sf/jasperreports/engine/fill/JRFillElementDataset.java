@@ -195,8 +195,7 @@ public abstract class JRFillElementDataset implements JRElementDataset
 		}
 		else
 		{
-			Boolean evaluated = (Boolean) calculator.evaluate(incrementWhenExpression);
-			increment = evaluated != null && evaluated;
+			increment = calculator.evaluateBoolean(incrementWhenExpression);
 		}
 	}
 
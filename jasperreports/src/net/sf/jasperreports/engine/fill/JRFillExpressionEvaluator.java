@@ -46,6 +46,22 @@ public interface JRFillExpressionEvaluator
 	 * @throws JRException
 	 */
 	public Object evaluate(JRExpression expression, byte evaluationType) throws JRException;
+
+	/**
+	 * Evaluates an expression that produces a <code>java.lang.Boolean</code> value,
+	 * such as a print when expression.
+	 * 
+	 * @param expression the expression to evaluate
+	 * @param evaluationType one of {@link JRExpression#EVALUATION_DEFAULT},
+	 * {@link JRExpression#EVALUATION_OLD}, {@link JRExpression#EVALUATION_ESTIMATED}
+	 * @return the result, <code>false</code> if the expression evaluates to <code>null</code>
+	 * @throws JRException
+	 */
+	public default boolean evaluateBoolean(JRExpression expression, byte evaluationType) throws JRException
+	{
+		Boolean value = (Boolean) evaluate(expression, evaluationType);
+		return value != null && value;
+	}
 	
 	/**
 	 * Returns the dataset used by the expression evaluator.
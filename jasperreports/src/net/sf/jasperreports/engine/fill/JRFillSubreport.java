@@ -41,25 +41,37 @@ import org.apache.commons.logging.LogFactory;
 
 import net.sf.jasperreports.annotations.properties.Property;
 import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.crosstabs.JRCrosstab;
 import net.sf.jasperreports.data.cache.DataCacheHandler;
 import net.sf.jasperreports.engine.CommonReturnValue;
+import net.sf.jasperreports.engine.JRBreak;
+import net.sf.jasperreports.engine.JRChart;
+import net.sf.jasperreports.engine.JRComponentElement;
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRDatasetParameter;
+import net.sf.jasperreports.engine.JRElement;
+import net.sf.jasperreports.engine.JREllipse;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRExpression;
 import net.sf.jasperreports.engine.JRExpressionCollector;
+import net.sf.jasperreports.engine.JRGenericElement;
+import net.sf.jasperreports.engine.JRImage;
+import net.sf.jasperreports.engine.JRLine;
 import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JRPrintElement;
 import net.sf.jasperreports.engine.JRPrintPage;
 import net.sf.jasperreports.engine.JRPrintRectangle;
 import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRectangle;
 import net.sf.jasperreports.engine.JRRewindableDataSource;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRScriptlet;
+import net.sf.jasperreports.engine.JRStaticText;
 import net.sf.jasperreports.engine.JRStyle;
 import net.sf.jasperreports.engine.JRSubreport;
 import net.sf.jasperreports.engine.JRSubreportParameter;
 import net.sf.jasperreports.engine.JRSubreportReturnValue;
+import net.sf.jasperreports.engine.JRTextField;
 import net.sf.jasperreports.engine.JRVariable;
 import net.sf.jasperreports.engine.JRVisitor;
 import net.sf.jasperreports.engine.JasperCompileManager;
@@ -70,11 +82,14 @@ import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
 import net.sf.jasperreports.engine.design.JRValidationException;
 import net.sf.jasperreports.engine.design.JRValidationFault;
 import net.sf.jasperreports.engine.design.JRVerifier;
+import net.sf.jasperreports.engine.type.EvaluationTimeEnum;
 import net.sf.jasperreports.engine.type.ModeEnum;
 import net.sf.jasperreports.engine.type.OverflowType;
 import net.sf.jasperreports.engine.type.SectionTypeEnum;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
 import net.sf.jasperreports.engine.util.JRLoader;
 import net.sf.jasperreports.engine.util.JRSingletonCache;
+import net.sf.jasperreports.engine.util.JRVisitorSupport;
 import net.sf.jasperreports.properties.PropertyConstants;
 import net.sf.jasperreports.repo.RepositoryResourceContext;
 import net.sf.jasperreports.repo.RepositoryUtil;
@@ -111,6 +126,114 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 	
 	public static final String SUBREPORT_GENERATE_RECTANGLE_ALWAYS = "always";
 	
+	/**
+	 * Property that enables the reuse of subreport fillers between evaluations of the subreport element.
+	 * 
+	 * <p>
+	 * By default a new subreport filler, along with copies of all its bands, elements and datasets,
+	 * is created each time the subreport element is evaluated.
+	 * When the property is set to <code>true</code>, the filler is kept after a completed fill and
+	 * is reset and filled again with the new parameter values and data source when the subreport
+	 * element is evaluated for the same report.
+	 * 
+	 * <p>
+	 * A filler is reused only when
+	 * <ul>
+	 * <li>its previous fill has completed, i.e. it was not cancelled because the master band was moved to a new page</li>
+	 * <li>the report evaluator is cached (see {@link #usingCache()})</li>
+	 * <li>the report does not use style templates</li>
+	 * <li>the report only contains texts, images, graphic elements, frames and breaks</li>
+	 * <li>all text fields and images are evaluated immediately, and no element has <code>isPrintRepeatedValues</code> set to false</li>
+	 * </ul>
+	 * In the other cases a new filler is created.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_FILLER_REUSE = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "subreport.filler.reuse";
+	
+	/**
+	 * Property that enables batched fetching of subreport records for several master records.
+	 * 
+	 * <p>
+	 * The property specifies the number of master records whose subreport records are fetched
+	 * by a single execution of the subreport query.
+	 * Prefetching also requires the {@link #PROPERTY_PREFETCH_MASTER_FIELD},
+	 * {@link #PROPERTY_PREFETCH_KEYS_PARAMETER} and {@link #PROPERTY_PREFETCH_KEY_FIELD}
+	 * properties to be set on the subreport element, and only applies to subreports that
+	 * receive a connection expression.
+	 * 
+	 * <p>
+	 * The subreport query is expected to filter the records using a collection parameter in an
+	 * <code>$X{IN, column, parameter}</code> clause.
+	 * When the records are fetched for a single master record (for instance when prefetching is
+	 * not enabled), the parameter receives its regular value, which would usually be a default
+	 * value expression such as <code>java.util.Collections.singletonList($P{Key})</code>.
+	 * Master records for which the other parameters used by the query or the connection have
+	 * different values than for the first record of a batch are not served from the batch,
+	 * the query is executed for each of them.
+	 * 
+	 * <p>
+	 * A value of one or less, which is the default, disables prefetching.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT, PropertyScope.ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PREFETCH_SIZE = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "subreport.prefetch.size";
+	
+	/**
+	 * Element property that specifies the master report field that holds the key of the subreport records.
+	 * 
+	 * @see #PROPERTY_PREFETCH_SIZE
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			scopes = {PropertyScope.ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_PREFETCH_MASTER_FIELD = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "subreport.prefetch.master.field";
+	
+	/**
+	 * Element property that specifies the subreport parameter that receives the list of prefetched keys.
+	 * 
+	 * <p>
+	 * The parameter needs to accept a <code>java.util.List</code> value.
+	 * 
+	 * @see #PROPERTY_PREFETCH_SIZE
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			scopes = {PropertyScope.ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_PREFETCH_KEYS_PARAMETER = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "subreport.prefetch.keys.parameter";
+	
+	/**
+	 * Element property that specifies the subreport field which holds the key of each subreport record,
+	 * used to split the prefetched records between master records.
+	 * 
+	 * @see #PROPERTY_PREFETCH_SIZE
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			scopes = {PropertyScope.ELEMENT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_PREFETCH_KEY_FIELD = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "subreport.prefetch.key.field";
+	
 	private static final JRSingletonCache<JRSubreportRunnerFactory> runnerFactoryCache = 
 			new JRSingletonCache<JRSubreportRunnerFactory>(JRSubreportRunnerFactory.class);
 
@@ -168,6 +291,12 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 
 	private final String defaultGenerateRectangle;
 	private final boolean dynamicGenerateRectangle;
+	
+	private final SubreportPrefetch prefetch;
+	
+	private final boolean fillerReuse;
+	private Map<JasperReport, Boolean> reusableReports;
+	private boolean subreportFillerFinished;
 
 
 	/**
@@ -191,6 +320,10 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 			PROPERTY_SUBREPORT_GENERATE_RECTANGLE, subreport, filler.getJasperReport()); // property expression does not work, 
 			// but even if we would call filler.getMainDataset(), it would be too early as it is null here for subreport elements placed in group bands
 		this.dynamicGenerateRectangle = hasDynamicProperty(PROPERTY_SUBREPORT_GENERATE_RECTANGLE);
+		this.prefetch = SubreportPrefetch.create(this);
+		this.fillerReuse = JRPropertiesUtil.asBoolean(filler.getPropertiesUtil().getProperty( 
+			PROPERTY_FILLER_REUSE, subreport, filler.getJasperReport()));
+		this.reusableReports = new HashMap<JasperReport, Boolean>();
 	}
 
 	protected JRFillSubreport(JRFillSubreport subreport, JRFillCloneFactory factory)
@@ -206,6 +339,9 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 		
 		defaultGenerateRectangle = subreport.defaultGenerateRectangle;
 		dynamicGenerateRectangle = subreport.dynamicGenerateRectangle;
+		prefetch = SubreportPrefetch.create(this);// not sharing prefetched records between clones
+		fillerReuse = subreport.fillerReuse;
+		reusableReports = subreport.reusableReports;
 	}
 
 	@Override
@@ -542,6 +678,12 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 			DatasetExpressionEvaluator evaluator = loadReportEvaluator();
 			initSubreportFiller(evaluator);
 			
+			if (prefetch != null && getConnectionExpression() != null && connection != null
+					&& prefetch.prepare(parentDataset, evaluation))
+			{
+				subreportFiller.mainDataset.setQueryPrefetch(prefetch);
+			}
+			
 			validateReport();
 			
 			returnValues.saveReturnVariables();
@@ -609,6 +751,11 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 	
 	protected void initSubreportFiller(DatasetExpressionEvaluator evaluator) throws JRException
 	{
+		if (reuseSubreportFiller(evaluator))
+		{
+			return;
+		}
+		
 		JasperReport jasperReport = getReport();
 		if (log.isDebugEnabled())
 		{
@@ -649,6 +796,159 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 		
 		subreportFiller.mainDataset.setFillPosition(datasetPosition);
 		subreportFiller.mainDataset.setCacheSkipped(!cacheIncluded);
+		subreportFillerFinished = false;
+	}
+
+	/**
+	 * Resets the current subreport filler for a new fill if filler reuse is enabled and
+	 * the filler can be reused.
+	 * 
+	 * @param evaluator the report evaluator
+	 * @return whether the current filler is reused
+	 * @see #PROPERTY_FILLER_REUSE
+	 */
+	protected boolean reuseSubreportFiller(DatasetExpressionEvaluator evaluator) throws JRException
+	{
+		JasperReport jasperReport = getReport();
+		if (!fillerReuse || !subreportFillerFinished || subreportFiller == null || evaluator == null
+				|| subreportFiller.getJasperReport() != jasperReport
+				|| subFillerParent.getCachedEvaluator() != evaluator
+				|| (parameterValues != null && parameterValues.containsKey(JRParameter.REPORT_TEMPLATES))
+				|| !isReusableReport(jasperReport))
+		{
+			return false;
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("Fill " + filler.fillerId + ": reusing subreport filler " + subreportFiller.fillerId);
+		}
+		
+		subreportFiller.resetFillState();
+		subreportFiller.mainDataset.setQueryPrefetch(null);
+		
+		runner = getRunnerFactory().createSubreportRunner(this, subreportFiller);
+		subFillerParent.setSubreportRunner(runner);
+		
+		subreportFiller.mainDataset.setFillPosition(datasetPosition);
+		subreportFiller.mainDataset.setCacheSkipped(!cacheIncluded);
+		subreportFillerFinished = false;
+		return true;
+	}
+
+	protected boolean isReusableReport(JasperReport jasperReport)
+	{
+		Boolean reusable = reusableReports.get(jasperReport);
+		if (reusable == null)
+		{
+			ReusableElementsCheck check = new ReusableElementsCheck();
+			JRElementsVisitor.visitReport(jasperReport, check);
+			reusable = check.reusable 
+					&& (jasperReport.getTemplates() == null || jasperReport.getTemplates().length == 0);
+			reusableReports.put(jasperReport, reusable);
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("report " + jasperReport.getName() + (reusable ? " allows" : " does not allow") + " filler reuse");
+			}
+		}
+		return reusable;
+	}
+	
+	/**
+	 * Checks whether the elements of a report keep state between fills.
+	 */
+	protected static class ReusableElementsCheck extends JRVisitorSupport
+	{
+		private boolean reusable = true;
+		
+		protected void checkElement(JRElement element)
+		{
+			if (!element.isPrintRepeatedValues())
+			{
+				reusable = false;
+			}
+		}
+
+		@Override
+		public void visitBreak(JRBreak breakElement)
+		{
+			checkElement(breakElement);
+		}
+
+		@Override
+		public void visitEllipse(JREllipse ellipse)
+		{
+			checkElement(ellipse);
+		}
+
+		@Override
+		public void visitLine(JRLine line)
+		{
+			checkElement(line);
+		}
+
+		@Override
+		public void visitRectangle(JRRectangle rectangle)
+		{
+			checkElement(rectangle);
+		}
+
+		@Override
+		public void visitStaticText(JRStaticText staticText)
+		{
+			checkElement(staticText);
+		}
+
+		@Override
+		public void visitTextField(JRTextField textField)
+		{
+			checkElement(textField);
+			if (textField.getEvaluationTimeValue() != EvaluationTimeEnum.NOW)
+			{
+				reusable = false;
+			}
+		}
+
+		@Override
+		public void visitImage(JRImage image)
+		{
+			checkElement(image);
+			if (image.getEvaluationTimeValue() != EvaluationTimeEnum.NOW)
+			{
+				reusable = false;
+			}
+		}
+
+		@Override
+		public void visitChart(JRChart chart)
+		{
+			reusable = false;
+		}
+
+		@Override
+		public void visitCrosstab(JRCrosstab crosstab)
+		{
+			reusable = false;
+		}
+
+		@Override
+		public void visitSubreport(JRSubreport subreport)
+		{
+			reusable = false;
+		}
+
+		@Override
+		public void visitComponentElement(JRComponentElement componentElement)
+		{
+			reusable = false;
+		}
+
+		@Override
+		public void visitGenericElement(JRGenericElement element)
+		{
+			reusable = false;
+		}
 	}
 
 	protected FillerSubreportParent createFillerParent(DatasetExpressionEvaluator evaluator) throws JRException
@@ -919,97 +1219,128 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 		}
 		subreportFiller.setPageHeight(pageHeight);
 
-		synchronized (subreportFiller)
+		if (!filling && !toPrint)
 		{
-			JRSubreportRunResult result;
-			if (filling)
-			{
-				if (log.isDebugEnabled())
-				{
-					log.debug("Fill " + filler.fillerId + ": resuming " + subreportFiller.fillerId);
-				}
+			printPage = null;
+			printPageContentsWidth = 0;
+			setPrepareHeight(getHeight());
+			setToPrint(false);
 
-				result = runner.resume();
-			}
-			else if (toPrint)
+			return willOverflow;
+		}
+
+		if (runner.isFillerLockRequired())
+		{
+			synchronized (subreportFiller)
 			{
-				setReprinted(reprinted);
+				willOverflow = runSubreport(filling, reprinted, pageHeight);
+			}
+		}
+		else
+		{
+			// the runner coordinates the fill threads without the subreport filler monitor
+			willOverflow = runSubreport(filling, reprinted, pageHeight);
+		}
+		
+		Collection<JRPrintElement> printElements = getPrintElements();
+		if (
+			(printElements == null || printElements.size() == 0) &&
+			isRemoveLineWhenBlank() //FIXME if the line won't be removed, the background does not appear
+			)
+		{
+			setToPrint(false);
+		}
 
-				if (log.isDebugEnabled())
-				{
-					log.debug("Fill " + filler.fillerId + ": starting " + subreportFiller.fillerId);
-				}
+		return willOverflow;
+	}
 
-				result = runner.start();
-			}
-			else
+	/**
+	 * Starts or resumes the subreport runner and collects the subreport page it has filled.
+	 * 
+	 * @return whether the subreport will overflow on the next page
+	 */
+	protected boolean runSubreport(boolean filling, boolean reprinted, int pageHeight) throws JRException
+	{
+		FillProfiler profiler = filler.fillContext.getProfiler();
+		long profileStart = profiler == null ? 0 : profiler.start();
+		
+		JRSubreportRunResult result;
+		if (filling)
+		{
+			if (log.isDebugEnabled())
 			{
-				printPage = null;
-				printPageContentsWidth = 0;
-				setPrepareHeight(getHeight());
-				setToPrint(false);
-
-				return willOverflow;
+				log.debug("Fill " + filler.fillerId + ": resuming " + subreportFiller.fillerId);
 			}
-			
-			if (result.getException() != null)
-			{
-				Throwable error = result.getException();
-				
-				if (log.isErrorEnabled())
-				{
-					log.error("Fill " + filler.fillerId + ": exception", error);
-				}
-				
-				if (error instanceof RuntimeException)
-				{
-					throw (RuntimeException) error;
-				}
 
-				throw new JRRuntimeException(error);
+			result = runner.resume();
+		}
+		else
+		{
+			setReprinted(reprinted);
+
+			if (log.isDebugEnabled())
+			{
+				log.debug("Fill " + filler.fillerId + ": starting " + subreportFiller.fillerId);
 			}
 
-			if (result.hasFinished())
+			result = runner.start();
+		}
+		
+		if (profiler != null)
+		{
+			// the time the master filler waits for the subreport page
+			profiler.record(FillProfiler.Activity.SUBREPORT_FILL, filler.mainDataset.getName(), this, profileStart);
+		}
+		
+		if (result.getException() != null)
+		{
+			Throwable error = result.getException();
+			
+			if (log.isErrorEnabled())
 			{
-				if (log.isDebugEnabled())
-				{
-					log.debug("Fill " + filler.fillerId + ": subreport " + subreportFiller.fillerId + " finished");
-				}
-				
-				returnValues.copyValues(returnValuesContext);
+				log.error("Fill " + filler.fillerId + ": exception", error);
 			}
-			else
+			
+			if (error instanceof RuntimeException)
 			{
-				if (log.isDebugEnabled())
-				{
-					log.debug("Fill " + filler.fillerId + ": subreport " + subreportFiller.fillerId + " to continue");
-				}
+				throw (RuntimeException) error;
 			}
 
-			printPage = subreportFiller.getCurrentPage();
-			printPageContentsWidth = subreportFiller.getCurrentPageContentsWidth();
-			setPrepareHeight(result.hasFinished() ? subFillerParent.getCurrentPageStretchHeight() : pageHeight);
+			throw new JRRuntimeException(error);
+		}
 
-			//if the subreport fill thread has not finished, 
-			// it means that the subreport will overflow on the next page
-			willOverflow = !result.hasFinished();
+		if (result.hasFinished())
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Fill " + filler.fillerId + ": subreport " + subreportFiller.fillerId + " finished");
+			}
 			
-			if (!willOverflow)
+			returnValues.copyValues(returnValuesContext);
+		}
+		else
+		{
+			if (log.isDebugEnabled())
 			{
-				//the subreport fill thread has finished and the next time we shall create a new one
-				runner.reset();
+				log.debug("Fill " + filler.fillerId + ": subreport " + subreportFiller.fillerId + " to continue");
 			}
-		}// synchronized
+		}
+
+		printPage = subreportFiller.getCurrentPage();
+		printPageContentsWidth = subreportFiller.getCurrentPageContentsWidth();
+		setPrepareHeight(result.hasFinished() ? subFillerParent.getCurrentPageStretchHeight() : pageHeight);
+
+		//if the subreport fill thread has not finished, 
+		// it means that the subreport will overflow on the next page
+		boolean willOverflow = !result.hasFinished();
 		
-		Collection<JRPrintElement> printElements = getPrintElements();
-		if (
-			(printElements == null || printElements.size() == 0) &&
-			isRemoveLineWhenBlank() //FIXME if the line won't be removed, the background does not appear
-			)
+		if (!willOverflow)
 		{
-			setToPrint(false);
+			//the subreport fill thread has finished and the next time we shall create a new one
+			runner.reset();
+			subreportFillerFinished = true;
 		}
-
+		
 		return willOverflow;
 	}
 
@@ -1055,10 +1386,19 @@ public class JRFillSubreport extends JRFillElement implements JRSubreport
 		
 		// marking the subreport filler for interruption
 		subreportFiller.setInterrupted(true);
+		subreportFillerFinished = false;
 		
-		synchronized (subreportFiller)
+		if (runner.isFillerLockRequired())
+		{
+			synchronized (subreportFiller)
+			{
+				// forcing the creation of a new thread and a new subreport filler
+				runner.cancel();
+				runner.reset();
+			}
+		}
+		else
 		{
-			// forcing the creation of a new thread and a new subreport filler
 			runner.cancel();
 			runner.reset();
 		}
@@ -627,6 +627,29 @@ public abstract class JRFillTextElement extends JRFillElement implements JRTextE
 	}
 
 
+	/**
+	 * Measures the text starting at the current text end, recording the time if the fill is profiled.
+	 */
+	protected JRMeasuredText measureText(JRStyledText styledText, int availableStretchHeight, boolean canOverflow)
+	{
+		FillProfiler profiler = filler.fillContext.getProfiler();
+		long profileStart = profiler == null ? 0 : profiler.start();
+		
+		JRMeasuredText measuredText = textMeasurer.measure(
+			styledText,
+			getTextEnd(),
+			availableStretchHeight,
+			!isCutParagraphOverflow, // indentFirstLine
+			canOverflow
+			);
+		
+		if (profiler != null)
+		{
+			profiler.record(FillProfiler.Activity.TEXT_MEASUREMENT, filler.mainDataset.getName(), this, profileStart);
+		}
+		return measuredText;
+	}
+	
 	/**
 	 *
 	 */
@@ -651,13 +674,7 @@ public abstract class JRFillTextElement extends JRFillElement implements JRTextE
 
 		boolean canOverflow = canOverflow();
 		JRStyledText processedText = getProcessedStyledText();
-		JRMeasuredText measuredText = textMeasurer.measure(
-			processedText,
-			getTextEnd(),
-			availableStretchHeight,
-			!isCutParagraphOverflow, // indentFirstLine
-			canOverflow
-			);
+		JRMeasuredText measuredText = measureText(processedText, availableStretchHeight, canOverflow);
 		
 		if (
 			scaleFontToFit()
@@ -711,13 +728,7 @@ public abstract class JRFillTextElement extends JRFillElement implements JRTextE
 					&& (newFontSizeMaxDiff != scaleFontStepLimit || deltaSign * newFontSizeMaxDiff != - oldDeltaSign * oldFontSizeMaxDiff);
 				if (keepMeasuring)
 				{
-					tmpMeasuredText = textMeasurer.measure(
-						tmpProcessedText,
-						getTextEnd(),
-						availableStretchHeight,
-						!isCutParagraphOverflow, // indentFirstLine
-						canOverflow
-						);
+					tmpMeasuredText = measureText(tmpProcessedText, availableStretchHeight, canOverflow);
 				}
 				
 				oldDeltaSign = deltaSign;
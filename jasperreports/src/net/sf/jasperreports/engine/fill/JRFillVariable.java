@@ -68,6 +68,15 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	private JRIncrementer incrementer;
 
+	/**
+	 * Primitive storage used for built-in numeric calculations, see {@link #initPrimitiveValues()}.
+	 */
+	private PrimitiveVariableValue primitivePreviousIncrementedValue;
+	private PrimitiveVariableValue primitivePreviousOldValue;
+	private PrimitiveVariableValue primitiveOldValue;
+	private PrimitiveVariableValue primitiveIncrementedValue;
+	private PrimitiveVariableValue primitiveValue;
+
 
 	/**
 	 *
@@ -94,13 +103,238 @@ public class JRFillVariable implements JRVariable, JRCalculable
 
 	protected void reset()
 	{
+		setPreviousOldValue(null);
+		setOldValue(null);
+		estimatedValue = null;
+		setIncrementedValue(null);
+		setValue(null);
+		isInitialized = false;
+		savedValue = null;
+	}
+
+	/**
+	 * Switches the variable to primitive value storage if the variable uses a built-in
+	 * sum, count or average calculation on <code>Integer</code>, <code>Long</code> or <code>Double</code> values.
+	 * <p>
+	 * Average variables are only switched when their sum and count helper variables have already been switched.
+	 * 
+	 * @see JRFillDataset#PROPERTY_PRIMITIVE_VARIABLES
+	 */
+	protected void initPrimitiveValues()
+	{
+		if (isPrimitiveValue() || getIncrementerFactoryClass() != null)
+		{
+			return;
+		}
+
+		PrimitiveVariableValue.Type type = PrimitiveVariableValue.getType(getValueClass());
+		if (type == null)
+		{
+			return;
+		}
+
+		switch (getCalculationValue())
+		{
+			case SUM:
+			case COUNT:
+				break;
+			case AVERAGE:
+				JRFillVariable countHelper = helperVariables[JRCalculable.HELPER_COUNT];
+				JRFillVariable sumHelper = helperVariables[JRCalculable.HELPER_SUM];
+				if (countHelper == null || !countHelper.isPrimitiveValue()
+						|| sumHelper == null || !sumHelper.isPrimitiveValue())
+				{
+					return;
+				}
+				break;
+			default:
+				return;
+		}
+
+		primitivePreviousIncrementedValue = new PrimitiveVariableValue(type);
+		primitivePreviousIncrementedValue.setValue(previousIncrementedValue);
+		primitivePreviousOldValue = new PrimitiveVariableValue(type);
+		primitivePreviousOldValue.setValue(previousOldValue);
+		primitiveOldValue = new PrimitiveVariableValue(type);
+		primitiveOldValue.setValue(oldValue);
+		primitiveIncrementedValue = new PrimitiveVariableValue(type);
+		primitiveIncrementedValue.setValue(incrementedValue);
+		primitiveValue = new PrimitiveVariableValue(type);
+		primitiveValue.setValue(value);
+
+		previousIncrementedValue = null;
 		previousOldValue = null;
 		oldValue = null;
-		estimatedValue = null;
 		incrementedValue = null;
 		value = null;
-		isInitialized = false;
-		savedValue = null;
+	}
+
+	/**
+	 * Determines whether the variable values are kept as primitives and calculated by
+	 * {@link #incrementPrimitiveValue(Object)} instead of the variable incrementer.
+	 */
+	public boolean isPrimitiveValue()
+	{
+		return primitiveValue != null;
+	}
+
+	/**
+	 * Increments the variable value using primitive arithmetic.
+	 * <p>
+	 * The results are the same as the ones produced by the default incrementers for the variable
+	 * calculation and value class, without allocating intermediate value objects.
+	 * 
+	 * @param expressionValue the value of the variable expression
+	 */
+	protected void incrementPrimitiveValue(Object expressionValue)
+	{
+		PrimitiveVariableValue.Type type = primitiveValue.getType();
+		switch (getCalculationValue())
+		{
+			case COUNT:
+			{
+				boolean fromZero = primitiveIncrementedValue.isNull() || isInitialized;
+				int increment = expressionValue == null ? 0 : 1;
+				if (type == PrimitiveVariableValue.Type.DOUBLE)
+				{
+					primitiveValue.setDouble((fromZero ? 0d : primitiveIncrementedValue.doubleValue()) + increment);
+				}
+				else if (type == PrimitiveVariableValue.Type.LONG)
+				{
+					primitiveValue.setLong((fromZero ? 0L : primitiveIncrementedValue.longValue()) + increment);
+				}
+				else
+				{
+					primitiveValue.setInt((fromZero ? 0 : primitiveIncrementedValue.intValue()) + increment);
+				}
+				break;
+			}
+			case AVERAGE:
+			{
+				if (expressionValue == null)
+				{
+					if (isInitialized)
+					{
+						primitiveValue.setNull();
+					}
+					// otherwise the value stays unchanged
+					break;
+				}
+
+				// the helpers have already been calculated
+				PrimitiveVariableValue count = helperVariables[JRCalculable.HELPER_COUNT].primitiveValue;
+				PrimitiveVariableValue sum = helperVariables[JRCalculable.HELPER_SUM].primitiveValue;
+				if (type == PrimitiveVariableValue.Type.DOUBLE)
+				{
+					primitiveValue.setDouble(sum.doubleValue() / count.doubleValue());
+				}
+				else if (type == PrimitiveVariableValue.Type.LONG)
+				{
+					primitiveValue.setLong(sum.longValue() / count.longValue());
+				}
+				else
+				{
+					primitiveValue.setInt(sum.intValue() / count.intValue());
+				}
+				break;
+			}
+			case SUM:
+			default:
+			{
+				if (expressionValue == null)
+				{
+					if (isInitialized)
+					{
+						primitiveValue.setNull();
+					}
+					else
+					{
+						primitiveValue.setValue(primitiveIncrementedValue);
+					}
+					break;
+				}
+
+				Number number = (Number) expressionValue;
+				boolean fromZero = primitiveIncrementedValue.isNull() || isInitialized;
+				if (type == PrimitiveVariableValue.Type.DOUBLE)
+				{
+					primitiveValue.setDouble((fromZero ? 0d : primitiveIncrementedValue.doubleValue()) + number.doubleValue());
+				}
+				else if (type == PrimitiveVariableValue.Type.LONG)
+				{
+					primitiveValue.setLong((fromZero ? 0L : primitiveIncrementedValue.longValue()) + number.longValue());
+				}
+				else
+				{
+					primitiveValue.setInt((fromZero ? 0 : primitiveIncrementedValue.intValue()) + number.intValue());
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Sets the previous incremented value to the current incremented value.
+	 */
+	protected void savePreviousIncrementedValue()
+	{
+		if (primitiveValue == null)
+		{
+			previousIncrementedValue = incrementedValue;
+		}
+		else
+		{
+			primitivePreviousIncrementedValue.setValue(primitiveIncrementedValue);
+		}
+	}
+
+	/**
+	 * Sets the incremented value to the current variable value.
+	 */
+	protected void saveIncrementedValue()
+	{
+		if (primitiveValue == null)
+		{
+			incrementedValue = value;
+		}
+		else
+		{
+			primitiveIncrementedValue.setValue(primitiveValue);
+		}
+	}
+
+	/**
+	 * Sets the old value to the current variable value, and the previous old value to the old value.
+	 */
+	protected void saveOldValue()
+	{
+		if (primitiveValue == null)
+		{
+			previousOldValue = oldValue;
+			oldValue = value;
+		}
+		else
+		{
+			primitivePreviousOldValue.setValue(primitiveOldValue);
+			primitiveOldValue.setValue(primitiveValue);
+		}
+	}
+
+	/**
+	 * Reverts the variable value to the old value, and the old value to the previous old value.
+	 */
+	protected void revertToOldValue()
+	{
+		if (primitiveValue == null)
+		{
+			value = oldValue;
+			oldValue = previousOldValue;
+		}
+		else
+		{
+			primitiveValue.setValue(primitiveOldValue);
+			primitiveOldValue.setValue(primitivePreviousOldValue);
+		}
 	}
 
 
@@ -198,7 +432,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public Object getOldValue()
 	{
-		return oldValue;
+		return primitiveOldValue == null ? oldValue : primitiveOldValue.getValue();
 	}
 		
 	/**
@@ -206,7 +440,14 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public void setOldValue(Object oldValue)
 	{
-		this.oldValue = oldValue;
+		if (primitiveOldValue == null)
+		{
+			this.oldValue = oldValue;
+		}
+		else
+		{
+			primitiveOldValue.setValue(oldValue);
+		}
 	}
 
 	/**
@@ -228,7 +469,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	@Override
 	public Object getIncrementedValue()
 	{
-		return incrementedValue;
+		return primitiveIncrementedValue == null ? incrementedValue : primitiveIncrementedValue.getValue();
 	}
 		
 	/**
@@ -236,7 +477,14 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public void setIncrementedValue(Object incrementedValue)
 	{
-		this.incrementedValue = incrementedValue;
+		if (primitiveIncrementedValue == null)
+		{
+			this.incrementedValue = incrementedValue;
+		}
+		else
+		{
+			primitiveIncrementedValue.setValue(incrementedValue);
+		}
 	}
 
 	/**
@@ -244,7 +492,7 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public Object getPreviousIncrementedValue()
 	{
-		return previousIncrementedValue;
+		return primitivePreviousIncrementedValue == null ? previousIncrementedValue : primitivePreviousIncrementedValue.getValue();
 	}
 		
 	/**
@@ -252,13 +500,26 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public void setPreviousIncrementedValue(Object previousIncrementedValue)
 	{
-		this.previousIncrementedValue = previousIncrementedValue;
+		if (primitivePreviousIncrementedValue == null)
+		{
+			this.previousIncrementedValue = previousIncrementedValue;
+		}
+		else
+		{
+			primitivePreviousIncrementedValue.setValue(previousIncrementedValue);
+		}
 	}
 
+	/**
+	 * Returns the variable value.
+	 * <p>
+	 * For primitive variables the value object is created on the first call after the value was calculated,
+	 * and the same object is returned until the next increment.
+	 */
 	@Override
 	public Object getValue()
 	{
-		return value;
+		return primitiveValue == null ? value : primitiveValue.getValue();
 	}
 		
 	/**
@@ -266,7 +527,14 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	 */
 	public void setValue(Object value)
 	{
-		this.value = value;
+		if (primitiveValue == null)
+		{
+			this.value = value;
+		}
+		else
+		{
+			primitiveValue.setValue(value);
+		}
 	}
 
 	@Override
@@ -342,13 +610,13 @@ public class JRFillVariable implements JRVariable, JRCalculable
 		switch (evaluation)
 		{
 			case JRExpression.EVALUATION_OLD:
-				returnValue = oldValue;
+				returnValue = getOldValue();
 				break;
 			case JRExpression.EVALUATION_ESTIMATED:
 				returnValue = estimatedValue;
 				break;
 			default:
-				returnValue = value;
+				returnValue = getValue();
 				break;
 		}
 		return returnValue;
@@ -359,16 +627,16 @@ public class JRFillVariable implements JRVariable, JRCalculable
 		switch (evaluation)
 		{
 			case JRExpression.EVALUATION_OLD:
-				savedValue = oldValue;
-				oldValue = newValue;
+				savedValue = getOldValue();
+				setOldValue(newValue);
 				break;
 			case JRExpression.EVALUATION_ESTIMATED:
 				savedValue = estimatedValue;
 				estimatedValue = newValue;
 				break;
 			default:
-				savedValue = value;
-				value = newValue;
+				savedValue = getValue();
+				setValue(newValue);
 				break;
 		}
 	}
@@ -378,13 +646,13 @@ public class JRFillVariable implements JRVariable, JRCalculable
 		switch (evaluation)
 		{
 			case JRExpression.EVALUATION_OLD:
-				oldValue = savedValue;
+				setOldValue(savedValue);
 				break;
 			case JRExpression.EVALUATION_ESTIMATED:
 				estimatedValue = savedValue;
 				break;
 			default:
-				value = savedValue;
+				setValue(savedValue);
 				break;
 		}
 		savedValue = null;
@@ -394,14 +662,21 @@ public class JRFillVariable implements JRVariable, JRCalculable
 	
 	public Object getPreviousOldValue()
 	{
-		return previousOldValue;
+		return primitivePreviousOldValue == null ? previousOldValue : primitivePreviousOldValue.getValue();
 	}
 
 
 	
 	public void setPreviousOldValue(Object previousOldValue)
 	{
-		this.previousOldValue = previousOldValue;
+		if (primitivePreviousOldValue == null)
+		{
+			this.previousOldValue = previousOldValue;
+		}
+		else
+		{
+			primitivePreviousOldValue.setValue(previousOldValue);
+		}
 	}
 
 	@Override
@@ -88,6 +88,18 @@ public class JRHorizontalFiller extends JRBaseFiller
 	}
 
 
+	@Override
+	protected void resetFillState()
+	{
+		super.resetFillState();
+		
+		lastDetailOffsetX = -1;
+		lastDetailOffsetY = -1;
+		currentDetailOffsetY = 0;
+		maxDetailOffsetY = 0;
+	}
+
+
 	@Override
 	protected void setPageHeight(int pageHeight)
 	{
@@ -107,7 +119,7 @@ public class JRHorizontalFiller extends JRBaseFiller
 
 	@Override
 	@continuable
-	protected synchronized void fillReport() throws JRException
+	protected void fillReport() throws JRException
 	{
 		setLastPageFooter(false);
 
@@ -45,7 +45,8 @@ public interface JRSubreportRunner
 	/**
 	 * Starts to fill the subreport.
 	 * <p>
-	 * This method is always called by a thread owning the lock on the subreport filler.
+	 * This method is always called by a thread owning the lock on the subreport filler,
+	 * unless {@link #isFillerLockRequired()} returns <code>false</code>.
 	 * 
 	 * @return the result of the fill process
 	 * @throws JRException
@@ -58,7 +59,8 @@ public interface JRSubreportRunner
 	 * This method is called after the fill has been suspended by
 	 * {@link #suspend() suspend} and the subreport should continue on the new page. 
 	 * <p>
-	 * This method is always called by a thread owning the lock on the subreport filler.
+	 * This method is always called by a thread owning the lock on the subreport filler,
+	 * unless {@link #isFillerLockRequired()} returns <code>false</code>.
 	 * 
 	 * @return the result of the fill process
 	 * @throws JRException
@@ -78,7 +80,8 @@ public interface JRSubreportRunner
 	 * This method is called when a subreport is placed on a non splitting band
 	 * and needs to rewind.
 	 * <p>
-	 * This method is always called by a thread owning the lock on the subreport filler.
+	 * This method is always called by a thread owning the lock on the subreport filler,
+	 * unless {@link #isFillerLockRequired()} returns <code>false</code>.
 	 * 
 	 * @throws JRException
 	 */
@@ -90,7 +93,8 @@ public interface JRSubreportRunner
 	 * This method is called when the subreport reaches the end of a page
 	 * and needs to wait for the master to create a new page.
 	 * <p>
-	 * This method is always called by a thread owning the lock on the subreport filler.
+	 * This method is always called by a thread owning the lock on the subreport filler,
+	 * unless {@link #isFillerLockRequired()} returns <code>false</code>.
 	 * 
 	 * @throws JRException
 	 */
@@ -101,4 +105,20 @@ public interface JRSubreportRunner
 	 * Aborts the current fill.
 	 */
 	void abort();
+
+	/**
+	 * Decides whether the master and subreport fillers need to own the lock on the subreport filler object
+	 * while calling the runner methods and while filling the subreport.
+	 * <p>
+	 * Runners that use the subreport filler monitor to pass control between the master and subreport fill
+	 * threads require the lock.
+	 * Runners that coordinate the fill threads by other means can return <code>false</code>,
+	 * in which case the fillers do not synchronize on the subreport filler object.
+	 * 
+	 * @return whether the lock on the subreport filler object is required, <code>true</code> by default
+	 */
+	default boolean isFillerLockRequired()
+	{
+		return true;
+	}
 }
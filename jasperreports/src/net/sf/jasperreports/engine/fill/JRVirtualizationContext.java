@@ -100,6 +100,8 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	
 	private transient ReentrantLock lock;
 	
+	private transient volatile FillProfiler profiler;
+	
 	/**
 	 * Constructs a context.
 	 */
@@ -323,6 +325,26 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	}
 
 
+	/**
+	 * Sets the profiler that records the virtualization activity of a report fill.
+	 * 
+	 * @param profiler the fill profiler, or <code>null</code> to stop recording
+	 */
+	public void setProfiler(FillProfiler profiler)
+	{
+		this.profiler = profiler;
+	}
+	
+	/**
+	 * Returns the profiler that records the virtualization activity for this context.
+	 * 
+	 * @return the fill profiler, or <code>null</code> if the virtualization activity is not profiled
+	 */
+	public FillProfiler getProfiler()
+	{
+		return parentContext == null ? profiler : parentContext.getProfiler();
+	}
+
 	/**
 	 * Sets the read-only flag for this context.
 	 * <p>
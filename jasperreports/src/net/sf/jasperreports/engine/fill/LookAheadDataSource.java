@@ -0,0 +1,199 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+/**
+ * Data source wrapper that can read records ahead of the current record.
+ * <p>
+ * The records read ahead are kept in memory and served by {@link #next()} in the
+ * original order, so that the dataset iterating the data source sees the same records.
+ * Wrappers of rewindable data sources are also rewindable, see {@link #wrap(JRDataSource, JRField[])}.
+ * 
+ * @see JRFillDataset#lookAheadFieldValues(String, int)
+ */
+class LookAheadDataSource implements JRDataSource
+{
+
+	/**
+	 * Wraps a data source which is positioned on a record.
+	 * 
+	 * @param dataSource the data source
+	 * @param fields the fields whose values are read for the records read ahead
+	 * @return a wrapper that is rewindable if the data source is rewindable
+	 */
+	public static LookAheadDataSource wrap(JRDataSource dataSource, JRField[] fields)
+	{
+		return dataSource instanceof JRRewindableDataSource 
+				? new Rewindable((JRRewindableDataSource) dataSource, fields)
+				: new LookAheadDataSource(dataSource, fields);
+	}
+	
+	private final JRDataSource dataSource;
+	private final JRField[] fields;
+	private final Map<String, Integer> fieldIndexes;
+	private final Deque<Object[]> records;
+	
+	private Object[] currentRecord;
+	private boolean ended;
+
+	/**
+	 * Wraps a data source which is positioned on a record.
+	 * 
+	 * @param dataSource the data source
+	 * @param fields the fields whose values are read for the records read ahead
+	 */
+	public LookAheadDataSource(JRDataSource dataSource, JRField[] fields)
+	{
+		this.dataSource = dataSource;
+		this.fields = fields;
+		this.fieldIndexes = new HashMap<String, Integer>();
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldIndexes.put(fields[i].getName(), i);
+		}
+		this.records = new ArrayDeque<Object[]>();
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		if (!records.isEmpty())
+		{
+			currentRecord = records.poll();
+			return true;
+		}
+		
+		currentRecord = null;
+		return !ended && dataSource.next();
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		if (currentRecord == null)
+		{
+			return dataSource.getFieldValue(jrField);
+		}
+		
+		Integer fieldIndex = fieldIndexes.get(jrField.getName());
+		return fieldIndex == null ? null : currentRecord[fieldIndex];
+	}
+
+	/**
+	 * Returns the values of a field in the records that follow the current record.
+	 * 
+	 * @param fieldName the field name
+	 * @param count the maximum number of records to look at
+	 * @return the field values, fewer than <code>count</code> if the data source ends
+	 * @throws JRException
+	 */
+	public List<Object> lookAhead(String fieldName, int count) throws JRException
+	{
+		Integer fieldIndex = fieldIndexes.get(fieldName);
+		if (fieldIndex == null)
+		{
+			return new ArrayList<Object>(0);
+		}
+		
+		if (currentRecord == null && !ended && records.size() < count)
+		{
+			// the data source is about to move, keep the values of the current record
+			currentRecord = readRecord();
+		}
+		
+		while (!ended && records.size() < count)
+		{
+			if (dataSource.next())
+			{
+				records.add(readRecord());
+			}
+			else
+			{
+				ended = true;
+			}
+		}
+		
+		List<Object> values = new ArrayList<Object>(Math.min(count, records.size()));
+		for (Object[] record : records)
+		{
+			if (values.size() >= count)
+			{
+				break;
+			}
+			values.add(record[fieldIndex]);
+		}
+		return values;
+	}
+
+	protected Object[] readRecord() throws JRException
+	{
+		Object[] record = new Object[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			record[i] = dataSource.getFieldValue(fields[i]);
+		}
+		return record;
+	}
+	
+	protected void reset()
+	{
+		records.clear();
+		currentRecord = null;
+		ended = false;
+	}
+	
+	/**
+	 * Wrapper of a rewindable data source, discarding the records read ahead when rewound.
+	 */
+	static class Rewindable extends LookAheadDataSource implements JRRewindableDataSource
+	{
+		private final JRRewindableDataSource rewindableDataSource;
+
+		public Rewindable(JRRewindableDataSource dataSource, JRField[] fields)
+		{
+			super(dataSource, fields);
+			this.rewindableDataSource = dataSource;
+		}
+
+		@Override
+		public void moveFirst() throws JRException
+		{
+			rewindableDataSource.moveFirst();
+			reset();
+		}
+	}
+	
+}
@@ -27,15 +27,23 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
 import net.sf.jasperreports.engine.BookmarkHelper;
 import net.sf.jasperreports.engine.BookmarkIterator;
 import net.sf.jasperreports.engine.JRException;
@@ -43,6 +51,7 @@ import net.sf.jasperreports.engine.JRExpression;
 import net.sf.jasperreports.engine.JRGroup;
 import net.sf.jasperreports.engine.JROrigin;
 import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRScriptletException;
 import net.sf.jasperreports.engine.JRStyle;
@@ -60,12 +69,15 @@ import net.sf.jasperreports.engine.part.FillingPrintPart;
 import net.sf.jasperreports.engine.part.FinalFillingPrintPart;
 import net.sf.jasperreports.engine.part.GroupFillParts;
 import net.sf.jasperreports.engine.part.PartEvaluationTime;
+import net.sf.jasperreports.engine.part.PartFillComponent;
 import net.sf.jasperreports.engine.part.PartPrintOutput;
+import net.sf.jasperreports.engine.part.PendingPrintPart;
 import net.sf.jasperreports.engine.type.IncrementTypeEnum;
 import net.sf.jasperreports.engine.type.ResetTypeEnum;
 import net.sf.jasperreports.engine.type.SectionTypeEnum;
 import net.sf.jasperreports.engine.util.JRDataUtils;
 import net.sf.jasperreports.parts.PartFillerParent;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
@@ -78,6 +90,30 @@ public class PartReportFiller extends BaseReportFiller
 	public static final String EXCEPTION_MESSAGE_KEY_UNKNOWN_EVALUATION_TIME_TYPE = "fill.part.filler.unknown.evaluation.time.type";
 	public static final String EXCEPTION_MESSAGE_KEY_UNSUPPORTED_SECTION_TYPE = "fill.part.filler.unsupported.section.type";
 	
+	/**
+	 * Property that specifies the number of threads used to fill the parts of a book concurrently.
+	 * <p>
+	 * When the property is set to a positive value, the parts that do not depend on the report filler state
+	 * are filled on a pool of threads of the given size, and their output is appended to the book in the
+	 * original order.
+	 * Parts that have return values, that use the bookmarks data source parameter or whose reports are books
+	 * are still filled by the report filler thread.
+	 * <p>
+	 * Parallel filling is not used when the report fill uses a virtualizer or records data snapshots.
+	 * Parts share the report parameters, therefore the report connection needs to support concurrent queries.
+	 * <p>
+	 * The property can be set at report level or globally, and defaults to 0, which means that
+	 * the parts are filled sequentially.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PARALLEL_FILL_THREADS = JRPropertiesUtil.PROPERTY_PREFIX + "part.parallel.fill.threads";
+	
 	private FillParts detailParts;
 	private List<GroupFillParts> groupParts;
 	private Map<String, GroupFillParts> groupPartsByName;
@@ -86,6 +122,10 @@ public class PartReportFiller extends BaseReportFiller
 	
 	private List<DelayedPrintPart> reportEvaluatedParts;
 	
+	private int parallelFillThreads;
+	private ExecutorService parallelFillExecutor;
+	private LinkedList<ParallelPartFill> parallelFills;
+	
 	public PartReportFiller(JasperReportsContext jasperReportsContext, JasperReport jasperReport) throws JRException
 	{
 		this(jasperReportsContext, SimpleJasperReportSource.from(jasperReport), null);
@@ -221,6 +261,8 @@ public class PartReportFiller extends BaseReportFiller
 			/*   */
 			mainDataset.start();
 
+			initParallelFill();
+
 			/*   */
 			fillReport();
 			
@@ -239,6 +281,8 @@ public class PartReportFiller extends BaseReportFiller
 		}
 		finally
 		{
+			disposeParallelFill();
+			
 			mainDataset.closeDatasource();
 			mainDataset.disposeParameterContributors();
 			
@@ -246,6 +290,8 @@ public class PartReportFiller extends BaseReportFiller
 			{
 				// commit the cached data
 				fillContext.cacheDone();
+				
+				fillContext.profileDone();
 			}
 
 /*			if (parent != null)
@@ -315,6 +361,7 @@ public class PartReportFiller extends BaseReportFiller
 		}
 		
 		fillReportEvaluatedParts();
+		completeParallelFills(0);
 		assert partQueue.isCollapsed();
 		
 		if (isMasterReport())
@@ -410,6 +457,14 @@ public class PartReportFiller extends BaseReportFiller
 		{
 		case NOW:
 		{
+			completeParallelFillsBefore(part);
+			
+			if (parallelFillExecutor != null)
+			{
+				fillPartParallel(part, evaluation);
+				break;
+			}
+			
 			PartPrintOutput appendOutput = partQueue.tail().getOutput();
 			if (appendOutput != null)
 			{
@@ -513,7 +568,225 @@ public class PartReportFiller extends BaseReportFiller
 
 	protected void fillDelayedPart(byte evaluation, DelayedPrintPart part) throws JRException
 	{
-		partQueue.fillDelayed(part, this, evaluation);
+		completeParallelFillsBefore(part.getFillPart());
+		
+		if (parallelFillExecutor == null)
+		{
+			partQueue.fillDelayed(part, this, evaluation);
+			return;
+		}
+		
+		FillPart fillPart = part.getFillPart();
+		boolean toPrint = fillPart.evaluate(evaluation);
+		PartFillComponent detachedComponent = toPrint ? fillPart.detachFillComponent() : null;
+		if (detachedComponent == null)
+		{
+			partQueue.fillEvaluatedDelayed(part, this, toPrint);
+		}
+		else
+		{
+			PendingPrintPart pendingPart = partQueue.replaceDelayed(part);
+			startParallelFill(detachedComponent, pendingPart);
+		}
+	}
+
+	protected void initParallelFill()
+	{
+		if (parent != null)
+		{
+			// the parts of a book subreport are added to the master queue, 
+			// they are filled by the master as detached parts or directly on the master thread
+			return;
+		}
+		
+		int threads = propertiesUtil.getIntegerProperty(jasperReport, PROPERTY_PARALLEL_FILL_THREADS, 0);
+		if (threads <= 0)
+		{
+			return;
+		}
+		
+		if (fillContext.isUsingVirtualizer() || fillContext.getDataRecorder() != null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Fill " + fillerId + ": not filling parts in parallel with virtualization or data recording");
+			}
+			return;
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("Fill " + fillerId + ": filling parts on " + threads + " threads");
+		}
+		
+		// the part fills use the classloader of the calling thread to load report classes and resources
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		String threadPrefix = jasperReport.getName() + " parts #";
+		AtomicInteger threadCount = new AtomicInteger();
+		parallelFillThreads = threads;
+		parallelFillExecutor = Executors.newFixedThreadPool(threads, runnable -> 
+		{
+			Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		});
+		parallelFills = new LinkedList<ParallelPartFill>();
+	}
+
+	protected void fillPartParallel(FillPart part, byte evaluation) throws JRException
+	{
+		boolean toPrint = part.evaluate(evaluation);
+		if (!toPrint)
+		{
+			return;
+		}
+		
+		PartFillComponent detachedComponent = part.detachFillComponent();
+		if (detachedComponent == null)
+		{
+			// the part needs to be filled on the report filler thread
+			PartPrintOutput appendOutput = partQueue.tail().getOutput();
+			if (appendOutput != null)
+			{
+				part.fill(appendOutput);
+			}
+			else
+			{
+				FillPartPrintOutput localOutput = new FillPartPrintOutput(this);
+				part.fill(localOutput);
+				partQueue.appendOutput(localOutput);
+			}
+		}
+		else
+		{
+			PendingPrintPart pendingPart = partQueue.appendPending();
+			startParallelFill(detachedComponent, pendingPart);
+		}
+	}
+	
+	protected void startParallelFill(PartFillComponent fillComponent, PendingPrintPart pendingPart) throws JRException
+	{
+		// append the parts that have already been filled and limit the number of parts in progress
+		completeFinishedParallelFills();
+		completeParallelFills(parallelFillThreads - 1);
+		
+		FillPartPrintOutput output = new FillPartPrintOutput(this);
+		Future<FillPartPrintOutput> result = parallelFillExecutor.submit(() -> 
+		{
+			fillComponent.fill(output);
+			return output;
+		});
+		parallelFills.add(new ParallelPartFill(pendingPart, result));
+	}
+	
+	protected void completeFinishedParallelFills() throws JRException
+	{
+		for (ListIterator<ParallelPartFill> it = parallelFills.listIterator(); it.hasNext();)
+		{
+			ParallelPartFill parallelFill = it.next();
+			if (parallelFill.result.isDone())
+			{
+				it.remove();
+				completeParallelFill(parallelFill);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the parts filled in parallel to complete and appends them to the output,
+	 * until the number of parts in progress is less or equal to a given count.
+	 */
+	protected void completeParallelFills(int maxInProgress) throws JRException
+	{
+		if (parallelFills == null)
+		{
+			return;
+		}
+		
+		while (parallelFills.size() > maxInProgress)
+		{
+			completeParallelFill(parallelFills.removeFirst());
+		}
+	}
+	
+	/**
+	 * Completes the parts filled in parallel by the master filler before evaluating a part
+	 * that uses the output of the previous parts.
+	 */
+	protected void completeParallelFillsBefore(FillPart part) throws JRException
+	{
+		if (!part.dependsOnPreviousParts())
+		{
+			return;
+		}
+		
+		// parts of book subreports are filled on the master thread, the parallel fills are kept by the master
+		BaseReportFiller masterFiller = fillContext.getMasterFiller();
+		if (masterFiller instanceof PartReportFiller)
+		{
+			((PartReportFiller) masterFiller).completeParallelFills(0);
+		}
+	}
+	
+	protected void completeParallelFill(ParallelPartFill parallelFill) throws JRException
+	{
+		FillPartPrintOutput output;
+		try
+		{
+			output = parallelFill.result.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new JRFillInterruptedException();
+		}
+		catch (ExecutionException e)
+		{
+			Throwable error = e.getCause();
+			if (error instanceof JRException)
+			{
+				throw (JRException) error;
+			}
+			if (error instanceof RuntimeException)
+			{
+				throw (RuntimeException) error;
+			}
+			if (error instanceof Error)
+			{
+				throw (Error) error;
+			}
+			throw new JRRuntimeException(error);
+		}
+		
+		partQueue.fillPending(parallelFill.pendingPart, output);
+	}
+	
+	protected void disposeParallelFill()
+	{
+		if (parallelFillExecutor != null)
+		{
+			for (ParallelPartFill parallelFill : parallelFills)
+			{
+				parallelFill.result.cancel(true);
+			}
+			parallelFills.clear();
+			
+			parallelFillExecutor.shutdownNow();
+			parallelFillExecutor = null;
+		}
+	}
+	
+	protected static class ParallelPartFill
+	{
+		private final PendingPrintPart pendingPart;
+		private final Future<FillPartPrintOutput> result;
+		
+		protected ParallelPartFill(PendingPrintPart pendingPart, Future<FillPartPrintOutput> result)
+		{
+			this.pendingPart = pendingPart;
+			this.result = result;
+		}
 	}
 
 	public BookmarkHelper getFirstBookmarkHelper()
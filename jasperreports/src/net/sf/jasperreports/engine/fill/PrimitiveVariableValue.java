@@ -0,0 +1,199 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+/**
+ * Mutable numeric variable value that is kept as a primitive and boxed only when the value object is requested.
+ * <p>
+ * Values set as objects are kept as they are, and converted to primitives when first used in a calculation.
+ * @see JRFillDataset#PROPERTY_PRIMITIVE_VARIABLES
+ */
+final class PrimitiveVariableValue
+{
+
+	enum Type
+	{
+		INTEGER,
+		LONG,
+		DOUBLE
+	}
+
+	static Type getType(Class<?> valueClass)
+	{
+		Type type;
+		if (Integer.class.equals(valueClass))
+		{
+			type = Type.INTEGER;
+		}
+		else if (Long.class.equals(valueClass))
+		{
+			type = Type.LONG;
+		}
+		else if (Double.class.equals(valueClass))
+		{
+			type = Type.DOUBLE;
+		}
+		else
+		{
+			type = null;
+		}
+		return type;
+	}
+
+	private final Type type;
+
+	private boolean isNull;
+	private Object boxedValue;
+	private boolean primitiveSet;
+	private long longValue;
+	private double doubleValue;
+
+	PrimitiveVariableValue(Type type)
+	{
+		this.type = type;
+		this.isNull = true;
+	}
+
+	Type getType()
+	{
+		return type;
+	}
+
+	boolean isNull()
+	{
+		return isNull;
+	}
+
+	Object getValue()
+	{
+		if (isNull)
+		{
+			return null;
+		}
+
+		if (boxedValue == null)
+		{
+			switch (type)
+			{
+				case INTEGER:
+					boxedValue = (int) longValue;
+					break;
+				case LONG:
+					boxedValue = longValue;
+					break;
+				case DOUBLE:
+				default:
+					boxedValue = doubleValue;
+					break;
+			}
+		}
+		return boxedValue;
+	}
+
+	void setValue(Object value)
+	{
+		isNull = value == null;
+		boxedValue = value;
+		primitiveSet = false;
+	}
+
+	void setNull()
+	{
+		isNull = true;
+		boxedValue = null;
+		primitiveSet = false;
+	}
+
+	void setValue(PrimitiveVariableValue value)
+	{
+		isNull = value.isNull;
+		boxedValue = value.boxedValue;
+		primitiveSet = value.primitiveSet;
+		longValue = value.longValue;
+		doubleValue = value.doubleValue;
+	}
+
+	void setInt(int value)
+	{
+		setLong(value);
+	}
+
+	void setLong(long value)
+	{
+		isNull = false;
+		boxedValue = null;
+		primitiveSet = true;
+		longValue = value;
+	}
+
+	void setDouble(double value)
+	{
+		isNull = false;
+		boxedValue = null;
+		primitiveSet = true;
+		doubleValue = value;
+	}
+
+	private void ensurePrimitive()
+	{
+		if (!primitiveSet)
+		{
+			// same conversions as the ones done by the object incrementers
+			Number number = (Number) boxedValue;
+			switch (type)
+			{
+				case INTEGER:
+					longValue = number.intValue();
+					break;
+				case LONG:
+					longValue = number.longValue();
+					break;
+				case DOUBLE:
+				default:
+					doubleValue = number.doubleValue();
+					break;
+			}
+			primitiveSet = true;
+		}
+	}
+
+	int intValue()
+	{
+		ensurePrimitive();
+		return type == Type.DOUBLE ? (int) doubleValue : (int) longValue;
+	}
+
+	long longValue()
+	{
+		ensurePrimitive();
+		return type == Type.DOUBLE ? (long) doubleValue : longValue;
+	}
+
+	double doubleValue()
+	{
+		ensurePrimitive();
+		return type == Type.DOUBLE ? doubleValue : (double) longValue;
+	}
+
+}
@@ -33,6 +33,7 @@ import java.text.AttributedCharacterIterator.Attribute;
 import java.text.AttributedString;
 import java.text.Bidi;
 import java.text.BreakIterator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -277,11 +278,15 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 			JRFillContext fillContext = fillElement.getFiller().getFillContext();
 			elementFontKey = new Pair<UUID, FontKey>(fillElement.getUUID(), fontKey);
 			
-			elementFontInfos = (Map<Pair<UUID, FontKey>, ElementFontInfo>) fillContext.getFillCache(FILL_CACHE_KEY_ELEMENT_FONT_INFOS);
-			if (elementFontInfos == null)
+			synchronized (fillContext)
 			{
-				elementFontInfos = createElementFontInfosFillCache();
-				fillContext.setFillCache(FILL_CACHE_KEY_ELEMENT_FONT_INFOS, elementFontInfos);
+				elementFontInfos = (Map<Pair<UUID, FontKey>, ElementFontInfo>) fillContext.getFillCache(FILL_CACHE_KEY_ELEMENT_FONT_INFOS);
+				if (elementFontInfos == null)
+				{
+					// the cache is shared by fillers that can run concurrently
+					elementFontInfos = Collections.synchronizedMap(createElementFontInfosFillCache());
+					fillContext.setFillCache(FILL_CACHE_KEY_ELEMENT_FONT_INFOS, elementFontInfos);
+				}
 			}
 
 			fontInfo = elementFontInfos.get(elementFontKey);
@@ -339,11 +344,14 @@ public class SimpleTextLineWrapper implements TextLineWrapper
 			JRFillElement fillElement = (JRFillElement) context.getElement();
 			JRFillContext fillContext = fillElement.getFiller().getFillContext();
 			
-			generalFontInfos = (Map<FontKey, FontInfo>) fillContext.getFillCache(FILL_CACHE_KEY_GENERAL_FONT_INFOS);
-			if (generalFontInfos == null)
+			synchronized (fillContext)
 			{
-				generalFontInfos = new HashMap<FontKey, FontInfo>();
-				fillContext.setFillCache(FILL_CACHE_KEY_GENERAL_FONT_INFOS, generalFontInfos);
+				generalFontInfos = (Map<FontKey, FontInfo>) fillContext.getFillCache(FILL_CACHE_KEY_GENERAL_FONT_INFOS);
+				if (generalFontInfos == null)
+				{
+					generalFontInfos = Collections.synchronizedMap(new HashMap<FontKey, FontInfo>());
+					fillContext.setFillCache(FILL_CACHE_KEY_GENERAL_FONT_INFOS, generalFontInfos);
+				}
 			}
 			
 			generalFontInfo = generalFontInfos.get(fontKey);			
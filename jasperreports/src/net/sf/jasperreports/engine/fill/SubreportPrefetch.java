@@ -0,0 +1,357 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRQuery;
+import net.sf.jasperreports.engine.JRQueryChunk;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+
+/**
+ * Fetches the records of a per-row subreport for several master records at once.
+ * <p>
+ * When the subreport query is executed for a key that has not been prefetched, the keys of
+ * the following master records are read ahead from the master dataset and the query is
+ * executed once with the list of keys set as value of a collection parameter, which the
+ * query would use in a <code>$X{IN, column, parameter}</code> clause.
+ * The query results are partitioned by the value of a subreport field, and each subreport
+ * instance receives the records of its key as an in-memory data source.
+ * <p>
+ * The batched query is executed with the values that the other query parameters have for
+ * the first record of the batch.
+ * Records are only served from the batch to master records for which these parameters and
+ * the connection have the same values, otherwise the query is executed for the master record.
+ * 
+ * @see JRFillSubreport#PROPERTY_PREFETCH_SIZE
+ */
+class SubreportPrefetch
+{
+
+	private static final Log log = LogFactory.getLog(SubreportPrefetch.class);
+	
+	/**
+	 * Creates a prefetch object for a subreport if the prefetch properties are set.
+	 * 
+	 * @param subreport the subreport element
+	 * @return the prefetch object, or <code>null</code> if prefetch is not configured
+	 */
+	public static SubreportPrefetch create(JRFillSubreport subreport)
+	{
+		JRBaseFiller filler = subreport.getFiller();
+		String sizeProp = filler.getPropertiesUtil().getProperty(
+				JRFillSubreport.PROPERTY_PREFETCH_SIZE, subreport, filler.getJasperReport());
+		int size = sizeProp == null || sizeProp.trim().length() == 0 ? 0 : JRPropertiesUtil.asInteger(sizeProp);
+		if (size <= 1)
+		{
+			return null;
+		}
+		
+		String masterField = JRPropertiesUtil.getOwnProperty(subreport, JRFillSubreport.PROPERTY_PREFETCH_MASTER_FIELD);
+		String keysParameter = JRPropertiesUtil.getOwnProperty(subreport, JRFillSubreport.PROPERTY_PREFETCH_KEYS_PARAMETER);
+		String keyField = JRPropertiesUtil.getOwnProperty(subreport, JRFillSubreport.PROPERTY_PREFETCH_KEY_FIELD);
+		if (masterField == null || keysParameter == null || keyField == null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("incomplete prefetch properties for subreport " + subreport.getUUID());
+			}
+			return null;
+		}
+		
+		return new SubreportPrefetch(size, masterField, keysParameter, keyField);
+	}
+	
+	private final int size;
+	private final String masterField;
+	private final String keysParameter;
+	private final String keyField;
+	
+	private Object currentKey;
+	private List<Object> pendingKeys;
+	private Map<Object, List<Object[]>> partitions;
+	private Object partitionsConnection;
+	private Map<String, Object> partitionsParameterValues;
+
+	protected SubreportPrefetch(int size, String masterField, String keysParameter, String keyField)
+	{
+		this.size = size;
+		this.masterField = masterField;
+		this.keysParameter = keysParameter;
+		this.keyField = keyField;
+	}
+
+	/**
+	 * Prepares the prefetched records for the current master record.
+	 * <p>
+	 * If the key of the master record has not been prefetched, the keys of the following
+	 * master records are collected so that the next query is executed for all of them.
+	 * 
+	 * @param masterDataset the dataset that iterates the master records
+	 * @param evaluation the subreport evaluation type
+	 * @return whether the subreport records can be served from the prefetch,
+	 * <code>false</code> if the query needs to be executed for the master record
+	 * @throws JRException
+	 */
+	public boolean prepare(JRFillDataset masterDataset, byte evaluation) throws JRException
+	{
+		currentKey = null;
+		pendingKeys = null;
+		
+		if (evaluation != JRExpression.EVALUATION_DEFAULT)
+		{
+			// the master dataset is not positioned on the record
+			return false;
+		}
+		
+		JRFillField field = masterDataset.getFillField(masterField);
+		Object key = field == null ? null : field.getValue();
+		if (key == null)
+		{
+			return false;
+		}
+		
+		currentKey = normalizeKey(key);
+		if (partitions == null || !partitions.containsKey(currentKey))
+		{
+			Set<Object> keys = new LinkedHashSet<Object>();
+			keys.add(key);
+			for (Object nextKey : masterDataset.lookAheadFieldValues(masterField, size - 1))
+			{
+				if (nextKey != null)
+				{
+					keys.add(nextKey);
+				}
+			}
+			pendingKeys = new ArrayList<Object>(keys);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the records of the current master record, executing the batched query if needed.
+	 * 
+	 * @param dataset the subreport dataset
+	 * @return a data source with the records, or <code>null</code> if the subreport dataset
+	 * does not support the prefetch and the query needs to be executed for the master record
+	 * @throws JRException
+	 */
+	public JRDataSource getDataSource(JRFillDataset dataset) throws JRException
+	{
+		if (currentKey == null)
+		{
+			return null;
+		}
+		
+		if (pendingKeys != null)
+		{
+			partitions = null;
+			if (!fetch(dataset))
+			{
+				return null;
+			}
+		}
+		
+		else if (partitionsConnection != dataset.getParameterValue(JRParameter.REPORT_CONNECTION, true)
+				|| !partitionsParameterValues.equals(queryParameterValues(dataset)))
+		{
+			// the prefetched records were fetched with different parameter values
+			if (log.isDebugEnabled())
+			{
+				log.debug("subreport query parameters changed, discarding prefetched records");
+			}
+			partitions = null;
+			partitionsConnection = null;
+			partitionsParameterValues = null;
+			return null;
+		}
+		
+		List<Object[]> records = partitions.remove(currentKey);
+		return new ListOfArrayDataSource(records == null ? Collections.<Object[]>emptyList() : records, 
+				fieldNames(dataset));
+	}
+
+	protected boolean fetch(JRFillDataset dataset) throws JRException
+	{
+		JRFillParameter parameter = dataset.parametersMap.get(keysParameter);
+		JRFillField field = dataset.getFillField(keyField);
+		if (parameter == null || field == null
+				|| !parameter.getValueClass().isAssignableFrom(List.class))
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("cannot prefetch with parameter " + keysParameter + " and field " + keyField);
+			}
+			return false;
+		}
+		
+		Map<Object, List<Object[]>> records = new HashMap<Object, List<Object[]>>();
+		for (Object key : pendingKeys)
+		{
+			records.put(normalizeKey(key), new ArrayList<Object[]>());
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("prefetching subreport records for " + pendingKeys.size() + " keys");
+		}
+		
+		Object parameterValue = parameter.getValue();
+		parameter.setValue(pendingKeys);
+		try
+		{
+			JRDataSource dataSource = dataset.createQueryDatasource();
+			if (dataSource == null)
+			{
+				return false;
+			}
+			
+			JRFillField[] fields = dataset.fields;
+			while (dataSource.next())
+			{
+				Object[] record = new Object[fields.length];
+				for (int i = 0; i < fields.length; i++)
+				{
+					record[i] = dataSource.getFieldValue(fields[i]);
+				}
+				
+				List<Object[]> keyRecords = records.get(normalizeKey(dataSource.getFieldValue(field)));
+				if (keyRecords != null)
+				{
+					keyRecords.add(record);
+				}
+			}
+		}
+		finally
+		{
+			parameter.setValue(parameterValue);
+			dataset.closeQueryExecuter();
+		}
+		
+		partitions = records;
+		partitionsConnection = dataset.getParameterValue(JRParameter.REPORT_CONNECTION, true);
+		partitionsParameterValues = queryParameterValues(dataset);
+		pendingKeys = null;
+		return true;
+	}
+	
+	/**
+	 * Collects the values of the parameters used by the subreport query, except the keys parameter.
+	 */
+	protected Map<String, Object> queryParameterValues(JRFillDataset dataset)
+	{
+		Map<String, Object> values = new HashMap<String, Object>();
+		
+		JRQuery query = dataset.getQuery();
+		JRQueryChunk[] chunks = query == null ? null : query.getChunks();
+		if (chunks != null)
+		{
+			for (JRQueryChunk chunk : chunks)
+			{
+				switch (chunk.getType())
+				{
+				case JRQueryChunk.TYPE_PARAMETER:
+				case JRQueryChunk.TYPE_PARAMETER_CLAUSE:
+					addParameterValue(dataset, chunk.getText(), values);
+					break;
+				case JRQueryChunk.TYPE_CLAUSE_TOKENS:
+					// the clause function determines which tokens are parameters, checking all of them
+					for (String token : chunk.getTokens())
+					{
+						addParameterValue(dataset, token == null ? null : token.trim(), values);
+					}
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		return values;
+	}
+	
+	protected void addParameterValue(JRFillDataset dataset, String name, Map<String, Object> values)
+	{
+		if (name != null && !name.equals(keysParameter) && dataset.parametersMap.containsKey(name))
+		{
+			values.put(name, dataset.parametersMap.get(name).getValue());
+		}
+	}
+	
+	protected String[] fieldNames(JRFillDataset dataset)
+	{
+		JRFillField[] fields = dataset.fields;
+		String[] names = new String[fields == null ? 0 : fields.length];
+		for (int i = 0; i < names.length; i++)
+		{
+			names[i] = fields[i].getName();
+		}
+		return names;
+	}
+
+	/**
+	 * Integral numbers of different types are matched by value, as the master field
+	 * and the subreport field do not necessarily have the same type.
+	 */
+	protected static Object normalizeKey(Object key)
+	{
+		if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte)
+		{
+			return ((Number) key).longValue();
+		}
+		
+		if (key instanceof BigInteger && ((BigInteger) key).bitLength() < 64)
+		{
+			return ((BigInteger) key).longValue();
+		}
+		
+		if (key instanceof BigDecimal)
+		{
+			BigDecimal decimal = ((BigDecimal) key).stripTrailingZeros();
+			if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19)
+			{
+				return decimal.longValue();
+			}
+			return decimal;
+		}
+		
+		return key;
+	}
+	
+}
@@ -0,0 +1,156 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.fill.ThreadPoolSubreportRunnerFactory.ExecutorServiceDisposable;
+import net.sf.jasperreports.engine.fill.ThreadPoolSubreportRunnerFactory.SubreportsThreadFactory;
+
+
+/**
+ * Subreport runner factory that fills subreports on virtual threads.
+ * <p>
+ * The factory creates {@link LockSubreportRunner} instances, which coordinate the master and subreport
+ * fill threads without using object monitors, so that the virtual threads do not get pinned to their
+ * carrier threads while waiting for each other.
+ * A new virtual thread is started for each subreport fill, the threads of a report fill
+ * are named after the master report.
+ * <p>
+ * The factory can be used by setting the 
+ * {@link net.sf.jasperreports.engine.fill.JRSubreportRunnerFactory#SUBREPORT_RUNNER_FACTORY net.sf.jasperreports.subreport.runner.factory}
+ * property to the name of this class.
+ * Virtual threads require Java 21 or newer; on older Java versions the factory falls back to
+ * a cached pool of platform threads.
+ */
+public class VirtualThreadSubreportRunnerFactory implements JRSubreportRunnerFactory
+{
+	private static final Log log = LogFactory.getLog(VirtualThreadSubreportRunnerFactory.class);
+	
+	private static final String EXECUTOR_KEY = "net.sf.jasperreports.engine.fill.VirtualThreadSubreportRunnerFactory.Executor";
+
+	private static final Method THREAD_OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class, 
+			"newThreadPerTaskExecutor", ThreadFactory.class);
+
+	private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes)
+	{
+		try
+		{
+			return type.getMethod(name, parameterTypes);
+		}
+		catch (NoSuchMethodException e)
+		{
+			return null;
+		}
+	}
+	
+	static
+	{
+		if (!isVirtualThreadsAvailable() && log.isWarnEnabled())
+		{
+			log.warn("Virtual threads are not available in Java " + System.getProperty("java.version")
+					+ ", subreports will be filled on platform threads");
+		}
+	}
+	
+	/**
+	 * Decides whether virtual threads are available in the current Java runtime.
+	 */
+	public static boolean isVirtualThreadsAvailable()
+	{
+		return THREAD_OF_VIRTUAL != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	@Override
+	public JRSubreportRunner createSubreportRunner(JRFillSubreport fillSubreport, JRBaseFiller subreportFiller)
+	{
+		JRFillContext fillContext = subreportFiller.getFillContext();
+		ExecutorServiceDisposable executor;
+		synchronized (fillContext)
+		{
+			executor = (ExecutorServiceDisposable) fillContext.getFillCache(EXECUTOR_KEY);
+			if (executor == null)
+			{
+				ExecutorService threadExecutor = createThreadExecutor(fillContext);
+				executor = new ExecutorServiceDisposable(threadExecutor);
+				fillContext.setFillCache(EXECUTOR_KEY, executor);
+			}
+		}
+
+		return new LockSubreportRunner(fillSubreport, subreportFiller, 
+				executor.getExecutorService());
+	}
+
+	protected ExecutorService createThreadExecutor(JRFillContext fillContext)
+	{
+		ExecutorService threadExecutor;
+		if (isVirtualThreadsAvailable())
+		{
+			String threadPrefix = fillContext.getMasterFiller().getJasperReport().getName() + " subreports #";
+			threadExecutor = createVirtualThreadExecutor(threadPrefix);
+		}
+		else
+		{
+			threadExecutor = Executors.newCachedThreadPool(new SubreportsThreadFactory(fillContext));
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("created subreports thread executor " + threadExecutor 
+					+ " for " + fillContext.getMasterFiller().getJasperReport().getName());
+		}
+		return threadExecutor;
+	}
+	
+	protected ExecutorService createVirtualThreadExecutor(String threadPrefix)
+	{
+		try
+		{
+			// Thread.ofVirtual().name(threadPrefix, 1).factory()
+			Object builder = THREAD_OF_VIRTUAL.invoke(null);
+			Class<?> builderType = THREAD_OF_VIRTUAL.getReturnType();
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadPrefix, 1L);
+			ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+			
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+		}
+		catch (NoSuchMethodException | IllegalAccessException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new JRRuntimeException(e.getCause());
+		}
+	}
+}
@@ -65,18 +65,66 @@ public class FillPart
 	}
 	
 	public void fill(byte evaluation, PartPrintOutput output) throws JRException
+	{
+		boolean toPrint = evaluate(evaluation);
+		if (toPrint)
+		{
+			fill(output);
+		}
+	}
+
+	/**
+	 * Evaluates the part and its fill component.
+	 * 
+	 * @param evaluation the evaluation type
+	 * @return whether the part is to be printed
+	 * @throws JRException
+	 */
+	public boolean evaluate(byte evaluation) throws JRException
 	{
 		boolean toPrint = evaluatePrintWhenExpression(evaluation);
 		if (!toPrint)
 		{
-			return;
+			return false;
 		}
 		
 		evaluatePartNameExpression(evaluation);
 		fillComponent.evaluate(evaluation);
+		return true;
+	}
+
+	/**
+	 * Fills the part after it has been evaluated.
+	 * 
+	 * @param output the output to which the part is to be filled
+	 * @throws JRException
+	 * @see #evaluate(byte)
+	 */
+	public void fill(PartPrintOutput output) throws JRException
+	{
 		fillComponent.fill(output);
 	}
 
+	/**
+	 * Creates a copy of the evaluated fill component that can be filled on a different thread.
+	 * 
+	 * @return the detached fill component, or <code>null</code> if the part cannot be filled
+	 * on a different thread
+	 * @see PartFillComponent#detach()
+	 */
+	public PartFillComponent detachFillComponent()
+	{
+		return fillComponent.detach();
+	}
+
+	/**
+	 * @see PartFillComponent#dependsOnPreviousParts()
+	 */
+	public boolean dependsOnPreviousParts()
+	{
+		return fillComponent.dependsOnPreviousParts();
+	}
+
 	protected boolean evaluatePrintWhenExpression(byte evaluation) throws JRException
 	{
 		JRExpression expression = reportPart.getPrintWhenExpression();
@@ -87,8 +135,7 @@ public class FillPart
 		}
 		else
 		{
-			Boolean expressionResult = (Boolean) expressionEvaluator.evaluate(expression, evaluation);
-			result = expressionResult != null && expressionResult;
+			result = expressionEvaluator.evaluateBoolean(expression, evaluation);
 		}
 		return result;
 	}
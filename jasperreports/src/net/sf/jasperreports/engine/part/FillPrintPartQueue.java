@@ -79,26 +79,70 @@ public class FillPrintPartQueue
 		tail = part;
 	}
 
+	public PendingPrintPart appendPending()
+	{
+		PendingPrintPart pendingPart = new PendingPrintPart();
+		append(pendingPart);
+		return pendingPart;
+	}
+
 	public void fillDelayed(DelayedPrintPart part, PartReportFiller filler, byte evaluation) throws JRException
+	{
+		boolean toPrint = part.getFillPart().evaluate(evaluation);
+		fillEvaluatedDelayed(part, filler, toPrint);
+	}
+
+	public void fillEvaluatedDelayed(DelayedPrintPart part, PartReportFiller filler, boolean toPrint) throws JRException
 	{
 		PartPrintOutput appendOutput = part.previousPart().getOutput();
 		if (appendOutput != null)
 		{
-			part.getFillPart().fill(evaluation, appendOutput);
+			if (toPrint)
+			{
+				part.getFillPart().fill(appendOutput);
+			}
 			remove(part);
 			collapse(part.previousPart());
 		}
 		else
 		{
 			FillPartPrintOutput localOutput = new FillPartPrintOutput(filler);
-			part.getFillPart().fill(evaluation, localOutput);
+			if (toPrint)
+			{
+				part.getFillPart().fill(localOutput);
+			}
 			FilledPrintPart filledPart = new FilledPrintPart(localOutput);
 			replace(part, filledPart);
 			collapse(filledPart);
 		}
 	}
+
+	public PendingPrintPart replaceDelayed(DelayedPrintPart part)
+	{
+		PendingPrintPart pendingPart = new PendingPrintPart();
+		replace(part, pendingPart);
+		return pendingPart;
+	}
+
+	public void fillPending(PendingPrintPart part, FillPartPrintOutput output)
+	{
+		PartPrintOutput appendOutput = part.previousPart().getOutput();
+		if (appendOutput != null)
+		{
+			appendOutput.append(output);
+			output.getDelayedActions().dispose();
+			remove(part);
+			collapse(part.previousPart());
+		}
+		else
+		{
+			FilledPrintPart filledPart = new FilledPrintPart(output);
+			replace(part, filledPart);
+			collapse(filledPart);
+		}
+	}
 	
-	protected void remove(DelayedPrintPart part)
+	protected void remove(FillPrintPart part)
 	{
 		if (part == head)
 		{
@@ -66,4 +66,38 @@ public interface PartFillComponent
 	 */
 	void fill(PartPrintOutput output) throws JRException;
 
+	/**
+	 * Creates a copy of the fill component that retains the results of the last evaluation
+	 * and that can be filled on a different thread.
+	 * 
+	 * <p>
+	 * The copy is used when parts are filled concurrently, its {@link #fill(PartPrintOutput)}
+	 * method is called while the original component is evaluated again by the report filler.
+	 * Components whose fill updates the state of the report filler, or depends on the output
+	 * of the previous parts, should not support detached fills.
+	 * 
+	 * @return a detached copy of the fill component, or <code>null</code> if the component
+	 * can only be filled by the report filler thread
+	 * @see net.sf.jasperreports.engine.fill.PartReportFiller#PROPERTY_PARALLEL_FILL_THREADS
+	 */
+	default PartFillComponent detach()
+	{
+		return null;
+	}
+
+	/**
+	 * Determines whether the evaluation of the component uses the output of the previous parts,
+	 * for instance the bookmarks that the previous parts have produced.
+	 * 
+	 * <p>
+	 * The parts that are filled concurrently are completed before such components are evaluated.
+	 * 
+	 * @return whether the component uses the output of the previous parts
+	 * @see net.sf.jasperreports.engine.fill.PartReportFiller#PROPERTY_PARALLEL_FILL_THREADS
+	 */
+	default boolean dependsOnPreviousParts()
+	{
+		return false;
+	}
+
 }
@@ -55,6 +55,7 @@ public class ExcelQueryExecuter extends AbstractXlsQueryExecuter
 	private static final String EXCEL_DATA_SOURCE_CLASS = "net.sf.jasperreports.engine.data.ExcelDataSource";
 	private static final String XLS_DATA_SOURCE_CLASS = "net.sf.jasperreports.engine.data.XlsDataSource";
 	private static final String XLSX_DATA_SOURCE_CLASS = "net.sf.jasperreports.engine.data.JRXlsxDataSource";
+	private static final String STREAMING_XLSX_DATA_SOURCE_CLASS = "net.sf.jasperreports.engine.data.StreamingXlsxDataSource";
 	private static final String XLS_WORKBOOK_CLASS = "org.apache.poi.hssf.usermodel.HSSFWorkbook";
 	private static final String XLSX_WORKBOOK_CLASS = "org.apache.poi.xssf.usermodel.XSSFWorkbook";
 	
@@ -139,7 +140,8 @@ public class ExcelQueryExecuter extends AbstractXlsQueryExecuter
 				}
 				case XLSX :
 				{
-					dataSourceClassName = XLSX_DATA_SOURCE_CLASS;
+					dataSourceClassName = getBooleanParameterOrProperty(ExcelQueryExecuterFactory.XLSX_STREAMING, false)
+							? STREAMING_XLSX_DATA_SOURCE_CLASS : XLSX_DATA_SOURCE_CLASS;
 					break;
 				}
 				case AUTODETECT :
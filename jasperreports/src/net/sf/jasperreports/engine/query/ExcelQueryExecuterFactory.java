@@ -55,6 +55,24 @@ public class ExcelQueryExecuterFactory extends AbstractXlsQueryExecuterFactory
 			)
 	public static final String XLS_FORMAT = JRPropertiesUtil.PROPERTY_PREFIX + "xls.format";
 
+	/**
+	 * Built-in parameter/property specifying whether XLSX data is read one row at a time, without loading the
+	 * whole workbook in memory.
+	 * <p/>
+	 * Streaming is only used when the Excel format is XLSX, either set explicitly or by the XLSX data adapter.
+	 * 
+	 * @see net.sf.jasperreports.engine.data.StreamingXlsxDataSource
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {AbstractXlsQueryExecuterFactory.QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Boolean.class
+			)
+	public static final String XLSX_STREAMING = JRPropertiesUtil.PROPERTY_PREFIX + "xlsx.streaming";
+
 	private final static Object[] XLS_BUILTIN_PARAMETERS = {
 			XLS_WORKBOOK, "org.apache.poi.ss.usermodel.Workbook",
 			XLS_INPUT_STREAM, "java.io.InputStream",
@@ -74,7 +92,8 @@ public class ExcelQueryExecuterFactory extends AbstractXlsQueryExecuterFactory
 			XLS_TIMEZONE, "java.util.TimeZone",
 			XLS_TIMEZONE_ID, "java.lang.String",
 			XLS_SHEET_SELECTION, "java.lang.String",
-			XLS_FORMAT, "net.sf.jasperreports.data.excel.ExcelFormatEnum"
+			XLS_FORMAT, "net.sf.jasperreports.data.excel.ExcelFormatEnum",
+			XLSX_STREAMING, "java.lang.Boolean"
 			};
 	
 	@Override
@@ -215,6 +215,15 @@ public class JRCsvQueryExecuter extends JRAbstractQueryExecuter
 			
 			datasource.setUseFirstRowAsHeader(getBooleanParameterOrProperty(JRCsvQueryExecuterFactory.CSV_USE_FIRST_ROW_AS_HEADER, false));
 			
+			Integer parallelThreads = (Integer) getParameterValue(JRCsvQueryExecuterFactory.CSV_PARALLEL_THREADS, true);
+			if (parallelThreads == null) {
+				parallelThreads = getPropertiesUtil().getIntegerProperty(dataset, JRCsvQueryExecuterFactory.CSV_PARALLEL_THREADS, 0);
+			}
+			if (parallelThreads > 0) {
+				datasource.setParallelThreads(parallelThreads);
+				datasource.setFields(dataset.getFields());
+			}
+			
 			Locale csvLocale = (Locale) getParameterValue(JRCsvQueryExecuterFactory.CSV_LOCALE, true);
 			if (csvLocale != null) {
 				datasource.setLocale(csvLocale);
@@ -228,6 +228,24 @@ public class JRCsvQueryExecuterFactory extends AbstractQueryExecuterFactory impl
 	 * would have no effect. 
 	 */
 	public static final String CSV_USE_FIRST_ROW_AS_HEADER = "CSV_USE_FIRST_ROW_AS_HEADER";
+	
+	/**
+	 * Built-in parameter/property that specifies the number of threads used to parse the CSV data.
+	 * As parameter, it should hold a <code>java.lang.Integer</code> value.
+	 * <p/>
+	 * Parallel parsing is only used when the data is read from a file specified by the {@link #CSV_FILE} parameter.
+	 * 
+	 * @see net.sf.jasperreports.engine.data.JRCsvDataSource#setParallelThreads(int)
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {JRCsvQueryExecuterFactory.QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String CSV_PARALLEL_THREADS = JRPropertiesUtil.PROPERTY_PREFIX + "csv.parallel.threads";
 
 	private final static Object[] CSV_BUILTIN_PARAMETERS = {
 			CSV_SOURCE, "java.lang.String",
@@ -248,7 +266,8 @@ public class JRCsvQueryExecuterFactory extends AbstractQueryExecuterFactory impl
 			CSV_LOCALE, "java.util.Locale",
 			CSV_LOCALE_CODE, "java.lang.String",
 			CSV_TIMEZONE, "java.util.TimeZone",
-			CSV_TIMEZONE_ID, "java.lang.String"
+			CSV_TIMEZONE_ID, "java.lang.String",
+			CSV_PARALLEL_THREADS, "java.lang.Integer"
 			};
 	
 	@Override
@@ -38,7 +38,9 @@ import net.sf.jasperreports.engine.JRDataset;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRValueParameter;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.data.JRAbstractTextDataSource;
 import net.sf.jasperreports.engine.data.JRXmlDataSource;
+import net.sf.jasperreports.engine.data.StreamingXmlDataSource;
 
 /**
  * XPath query executer implementation.
@@ -47,6 +49,10 @@ import net.sf.jasperreports.engine.data.JRXmlDataSource;
  * {@link net.sf.jasperreports.engine.query.JRXPathQueryExecuterFactory#PARAMETER_XML_DATA_DOCUMENT PARAMETER_XML_DATA_DOCUMENT}
  * parameter.
  * <p/>
+ * When {@link net.sf.jasperreports.engine.query.JRXPathQueryExecuterFactory#XML_STREAMING XML_STREAMING}
+ * is set and the query is supported by {@link StreamingXmlDataSource}, the XML data is read as a stream
+ * instead of being loaded into a document.
+ * <p/>
  * All the parameters in the XPath query are replaced by calling <code>String.valueOf(Object)</code>
  * on the parameter value.
  * 
@@ -59,6 +65,7 @@ public class JRXPathQueryExecuter extends JRAbstractQueryExecuter
 	public static final String CANONICAL_LANGUAGE = "XPath";
 	
 	private JRXmlDataSource datasource;
+	private StreamingXmlDataSource streamingDataSource;
 
 	/**
 	 * 
@@ -108,6 +115,15 @@ public class JRXPathQueryExecuter extends JRAbstractQueryExecuter
 			log.debug("XPath query: " + xPath);
 		}
 		
+		if (xPath != null && getBooleanParameterOrProperty(JRXPathQueryExecuterFactory.XML_STREAMING, false))
+		{
+			StreamingXmlDataSource streamingDataSource = createStreamingDatasource(xPath);
+			if (streamingDataSource != null)
+			{
+				return streamingDataSource;
+			}
+		}
+		
 		if (xPath != null)//FIXME maybe we should create data source with no select expression too
 		{
 			Document document = (Document) getParameterValue(JRXPathQueryExecuterFactory.PARAMETER_XML_DATA_DOCUMENT);
@@ -136,22 +152,80 @@ public class JRXPathQueryExecuter extends JRAbstractQueryExecuter
 
 			if (datasource != null)
 			{
-				datasource.setLocale((Locale)getParameterValue(JRXPathQueryExecuterFactory.XML_LOCALE, true));
-				datasource.setDatePattern(getStringParameter(JRXPathQueryExecuterFactory.XML_DATE_PATTERN, JRXPathQueryExecuterFactory.PROPERTY_XML_DATE_PATTERN));
-				datasource.setNumberPattern(getStringParameter(JRXPathQueryExecuterFactory.XML_NUMBER_PATTERN, JRXPathQueryExecuterFactory.PROPERTY_XML_NUMBER_PATTERN));
-				datasource.setTimeZone((TimeZone)getParameterValue(JRXPathQueryExecuterFactory.XML_TIME_ZONE, true));
+				setTextAttributes(datasource);
 			}
 		}
 		
 		return datasource;
 	}
 
+	protected StreamingXmlDataSource createStreamingDatasource(String xPath) throws JRException
+	{
+		if (getParameterValue(JRXPathQueryExecuterFactory.PARAMETER_XML_DATA_DOCUMENT) != null)
+		{
+			// the document is already loaded
+			return null;
+		}
+		
+		if (!StreamingXmlDataSource.isSupportedExpression(xPath))
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("XPath query " + xPath + " not supported for streaming, loading the XML document");
+			}
+			return null;
+		}
+		
+		StreamingXmlDataSource dataSource = null;
+		InputStream xmlInputStream = (InputStream) getParameterValue(JRXPathQueryExecuterFactory.XML_INPUT_STREAM);
+		if (xmlInputStream != null)
+		{
+			dataSource = new StreamingXmlDataSource(getJasperReportsContext(), xmlInputStream, xPath);
+		}
+		else
+		{
+			File xmlFile = (File) getParameterValue(JRXPathQueryExecuterFactory.XML_FILE);
+			if (xmlFile != null)
+			{
+				dataSource = new StreamingXmlDataSource(getJasperReportsContext(), xmlFile, xPath);
+			}
+			else
+			{
+				String xmlSource = getStringParameterOrProperty(JRXPathQueryExecuterFactory.XML_SOURCE);
+				if (xmlSource != null)
+				{
+					dataSource = new StreamingXmlDataSource(getRepositoryContext(), xmlSource, xPath);
+				}
+			}
+		}
+		
+		if (dataSource != null)
+		{
+			setTextAttributes(dataSource);
+			streamingDataSource = dataSource;
+		}
+		return dataSource;
+	}
+
+	protected void setTextAttributes(JRAbstractTextDataSource dataSource)
+	{
+		dataSource.setLocale((Locale)getParameterValue(JRXPathQueryExecuterFactory.XML_LOCALE, true));
+		dataSource.setDatePattern(getStringParameter(JRXPathQueryExecuterFactory.XML_DATE_PATTERN, JRXPathQueryExecuterFactory.PROPERTY_XML_DATE_PATTERN));
+		dataSource.setNumberPattern(getStringParameter(JRXPathQueryExecuterFactory.XML_NUMBER_PATTERN, JRXPathQueryExecuterFactory.PROPERTY_XML_NUMBER_PATTERN));
+		dataSource.setTimeZone((TimeZone)getParameterValue(JRXPathQueryExecuterFactory.XML_TIME_ZONE, true));
+	}
+
 	@Override
 	public void close()
 	{
 		if(datasource != null){
 			datasource.close();
 		}
+		if (streamingDataSource != null)
+		{
+			streamingDataSource.close();
+			streamingDataSource = null;
+		}
 	}
 
 	@Override
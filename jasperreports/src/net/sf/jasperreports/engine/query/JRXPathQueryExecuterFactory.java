@@ -116,6 +116,25 @@ public class JRXPathQueryExecuterFactory extends AbstractQueryExecuterFactory im
 	 */
 	public final static String XML_TIME_ZONE = "XML_TIME_ZONE";
 	
+	/**
+	 * Built-in parameter/property that specifies whether the XML data should be read as a stream of events
+	 * instead of being loaded into a document.
+	 * <p/>
+	 * Streaming is only used when the query is an absolute path of element names with simple predicates
+	 * and the data is read from an input stream, a file or a source.
+	 * 
+	 * @see net.sf.jasperreports.engine.data.StreamingXmlDataSource
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Boolean.class
+			)
+	public static final String XML_STREAMING = JRPropertiesUtil.PROPERTY_PREFIX + "xml.streaming";
+	
 	private final static Object[] XPATH_BUILTIN_PARAMETERS = {
 		PARAMETER_XML_DATA_DOCUMENT,  "org.w3c.dom.Document",
 		XML_INPUT_STREAM, "java.io.InputStream",
@@ -125,6 +144,7 @@ public class JRXPathQueryExecuterFactory extends AbstractQueryExecuterFactory im
 		XML_NUMBER_PATTERN, "java.lang.String",
 		XML_LOCALE, "java.util.Locale",
 		XML_TIME_ZONE, "java.util.TimeZone",
+		XML_STREAMING, "java.lang.Boolean",
 		};
 
 	@Override
@@ -26,13 +26,18 @@ package net.sf.jasperreports.engine.query;
 import java.io.InputStream;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import net.sf.jasperreports.data.RewindableDataSourceProvider;
+import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRDataset;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRValueParameter;
 import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.data.JsonDataSource;
 import net.sf.jasperreports.engine.data.JsonDataSourceProvider;
+import net.sf.jasperreports.engine.data.StreamingJsonDataSource;
 import net.sf.jasperreports.engine.data.TextDataSourceAttributes;
 
 /**
@@ -42,8 +47,12 @@ import net.sf.jasperreports.engine.data.TextDataSourceAttributes;
  */
 public class JsonQueryExecuter extends AbstractJsonQueryExecuter<JsonDataSource>
 {
+	private static final Log log = LogFactory.getLog(JsonQueryExecuter.class);
+	
 	public static final String CANONICAL_LANGUAGE = "JSON";
 	
+	private StreamingJsonDataSource streamingDataSource;
+	
 	/**
 	 * 
 	 */
@@ -79,6 +88,54 @@ public class JsonQueryExecuter extends AbstractJsonQueryExecuter<JsonDataSource>
 		return String.valueOf(getParameterValue(parameterName));
 	}
 
+	@Override
+	public JRDataSource createDatasource() throws JRException
+	{
+		if (getBooleanParameterOrProperty(JsonQueryExecuterFactory.JSON_STREAMING, false))
+		{
+			if (StreamingJsonDataSource.isSupportedExpression(getQueryString()))
+			{
+				StreamingJsonDataSource dataSource = null;
+				InputStream jsonInputStream = (InputStream) getParameterValue(JsonQueryExecuterFactory.JSON_INPUT_STREAM);
+				if (jsonInputStream != null)
+				{
+					dataSource = new StreamingJsonDataSource(jsonInputStream, getQueryString());
+				}
+				else
+				{
+					String jsonSource = getStringParameterOrProperty(JsonQueryExecuterFactory.JSON_SOURCE);
+					if (jsonSource != null)
+					{
+						dataSource = new StreamingJsonDataSource(getRepositoryContext(), jsonSource, getQueryString());
+					}
+				}
+				
+				if (dataSource != null)
+				{
+					dataSource.setTextAttributes(getTextAttributes());
+					streamingDataSource = dataSource;
+					return dataSource;
+				}
+			}
+			else if (log.isDebugEnabled())
+			{
+				log.debug("JSON query " + getQueryString() + " not supported for streaming, loading the JSON tree");
+			}
+		}
+		
+		return super.createDatasource();
+	}
+
+	@Override
+	public void close()
+	{
+		if (streamingDataSource != null)
+		{
+			streamingDataSource.close();
+			streamingDataSource = null;
+		}
+	}
+
 	@Override
 	protected JsonDataSource getJsonDataInstance(InputStream jsonInputStream) throws JRException {
 		return new JsonDataSource(jsonInputStream, getQueryString());
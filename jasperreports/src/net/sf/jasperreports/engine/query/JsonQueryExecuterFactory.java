@@ -130,6 +130,25 @@ public class JsonQueryExecuterFactory extends AbstractQueryExecuterFactory imple
 			)
 	public static final String JSON_TIMEZONE_ID = JRPropertiesUtil.PROPERTY_PREFIX + "json.timezone.id";
 	
+	/**
+	 * Built-in parameter/property that specifies whether the JSON data should be read as a stream of tokens
+	 * instead of being loaded into a tree.
+	 * <p/>
+	 * Streaming is only used when the query is a simple path of property names and the data is read 
+	 * from a single input stream or source.
+	 * 
+	 * @see net.sf.jasperreports.engine.data.StreamingJsonDataSource
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {JsonQueryExecuterFactory.JSON_QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Boolean.class
+			)
+	public static final String JSON_STREAMING = JRPropertiesUtil.PROPERTY_PREFIX + "json.streaming";
+	
 	private final static Object[] JSON_BUILTIN_PARAMETERS = {
 		JSON_INPUT_STREAM, "java.io.InputStream",
 		JSON_SOURCE, "java.lang.String",
@@ -139,7 +158,8 @@ public class JsonQueryExecuterFactory extends AbstractQueryExecuterFactory imple
 		JSON_LOCALE, "java.util.Locale",
 		JSON_LOCALE_CODE, "java.lang.String",
 		JSON_TIME_ZONE, "java.util.TimeZone",
-		JSON_TIMEZONE_ID, "java.lang.String"
+		JSON_TIMEZONE_ID, "java.lang.String",
+		JSON_STREAMING, "java.lang.Boolean"
 		};
 
 	@Override
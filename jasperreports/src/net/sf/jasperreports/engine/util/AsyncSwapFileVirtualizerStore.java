@@ -0,0 +1,705 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRVirtualizable;
+
+/**
+ * Swap file virtualizer store that writes data to the swap file and reads data ahead
+ * on a background I/O thread.
+ * 
+ * <p>
+ * Objects are serialized on the calling thread, and the serialized data is queued to be written
+ * to the swap file.
+ * The write queue is bounded, a thread storing objects waits when the queue is full.
+ * Objects retrieved before the data was written are read from the queued data.
+ * If writing the data of an object fails, the error is thrown when the object is retrieved,
+ * and the first such error is also thrown by the next store operation.
+ * 
+ * <p>
+ * When an object is retrieved, the data of the objects that were stored after it
+ * is read ahead from the swap file, which speeds up sequential iterations
+ * such as exporting the pages of a virtualized report.
+ */
+public class AsyncSwapFileVirtualizerStore extends SwapFileVirtualizerStore
+{
+	private static final Log log = LogFactory.getLog(AsyncSwapFileVirtualizerStore.class);
+	
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+	
+	protected static class PendingWrite
+	{
+		private final String objectId;
+		private final byte[] data;
+		private final long queuedTime;
+		private boolean cancelled;
+		
+		public PendingWrite(String objectId, byte[] data)
+		{
+			this.objectId = objectId;
+			this.data = data;
+			this.queuedTime = System.nanoTime();
+		}
+	}
+	
+	protected static class PrefetchRequest
+	{
+		private final String objectId;
+		
+		public PrefetchRequest(String objectId)
+		{
+			this.objectId = objectId;
+		}
+	}
+	
+	protected static class ActiveRead
+	{
+		private final JRSwapFile.SwapHandle handle;
+		private int readers;
+		private boolean released;
+		
+		public ActiveRead(JRSwapFile.SwapHandle handle)
+		{
+			this.handle = handle;
+		}
+	}
+	
+	private final int prefetchCount;
+	private final BlockingQueue<Object> ioQueue;
+	
+	// guarded by ioLock
+	private final Object ioLock = new Object();
+	private final Map<String, PendingWrite> pendingWrites = new HashMap<String, PendingWrite>();
+	private final Map<String, IOException> failedWrites = new HashMap<String, IOException>();
+	private IOException writeFailure;
+	private final Map<String, byte[]> prefetched;
+	private final Map<String, ActiveRead> activeReads = new HashMap<String, ActiveRead>();
+	private final Map<String, Long> storeSequences = new HashMap<String, Long>();
+	private final TreeMap<Long, String> sequenceObjects = new TreeMap<Long, String>();
+	private long sequence;
+	private Thread ioThread;
+	
+	private volatile boolean disposed;
+	
+	private final AtomicLong writeCount = new AtomicLong();
+	private final AtomicLong writeLatency = new AtomicLong();
+	private final AtomicLong prefetchReads = new AtomicLong();
+	private final AtomicLong prefetchHits = new AtomicLong();
+	private final AtomicLong prefetchMisses = new AtomicLong();
+
+	/**
+	 * Creates a swap file store with background I/O.
+	 * 
+	 * @param swap the swap file
+	 * @param swapOwner whether the store owns the swap file
+	 * @param compression stream compression to apply to serialized data, can be <code>null</code>
+	 * @param writeQueueSize the maximum number of objects waiting to be written to the swap file
+	 * @param prefetchCount the number of objects to read ahead when an object is retrieved,
+	 * <code>0</code> to disable reading ahead
+	 */
+	public AsyncSwapFileVirtualizerStore(JRSwapFile swap, boolean swapOwner, StreamCompression compression,
+			int writeQueueSize, int prefetchCount)
+	{
+		super(swap, swapOwner, compression);
+		
+		if (writeQueueSize <= 0)
+		{
+			throw new IllegalArgumentException("Invalid write queue size " + writeQueueSize);
+		}
+		
+		this.prefetchCount = Math.max(prefetchCount, 0);
+		this.ioQueue = new ArrayBlockingQueue<Object>(writeQueueSize + this.prefetchCount);
+		
+		final int maxPrefetched = 2 * this.prefetchCount;
+		this.prefetched = new LinkedHashMap<String, byte[]>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest)
+			{
+				return size() > maxPrefetched;
+			}
+		};
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "AsyncSwapFileVirtualizerStore " + getSwap().toString(); 
+	}
+
+	@Override
+	protected boolean isStored(JRVirtualizable<?> o)
+	{
+		synchronized (ioLock)
+		{
+			return pendingWrites.containsKey(o.getUID()) || super.isStored(o);
+		}
+	}
+
+	@Override
+	protected void storeData(String objectId, byte[] data) throws IOException
+	{
+		PendingWrite write = new PendingWrite(objectId, data);
+		synchronized (ioLock)
+		{
+			if (writeFailure != null)
+			{
+				// reporting a background write failure to the filler
+				IOException failure = writeFailure;
+				writeFailure = null;
+				throw new IOException("Failed to write to swap file " + getSwap(), failure);
+			}
+			
+			failedWrites.remove(objectId);
+			pendingWrites.put(objectId, write);
+			addSequence(objectId);
+			ensureIOThread();
+		}
+		
+		try
+		{
+			// waits for space in the queue
+			ioQueue.put(write);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			
+			// writing synchronously
+			write(write);
+			
+			synchronized (ioLock)
+			{
+				IOException failure = failedWrites.remove(objectId);
+				if (failure != null)
+				{
+					removeSequence(objectId);
+					if (writeFailure == failure)
+					{
+						writeFailure = null;
+					}
+					throw failure;
+				}
+			}
+		}
+	}
+	
+	@Override
+	protected byte[] retrieveData(String objectId, boolean remove) throws IOException
+	{
+		byte[] data;
+		ActiveRead read = null;
+		List<String> prefetchIds;
+		synchronized (ioLock)
+		{
+			IOException failure = failedWrites.remove(objectId);
+			if (failure != null)
+			{
+				removeSequence(objectId);
+				if (writeFailure == failure)
+				{
+					writeFailure = null;
+				}
+				throw new IOException("Failed to write data for object " + objectId + " to swap file " + getSwap(), failure);
+			}
+			
+			PendingWrite write = pendingWrites.get(objectId);
+			if (write != null)
+			{
+				// not yet written
+				if (log.isTraceEnabled())
+				{
+					log.trace("retrieving pending data for " + objectId);
+				}
+				
+				data = write.data;
+				if (remove)
+				{
+					write.cancelled = true;
+					pendingWrites.remove(objectId);
+				}
+			}
+			else
+			{
+				data = prefetched.remove(objectId);
+				if (data == null)
+				{
+					prefetchMisses.incrementAndGet();
+					read = startRead(objectId);
+				}
+				else
+				{
+					prefetchHits.incrementAndGet();
+				}
+				
+				if (remove)
+				{
+					releaseHandle(objectId);
+				}
+			}
+			
+			prefetchIds = prefetchCandidates(objectId);
+			
+			if (remove)
+			{
+				removeSequence(objectId);
+			}
+		}
+		
+		if (data == null)
+		{
+			// reading outside the lock, the handle is freed after the read if the object is removed
+			try
+			{
+				data = readData(objectId, read == null ? null : read.handle, false);
+			}
+			finally
+			{
+				if (read != null)
+				{
+					synchronized (ioLock)
+					{
+						endRead(objectId, read);
+					}
+				}
+			}
+		}
+		
+		for (String prefetchId : prefetchIds)
+		{
+			// not waiting when the queue is full
+			if (!ioQueue.offer(new PrefetchRequest(prefetchId)))
+			{
+				break;
+			}
+		}
+		
+		return data;
+	}
+
+	@Override
+	public void remove(String objectId)
+	{
+		synchronized (ioLock)
+		{
+			PendingWrite write = pendingWrites.remove(objectId);
+			if (write != null)
+			{
+				write.cancelled = true;
+			}
+			
+			failedWrites.remove(objectId);
+			prefetched.remove(objectId);
+			removeSequence(objectId);
+			
+			releaseHandle(objectId);
+		}
+	}
+
+	@Override
+	public void dispose()
+	{
+		disposed = true;
+		
+		Thread thread;
+		synchronized (ioLock)
+		{
+			thread = ioThread;
+			ioThread = null;
+			
+			pendingWrites.clear();
+			failedWrites.clear();
+			writeFailure = null;
+			prefetched.clear();
+			activeReads.clear();
+			storeSequences.clear();
+			sequenceObjects.clear();
+		}
+		
+		if (thread != null)
+		{
+			thread.interrupt();
+			try
+			{
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		ioQueue.clear();
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("disposing " + this + ", written objects " + getWriteCount() 
+					+ ", average write latency " + getAverageWriteLatency() + " ns"
+					+ ", prefetch hit rate " + getPrefetchHitRate());
+		}
+		
+		super.dispose();
+	}
+	
+	protected void ensureIOThread()
+	{
+		if (ioThread == null && !disposed)
+		{
+			ioThread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					processIO();
+				}
+			}, "JR virtualizer I/O " + threadCounter.incrementAndGet());
+			ioThread.setDaemon(true);
+			ioThread.start();
+		}
+	}
+	
+	protected void processIO()
+	{
+		while (!disposed)
+		{
+			Object task;
+			try
+			{
+				task = ioQueue.take();
+			}
+			catch (InterruptedException e)
+			{
+				// disposed
+				break;
+			}
+			
+			try
+			{
+				if (task instanceof PendingWrite)
+				{
+					write((PendingWrite) task);
+				}
+				else if (task instanceof PrefetchRequest)
+				{
+					prefetch(((PrefetchRequest) task).objectId);
+				}
+			}
+			catch (Exception e)
+			{
+				if (!disposed)
+				{
+					log.error("Error performing virtualizer I/O in " + this, e);
+				}
+			}
+		}
+	}
+	
+	protected void write(PendingWrite write) throws IOException
+	{
+		synchronized (ioLock)
+		{
+			if (write.cancelled || disposed)
+			{
+				return;
+			}
+		}
+		
+		JRSwapFile.SwapHandle handle;
+		try
+		{
+			handle = getSwap().write(write.data);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			IOException failure = e instanceof IOException ? (IOException) e : new IOException(e);
+			synchronized (ioLock)
+			{
+				// the data is dropped, retrieving the object throws the failure
+				if (pendingWrites.get(write.objectId) == write)
+				{
+					pendingWrites.remove(write.objectId);
+					if (!write.cancelled && !disposed)
+					{
+						failedWrites.put(write.objectId, failure);
+						if (writeFailure == null)
+						{
+							writeFailure = failure;
+						}
+					}
+				}
+			}
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to write object " + write.objectId + " to " + getSwap(), e);
+			}
+			return;
+		}
+		
+		synchronized (ioLock)
+		{
+			if (write.cancelled || disposed)
+			{
+				// retrieved or removed while writing
+				getSwap().free(handle);
+			}
+			else
+			{
+				putHandle(write.objectId, handle);
+			}
+			
+			if (pendingWrites.get(write.objectId) == write)
+			{
+				pendingWrites.remove(write.objectId);
+			}
+		}
+		
+		writeCount.incrementAndGet();
+		writeLatency.addAndGet(System.nanoTime() - write.queuedTime);
+		
+		if (log.isTraceEnabled())
+		{
+			log.trace("wrote " + write.data.length + " for object " + write.objectId + " to " + getSwap());
+		}
+	}
+	
+	protected void prefetch(String objectId) throws IOException
+	{
+		ActiveRead read;
+		synchronized (ioLock)
+		{
+			if (disposed || prefetched.containsKey(objectId) || pendingWrites.containsKey(objectId))
+			{
+				return;
+			}
+			
+			read = startRead(objectId);
+			if (read == null)
+			{
+				return;
+			}
+		}
+		
+		byte[] data = null;
+		try
+		{
+			data = getSwap().read(read.handle, false);
+		}
+		finally
+		{
+			synchronized (ioLock)
+			{
+				endRead(objectId, read);
+				
+				// not keeping the data if the object was retrieved or removed while reading
+				if (data != null && !read.released && !disposed)
+				{
+					prefetched.put(objectId, data);
+				}
+			}
+		}
+		
+		prefetchReads.incrementAndGet();
+		
+		if (log.isTraceEnabled())
+		{
+			log.trace("prefetched data for object " + objectId + " from " + getSwap());
+		}
+	}
+	
+	// called under ioLock
+	private ActiveRead startRead(String objectId)
+	{
+		JRSwapFile.SwapHandle handle = getHandle(objectId);
+		if (handle == null)
+		{
+			return null;
+		}
+		
+		ActiveRead read = activeReads.get(objectId);
+		if (read == null || read.handle != handle)
+		{
+			read = new ActiveRead(handle);
+			activeReads.put(objectId, read);
+		}
+		++read.readers;
+		return read;
+	}
+	
+	// called under ioLock
+	private void endRead(String objectId, ActiveRead read)
+	{
+		if (--read.readers == 0)
+		{
+			if (activeReads.get(objectId) == read)
+			{
+				activeReads.remove(objectId);
+			}
+			
+			if (read.released)
+			{
+				getSwap().free(read.handle);
+			}
+		}
+	}
+	
+	// called under ioLock, the blocks of handles being read are freed when the reads end
+	private void releaseHandle(String objectId)
+	{
+		JRSwapFile.SwapHandle handle = removeHandle(objectId);
+		if (handle == null)
+		{
+			return;
+		}
+		
+		ActiveRead read = activeReads.get(objectId);
+		if (read != null && read.handle == handle)
+		{
+			read.released = true;
+			activeReads.remove(objectId);
+		}
+		else
+		{
+			getSwap().free(handle);
+		}
+	}
+	
+	private void addSequence(String objectId)
+	{
+		removeSequence(objectId);
+		
+		Long objectSequence = sequence++;
+		storeSequences.put(objectId, objectSequence);
+		sequenceObjects.put(objectSequence, objectId);
+	}
+	
+	private void removeSequence(String objectId)
+	{
+		Long objectSequence = storeSequences.remove(objectId);
+		if (objectSequence != null)
+		{
+			sequenceObjects.remove(objectSequence);
+		}
+	}
+	
+	private List<String> prefetchCandidates(String objectId)
+	{
+		Long objectSequence = storeSequences.get(objectId);
+		if (prefetchCount == 0 || objectSequence == null)
+		{
+			return new ArrayList<String>(0);
+		}
+		
+		List<String> candidates = new ArrayList<String>(prefetchCount);
+		for (Iterator<String> it = sequenceObjects.tailMap(objectSequence, false).values().iterator(); 
+				it.hasNext() && candidates.size() < prefetchCount;)
+		{
+			String candidateId = it.next();
+			if (!prefetched.containsKey(candidateId) && !pendingWrites.containsKey(candidateId))
+			{
+				candidates.add(candidateId);
+			}
+		}
+		return candidates;
+	}
+	
+	/**
+	 * Returns the number of objects waiting to be written to the swap file.
+	 */
+	public int getWriteQueueSize()
+	{
+		synchronized (ioLock)
+		{
+			return pendingWrites.size();
+		}
+	}
+	
+	/**
+	 * Returns the number of objects written to the swap file by the background I/O thread.
+	 */
+	public long getWriteCount()
+	{
+		return writeCount.get();
+	}
+	
+	/**
+	 * Returns the average time in nanoseconds between queuing an object and writing it to the swap file.
+	 */
+	public long getAverageWriteLatency()
+	{
+		long count = writeCount.get();
+		return count == 0 ? 0 : writeLatency.get() / count;
+	}
+
+	/**
+	 * Returns the number of objects read ahead from the swap file.
+	 */
+	public long getPrefetchReads()
+	{
+		return prefetchReads.get();
+	}
+	
+	/**
+	 * Returns the number of objects retrieved from read ahead data.
+	 */
+	public long getPrefetchHits()
+	{
+		return prefetchHits.get();
+	}
+
+	/**
+	 * Returns the number of objects read from the swap file on retrieval.
+	 */
+	public long getPrefetchMisses()
+	{
+		return prefetchMisses.get();
+	}
+	
+	/**
+	 * Returns the ratio of objects retrieved from read ahead data.
+	 */
+	public double getPrefetchHitRate()
+	{
+		long hits = prefetchHits.get();
+		long total = hits + prefetchMisses.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+}
@@ -0,0 +1,529 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+
+/**
+ * {@link net.sf.jasperreports.engine.util.JRSwapFile JRSwapFile} derived class that maps 
+ * the swap file into memory and allows concurrent reads, writes and block allocations.
+ * <p>
+ * The swap file grows by fixed size segments, each segment being mapped into memory
+ * via a {@link java.nio.MappedByteBuffer MappedByteBuffer}.
+ * Segments are large (64 MB by default) so that the number of mappings stays low.
+ * Reads and writes are performed directly on the mapped segments without locking.
+ * <p>
+ * Free blocks are kept in several lists, each list being protected by its own lock.
+ * A thread allocates blocks from the list associated with the thread and takes
+ * blocks from the other lists when its own list does not have enough free blocks,
+ * so that threads that share the swap file rarely compete for the same lock.
+ * The file grows only after all lists were searched for free blocks.
+ * Freed blocks are returned to the list of the current thread.
+ * <p>
+ * The swap file can optionally shrink: when the last segments of the file no longer have
+ * used blocks, they are unmapped and the file is truncated, keeping one free segment
+ * so that the file does not shrink and grow repeatedly.
+ * Otherwise the memory used by segments with free blocks is managed by the operating system page cache.
+ * <p>
+ * The segments are unmapped when the swap file is disposed, the swap file must not be
+ * used after or concurrently with {@link #dispose()}.
+ */
+public class JRMappedSwapFile extends JRSwapFile
+{
+	private static final Log log = LogFactory.getLog(JRMappedSwapFile.class);
+	
+	/**
+	 * The default size of the mapped segments, 64 MB.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	
+	protected static class FreeBlocksStripe
+	{
+		private final ReentrantLock lock = new ReentrantLock();
+		private final LongQueue blocks;
+		
+		public FreeBlocksStripe(int minGrowCount)
+		{
+			blocks = new LongQueue(minGrowCount);
+		}
+	}
+	
+	private final FileChannel fileChannel;
+	private final int blockSize;
+	private final int segmentBlockCount;
+	private final long segmentSize;
+	
+	private final FreeBlocksStripe[] stripes;
+	private final int stripeMask;
+	
+	private final boolean shrink;
+	
+	private final Object growLock = new Object();
+	private volatile MappedByteBuffer[] segments;
+	// the number of blocks of each segment that are in the free lists, updated under the stripe locks
+	private volatile AtomicInteger[] segmentFreeCounts;
+
+	/**
+	 * Creates a memory mapped swap file.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the free block lists grow
+	 */
+	public JRMappedSwapFile(String directory, int blockSize, int minGrowCount)
+	{
+		this(DefaultJasperReportsContext.getInstance(), directory, blockSize, minGrowCount);
+	}
+
+	/**
+	 * Creates a memory mapped swap file.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param jasperReportsContext the JasperReportsContext to read configuration from.
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the free block lists grow
+	 */
+	public JRMappedSwapFile(JasperReportsContext jasperReportsContext, String directory, int blockSize, int minGrowCount)
+	{
+		this(jasperReportsContext, directory, blockSize, minGrowCount, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Creates a memory mapped swap file.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param jasperReportsContext the JasperReportsContext to read configuration from.
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the free block lists grow
+	 * @param segmentSize the size of the segments by which the swap file grows when full,
+	 * rounded down to a multiple of the block size
+	 */
+	public JRMappedSwapFile(JasperReportsContext jasperReportsContext, String directory, int blockSize, int minGrowCount,
+			int segmentSize)
+	{
+		this(jasperReportsContext, directory, blockSize, minGrowCount, segmentSize, false);
+	}
+
+	/**
+	 * Creates a memory mapped swap file.
+	 * 
+	 * The file name is generated automatically.
+	 * 
+	 * @param jasperReportsContext the JasperReportsContext to read configuration from.
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the free block lists grow
+	 * @param segmentSize the size of the segments by which the swap file grows when full,
+	 * rounded down to a multiple of the block size
+	 * @param shrink whether free segments at the end of the file are unmapped and the file truncated
+	 */
+	public JRMappedSwapFile(JasperReportsContext jasperReportsContext, String directory, int blockSize, int minGrowCount,
+			int segmentSize, boolean shrink)
+	{
+		super(jasperReportsContext, directory, blockSize, minGrowCount);
+		
+		this.fileChannel = file.getChannel();
+		this.blockSize = blockSize;
+		this.segmentBlockCount = Math.max(segmentSize / blockSize, 1);
+		this.segmentSize = (long) blockSize * segmentBlockCount;
+		
+		int stripeCount = 1;
+		while (stripeCount < Runtime.getRuntime().availableProcessors())
+		{
+			stripeCount <<= 1;
+		}
+		this.stripes = new FreeBlocksStripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++)
+		{
+			stripes[i] = new FreeBlocksStripe(minGrowCount);
+		}
+		this.stripeMask = stripeCount - 1;
+		
+		this.shrink = shrink;
+		this.segments = new MappedByteBuffer[0];
+		this.segmentFreeCounts = new AtomicInteger[0];
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "JRMappedSwapFile " + swapFile.getAbsolutePath();
+	}
+
+	protected int currentStripe()
+	{
+		return (int) Thread.currentThread().getId() & stripeMask;
+	}
+	
+	@Override
+	protected long[] reserveFreeBlocks(int blockCount) throws IOException
+	{
+		long[] offsets = new long[blockCount];
+		int homeStripe = currentStripe();
+		
+		// not waiting for other stripes on the first pass
+		int found = takeFreeBlocks(offsets, 0, homeStripe, false);
+		if (found < blockCount)
+		{
+			grow(offsets, found, homeStripe);
+		}
+		
+		return offsets;
+	}
+
+	protected int takeFreeBlocks(long[] offsets, int found, int homeStripe, boolean waitAll)
+	{
+		for (int i = 0; i < stripes.length && found < offsets.length; i++)
+		{
+			FreeBlocksStripe stripe = stripes[(homeStripe + i) & stripeMask];
+			if (i == 0 || waitAll)
+			{
+				stripe.lock.lock();
+			}
+			else if (!stripe.lock.tryLock())
+			{
+				continue;
+			}
+			
+			try
+			{
+				while (found < offsets.length && stripe.blocks.size() > 0)
+				{
+					offsets[found] = stripe.blocks.popFirst();
+					if (shrink)
+					{
+						segmentFreeCount(offsets[found]).decrementAndGet();
+					}
+					++found;
+				}
+			}
+			finally
+			{
+				stripe.lock.unlock();
+			}
+		}
+		return found;
+	}
+
+	protected void grow(long[] offsets, int found, int homeStripe) throws IOException
+	{
+		long firstOffset;
+		int segmentCount;
+		synchronized (growLock)
+		{
+			// searching all stripes again, the blocks might be in a busy stripe 
+			// or the file might have been grown by another thread meanwhile
+			found = takeFreeBlocks(offsets, found, homeStripe, true);
+			if (found == offsets.length)
+			{
+				return;
+			}
+			
+			int neededCount = offsets.length - found;
+			segmentCount = (neededCount - 1) / segmentBlockCount + 1;
+			
+			MappedByteBuffer[] currentSegments = segments;
+			MappedByteBuffer[] newSegments = new MappedByteBuffer[currentSegments.length + segmentCount];
+			System.arraycopy(currentSegments, 0, newSegments, 0, currentSegments.length);
+			
+			AtomicInteger[] newFreeCounts = new AtomicInteger[newSegments.length];
+			System.arraycopy(segmentFreeCounts, 0, newFreeCounts, 0, currentSegments.length);
+			for (int i = currentSegments.length; i < newSegments.length; i++)
+			{
+				newFreeCounts[i] = new AtomicInteger();
+			}
+			// published before the segments so that blocks of the new segments always have a counter
+			segmentFreeCounts = newFreeCounts;
+			
+			firstOffset = currentSegments.length * segmentSize;
+			for (int i = 0; i < segmentCount; i++)
+			{
+				// mapping extends the file
+				newSegments[currentSegments.length + i] = fileChannel.map(
+						FileChannel.MapMode.READ_WRITE, firstOffset + i * segmentSize, segmentSize);
+			}
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("Grown swap file " + swapFile.getPath() + " with " + segmentCount + " segments of "
+						+ segmentBlockCount + " blocks x " + blockSize + " bytes to size " 
+						+ newSegments.length * segmentSize);
+			}
+			
+			segments = newSegments;
+		}
+		
+		long offset = firstOffset;
+		for (int i = found; i < offsets.length; i++)
+		{
+			offsets[i] = offset;
+			offset += blockSize;
+		}
+		
+		long endOffset = firstOffset + segmentCount * segmentSize;
+		if (offset < endOffset)
+		{
+			FreeBlocksStripe stripe = stripes[homeStripe];
+			stripe.lock.lock();
+			try
+			{
+				for (; offset < endOffset; offset += blockSize)
+				{
+					stripe.blocks.addLast(offset);
+					if (shrink)
+					{
+						segmentFreeCount(offset).incrementAndGet();
+					}
+				}
+			}
+			finally
+			{
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	protected void freeBlocks(long[] offsets)
+	{
+		FreeBlocksStripe stripe = stripes[currentStripe()];
+		stripe.lock.lock();
+		try
+		{
+			for (int i = offsets.length - 1; i >= 0; --i)
+			{
+				stripe.blocks.addFirst(offsets[i]);
+				if (shrink)
+				{
+					segmentFreeCount(offsets[i]).incrementAndGet();
+				}
+			}
+		}
+		finally
+		{
+			stripe.lock.unlock();
+		}
+		
+		if (shrink && trailingFreeSegments(segmentFreeCounts) > 1)
+		{
+			shrink();
+		}
+	}
+
+	protected AtomicInteger segmentFreeCount(long fileOffset)
+	{
+		return segmentFreeCounts[(int) (fileOffset / segmentSize)];
+	}
+	
+	protected int trailingFreeSegments(AtomicInteger[] freeCounts)
+	{
+		int count = 0;
+		for (int i = freeCounts.length - 1; i >= 0 && freeCounts[i].get() == segmentBlockCount; --i)
+		{
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Unmaps the free segments at the end of the file except one, and truncates the file.
+	 */
+	protected void shrink()
+	{
+		synchronized (growLock)
+		{
+			MappedByteBuffer[] currentSegments = segments;
+			int newSegmentCount;
+			
+			// locking all stripes so that the free counts match the free lists
+			for (FreeBlocksStripe stripe : stripes)
+			{
+				stripe.lock.lock();
+			}
+			try
+			{
+				int removedCount = trailingFreeSegments(segmentFreeCounts) - 1;
+				if (removedCount <= 0)
+				{
+					return;
+				}
+				
+				newSegmentCount = currentSegments.length - removedCount;
+				long endOffset = newSegmentCount * segmentSize;
+				for (FreeBlocksStripe stripe : stripes)
+				{
+					for (int i = stripe.blocks.size(); i > 0; --i)
+					{
+						long offset = stripe.blocks.popFirst();
+						if (offset < endOffset)
+						{
+							stripe.blocks.addLast(offset);
+						}
+					}
+				}
+				
+				AtomicInteger[] newFreeCounts = new AtomicInteger[newSegmentCount];
+				System.arraycopy(segmentFreeCounts, 0, newFreeCounts, 0, newSegmentCount);
+				segmentFreeCounts = newFreeCounts;
+				
+				MappedByteBuffer[] newSegments = new MappedByteBuffer[newSegmentCount];
+				System.arraycopy(currentSegments, 0, newSegments, 0, newSegmentCount);
+				segments = newSegments;
+			}
+			finally
+			{
+				for (FreeBlocksStripe stripe : stripes)
+				{
+					stripe.lock.unlock();
+				}
+			}
+			
+			for (int i = newSegmentCount; i < currentSegments.length; i++)
+			{
+				unmap(currentSegments[i]);
+			}
+			
+			try
+			{
+				fileChannel.truncate(newSegmentCount * segmentSize);
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to truncate swap file " + swapFile.getPath(), e);
+			}
+			
+			if (log.isDebugEnabled())
+			{
+				log.debug("Shrunk swap file " + swapFile.getPath() + " from " + currentSegments.length 
+						+ " to " + newSegmentCount + " segments");
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of segments currently mapped.
+	 */
+	public int getSegmentCount()
+	{
+		return segments.length;
+	}
+
+	protected ByteBuffer segmentBuffer(long fileOffset)
+	{
+		MappedByteBuffer segment = segments[(int) (fileOffset / segmentSize)];
+		// duplicating to get an independent position
+		ByteBuffer buffer = segment.duplicate();
+		buffer.position((int) (fileOffset % segmentSize));
+		return buffer;
+	}
+
+	@Override
+	protected void write(byte[] data, int dataSize, int dataOffset, long fileOffset) throws IOException
+	{
+		segmentBuffer(fileOffset).put(data, dataOffset, dataSize);
+	}
+
+	@Override
+	protected void read(byte[] data, int dataOffset, int dataLength, long fileOffset) throws IOException
+	{
+		segmentBuffer(fileOffset).get(data, dataOffset, dataLength);
+	}
+
+	@Override
+	public void dispose()
+	{
+		MappedByteBuffer[] currentSegments;
+		synchronized (growLock)
+		{
+			currentSegments = segments;
+			segments = new MappedByteBuffer[0];
+			segmentFreeCounts = new AtomicInteger[0];
+		}
+		
+		for (MappedByteBuffer segment : currentSegments)
+		{
+			unmap(segment);
+		}
+		
+		super.dispose();
+	}
+	
+	/**
+	 * Releases the mapping of a buffer without waiting for the buffer to be garbage collected.
+	 * If the mapping cannot be released explicitly, it is released when the buffer is collected.
+	 */
+	protected static void unmap(MappedByteBuffer buffer)
+	{
+		try
+		{
+			try
+			{
+				// Java 9 and later
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			}
+			catch (NoSuchMethodException e)
+			{
+				// Java 8
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null)
+				{
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Could not unmap swap file segment", e);
+			}
+		}
+	}
+}
@@ -32,15 +32,18 @@ import java.lang.ref.SoftReference;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedCharacterIterator.Attribute;
 import java.text.AttributedString;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Function;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -57,15 +60,22 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRPrintHyperlink;
 import net.sf.jasperreports.engine.JRPrintHyperlinkParameter;
 import net.sf.jasperreports.engine.JRPrintHyperlinkParameters;
+import net.sf.jasperreports.engine.JRPropertiesHolder;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.base.JRBasePrintHyperlink;
 import net.sf.jasperreports.engine.fonts.FontFamily;
 import net.sf.jasperreports.engine.type.HyperlinkTypeEnum;
 import net.sf.jasperreports.engine.util.JRStyledText.Run;
 import net.sf.jasperreports.extensions.ExtensionsEnvironment;
+import net.sf.jasperreports.properties.PropertyConstants;
 
 
 /**
@@ -75,6 +85,29 @@ public class JRStyledTextParser implements ErrorHandler
 {
 	private static final Log log = LogFactory.getLog(JRStyledTextParser.class);
 
+	/**
+	 * Property that specifies the maximum number of parsed styled texts kept by each parser instance
+	 * in order to be reused when the same markup is parsed again.
+	 * <p/>
+	 * Parser instances are per thread, and the cache of each instance keeps the most recently used entries.
+	 * A value of 0 disables the cache.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "256",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_CACHE_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "styled.text.parser.cache.size";
+	
+	private static final int DEFAULT_CACHE_SIZE = 256;
+	
+	/**
+	 * Texts longer than this are not cached.
+	 */
+	private static final int MAX_CACHED_TEXT_LENGTH = 4096;
+
 	private static final Set<String> AVAILABLE_FONT_FACE_NAMES = new HashSet<String>();
 	static
 	{
@@ -169,12 +202,45 @@ public class JRStyledTextParser implements ErrorHandler
 		}
 		if (instance == null)
 		{
-			instance = new JRStyledTextParser();
+			instance = new JRStyledTextParser(getCacheSize(DefaultJasperReportsContext.getInstance(), null));
+			threadInstances.set(new SoftReference<JRStyledTextParser>(instance));
+		}
+		return instance;
+	}
+	
+	/**
+	 * Return a cached instance that uses the cache size configured in a context and a report.
+	 * 
+	 * @param jasperReportsContext the context
+	 * @param propertiesHolder the report or any other properties holder, can be <code>null</code>
+	 * @return a cached instance
+	 * @see #PROPERTY_CACHE_SIZE
+	 */
+	public static JRStyledTextParser getInstance(JasperReportsContext jasperReportsContext, JRPropertiesHolder propertiesHolder)
+	{
+		int cacheSize = getCacheSize(jasperReportsContext, propertiesHolder);
+		JRStyledTextParser instance = null;
+		SoftReference<JRStyledTextParser> instanceRef = threadInstances.get();
+		if (instanceRef != null)
+		{
+			instance =  instanceRef.get();
+		}
+		if (instance == null || instance.cacheSize != cacheSize)
+		{
+			instance = new JRStyledTextParser(cacheSize);
 			threadInstances.set(new SoftReference<JRStyledTextParser>(instance));
 		}
 		return instance;
 	}
 	
+	private static int getCacheSize(JasperReportsContext jasperReportsContext, JRPropertiesHolder propertiesHolder)
+	{
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+		return propertiesHolder == null
+				? propertiesUtil.getIntegerProperty(PROPERTY_CACHE_SIZE, DEFAULT_CACHE_SIZE)
+				: propertiesUtil.getIntegerProperty(propertiesHolder, PROPERTY_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+	}
+	
 
 	/**
 	 * 
@@ -201,25 +267,57 @@ public class JRStyledTextParser implements ErrorHandler
 	 *
 	 */
 	private JRBasePrintHyperlink hyperlink;
+	
+	/**
+	 * Parsed styled texts, without the global attributes.
+	 */
+	private Map<String,JRStyledText> cache;
+	
+	private final int cacheSize;
 
 
 	/**
 	 *
 	 */
-	private JRStyledTextParser()
+	private JRStyledTextParser(int cacheSize)
 	{
-		try
+		this.cacheSize = cacheSize;
+		if (cacheSize > 0)
 		{
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			factory.setFeature(JRXmlUtils.FEATURE_DISALLOW_DOCTYPE, true);
-			
-			documentBuilder = factory.newDocumentBuilder();
-			documentBuilder.setErrorHandler(this);
+			cache = new LinkedHashMap<String,JRStyledText>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String,JRStyledText> eldest)
+				{
+					return size() > cacheSize;
+				}
+			};
 		}
-		catch (ParserConfigurationException e)
+	}
+	
+	/**
+	 *
+	 */
+	private DocumentBuilder getDocumentBuilder()
+	{
+		if (documentBuilder == null)
 		{
-			throw new JRRuntimeException(e);
+			try
+			{
+				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+				factory.setFeature(JRXmlUtils.FEATURE_DISALLOW_DOCTYPE, true);
+				
+				documentBuilder = factory.newDocumentBuilder();
+				documentBuilder.setErrorHandler(this);
+			}
+			catch (ParserConfigurationException e)
+			{
+				throw new JRRuntimeException(e);
+			}
 		}
+		return documentBuilder;
 	}
 
 
@@ -228,27 +326,62 @@ public class JRStyledTextParser implements ErrorHandler
 	 */
 	public JRStyledText parse(Map<Attribute,Object> attributes, String text, Locale locale) throws SAXException
 	{
-		JRStyledText styledText = new JRStyledText(locale);
+		JRStyledText styledText;
 		
-		Document document = null;
-
-		try
+		JRStyledText cachedText = cache == null ? null : cache.get(text);
+		if (cachedText != null)
 		{
-			document = documentBuilder.parse(new InputSource(new StringReader(ROOT_START + text + ROOT_END)));
+			styledText = copyStyledText(cachedText, locale);
 		}
-		catch (IOException e)
+		else
 		{
-			throw new JRRuntimeException(e);
+			styledText = new JRStyledText(locale);
+			
+			if (!parseMarkup(styledText, text))
+			{
+				// using the DOM parser for markup that is not handled by the markup reader
+				styledText = new JRStyledText(locale);
+				
+				Document document = null;
+				try
+				{
+					document = getDocumentBuilder().parse(new InputSource(new StringReader(ROOT_START + text + ROOT_END)));
+				}
+				catch (IOException e)
+				{
+					throw new JRRuntimeException(e);
+				}
+				
+				hyperlink = null;
+				
+				parseStyle(styledText, document.getDocumentElement());
+			}
+			
+			if (cache != null && text.length() <= MAX_CACHED_TEXT_LENGTH)
+			{
+				cache.put(text, copyStyledText(styledText, null));
+			}
 		}
 		
-		hyperlink = null;
-		
-		parseStyle(styledText, document.getDocumentElement());
-		
 		styledText.setGlobalAttributes(attributes);
 		
 		return styledText;
 	}
+	
+	/**
+	 * Copies the text and the runs of a styled text.
+	 * The run attributes are copied as well because they can be altered by the caller.
+	 */
+	private JRStyledText copyStyledText(JRStyledText styledText, Locale locale)
+	{
+		JRStyledText copy = new JRStyledText(locale);
+		copy.append(styledText.getText());
+		for (Run run : styledText.getRuns())
+		{
+			copy.addRun(run.cloneRun());
+		}
+		return copy;
+	}
 
 	/**
 	 * Creates a styled text object by either parsing a styled text String or
@@ -487,111 +620,7 @@ public class JRStyledTextParser implements ErrorHandler
 				&& NODE_style.equals(node.getNodeName())
 				)
 			{
-				NamedNodeMap nodeAttrs = node.getAttributes();
-
-				Map<Attribute,Object> styleAttrs = new HashMap<Attribute,Object>();
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_fontName) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.FAMILY,
-						nodeAttrs.getNamedItem(ATTRIBUTE_fontName).getNodeValue()
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isBold) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.WEIGHT,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isBold).getNodeValue())
-						? TextAttribute.WEIGHT_BOLD : TextAttribute.WEIGHT_REGULAR
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isItalic) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.POSTURE,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isItalic).getNodeValue())
-						? TextAttribute.POSTURE_OBLIQUE : TextAttribute.POSTURE_REGULAR
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isUnderline) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.UNDERLINE,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isUnderline).getNodeValue())
-						? TextAttribute.UNDERLINE_ON : null
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isStrikeThrough) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.STRIKETHROUGH,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isStrikeThrough).getNodeValue())
-						? TextAttribute.STRIKETHROUGH_ON : null
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_size) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.SIZE,
-						Float.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_size).getNodeValue())
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_pdfFontName) != null)
-				{
-					styleAttrs.put(
-						JRTextAttribute.PDF_FONT_NAME,
-						nodeAttrs.getNamedItem(ATTRIBUTE_pdfFontName).getNodeValue()
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_pdfEncoding) != null)
-				{
-					styleAttrs.put(
-						JRTextAttribute.PDF_ENCODING,
-						nodeAttrs.getNamedItem(ATTRIBUTE_pdfEncoding).getNodeValue()
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_isPdfEmbedded) != null)
-				{
-					styleAttrs.put(
-						JRTextAttribute.IS_PDF_EMBEDDED,
-						Boolean.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_isPdfEmbedded).getNodeValue())
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_forecolor) != null)
-				{
-					Color color = 
-						JRColorUtil.getColor(
-							nodeAttrs.getNamedItem(ATTRIBUTE_forecolor).getNodeValue(),
-							Color.black
-							);
-					styleAttrs.put(
-						TextAttribute.FOREGROUND,
-						color
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_backcolor) != null)
-				{
-					Color color = 
-						JRColorUtil.getColor(
-							nodeAttrs.getNamedItem(ATTRIBUTE_backcolor).getNodeValue(),
-							Color.black
-							);
-					styleAttrs.put(
-						TextAttribute.BACKGROUND,
-						color
-						);
-				}
+				Map<Attribute,Object> styleAttrs = getStyleAttributes(getAttributeValues(node));
 
 				int startIndex = styledText.length();
 
@@ -656,46 +685,7 @@ public class JRStyledTextParser implements ErrorHandler
 			}
 			else if (node.getNodeType() == Node.ELEMENT_NODE && NODE_font.equalsIgnoreCase(node.getNodeName()))
 			{
-				NamedNodeMap nodeAttrs = node.getAttributes();
-
-				Map<Attribute,Object> styleAttrs = new HashMap<Attribute,Object>();
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_size) != null)
-				{
-					styleAttrs.put(
-						TextAttribute.SIZE,
-						Float.valueOf(nodeAttrs.getNamedItem(ATTRIBUTE_size).getNodeValue())
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_color) != null)
-				{
-					Color color = 
-						JRColorUtil.getColor(
-							nodeAttrs.getNamedItem(ATTRIBUTE_color).getNodeValue(),
-							Color.black
-							);
-					styleAttrs.put(
-						TextAttribute.FOREGROUND,
-						color
-						);
-				}
-
-				if (nodeAttrs.getNamedItem(ATTRIBUTE_fontFace) != null) 
-				{
-					String fontFaces = nodeAttrs.getNamedItem(ATTRIBUTE_fontFace).getNodeValue();
-
-					StringTokenizer t = new StringTokenizer(fontFaces, ",");
-					while (t.hasMoreTokens()) 
-					{
-						String face = t.nextToken().trim();
-						if (AVAILABLE_FONT_FACE_NAMES.contains(face)) 
-						{
-							styleAttrs.put(TextAttribute.FAMILY, face);
-							break;
-						}
-					}
-				}
+				Map<Attribute,Object> styleAttrs = getFontAttributes(getAttributeValues(node));
 				
 				int startIndex = styledText.length();
 
@@ -751,28 +741,7 @@ public class JRStyledTextParser implements ErrorHandler
 			{
 				if (hyperlink == null)
 				{
-					NamedNodeMap nodeAttrs = node.getAttributes();
-
-					Map<Attribute,Object> styleAttrs = new HashMap<Attribute,Object>();
-
-					hyperlink = new JRBasePrintHyperlink();
-					hyperlink.setHyperlinkType(HyperlinkTypeEnum.REFERENCE);
-					styleAttrs.put(JRTextAttribute.HYPERLINK, hyperlink);
-					
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_href) != null)
-					{
-						hyperlink.setHyperlinkReference( nodeAttrs.getNamedItem(ATTRIBUTE_href).getNodeValue());
-					}
-
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_type) != null)
-					{
-						hyperlink.setLinkType(nodeAttrs.getNamedItem(ATTRIBUTE_type).getNodeValue());
-					}
-
-					if (nodeAttrs.getNamedItem(ATTRIBUTE_target) != null)
-					{
-						hyperlink.setLinkTarget(nodeAttrs.getNamedItem(ATTRIBUTE_target).getNodeValue());
-					}
+					Map<Attribute,Object> styleAttrs = getHyperlinkAttributes(getAttributeValues(node));
 
 					int startIndex = styledText.length();
 
@@ -827,6 +796,220 @@ public class JRStyledTextParser implements ErrorHandler
 		}
 	}
 
+	/**
+	 * Parses styled text markup without building a DOM document.
+	 * <p/>
+	 * The method produces the same result as {@link #parseStyle(JRStyledText, Node)}, 
+	 * but it only handles the styled text tags and the XML constructs commonly found in styled text.
+	 * Hyperlink parameters, comments, CDATA sections, processing instructions and anything that 
+	 * would be rejected by the XML parser are left to the DOM parser.
+	 * 
+	 * @return <code>false</code> if the markup was not handled and the DOM parser needs to be used
+	 */
+	private boolean parseMarkup(JRStyledText styledText, String text)
+	{
+		MarkupReader reader = new MarkupReader(text);
+		List<MarkupElement> elements = new ArrayList<MarkupElement>();
+		// the start index of a list item whose next sibling has not yet been read
+		int listItemIndex = -1;
+		boolean endsWithNewLine = false;
+		
+		hyperlink = null;
+		
+		while (true)
+		{
+			int event = reader.next();
+			switch (event)
+			{
+				case MarkupReader.EVENT_TEXT:
+				{
+					String value = reader.getValue();
+					if (listItemIndex >= 0 && value.charAt(0) != '\n')
+					{
+						styledText.append("\n");
+						resizeRuns(styledText.getRuns(), listItemIndex, 1);
+					}
+					listItemIndex = -1;
+					
+					styledText.append(value);
+					endsWithNewLine = value.charAt(value.length() - 1) == '\n';
+					break;
+				}
+				case MarkupReader.EVENT_START_ELEMENT:
+				{
+					String name = reader.getValue();
+					if (listItemIndex >= 0 && !NODE_li.equalsIgnoreCase(name) && !reader.elementTextStartsWithNewLine())
+					{
+						styledText.append("\n");
+						resizeRuns(styledText.getRuns(), listItemIndex, 1);
+						endsWithNewLine = true;
+					}
+					listItemIndex = -1;
+					
+					MarkupElement element = startElement(styledText, name, reader.getAttributes(), endsWithNewLine);
+					if (element == null)
+					{
+						return false;
+					}
+					
+					if (element.type == MarkupElement.TYPE_BR)
+					{
+						endsWithNewLine = true;
+					}
+					else if (element.type == MarkupElement.TYPE_LI)
+					{
+						endsWithNewLine = false;
+					}
+					
+					if (reader.isEmptyElement())
+					{
+						listItemIndex = endElement(styledText, element);
+					}
+					else
+					{
+						elements.add(element);
+					}
+					break;
+				}
+				case MarkupReader.EVENT_END_ELEMENT:
+				{
+					if (elements.isEmpty()
+							|| !elements.get(elements.size() - 1).name.equals(reader.getValue()))
+					{
+						return false;
+					}
+					
+					MarkupElement element = elements.remove(elements.size() - 1);
+					int length = styledText.length();
+					listItemIndex = endElement(styledText, element);
+					if (styledText.length() > length)
+					{
+						endsWithNewLine = true;
+					}
+					break;
+				}
+				case MarkupReader.EVENT_END:
+				{
+					return elements.isEmpty();
+				}
+				default:
+				{
+					return false;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the element, or <code>null</code> if the element is not handled by {@link #parseMarkup(JRStyledText, String)}
+	 */
+	private MarkupElement startElement(JRStyledText styledText, String name, Map<String,String> attributes, 
+			boolean endsWithNewLine)
+	{
+		MarkupElement element = new MarkupElement(name);
+		if (NODE_style.equals(name))
+		{
+			element.attributes = getStyleAttributes(attributes::get);
+		}
+		else if (NODE_bold.equalsIgnoreCase(name))
+		{
+			element.attributes = new HashMap<Attribute,Object>();
+			element.attributes.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD);
+		}
+		else if (NODE_italic.equalsIgnoreCase(name))
+		{
+			element.attributes = new HashMap<Attribute,Object>();
+			element.attributes.put(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE);
+		}
+		else if (NODE_underline.equalsIgnoreCase(name))
+		{
+			element.attributes = new HashMap<Attribute,Object>();
+			element.attributes.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+		}
+		else if (NODE_sup.equalsIgnoreCase(name))
+		{
+			element.attributes = new HashMap<Attribute,Object>();
+			element.attributes.put(TextAttribute.SUPERSCRIPT, TextAttribute.SUPERSCRIPT_SUPER);
+		}
+		else if (NODE_sub.equalsIgnoreCase(name))
+		{
+			element.attributes = new HashMap<Attribute,Object>();
+			element.attributes.put(TextAttribute.SUPERSCRIPT, TextAttribute.SUPERSCRIPT_SUB);
+		}
+		else if (NODE_font.equalsIgnoreCase(name))
+		{
+			element.attributes = getFontAttributes(attributes::get);
+		}
+		else if (NODE_br.equalsIgnoreCase(name))
+		{
+			element.type = MarkupElement.TYPE_BR;
+			styledText.append("\n");
+			resizeRuns(styledText.getRuns(), styledText.length(), 1);
+		}
+		else if (NODE_li.equalsIgnoreCase(name))
+		{
+			element.type = MarkupElement.TYPE_LI;
+			if (styledText.length() > 0 && !endsWithNewLine)
+			{
+				styledText.append("\n");
+			}
+			styledText.append(" \u2022 ");
+			resizeRuns(styledText.getRuns(), styledText.length(), 1);
+		}
+		else if (NODE_a.equalsIgnoreCase(name) && hyperlink == null)
+		{
+			element.type = MarkupElement.TYPE_A;
+			element.attributes = getHyperlinkAttributes(attributes::get);
+		}
+		else
+		{
+			// nested hyperlinks, hyperlink parameters and invalid tags
+			return null;
+		}
+		
+		element.startIndex = styledText.length();
+		return element;
+	}
+	
+	/**
+	 * @return the start index of the element if it is a list item, -1 otherwise
+	 */
+	private int endElement(JRStyledText styledText, MarkupElement element)
+	{
+		int listItemIndex = -1;
+		switch (element.type)
+		{
+			case MarkupElement.TYPE_BR:
+			{
+				styledText.addRun(new JRStyledText.Run(new HashMap<Attribute,Object>(), element.startIndex, styledText.length()));
+				if (element.startIndex < styledText.length())
+				{
+					styledText.append("\n");
+					resizeRuns(styledText.getRuns(), element.startIndex, 1);
+				}
+				break;
+			}
+			case MarkupElement.TYPE_LI:
+			{
+				styledText.addRun(new JRStyledText.Run(new HashMap<Attribute,Object>(), element.startIndex, styledText.length()));
+				listItemIndex = element.startIndex;
+				break;
+			}
+			case MarkupElement.TYPE_A:
+			{
+				styledText.addRun(new JRStyledText.Run(element.attributes, element.startIndex, styledText.length()));
+				hyperlink = null;
+				break;
+			}
+			default:
+			{
+				styledText.addRun(new JRStyledText.Run(element.attributes, element.startIndex, styledText.length()));
+				break;
+			}
+		}
+		return listItemIndex;
+	}
+
 	/**
 	 *
 	 */
@@ -846,29 +1029,203 @@ public class JRStyledTextParser implements ErrorHandler
 	/**
 	 *
 	 */
-	private StringBuilder writeStyleAttributes(Map<Attribute,Object> parentAttrs,  Map<Attribute,Object> attrs)
+	private Function<String,String> getAttributeValues(Node node)
 	{
-		StringBuilder sb = new StringBuilder();
-		
-		Object value = attrs.get(TextAttribute.FAMILY);
-		Object oldValue = parentAttrs.get(TextAttribute.FAMILY);
-		
-		if (value != null && !value.equals(oldValue))
+		NamedNodeMap nodeAttrs = node.getAttributes();
+		return name -> 
 		{
-			sb.append(SPACE);
-			sb.append(ATTRIBUTE_fontName);
-			sb.append(EQUAL_QUOTE);
-			sb.append(value);
-			sb.append(QUOTE);
-		}
+			Node attrNode = nodeAttrs.getNamedItem(name);
+			return attrNode == null ? null : attrNode.getNodeValue();
+		};
+	}
 
-		value = attrs.get(TextAttribute.WEIGHT);
-		oldValue = parentAttrs.get(TextAttribute.WEIGHT);
+	/**
+	 *
+	 */
+	private Map<Attribute,Object> getStyleAttributes(Function<String,String> nodeAttrs)
+	{
+		Map<Attribute,Object> styleAttrs = new HashMap<Attribute,Object>();
 
-		if (value != null && !value.equals(oldValue))
+		String fontName = nodeAttrs.apply(ATTRIBUTE_fontName);
+		if (fontName != null)
 		{
-			sb.append(SPACE);
-			sb.append(ATTRIBUTE_isBold);
+			styleAttrs.put(TextAttribute.FAMILY, fontName);
+		}
+
+		String isBold = nodeAttrs.apply(ATTRIBUTE_isBold);
+		if (isBold != null)
+		{
+			styleAttrs.put(
+				TextAttribute.WEIGHT,
+				Boolean.valueOf(isBold) ? TextAttribute.WEIGHT_BOLD : TextAttribute.WEIGHT_REGULAR
+				);
+		}
+
+		String isItalic = nodeAttrs.apply(ATTRIBUTE_isItalic);
+		if (isItalic != null)
+		{
+			styleAttrs.put(
+				TextAttribute.POSTURE,
+				Boolean.valueOf(isItalic) ? TextAttribute.POSTURE_OBLIQUE : TextAttribute.POSTURE_REGULAR
+				);
+		}
+
+		String isUnderline = nodeAttrs.apply(ATTRIBUTE_isUnderline);
+		if (isUnderline != null)
+		{
+			styleAttrs.put(
+				TextAttribute.UNDERLINE,
+				Boolean.valueOf(isUnderline) ? TextAttribute.UNDERLINE_ON : null
+				);
+		}
+
+		String isStrikeThrough = nodeAttrs.apply(ATTRIBUTE_isStrikeThrough);
+		if (isStrikeThrough != null)
+		{
+			styleAttrs.put(
+				TextAttribute.STRIKETHROUGH,
+				Boolean.valueOf(isStrikeThrough) ? TextAttribute.STRIKETHROUGH_ON : null
+				);
+		}
+
+		String size = nodeAttrs.apply(ATTRIBUTE_size);
+		if (size != null)
+		{
+			styleAttrs.put(TextAttribute.SIZE, Float.valueOf(size));
+		}
+
+		String pdfFontName = nodeAttrs.apply(ATTRIBUTE_pdfFontName);
+		if (pdfFontName != null)
+		{
+			styleAttrs.put(JRTextAttribute.PDF_FONT_NAME, pdfFontName);
+		}
+
+		String pdfEncoding = nodeAttrs.apply(ATTRIBUTE_pdfEncoding);
+		if (pdfEncoding != null)
+		{
+			styleAttrs.put(JRTextAttribute.PDF_ENCODING, pdfEncoding);
+		}
+
+		String isPdfEmbedded = nodeAttrs.apply(ATTRIBUTE_isPdfEmbedded);
+		if (isPdfEmbedded != null)
+		{
+			styleAttrs.put(JRTextAttribute.IS_PDF_EMBEDDED, Boolean.valueOf(isPdfEmbedded));
+		}
+
+		String forecolor = nodeAttrs.apply(ATTRIBUTE_forecolor);
+		if (forecolor != null)
+		{
+			Color color = JRColorUtil.getColor(forecolor, Color.black);
+			styleAttrs.put(TextAttribute.FOREGROUND, color);
+		}
+
+		String backcolor = nodeAttrs.apply(ATTRIBUTE_backcolor);
+		if (backcolor != null)
+		{
+			Color color = JRColorUtil.getColor(backcolor, Color.black);
+			styleAttrs.put(TextAttribute.BACKGROUND, color);
+		}
+		
+		return styleAttrs;
+	}
+
+	/**
+	 *
+	 */
+	private Map<Attribute,Object> getFontAttributes(Function<String,String> nodeAttrs)
+	{
+		Map<Attribute,Object> styleAttrs = new HashMap<Attribute,Object>();
+
+		String size = nodeAttrs.apply(ATTRIBUTE_size);
+		if (size != null)
+		{
+			styleAttrs.put(TextAttribute.SIZE, Float.valueOf(size));
+		}
+
+		String colorValue = nodeAttrs.apply(ATTRIBUTE_color);
+		if (colorValue != null)
+		{
+			Color color = JRColorUtil.getColor(colorValue, Color.black);
+			styleAttrs.put(TextAttribute.FOREGROUND, color);
+		}
+
+		String fontFaces = nodeAttrs.apply(ATTRIBUTE_fontFace);
+		if (fontFaces != null) 
+		{
+			StringTokenizer t = new StringTokenizer(fontFaces, ",");
+			while (t.hasMoreTokens()) 
+			{
+				String face = t.nextToken().trim();
+				if (AVAILABLE_FONT_FACE_NAMES.contains(face)) 
+				{
+					styleAttrs.put(TextAttribute.FAMILY, face);
+					break;
+				}
+			}
+		}
+		
+		return styleAttrs;
+	}
+
+	/**
+	 * Creates the current hyperlink and returns the attributes of the hyperlink run.
+	 */
+	private Map<Attribute,Object> getHyperlinkAttributes(Function<String,String> nodeAttrs)
+	{
+		Map<Attribute,Object> styleAttrs = new HashMap<Attribute,Object>();
+
+		hyperlink = new JRBasePrintHyperlink();
+		hyperlink.setHyperlinkType(HyperlinkTypeEnum.REFERENCE);
+		styleAttrs.put(JRTextAttribute.HYPERLINK, hyperlink);
+		
+		String href = nodeAttrs.apply(ATTRIBUTE_href);
+		if (href != null)
+		{
+			hyperlink.setHyperlinkReference(href);
+		}
+
+		String type = nodeAttrs.apply(ATTRIBUTE_type);
+		if (type != null)
+		{
+			hyperlink.setLinkType(type);
+		}
+
+		String target = nodeAttrs.apply(ATTRIBUTE_target);
+		if (target != null)
+		{
+			hyperlink.setLinkTarget(target);
+		}
+		
+		return styleAttrs;
+	}
+
+
+	/**
+	 *
+	 */
+	private StringBuilder writeStyleAttributes(Map<Attribute,Object> parentAttrs,  Map<Attribute,Object> attrs)
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		Object value = attrs.get(TextAttribute.FAMILY);
+		Object oldValue = parentAttrs.get(TextAttribute.FAMILY);
+		
+		if (value != null && !value.equals(oldValue))
+		{
+			sb.append(SPACE);
+			sb.append(ATTRIBUTE_fontName);
+			sb.append(EQUAL_QUOTE);
+			sb.append(value);
+			sb.append(QUOTE);
+		}
+
+		value = attrs.get(TextAttribute.WEIGHT);
+		oldValue = parentAttrs.get(TextAttribute.WEIGHT);
+
+		if (value != null && !value.equals(oldValue))
+		{
+			sb.append(SPACE);
+			sb.append(ATTRIBUTE_isBold);
 			sb.append(EQUAL_QUOTE);
 			sb.append(value.equals(TextAttribute.WEIGHT_BOLD));
 			sb.append(QUOTE);
@@ -1040,4 +1397,517 @@ public class JRStyledTextParser implements ErrorHandler
 		}
 	}
 
+	
+	/**
+	 * An element being read by {@link JRStyledTextParser#parseMarkup(JRStyledText, String)}.
+	 */
+	private static class MarkupElement
+	{
+		static final int TYPE_STYLE = 0;
+		static final int TYPE_BR = 1;
+		static final int TYPE_LI = 2;
+		static final int TYPE_A = 3;
+		
+		final String name;
+		int type = TYPE_STYLE;
+		Map<Attribute,Object> attributes;
+		int startIndex;
+		
+		MarkupElement(String name)
+		{
+			this.name = name;
+		}
+	}
+	
+	/**
+	 * Pull reader for the XML subset used in styled text.
+	 * <p/>
+	 * The reader reports {@link #EVENT_UNSUPPORTED} for anything that it does not handle in the same way 
+	 * as the XML parser, including malformed markup, so that the caller can fall back to the XML parser.
+	 */
+	private static class MarkupReader
+	{
+		static final int EVENT_UNSUPPORTED = 0;
+		static final int EVENT_TEXT = 1;
+		static final int EVENT_START_ELEMENT = 2;
+		static final int EVENT_END_ELEMENT = 3;
+		static final int EVENT_END = 4;
+		
+		private final String text;
+		private int position;
+		
+		private String value;
+		private final Map<String,String> attributes = new HashMap<String,String>();
+		private boolean emptyElement;
+		private final StringBuilder buffer = new StringBuilder();
+		
+		MarkupReader(String text)
+		{
+			this.text = text;
+		}
+		
+		/**
+		 * The text for {@link #EVENT_TEXT} and the element name for 
+		 * {@link #EVENT_START_ELEMENT} and {@link #EVENT_END_ELEMENT}.
+		 */
+		String getValue()
+		{
+			return value;
+		}
+		
+		Map<String,String> getAttributes()
+		{
+			return attributes;
+		}
+		
+		boolean isEmptyElement()
+		{
+			return emptyElement;
+		}
+		
+		int next()
+		{
+			if (position >= text.length())
+			{
+				return EVENT_END;
+			}
+			
+			if (text.charAt(position) != '<')
+			{
+				return readText();
+			}
+			
+			++position;
+			if (position >= text.length())
+			{
+				return EVENT_UNSUPPORTED;
+			}
+			
+			char c = text.charAt(position);
+			if (c == '/')
+			{
+				++position;
+				return readEndElement();
+			}
+			
+			if (c == '!' || c == '?')
+			{
+				// comments, CDATA sections, processing instructions
+				return EVENT_UNSUPPORTED;
+			}
+			
+			return readStartElement();
+		}
+		
+		private int readText()
+		{
+			int start = position;
+			boolean plain = true;
+			while (position < text.length())
+			{
+				char c = text.charAt(position);
+				if (c == '<')
+				{
+					break;
+				}
+				
+				if (c == '&' || c == '\r' || c == ']' || !isPlainChar(c))
+				{
+					plain = false;
+				}
+				++position;
+			}
+			
+			if (plain)
+			{
+				value = text.substring(start, position);
+				return EVENT_TEXT;
+			}
+			
+			buffer.setLength(0);
+			for (int i = start; i < position;)
+			{
+				char c = text.charAt(i);
+				if (c == '&')
+				{
+					i = readReference(i);
+					if (i < 0)
+					{
+						return EVENT_UNSUPPORTED;
+					}
+				}
+				else if (c == '\r')
+				{
+					buffer.append('\n');
+					++i;
+					if (i < position && text.charAt(i) == '\n')
+					{
+						++i;
+					}
+				}
+				else if (c == ']' && text.startsWith("]]>", i))
+				{
+					return EVENT_UNSUPPORTED;
+				}
+				else if (!isPlainChar(c) && !isValidChar(c))
+				{
+					return EVENT_UNSUPPORTED;
+				}
+				else
+				{
+					buffer.append(c);
+					++i;
+				}
+			}
+			value = buffer.toString();
+			return EVENT_TEXT;
+		}
+		
+		private int readStartElement()
+		{
+			value = readName();
+			if (value == null)
+			{
+				return EVENT_UNSUPPORTED;
+			}
+			
+			attributes.clear();
+			emptyElement = false;
+			while (true)
+			{
+				boolean space = skipSpace();
+				if (position >= text.length())
+				{
+					return EVENT_UNSUPPORTED;
+				}
+				
+				char c = text.charAt(position);
+				if (c == '>')
+				{
+					++position;
+					return EVENT_START_ELEMENT;
+				}
+				
+				if (c == '/')
+				{
+					if (position + 1 < text.length() && text.charAt(position + 1) == '>')
+					{
+						position += 2;
+						emptyElement = true;
+						return EVENT_START_ELEMENT;
+					}
+					return EVENT_UNSUPPORTED;
+				}
+				
+				if (!space || !readAttribute())
+				{
+					return EVENT_UNSUPPORTED;
+				}
+			}
+		}
+		
+		private boolean readAttribute()
+		{
+			String name = readName();
+			if (name == null)
+			{
+				return false;
+			}
+			
+			skipSpace();
+			if (position >= text.length() || text.charAt(position) != '=')
+			{
+				return false;
+			}
+			++position;
+			skipSpace();
+			if (position >= text.length())
+			{
+				return false;
+			}
+			
+			char quote = text.charAt(position);
+			if (quote != '"' && quote != '\'')
+			{
+				return false;
+			}
+			++position;
+			
+			buffer.setLength(0);
+			while (true)
+			{
+				if (position >= text.length())
+				{
+					return false;
+				}
+				
+				char c = text.charAt(position);
+				if (c == quote)
+				{
+					++position;
+					break;
+				}
+				
+				if (c == '&')
+				{
+					position = readReference(position);
+					if (position < 0)
+					{
+						return false;
+					}
+				}
+				else if (c == '<')
+				{
+					return false;
+				}
+				else if (c == '\r')
+				{
+					// line end normalization followed by attribute value normalization
+					buffer.append(' ');
+					++position;
+					if (position < text.length() && text.charAt(position) == '\n')
+					{
+						++position;
+					}
+				}
+				else if (c == '\n' || c == '\t')
+				{
+					buffer.append(' ');
+					++position;
+				}
+				else if (!isPlainChar(c) && !isValidChar(c))
+				{
+					return false;
+				}
+				else
+				{
+					buffer.append(c);
+					++position;
+				}
+			}
+			
+			return attributes.put(name, buffer.toString()) == null;
+		}
+		
+		private int readEndElement()
+		{
+			value = readName();
+			if (value == null)
+			{
+				return EVENT_UNSUPPORTED;
+			}
+			
+			skipSpace();
+			if (position >= text.length() || text.charAt(position) != '>')
+			{
+				return EVENT_UNSUPPORTED;
+			}
+			++position;
+			return EVENT_END_ELEMENT;
+		}
+		
+		/**
+		 * Reads an ASCII XML name.
+		 */
+		private String readName()
+		{
+			int start = position;
+			while (position < text.length())
+			{
+				char c = text.charAt(position);
+				boolean nameChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+						|| (position > start && ((c >= '0' && c <= '9') || c == '-' || c == '.'));
+				if (!nameChar)
+				{
+					break;
+				}
+				++position;
+			}
+			
+			if (position == start 
+					|| (position < text.length() && text.charAt(position) > 0x7F))
+			{
+				return null;
+			}
+			return text.substring(start, position);
+		}
+		
+		private boolean skipSpace()
+		{
+			int start = position;
+			while (position < text.length())
+			{
+				char c = text.charAt(position);
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+				{
+					break;
+				}
+				++position;
+			}
+			return position > start;
+		}
+		
+		/**
+		 * Decodes a predefined entity or character reference into the buffer.
+		 * 
+		 * @return the position after the reference, or -1 if the reference is not supported
+		 */
+		private int readReference(int start)
+		{
+			int end = text.indexOf(';', start + 1);
+			if (end < 0)
+			{
+				return -1;
+			}
+			
+			int codePoint = getReferenceCodePoint(text.substring(start + 1, end));
+			if (codePoint < 0)
+			{
+				return -1;
+			}
+			
+			buffer.appendCodePoint(codePoint);
+			return end + 1;
+		}
+		
+		private static int getReferenceCodePoint(String name)
+		{
+			int codePoint;
+			if (name.startsWith("#x"))
+			{
+				codePoint = parseCodePoint(name, 2, 16);
+			}
+			else if (name.startsWith("#"))
+			{
+				codePoint = parseCodePoint(name, 1, 10);
+			}
+			else if (name.equals("lt"))
+			{
+				codePoint = '<';
+			}
+			else if (name.equals("gt"))
+			{
+				codePoint = '>';
+			}
+			else if (name.equals("amp"))
+			{
+				codePoint = '&';
+			}
+			else if (name.equals("quot"))
+			{
+				codePoint = '"';
+			}
+			else if (name.equals("apos"))
+			{
+				codePoint = '\'';
+			}
+			else
+			{
+				codePoint = -1;
+			}
+			return codePoint;
+		}
+		
+		private static int parseCodePoint(String reference, int start, int radix)
+		{
+			if (reference.length() == start || reference.length() - start > 8)
+			{
+				return -1;
+			}
+			
+			int codePoint = 0;
+			for (int i = start; i < reference.length(); i++)
+			{
+				int digit = Character.digit(reference.charAt(i), radix);
+				if (digit < 0)
+				{
+					return -1;
+				}
+				codePoint = codePoint * radix + digit;
+			}
+			
+			boolean valid = codePoint == 0x9 || codePoint == 0xA || codePoint == 0xD
+					|| (codePoint >= 0x20 && codePoint <= 0xD7FF)
+					|| (codePoint >= 0xE000 && codePoint <= 0xFFFD)
+					|| (codePoint >= 0x10000 && codePoint <= 0x10FFFF);
+			return valid ? codePoint : -1;
+		}
+		
+		private static boolean isPlainChar(char c)
+		{
+			return c >= 0x20 && c < 0xD800;
+		}
+		
+		private static boolean isValidChar(char c)
+		{
+			return c == '\t' || c == '\n' || c == '\r' || (c >= 0x20 && c <= 0xFFFD && c != 0xFFFE);
+		}
+		
+		/**
+		 * Determines whether the first text found in the current element starts with a new line,
+		 * as needed after a list item.
+		 */
+		boolean elementTextStartsWithNewLine()
+		{
+			if (emptyElement)
+			{
+				return false;
+			}
+			
+			int depth = 1;
+			int index = position;
+			while (index < text.length())
+			{
+				char c = text.charAt(index);
+				if (c != '<')
+				{
+					if (c == '&')
+					{
+						int end = text.indexOf(';', index + 1);
+						return end > 0 && getReferenceCodePoint(text.substring(index + 1, end)) == '\n';
+					}
+					// a carriage return is normalized to a new line
+					return c == '\n' || c == '\r';
+				}
+				
+				boolean endTag = index + 1 < text.length() && text.charAt(index + 1) == '/';
+				// skipping the tag, taking into account quoted attribute values
+				char quote = 0;
+				for (++index; index < text.length(); ++index)
+				{
+					c = text.charAt(index);
+					if (quote != 0)
+					{
+						if (c == quote)
+						{
+							quote = 0;
+						}
+					}
+					else if (c == '"' || c == '\'')
+					{
+						quote = c;
+					}
+					else if (c == '>')
+					{
+						break;
+					}
+				}
+				
+				if (endTag)
+				{
+					--depth;
+					if (depth == 0)
+					{
+						return false;
+					}
+				}
+				else if (text.charAt(index - 1) != '/')
+				{
+					++depth;
+				}
+				++index;
+			}
+			return false;
+		}
+	}
 }
@@ -98,13 +98,7 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 			out.close();
 			
 			byte[] data = bout.toByteArray();
-			if (log.isTraceEnabled())
-			{
-				log.trace("writing " + data.length + " for object " + o.getUID() + " to " + swap);
-			}
-			
-			JRSwapFile.SwapHandle handle = swap.write(data);
-			handles.put(o.getUID(), handle);
+			storeData(o.getUID(), data);
 			return true;
 		}
 		catch (IOException e)
@@ -118,28 +112,30 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 		}
 	}
 	
-	@Override
-	public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+	/**
+	 * Writes the serialized data of an object to the swap file.
+	 * 
+	 * @param objectId the object ID
+	 * @param data the serialized object data
+	 * @throws IOException
+	 */
+	protected void storeData(String objectId, byte[] data) throws IOException
 	{
-		JRSwapFile.SwapHandle handle = handles.get(o.getUID());
-		if (handle == null)
+		if (log.isTraceEnabled())
 		{
-			// should not happen
-			//FIXME lucianc happened once, look into it
-			log.error("No swap handle found for " + o.getUID() + " in " + this);
-			throw 
-				new JRRuntimeException(
-					EXCEPTION_MESSAGE_KEY_UNABLE_TO_READ_DATA,
-					(Object[])null);
+			log.trace("writing " + data.length + " for object " + objectId + " to " + swap);
 		}
 		
+		JRSwapFile.SwapHandle handle = swap.write(data);
+		handles.put(objectId, handle);
+	}
+	
+	@Override
+	public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+	{
 		try
 		{
-			byte[] data = swap.read(handle, remove);
-			if (log.isTraceEnabled())
-			{
-				log.trace("read " + data.length + " for object " + o.getUID() + " from " + swap);
-			}
+			byte[] data = retrieveData(o.getUID(), remove);
 			
 			ByteArrayInputStream rawInput = new ByteArrayInputStream(data);
 			InputStream input = compression == null ? rawInput : compression.uncompressedInput(rawInput);
@@ -155,11 +151,56 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 					(Object[])null,
 					e);
 		}
-		
+	}
+	
+	/**
+	 * Reads the serialized data of an object from the swap file.
+	 * 
+	 * @param objectId the object ID
+	 * @param remove whether the data is to be removed from the swap file
+	 * @return the serialized object data
+	 * @throws IOException
+	 */
+	protected byte[] retrieveData(String objectId, boolean remove) throws IOException
+	{
+		JRSwapFile.SwapHandle handle = handles.get(objectId);
+		byte[] data = readData(objectId, handle, remove);
 		if (remove)
 		{
-			handles.remove(o.getUID());
+			handles.remove(objectId);
 		}
+		
+		return data;
+	}
+	
+	/**
+	 * Reads the serialized data of an object from a swap handle.
+	 * 
+	 * @param objectId the object ID
+	 * @param handle the swap handle of the object, can be <code>null</code> if no handle was found
+	 * @param free whether the swap file blocks are to be freed after reading
+	 * @return the serialized object data
+	 * @throws IOException
+	 */
+	protected byte[] readData(String objectId, JRSwapFile.SwapHandle handle, boolean free) throws IOException
+	{
+		if (handle == null)
+		{
+			// should not happen
+			//FIXME lucianc happened once, look into it
+			log.error("No swap handle found for " + objectId + " in " + this);
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_UNABLE_TO_READ_DATA,
+					(Object[])null);
+		}
+		
+		byte[] data = swap.read(handle, free);
+		if (log.isTraceEnabled())
+		{
+			log.trace("read " + data.length + " for object " + objectId + " from " + swap);
+		}
+		return data;
 	}
 	
 	@Override
@@ -184,6 +225,26 @@ public class SwapFileVirtualizerStore implements VirtualizerStore
 		}
 	}
 
+	protected JRSwapFile getSwap()
+	{
+		return swap;
+	}
+	
+	protected JRSwapFile.SwapHandle getHandle(String objectId)
+	{
+		return handles.get(objectId);
+	}
+
+	protected void putHandle(String objectId, JRSwapFile.SwapHandle handle)
+	{
+		handles.put(objectId, handle);
+	}
+
+	protected JRSwapFile.SwapHandle removeHandle(String objectId)
+	{
+		return handles.remove(objectId);
+	}
+
 
 	/**
 	 * Disposes the swap file used if this virtualizer owns it.
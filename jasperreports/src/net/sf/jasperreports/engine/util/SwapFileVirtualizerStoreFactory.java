@@ -36,11 +36,17 @@ public class SwapFileVirtualizerStoreFactory implements VirtualizerStoreFactory
 	private int blockSize = 4096;//default value
 	private int minGrowCount = 20;//default value
 	private StreamCompression compression;
+	private int writeQueueSize;
+	private int prefetchCount;
 	
 	@Override
 	public VirtualizerStore createStore(JRVirtualizationContext virtualizationContext)
 	{
 		JRSwapFile swapFile = new JRSwapFile(directory, blockSize, minGrowCount);
+		if (writeQueueSize > 0)
+		{
+			return new AsyncSwapFileVirtualizerStore(swapFile, true, compression, writeQueueSize, prefetchCount);
+		}
 		return new SwapFileVirtualizerStore(swapFile, true, compression);
 	}
 
@@ -83,4 +89,37 @@ public class SwapFileVirtualizerStoreFactory implements VirtualizerStoreFactory
 	{
 		this.compression = compression;
 	}
+
+	public int getWriteQueueSize()
+	{
+		return writeQueueSize;
+	}
+
+	/**
+	 * Sets the size of the queue of objects to be written to the swap files on a background thread.
+	 * 
+	 * A positive value enables background I/O by creating {@link AsyncSwapFileVirtualizerStore} stores.
+	 * 
+	 * @param writeQueueSize the write queue size, <code>0</code> to write synchronously
+	 */
+	public void setWriteQueueSize(int writeQueueSize)
+	{
+		this.writeQueueSize = writeQueueSize;
+	}
+
+	public int getPrefetchCount()
+	{
+		return prefetchCount;
+	}
+
+	/**
+	 * Sets the number of objects to read ahead on retrieval when background I/O is enabled.
+	 * 
+	 * @param prefetchCount the number of objects to read ahead
+	 * @see #setWriteQueueSize(int)
+	 */
+	public void setPrefetchCount(int prefetchCount)
+	{
+		this.prefetchCount = prefetchCount;
+	}
 }
@@ -339,7 +339,32 @@ public interface PdfExporterConfiguration extends ExporterConfiguration
 			valueType = Boolean.class
 			)
 	public static final String PROPERTY_JUSTIFIED_LETTER_SPACING = JRPropertiesUtil.PROPERTY_PREFIX + "export.pdf.justified.letter.spacing";
-	
+
+	/**
+	 * Property that specifies the number of worker threads used to prepare upcoming pages
+	 * while the current page is being written to the PDF document.
+	 *
+	 * <p>
+	 * Text elements on the pages ahead have their styled text parsed and their fonts resolved
+	 * on the worker threads. Pages are still written one after the other, in order,
+	 * so the produced document is the same as when exporting without worker threads.
+	 * </p>
+	 * <p>
+	 * Pages of reports filled with a virtualizer are not prepared ahead.
+	 * </p>
+	 * <p>
+	 * By default the property is set to <code>0</code>, meaning that all the work is done by the exporting thread.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PARALLEL_THREADS = JRPropertiesUtil.PROPERTY_PREFIX + "export.pdf.parallel.threads";
+
 	/**
 	 * Returns a boolean value specifying  whether the PDF document should contain an outline section.
 	 * @see #PROPERTY_CREATE_BATCH_MODE_BOOKMARKS
@@ -23,6 +23,7 @@
  */
 package net.sf.jasperreports.extensions;
 
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -33,6 +34,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.logging.Log;
@@ -113,20 +115,41 @@ public class DefaultExtensionsRegistry implements ExtensionsRegistry
 	public static final String PROPERTY_REGISTRY_PREFIX = 
 			JRPropertiesUtil.PROPERTY_PREFIX + "extension.";
 
-	private final ReferenceMap<Object, List<ExtensionsRegistry>> registrySetCache = 
-		new ReferenceMap<Object, List<ExtensionsRegistry>>(
+	private final ReferenceMap<Object, RegistrySnapshot> registrySetCache = 
+		new ReferenceMap<Object, RegistrySnapshot>(
 			ReferenceMap.ReferenceStrength.WEAK, ReferenceMap.ReferenceStrength.HARD
 			);
 	
+	/**
+	 * The last used snapshot, read without locking as long as the cache key does not change.
+	 */
+	private volatile RegistrySnapshot lastSnapshot;
+	
+	/**
+	 * Used in place of a <code>null</code> extensions cache key.
+	 */
+	private static final Object NULL_CACHE_KEY = new Object();
+	
 	private final ReferenceMap<ClassLoader, Map<URL, URLRegistries>> registryCache = 
 		new ReferenceMap<ClassLoader, Map<URL, URLRegistries>>(
 			ReferenceMap.ReferenceStrength.WEAK, ReferenceMap.ReferenceStrength.HARD
 			);
 
+	/**
+	 * Returns the extensions of a type from all registries.
+	 * 
+	 * <p>
+	 * The extensions are cached per extension type for the current extensions cache key,
+	 * and each call returns a new list that can be modified by the caller.
+	 */
 	@Override
 	public <T> List<T> getExtensions(Class<T> extensionType)
 	{
-		List<ExtensionsRegistry> registries = getRegistries();
+		return new ArrayList<T>(getSnapshot().getExtensions(extensionType));
+	}
+	
+	protected <T> List<T> collectExtensions(List<ExtensionsRegistry> registries, Class<T> extensionType)
+	{
 		List<T> extensions = new ArrayList<T>(registries.size());
 		for (Iterator<ExtensionsRegistry> it = registries.iterator(); it.hasNext();)
 		{
@@ -142,23 +165,46 @@ public class DefaultExtensionsRegistry implements ExtensionsRegistry
 	
 	protected List<ExtensionsRegistry> getRegistries()
 	{
-		List<ExtensionsRegistry> registries;
+		return getSnapshot().registries;
+	}
+	
+	protected RegistrySnapshot getSnapshot()
+	{
 		Object cacheKey = ExtensionsEnvironment.getExtensionsCacheKey();
+		if (cacheKey == null)
+		{
+			cacheKey = NULL_CACHE_KEY;
+		}
+		
+		RegistrySnapshot snapshot = lastSnapshot;
+		// the key reference of the snapshot is null when cleared, never matching the non null cache key
+		if (snapshot != null && snapshot.cacheKey.get() == cacheKey)
+		{
+			return snapshot;
+		}
+		
 		synchronized (registrySetCache)
 		{
-			registries = registrySetCache.get(cacheKey);
-			if (registries == null)
+			snapshot = registrySetCache.get(cacheKey);
+			if (snapshot == null)
 			{
 				if (log.isDebugEnabled())
 				{
 					log.debug("Loading registries for cache key " + cacheKey);
 				}
 				
-				registries = loadRegistries();
-				registrySetCache.put(cacheKey, registries);
+				List<ExtensionsRegistry> registries = loadRegistries();
+				snapshot = registrySetCache.get(cacheKey);
+				if (snapshot == null)
+				{
+					snapshot = new RegistrySnapshot(cacheKey, registries);
+					registrySetCache.put(cacheKey, snapshot);
+				}
 			}
 		}
-		return registries;
+		
+		lastSnapshot = snapshot;
+		return snapshot;
 	}
 	
 	protected List<ExtensionsRegistry> loadRegistries()
@@ -314,6 +360,45 @@ public class DefaultExtensionsRegistry implements ExtensionsRegistry
 		return duplicateURL;
 	}
 	
+	/**
+	 * The registries loaded for an extensions cache key, along with the extensions already collected from them.
+	 */
+	protected class RegistrySnapshot
+	{
+		private final WeakReference<Object> cacheKey;
+		private final List<ExtensionsRegistry> registries;
+		private final ConcurrentHashMap<Class<?>, List<?>> extensions = new ConcurrentHashMap<Class<?>, List<?>>();
+		
+		public RegistrySnapshot(Object cacheKey, List<ExtensionsRegistry> registries)
+		{
+			this.cacheKey = new WeakReference<Object>(cacheKey);
+			this.registries = Collections.unmodifiableList(registries);
+		}
+		
+		public List<ExtensionsRegistry> getRegistries()
+		{
+			return registries;
+		}
+		
+		public <T> List<T> getExtensions(Class<T> extensionType)
+		{
+			@SuppressWarnings("unchecked")
+			List<T> typeExtensions = (List<T>) extensions.get(extensionType);
+			if (typeExtensions == null)
+			{
+				// not using computeIfAbsent because registries can look up other extensions
+				typeExtensions = Collections.unmodifiableList(collectExtensions(registries, extensionType));
+				@SuppressWarnings("unchecked")
+				List<T> existing = (List<T>) extensions.putIfAbsent(extensionType, typeExtensions);
+				if (existing != null)
+				{
+					typeExtensions = existing;
+				}
+			}
+			return typeExtensions;
+		}
+	}
+	
 	protected static class URLRegistries
 	{
 		JRPropertiesMap properties;
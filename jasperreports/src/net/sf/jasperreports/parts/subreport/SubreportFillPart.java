@@ -23,6 +23,7 @@
  */
 package net.sf.jasperreports.parts.subreport;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +44,7 @@ import net.sf.jasperreports.engine.JRPropertiesHolder;
 import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRStyle;
+import net.sf.jasperreports.engine.JRSubreportReturnValue;
 import net.sf.jasperreports.engine.JRVariable;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
@@ -69,6 +71,7 @@ import net.sf.jasperreports.engine.fill.PartReportFiller;
 import net.sf.jasperreports.engine.fill.SimpleJasperReportSource;
 import net.sf.jasperreports.engine.part.BasePartFillComponent;
 import net.sf.jasperreports.engine.part.FillingPrintPart;
+import net.sf.jasperreports.engine.part.PartFillComponent;
 import net.sf.jasperreports.engine.part.PartPrintOutput;
 import net.sf.jasperreports.engine.type.SectionTypeEnum;
 import net.sf.jasperreports.engine.util.BookmarksFlatDataSource;
@@ -112,6 +115,8 @@ public class SubreportFillPart extends BasePartFillComponent
 	
 	private FillDatasetPosition datasetPosition;
 	private boolean cacheIncluded;
+	private boolean bookmarksDependent;
+	private String partName;
 	
 	private volatile BaseReportFiller subreportFiller;
 	
@@ -121,7 +126,33 @@ public class SubreportFillPart extends BasePartFillComponent
 		this.expressionEvaluator = factory.getExpressionEvaluator();
 		
 		this.returnValues = new FillReturnValues(subreportPart.getReturnValues(), factory, factory.getReportFiller());
-		this.returnValuesSource = new AbstractVariableReturnValueSourceContext() 
+		this.returnValuesSource = createReturnValuesSource();
+	}
+
+	/**
+	 * Creates a detached copy of an evaluated subreport part.
+	 * 
+	 * @see #detach()
+	 */
+	protected SubreportFillPart(SubreportFillPart part)
+	{
+		this.subreportPart = part.subreportPart;
+		this.expressionEvaluator = part.expressionEvaluator;
+		this.returnValues = part.returnValues;
+		this.returnValuesSource = createReturnValuesSource();
+		this.fillContext = part.fillContext;
+		
+		this.reportSource = part.reportSource;
+		this.jasperReportSource = part.jasperReportSource;
+		this.parameterValues = new HashMap<String, Object>(part.parameterValues);
+		this.datasetPosition = part.datasetPosition;
+		this.cacheIncluded = part.cacheIncluded;
+		this.partName = part.partName;
+	}
+	
+	private FillReturnValues.SourceContext createReturnValuesSource()
+	{
+		return new AbstractVariableReturnValueSourceContext() 
 		{
 			@Override
 			public Object getValue(CommonReturnValue returnValue) {
@@ -140,9 +171,32 @@ public class SubreportFillPart extends BasePartFillComponent
 		};
 	}
 
+	@Override
+	public PartFillComponent detach()
+	{
+		JRSubreportReturnValue[] partReturnValues = subreportPart.getReturnValues();
+		if ((partReturnValues != null && partReturnValues.length > 0)
+				|| bookmarksDependent
+				|| getReport().getSectionType() == SectionTypeEnum.PART)
+		{
+			// return values need to be copied to the master variables,
+			// and part subfillers add their parts directly to the master queue
+			return null;
+		}
+		
+		return new SubreportFillPart(this);
+	}
+
+	@Override
+	public boolean dependsOnPreviousParts()
+	{
+		return getBookmarksParameter() != null;
+	}
+
 	@Override
 	public void evaluate(byte evaluation) throws JRException
 	{
+		partName = fillContext.getFillPart().getPartName();
 		jasperReportSource = evaluateReportSource(evaluation);
 		
 		JRFillDataset parentDataset = expressionEvaluator.getFillDataset();
@@ -202,10 +256,16 @@ public class SubreportFillPart extends BasePartFillComponent
 		return jasperReportSource == null ? null : jasperReportSource.getReport();
 	}
 
-	private void setBookmarksParameter()
+	private String getBookmarksParameter()
 	{
 		JRPart part = fillContext.getPart();
-		String bookmarksParameter = part.hasProperties() ? part.getPropertiesMap().getProperty(PROPERTY_BOOKMARKS_DATA_SOURCE_PARAMETER) : null;
+		return part.hasProperties() ? part.getPropertiesMap().getProperty(PROPERTY_BOOKMARKS_DATA_SOURCE_PARAMETER) : null;
+	}
+
+	private void setBookmarksParameter()
+	{
+		String bookmarksParameter = getBookmarksParameter();
+		bookmarksDependent = bookmarksParameter != null;
 		if (bookmarksParameter == null)
 		{
 			return;
@@ -309,7 +369,7 @@ public class SubreportFillPart extends BasePartFillComponent
 	
 	protected String getPartName()
 	{
-		return fillContext.getFillPart().getPartName();
+		return partName;
 	}
 	
 	protected class PartBandParent implements BandReportFillerParent
@@ -248,4 +248,6 @@ public interface PropertyConstants
 
 	String VERSION_6_13_0 = JRConstants.VERSION_6_13_0;
 
+	String VERSION_6_16_0 = JRConstants.VERSION_6_16_0;
+
 }
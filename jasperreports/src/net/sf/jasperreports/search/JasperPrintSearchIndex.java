@@ -0,0 +1,422 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.ReportContext;
+import net.sf.jasperreports.engine.fill.FillHandle;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Full-text index of the pages of a report, reused by successive searches.
+ * <p>
+ * The index can be populated while the report is filled, by registering it as a
+ * {@link FillListener}, and pages that have not been indexed are added before each search.
+ * Updated pages are reindexed.
+ * Reports filled with a {@link ReportContext} are indexed while filled when {@link #PROPERTY_INDEX_ON_FILL} is set.
+ * <p>
+ * Indexes are kept in the {@link ReportContext} for each combination of case sensitivity and accent removal
+ * settings, as these determine the indexed terms.
+ * An in-memory index that exceeds {@link #PROPERTY_INDEX_MAX_MEMORY} is discarded, and the report is searched
+ * as it used to be, by creating an index on each search.
+ * The discarded index is kept in the report context so that the report is not indexed again for the next searches.
+ * <p>
+ * An index kept in a report context is closed when it is replaced by another index.
+ * The indexes that are still in a report context when the context is no longer used
+ * should be closed by calling {@link #closeIndexes(ReportContext)}.
+ */
+public class JasperPrintSearchIndex implements FillListener, Closeable {
+
+	private static final Log log = LogFactory.getLog(JasperPrintSearchIndex.class);
+
+	/**
+	 * Property that specifies the maximum size in bytes of an in-memory search index.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_OTHER,
+			valueType = Long.class,
+			defaultValue = "67108864",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_INDEX_MAX_MEMORY = JRPropertiesUtil.PROPERTY_PREFIX + "search.index.max.memory";
+
+	/**
+	 * Property that specifies a local directory where temporary search indexes are stored.
+	 * <p>
+	 * Each index is created in a new subdirectory which is removed when the index is closed.
+	 * If not set, the indexes are kept in memory.
+	 * Indexes created with an explicit directory are stored in that directory instead, and are left in place when closed.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_OTHER,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_INDEX_DIRECTORY = JRPropertiesUtil.PROPERTY_PREFIX + "search.index.directory";
+
+	/**
+	 * Property that determines whether the pages of a report are indexed while the report is filled.
+	 * <p>
+	 * The property applies to reports filled with a {@link ReportContext}, in which the index is kept.
+	 * The pages are indexed for case insensitive searches without accent removal, 
+	 * which are the default search settings.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_OTHER,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_16_0
+			)
+	public static final String PROPERTY_INDEX_ON_FILL = JRPropertiesUtil.PROPERTY_PREFIX + "search.index.on.fill";
+
+	private static final String REPORT_CONTEXT_PARAMETER_PREFIX = "net.sf.jasperreports.search.index.";
+
+	private final JasperReportsContext jasperReportsContext;
+	private final boolean isCaseSensitive;
+	private final boolean removeAccents;
+	private final long maxMemory;
+	private final LuceneUtil indexUtil;
+	private final File indexDirectory;
+
+	private JasperPrint jasperPrint;
+	private File tempIndexDir;
+	private Directory directory;
+	private IndexWriter writer;
+	private DirectoryReader reader;
+	private final BitSet indexedPages = new BitSet();
+	private boolean discarded;
+	private boolean closed;
+
+	public JasperPrintSearchIndex(JasperReportsContext jasperReportsContext, boolean isCaseSensitive, boolean removeAccents) {
+		this(jasperReportsContext, isCaseSensitive, removeAccents, null);
+	}
+
+	/**
+	 * Creates an index.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param isCaseSensitive whether the searches are case sensitive
+	 * @param removeAccents whether accents are removed from the searched text
+	 * @param indexDirectory the directory in which the index is stored and left when the index is closed,
+	 * if <code>null</code> the index is temporary and stored as specified by {@link #PROPERTY_INDEX_DIRECTORY}
+	 */
+	public JasperPrintSearchIndex(JasperReportsContext jasperReportsContext, boolean isCaseSensitive, boolean removeAccents,
+			File indexDirectory) {
+		this.jasperReportsContext = jasperReportsContext;
+		this.isCaseSensitive = isCaseSensitive;
+		this.removeAccents = removeAccents;
+		this.indexDirectory = indexDirectory;
+
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+		this.maxMemory = propertiesUtil.getLongProperty(PROPERTY_INDEX_MAX_MEMORY, 64L * 1024 * 1024);
+		this.indexUtil = new LuceneUtil(jasperReportsContext, isCaseSensitive, true, removeAccents);
+	}
+
+	/**
+	 * Creates an index that is populated as a report is filled, and stores it in a report context.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param reportContext the report context in which the index is kept
+	 * @param fillHandle the fill handle of the report
+	 * @param isCaseSensitive whether the searches are case sensitive
+	 * @param removeAccents whether accents are removed from the searched text
+	 * @return the created index
+	 */
+	public static JasperPrintSearchIndex register(JasperReportsContext jasperReportsContext, ReportContext reportContext,
+			FillHandle fillHandle, boolean isCaseSensitive, boolean removeAccents) {
+		return register(jasperReportsContext, reportContext, fillHandle, isCaseSensitive, removeAccents, null);
+	}
+
+	/**
+	 * Creates an index stored in a directory that is populated as a report is filled, and stores it in a report context.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param reportContext the report context in which the index is kept
+	 * @param fillHandle the fill handle of the report
+	 * @param isCaseSensitive whether the searches are case sensitive
+	 * @param removeAccents whether accents are removed from the searched text
+	 * @param indexDirectory the directory in which the index is stored and left when the index is closed
+	 * @return the created index
+	 */
+	public static JasperPrintSearchIndex register(JasperReportsContext jasperReportsContext, ReportContext reportContext,
+			FillHandle fillHandle, boolean isCaseSensitive, boolean removeAccents, File indexDirectory) {
+		JasperPrintSearchIndex index = createIndex(jasperReportsContext, reportContext, isCaseSensitive, removeAccents, 
+				indexDirectory);
+		fillHandle.addFillListener(index);
+		return index;
+	}
+
+	/**
+	 * Searches a report using the index kept in a report context, creating the index if needed.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param reportContext the report context in which the index is kept
+	 * @param jasperPrint the report
+	 * @param queryString the query
+	 * @param isCaseSensitive whether the search is case sensitive
+	 * @param isWholeWordsOnly whether only whole words are matched
+	 * @param removeAccents whether accents are removed from the searched text
+	 * @return the matched terms information
+	 */
+	public static SpansInfo search(JasperReportsContext jasperReportsContext, ReportContext reportContext,
+			JasperPrint jasperPrint, String queryString,
+			boolean isCaseSensitive, boolean isWholeWordsOnly, boolean removeAccents) throws IOException, JRException {
+		String parameterName = parameterName(isCaseSensitive, removeAccents);
+		JasperPrintSearchIndex index = (JasperPrintSearchIndex) reportContext.getParameterValue(parameterName);
+		SpansInfo spansInfo = null;
+		if (index == null || !index.isDiscardedFor(jasperPrint)) {
+			if (index == null || !index.isUsableFor(jasperPrint)) {
+				index = createIndex(jasperReportsContext, reportContext, isCaseSensitive, removeAccents, null);
+			}
+
+			spansInfo = index.search(jasperPrint, queryString, isWholeWordsOnly);
+		}
+
+		if (spansInfo == null) {
+			// the index has been discarded, it stays in the report context so that the report is not indexed again
+			LuceneUtil luceneUtil = new LuceneUtil(jasperReportsContext, isCaseSensitive, isWholeWordsOnly, removeAccents);
+			spansInfo = luceneUtil.getSpansInfo(jasperPrint, queryString);
+		}
+		return spansInfo;
+	}
+
+	static JasperPrintSearchIndex createIndex(JasperReportsContext jasperReportsContext, ReportContext reportContext,
+			boolean isCaseSensitive, boolean removeAccents, File indexDirectory) {
+		JasperPrintSearchIndex index = new JasperPrintSearchIndex(jasperReportsContext, isCaseSensitive, removeAccents, 
+				indexDirectory);
+		String parameterName = parameterName(isCaseSensitive, removeAccents);
+		JasperPrintSearchIndex existingIndex = (JasperPrintSearchIndex) reportContext.getParameterValue(parameterName);
+		if (existingIndex != null) {
+			existingIndex.close();
+		}
+		reportContext.setParameterValue(parameterName, index);
+		return index;
+	}
+
+	/**
+	 * Closes the indexes kept in a report context and removes them from the context.
+	 *
+	 * @param reportContext the report context
+	 */
+	public static void closeIndexes(ReportContext reportContext) {
+		for (boolean isCaseSensitive : new boolean[]{false, true}) {
+			for (boolean removeAccents : new boolean[]{false, true}) {
+				String parameterName = parameterName(isCaseSensitive, removeAccents);
+				JasperPrintSearchIndex index = (JasperPrintSearchIndex) reportContext.removeParameterValue(parameterName);
+				if (index != null) {
+					index.close();
+				}
+			}
+		}
+	}
+
+	private static String parameterName(boolean isCaseSensitive, boolean removeAccents) {
+		return REPORT_CONTEXT_PARAMETER_PREFIX + isCaseSensitive + "." + removeAccents;
+	}
+
+	protected synchronized boolean isUsableFor(JasperPrint print) {
+		return !discarded && !closed && (jasperPrint == null || jasperPrint == print);
+	}
+
+	protected synchronized boolean isDiscardedFor(JasperPrint print) {
+		return discarded && !closed && jasperPrint == print;
+	}
+
+	@Override
+	public synchronized void pageGenerated(JasperPrint print, int pageIndex) {
+		indexPage(print, pageIndex);
+	}
+
+	@Override
+	public synchronized void pageUpdated(JasperPrint print, int pageIndex) {
+		indexPage(print, pageIndex);
+	}
+
+	protected void indexPage(JasperPrint print, int pageIndex) {
+		if (!isUsableFor(print)) {
+			return;
+		}
+
+		try {
+			ensureOpen(print);
+			JRPrintPage page = print.getPages().get(pageIndex);
+			indexUtil.indexPage(writer, page, pageIndex);
+			indexedPages.set(pageIndex);
+			checkMemory();
+		} catch (IOException e) {
+			log.warn("Failed to index page " + pageIndex + ", discarding the search index", e);
+			discard();
+		}
+	}
+
+	/**
+	 * Searches the report, indexing the pages that have not been indexed yet.
+	 *
+	 * @param print the report
+	 * @param queryString the query
+	 * @param isWholeWordsOnly whether only whole words are matched
+	 * @return the matched terms information, or <code>null</code> if the index has been discarded
+	 */
+	public synchronized SpansInfo search(JasperPrint print, String queryString, boolean isWholeWordsOnly) throws IOException {
+		if (!isUsableFor(print)) {
+			return null;
+		}
+
+		ensureOpen(print);
+		List<JRPrintPage> pages = print.getPages();
+		for (int i = indexedPages.nextClearBit(0); i < pages.size(); i = indexedPages.nextClearBit(i + 1)) {
+			indexUtil.indexPage(writer, pages.get(i), i);
+			indexedPages.set(i);
+
+			// checking after each page, not indexing the rest of the report when the limit is exceeded
+			checkMemory();
+			if (discarded) {
+				return null;
+			}
+		}
+
+		if (reader == null) {
+			reader = DirectoryReader.open(writer);
+		} else {
+			DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+			if (newReader != null) {
+				reader.close();
+				reader = newReader;
+			}
+		}
+
+		LuceneUtil luceneUtil = new LuceneUtil(jasperReportsContext, isCaseSensitive, isWholeWordsOnly, removeAccents);
+		return luceneUtil.getSpansInfo(reader, queryString);
+	}
+
+	private void ensureOpen(JasperPrint print) throws IOException {
+		if (writer != null) {
+			return;
+		}
+
+		jasperPrint = print;
+		if (indexDirectory != null) {
+			indexDirectory.mkdirs();
+			directory = FSDirectory.open(indexDirectory.toPath());
+		} else {
+			String tempDirectory = JRPropertiesUtil.getInstance(jasperReportsContext).getProperty(PROPERTY_INDEX_DIRECTORY);
+			if (tempDirectory == null) {
+				directory = new RAMDirectory();
+			} else {
+				File parentDir = new File(tempDirectory);
+				parentDir.mkdirs();
+				tempIndexDir = Files.createTempDirectory(parentDir.toPath(), "jrsearch").toFile();
+				directory = FSDirectory.open(tempIndexDir.toPath());
+			}
+		}
+		writer = indexUtil.createIndexWriter(directory);
+	}
+
+	private void checkMemory() {
+		if (directory instanceof RAMDirectory && maxMemory > 0
+				&& ((RAMDirectory) directory).ramBytesUsed() + writer.ramBytesUsed() > maxMemory) {
+			if (log.isDebugEnabled()) {
+				log.debug("search index exceeded " + maxMemory + " bytes, discarding");
+			}
+			discard();
+		}
+	}
+
+	/**
+	 * Releases the index resources, remembering that the report is not to be indexed again.
+	 */
+	private void discard() {
+		discarded = true;
+		releaseResources();
+	}
+
+	/**
+	 * Releases the resources used by the index and deletes the temporary index directory, if any.
+	 * <p>
+	 * A directory passed when creating the index is left in place.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		releaseResources();
+	}
+
+	private void releaseResources() {
+		try {
+			if (reader != null) {
+				reader.close();
+			}
+			if (writer != null) {
+				writer.close();
+			}
+			if (directory != null) {
+				directory.close();
+			}
+		} catch (IOException e) {
+			throw new JRRuntimeException(e);
+		} finally {
+			reader = null;
+			writer = null;
+			directory = null;
+			indexedPages.clear();
+
+			if (tempIndexDir != null) {
+				File[] files = tempIndexDir.listFiles();
+				if (files != null) {
+					for (File file : files) {
+						file.delete();
+					}
+				}
+				tempIndexDir.delete();
+				tempIndexDir = null;
+			}
+		}
+	}
+
+}
@@ -53,6 +53,7 @@ public class LuceneUtil {
 
 	private static final Log log = LogFactory.getLog(LuceneUtil.class);
 	private static final String CONTENT_FIELD = "content";
+	private static final String PAGE_INDEX_FIELD = "pageIndex";
 
 	private JRStyledTextAttributeSelector noneSelector;
 	private JRStyledTextUtil styledTextUtil;
@@ -85,15 +86,31 @@ public class LuceneUtil {
 
 
 	public SpansInfo getSpansInfo(JasperPrint jasperPrint, String queryString) throws IOException, JRException {
-		Long start = System.currentTimeMillis();
-
 		Directory dir = createLuceneDirectory(jasperPrint);
 
+		IndexReader reader = DirectoryReader.open(dir);
+		try {
+			return getSpansInfo(reader, queryString);
+		} finally {
+			reader.close();
+		}
+	}
+
+
+	/**
+	 * Runs a query on an existing index created by {@link #indexPage(IndexWriter, JRPrintPage, int)}.
+	 * 
+	 * @param reader the index reader, not closed by this method
+	 * @param queryString the query
+	 * @return the matched terms information
+	 */
+	public SpansInfo getSpansInfo(IndexReader reader, String queryString) throws IOException {
+		Long start = System.currentTimeMillis();
+
 		if (log.isDebugEnabled()) {
 			log.debug("original query: [" + queryString + "]");
 		}
 
-		IndexReader reader = DirectoryReader.open(dir);
 		IndexSearcher searcher = new IndexSearcher(reader);
 		List<String> queryTerms = getQueryTerms(queryString);
 		SpanQuery query = buildQuery(queryTerms);
@@ -152,9 +169,14 @@ public class LuceneUtil {
 				int nextDoc;
 				while ((nextDoc = spans.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
 					int docIndex = nextDoc + context.docBase;
+					List<HitTermInfo> hitTermsInfo = hitTermsInfoMap.get(docIndex);
+					if (hitTermsInfo == null) {
+						// the spans include documents deleted from an index when a page was updated
+						continue;
+					}
+
 					Document doc = searcher.doc(docIndex);
 					String uid = doc.get("uid");
-					List<HitTermInfo> hitTermsInfo = hitTermsInfoMap.get(docIndex);
 
 					for (int i = spans.nextStartPosition(); i < spans.endPosition(); i++) {
 						for (HitTermInfo ti : hitTermsInfo) {
@@ -171,7 +193,6 @@ public class LuceneUtil {
 			}
 		}
 
-		reader.close();
 		if (log.isDebugEnabled()) {
 			log.debug("search took: " + (System.currentTimeMillis() - start) + " ms");
 		}
@@ -183,11 +204,7 @@ public class LuceneUtil {
 	protected Directory createLuceneDirectory(JasperPrint jasperPrint) throws IOException, JRException {
 		Long start = System.currentTimeMillis();
 		Directory dir = new RAMDirectory();
-		Analyzer analyzer = getConfiguredAnalyzer();
-		IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
-
-		iwc.setOpenMode(OpenMode.CREATE);
-		writer = new IndexWriter(dir, iwc);
+		writer = createIndexWriter(dir);
 
 		List<JRPrintPage> pages = jasperPrint.getPages();
 		if (pages != null && pages.size() > 0) {
@@ -212,6 +229,38 @@ public class LuceneUtil {
 	}
 
 
+	/**
+	 * Creates a writer for a new index.
+	 * 
+	 * @param dir the index directory
+	 * @return an index writer that uses the analyzer configured for this object
+	 */
+	public IndexWriter createIndexWriter(Directory dir) throws IOException {
+		IndexWriterConfig iwc = new IndexWriterConfig(getConfiguredAnalyzer());
+		iwc.setOpenMode(OpenMode.CREATE);
+		return new IndexWriter(dir, iwc);
+	}
+
+
+	/**
+	 * Adds the texts of a page to an index, replacing the ones that were previously added for the page.
+	 * 
+	 * @param indexWriter the index writer
+	 * @param page the page
+	 * @param pageNo the page index
+	 */
+	public void indexPage(IndexWriter indexWriter, JRPrintPage page, int pageNo) throws IOException {
+		indexWriter.deleteDocuments(new Term(PAGE_INDEX_FIELD, String.valueOf(pageNo)));
+		
+		this.writer = indexWriter;
+		try {
+			indexPage(page, pageNo);
+		} finally {
+			this.writer = null;
+		}
+	}
+
+
 	protected void indexPage(JRPrintPage page, int pageNo) throws IOException {
 		List<JRPrintElement> elements = page.getElements();
 		if (page.getElements().size() > 0) {
@@ -246,6 +295,7 @@ public class LuceneUtil {
 			Field tf = new Field(CONTENT_FIELD, allText, fieldType);
 			Document doc = new Document();
 			doc.add(new StoredField("pageNo", pageNo));
+			doc.add(new StringField(PAGE_INDEX_FIELD, String.valueOf(pageNo), Field.Store.NO));
 
 			PrintElementId peid = PrintElementId.forElement(element);
 			doc.add(new StringField("uid", peid.toString(), Field.Store.YES));
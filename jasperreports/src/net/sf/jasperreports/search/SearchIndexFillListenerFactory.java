@@ -0,0 +1,65 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.search;
+
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.ReportContext;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.engine.fill.FillListenerFactory;
+
+/**
+ * Creates search indexes for the reports that are filled with a {@link ReportContext}
+ * when {@link JasperPrintSearchIndex#PROPERTY_INDEX_ON_FILL} is set.
+ */
+public final class SearchIndexFillListenerFactory implements FillListenerFactory
+{
+
+	private static final SearchIndexFillListenerFactory INSTANCE = new SearchIndexFillListenerFactory();
+	
+	public static SearchIndexFillListenerFactory getInstance()
+	{
+		return INSTANCE;
+	}
+	
+	private SearchIndexFillListenerFactory()
+	{
+	}
+	
+	@Override
+	public FillListener createFillListener(JasperReportsContext jasperReportsContext, JasperReport jasperReport,
+			ReportContext reportContext)
+	{
+		if (reportContext == null 
+				|| !JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(jasperReport, 
+						JasperPrintSearchIndex.PROPERTY_INDEX_ON_FILL, false))
+		{
+			return null;
+		}
+		
+		return JasperPrintSearchIndex.createIndex(jasperReportsContext, reportContext, false, false, null);
+	}
+
+}
@@ -29,7 +29,7 @@ import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.ReportContext;
-import net.sf.jasperreports.search.LuceneUtil;
+import net.sf.jasperreports.search.JasperPrintSearchIndex;
 import net.sf.jasperreports.search.SpansInfo;
 import net.sf.jasperreports.web.WebReportContext;
 import net.sf.jasperreports.web.servlets.JasperPrintAccessor;
@@ -65,10 +65,10 @@ public class SearchAction extends AbstractAction {
 					WebReportContext.REPORT_CONTEXT_PARAMETER_JASPER_PRINT_ACCESSOR);
 
 			JasperPrint jasperPrint = jasperPrintAccessor.getFinalJasperPrint();
-			LuceneUtil luceneUtil = new LuceneUtil(jasperReportsContext, searchData.isCaseSensitive(), searchData.isWholeWordsOnly(), searchData.isRemoveAccents());
 
 			try {
-				SpansInfo spansInfo = luceneUtil.getSpansInfo(jasperPrint, searchData.getSearchString());
+				SpansInfo spansInfo = JasperPrintSearchIndex.search(jasperReportsContext, reportContext, jasperPrint, 
+						searchData.getSearchString(), searchData.isCaseSensitive(), searchData.isWholeWordsOnly(), searchData.isRemoveAccents());
 				reportContext.setParameterValue("net.sf.jasperreports.search.term.highlighter", spansInfo);
 
 				ObjectMapper mapper = new ObjectMapper();
@@ -128,6 +128,11 @@ public class Report
 		
 		return report;
 	}
+	
+	public JasperReport getReport()
+	{
+		return report;
+	}
 
 	protected void readReferenceDigest() throws JRException, NoSuchAlgorithmException
 	{
@@ -0,0 +1,183 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.charts;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.charts.util.DeferredChartRenderer;
+import net.sf.jasperreports.engine.JRChart;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintImage;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+import net.sf.jasperreports.renderers.Renderable;
+
+public class ChartRenderCacheTest
+{
+
+	private static final String REPORT =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ChartCache\" "
+			+ "pageWidth=\"200\" pageHeight=\"2000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"group\" class=\"java.lang.String\"/>"
+			+ "<field name=\"key\" class=\"java.lang.String\"/>"
+			+ "<field name=\"value\" class=\"java.lang.Integer\"/>"
+			+ "<group name=\"Group\"><groupExpression><![CDATA[$F{group}]]></groupExpression>"
+			+ "<groupFooter><band height=\"100\"><pieChart>"
+			+ "<chart renderType=\"image\"><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"100\"/>"
+			+ "<chartTitle><titleExpression><![CDATA[\"Values\"]]></titleExpression></chartTitle></chart>"
+			+ "<pieDataset><dataset resetType=\"Group\" resetGroup=\"Group\"/>"
+			+ "<keyExpression><![CDATA[$F{key}]]></keyExpression>"
+			+ "<valueExpression><![CDATA[$F{value}]]></valueExpression></pieDataset>"
+			+ "<piePlot><plot/></piePlot>"
+			+ "</pieChart></band></groupFooter></group>"
+			+ "</jasperReport>";
+
+	private static final String LABELS_REPORT =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ChartLabelsCache\" "
+			+ "pageWidth=\"200\" pageHeight=\"2000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"group\" class=\"java.lang.String\"/>"
+			+ "<field name=\"key\" class=\"java.lang.String\"/>"
+			+ "<field name=\"value\" class=\"java.lang.Integer\"/>"
+			+ "<group name=\"Group\"><groupExpression><![CDATA[$F{group}]]></groupExpression>"
+			+ "<groupFooter><band height=\"100\"><barChart>"
+			+ "<chart renderType=\"image\"><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"100\"/></chart>"
+			+ "<categoryDataset><dataset resetType=\"Group\" resetGroup=\"Group\"/>"
+			+ "<categorySeries><seriesExpression><![CDATA[\"Values\"]]></seriesExpression>"
+			+ "<categoryExpression><![CDATA[$F{key}]]></categoryExpression>"
+			+ "<valueExpression><![CDATA[$F{value}]]></valueExpression>"
+			+ "<labelExpression><![CDATA[$F{group} == \"C\" ? \"other\" : \"same\"]]></labelExpression></categorySeries>"
+			+ "</categoryDataset>"
+			+ "<barPlot><plot/></barPlot>"
+			+ "</barChart></band></groupFooter></group>"
+			+ "</jasperReport>";
+
+	@Test
+	public void cachedRenderers() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRChart.PROPERTY_CHART_RENDER_CACHE, "true");
+
+		List<JRPrintImage> images = fillImages(context);
+		assert images.size() == 3;
+		// the first two groups have the same data
+		assert images.get(0).getRenderer() == images.get(1).getRenderer();
+		assert images.get(2).getRenderer() != images.get(0).getRenderer();
+	}
+
+	@Test
+	public void itemLabels() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRChart.PROPERTY_CHART_RENDER_CACHE, "true");
+
+		List<Map<String, ?>> data = new ArrayList<Map<String, ?>>();
+		data.add(row("A", "x", 1));
+		data.add(row("B", "x", 1));
+		data.add(row("C", "x", 1));
+		List<JRPrintImage> images = fillImages(context, LABELS_REPORT, data);
+		assert images.size() == 3;
+		// same values, the last group has different item labels
+		assert images.get(0).getRenderer() == images.get(1).getRenderer();
+		assert images.get(2).getRenderer() != images.get(0).getRenderer();
+	}
+
+	@Test
+	public void deferredRendering() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRChart.PROPERTY_CHART_RENDER_DEFERRED, "true");
+
+		List<JRPrintImage> images = fillImages(context);
+		assert images.size() == 3;
+		for (JRPrintImage image : images)
+		{
+			Renderable renderer = image.getRenderer();
+			assert renderer instanceof DeferredChartRenderer;
+			assert !((DeferredChartRenderer) renderer).isRendered();
+		}
+
+		DeferredChartRenderer renderer = (DeferredChartRenderer) images.get(0).getRenderer();
+		byte[] data = renderer.getData(context);
+		assert data != null && data.length > 0;
+		assert renderer.isRendered();
+	}
+
+	protected List<JRPrintImage> fillImages(SimpleJasperReportsContext context) throws JRException
+	{
+		List<Map<String, ?>> data = new ArrayList<Map<String, ?>>();
+		data.add(row("A", "x", 1));
+		data.add(row("A", "y", 2));
+		data.add(row("B", "x", 1));
+		data.add(row("B", "y", 2));
+		data.add(row("C", "x", 3));
+		data.add(row("C", "y", 2));
+		return fillImages(context, REPORT, data);
+	}
+
+	protected List<JRPrintImage> fillImages(SimpleJasperReportsContext context, String reportXml, 
+			List<Map<String, ?>> data) throws JRException
+	{
+		JasperReport report = JasperCompileManager.getInstance(context).compile(
+				JRXmlLoader.load(new ByteArrayInputStream(reportXml.getBytes(StandardCharsets.UTF_8))));
+
+		JasperPrint print = JasperFillManager.getInstance(context).fill(report,
+				new HashMap<String, Object>(), new JRMapCollectionDataSource(data));
+
+		List<JRPrintImage> images = new ArrayList<JRPrintImage>();
+		for (JRPrintPage page : print.getPages())
+		{
+			for (JRPrintElement element : page.getElements())
+			{
+				if (element instanceof JRPrintImage)
+				{
+					images.add((JRPrintImage) element);
+				}
+			}
+		}
+		return images;
+	}
+
+	protected Map<String, Object> row(String group, String key, Integer value)
+	{
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("group", group);
+		row.put("key", key);
+		row.put("value", value);
+		return row;
+	}
+}
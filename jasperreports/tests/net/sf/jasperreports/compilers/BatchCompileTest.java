@@ -0,0 +1,146 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.compilers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.crosstabs.JRCrosstab;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.BatchCompileResult;
+import net.sf.jasperreports.engine.design.JRCompiler;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.JREvaluator;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class BatchCompileTest
+{
+
+	@Test
+	public void compileBatch() throws JRException
+	{
+		List<JasperDesign> designs = new ArrayList<JasperDesign>();
+		for (int i = 0; i < 6; i++)
+		{
+			designs.add(loadDesign("Batch" + i, 
+					i == 3 ? "$P{Value}.noSuchMethod()" : "String.valueOf($P{Value}.intValue() * " + i + ").trim()"));
+		}
+		
+		List<BatchCompileResult> results = JasperCompileManager.compileReports(designs, 3);
+		assert results.size() == designs.size();
+		for (int i = 0; i < results.size(); i++)
+		{
+			BatchCompileResult result = results.get(i);
+			assert result.getJasperDesign() == designs.get(i);
+			if (i == 3)
+			{
+				assert !result.isSuccessful();
+				assert result.getJasperReport() == null;
+				assert result.getFaults().size() == 1;
+			}
+			else
+			{
+				assert result.isSuccessful();
+				assert result.getJasperReport().getName().equals("Batch" + i);
+				assert result.getFaults().isEmpty();
+			}
+		}
+	}
+
+	@Test
+	public void compilerRuntimeFailure() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRCompiler.COMPILER_PREFIX + "failing", FailingCompiler.class.getName());
+		
+		List<JasperDesign> designs = new ArrayList<JasperDesign>();
+		for (int i = 0; i < 4; i++)
+		{
+			JasperDesign design = loadDesign("Failing" + i, "String.valueOf($P{Value})");
+			if (i == 1)
+			{
+				design.setLanguage("failing");
+			}
+			designs.add(design);
+		}
+		
+		List<BatchCompileResult> results = JasperCompileManager.getInstance(context).compile(designs, 2);
+		assert results.size() == designs.size();
+		for (int i = 0; i < results.size(); i++)
+		{
+			BatchCompileResult result = results.get(i);
+			assert result.isSuccessful() == (i != 1);
+		}
+		assert results.get(1).getException() instanceof IllegalStateException;
+		assert results.get(1).getFaults().size() == 1;
+	}
+
+	public static class FailingCompiler implements JRCompiler
+	{
+		@Override
+		public JasperReport compileReport(JasperDesign jasperDesign)
+		{
+			throw new IllegalStateException("compiler failure");
+		}
+
+		@Override
+		public JREvaluator loadEvaluator(JasperReport jasperReport)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public JREvaluator loadEvaluator(JasperReport jasperReport, JRDataset dataset)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public JREvaluator loadEvaluator(JasperReport jasperReport, JRCrosstab crosstab)
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	protected JasperDesign loadDesign(String name, String expression) throws JRException
+	{
+		String report = "<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"" + name + "\" "
+			+ "pageWidth=\"200\" pageHeight=\"200\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"Value\" class=\"java.lang.Integer\"/>"
+			+ "<detail><band height=\"20\"><textField>"
+			+ "<reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[" + expression + "]]></textFieldExpression>"
+			+ "</textField></band></detail>"
+			+ "</jasperReport>";
+		return JRXmlLoader.load(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.compilers;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.JRCompiler;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.JREvaluator;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class CompileDataCacheTest
+{
+
+	private static final String REPORT =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"CompileCache\" "
+			+ "pageWidth=\"200\" pageHeight=\"200\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"Value\" class=\"java.lang.Integer\"/>"
+			+ "<detail><band height=\"20\"><textField>"
+			+ "<reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[String.valueOf($P{Value}.intValue() * 2).trim()]]></textFieldExpression>"
+			+ "</textField></band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void cachedCompileData() throws JRException, IOException
+	{
+		File cacheDir = Files.createTempDirectory("jrcache").toFile();
+		try
+		{
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setProperty(JRCompiler.COMPILER_CACHE_DIR, cacheDir.getAbsolutePath());
+			JasperCompileManager compileManager = JasperCompileManager.getInstance(context);
+
+			JasperReport report = compileManager.compile(loadDesign());
+			File[] cacheFiles = cacheDir.listFiles();
+			assert cacheFiles != null && cacheFiles.length == 1;
+
+			JasperReport cachedReport = compileManager.compile(loadDesign());
+			assert cachedReport.getCompileNameSuffix().equals(report.getCompileNameSuffix());
+			assert cacheDir.listFiles().length == 1;
+
+			JREvaluator evaluator = compileManager.getEvaluator(cachedReport);
+			assert evaluator != null;
+		}
+		finally
+		{
+			for (File file : cacheDir.listFiles())
+			{
+				file.delete();
+			}
+			cacheDir.delete();
+		}
+	}
+
+	protected JasperDesign loadDesign() throws JRException
+	{
+		return JRXmlLoader.load(new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8)));
+	}
+}
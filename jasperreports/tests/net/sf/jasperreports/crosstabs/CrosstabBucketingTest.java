@@ -0,0 +1,255 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.crosstabs;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.crosstabs.fill.calculation.BucketDefinition;
+import net.sf.jasperreports.crosstabs.fill.calculation.BucketingService;
+import net.sf.jasperreports.crosstabs.fill.calculation.BucketingServiceContext;
+import net.sf.jasperreports.crosstabs.fill.calculation.CrosstabBucketingService;
+import net.sf.jasperreports.crosstabs.fill.calculation.CrosstabCell;
+import net.sf.jasperreports.crosstabs.fill.calculation.HeaderCell;
+import net.sf.jasperreports.crosstabs.fill.calculation.MeasureDefinition;
+import net.sf.jasperreports.crosstabs.fill.calculation.MeasureDefinition.MeasureValue;
+import net.sf.jasperreports.crosstabs.type.CrosstabTotalPositionEnum;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.analytics.dataset.BucketOrder;
+import net.sf.jasperreports.engine.fill.JRDefaultIncrementerFactory;
+import net.sf.jasperreports.engine.fill.JRFillExpressionEvaluator;
+import net.sf.jasperreports.engine.type.CalculationEnum;
+
+public class CrosstabBucketingTest
+{
+
+	@Test
+	public void parallelAggregation() throws JRException
+	{
+		SimpleJasperReportsContext parallelContext = new SimpleJasperReportsContext();
+		parallelContext.setProperty(BucketingService.PROPERTY_PARALLEL_AGGREGATION_THREADS, "3");
+		parallelContext.setProperty(BucketingService.PROPERTY_PARALLEL_AGGREGATION_CHUNK_SIZE, "97");
+		
+		// floating point measures are left out as the partial sums can differ in the last digits
+		compareServices(parallelContext, new Object[][]{
+			{Long.class, CalculationEnum.SUM},
+			{Integer.class, CalculationEnum.COUNT},
+			{BigDecimal.class, CalculationEnum.AVERAGE},
+			{Long.class, CalculationEnum.HIGHEST},
+			{Short.class, CalculationEnum.LOWEST},
+			{Long.class, CalculationEnum.DISTINCT_COUNT},
+			{Integer.class, CalculationEnum.FIRST},
+			{Long.class, CalculationEnum.NOTHING},
+		});
+	}
+	
+	protected void compareServices(JasperReportsContext jasperReportsContext, Object[][] measures) throws JRException
+	{
+		CrosstabBucketingService service = createService(DefaultJasperReportsContext.getInstance(), measures);
+		CrosstabBucketingService otherService = createService(jasperReportsContext, measures);
+		
+		Random random = new Random(17);
+		for (int row = 0; row < 5000; ++row)
+		{
+			Object[] bucketValues = new Object[]{
+					random.nextInt(10) == 0 ? null : "r" + random.nextInt(7),
+					random.nextInt(5),
+					"c" + random.nextInt(6),
+					random.nextInt(4) == 0 ? null : (long) random.nextInt(3)};
+			Object[] measureValues = new Object[measures.length];
+			for (int i = 0; i < measures.length; ++i)
+			{
+				measureValues[i] = measureValue(random, (Class<?>) measures[i][0]);
+			}
+			
+			service.addData(bucketValues, measureValues);
+			otherService.addData(bucketValues, measureValues);
+		}
+		
+		service.processData();
+		service.createCrosstab();
+		otherService.processData();
+		otherService.createCrosstab();
+		
+		assert describe(service).equals(describe(otherService));
+	}
+	
+	protected Object measureValue(Random random, Class<?> valueClass)
+	{
+		if (random.nextInt(8) == 0)
+		{
+			return null;
+		}
+		
+		int value = random.nextInt(20000) - 5000;
+		if (valueClass.equals(BigDecimal.class))
+		{
+			return BigDecimal.valueOf(value, 2);
+		}
+		if (valueClass.equals(Double.class))
+		{
+			return value / 7d;
+		}
+		if (valueClass.equals(Integer.class))
+		{
+			return value;
+		}
+		if (valueClass.equals(Short.class))
+		{
+			return (short) value;
+		}
+		return (long) value;
+	}
+	
+	protected CrosstabBucketingService createService(JasperReportsContext jasperReportsContext, Object[][] measures) throws JRException
+	{
+		List<BucketDefinition> rowBuckets = new ArrayList<BucketDefinition>();
+		rowBuckets.add(new BucketDefinition(String.class, null, null, BucketOrder.ASCENDING, CrosstabTotalPositionEnum.END));
+		rowBuckets.add(new BucketDefinition(Integer.class, null, null, BucketOrder.NONE, CrosstabTotalPositionEnum.START));
+		
+		List<BucketDefinition> columnBuckets = new ArrayList<BucketDefinition>();
+		columnBuckets.add(new BucketDefinition(String.class, null, null, BucketOrder.DESCENDING, CrosstabTotalPositionEnum.END));
+		columnBuckets.add(new BucketDefinition(Long.class, null, null, BucketOrder.ASCENDING, CrosstabTotalPositionEnum.END));
+
+		List<MeasureDefinition> measureDefinitions = new ArrayList<MeasureDefinition>();
+		for (Object[] measure : measures)
+		{
+			Class<?> valueClass = (Class<?>) measure[0];
+			measureDefinitions.add(new MeasureDefinition(valueClass, (CalculationEnum) measure[1], 
+					JRDefaultIncrementerFactory.getFactory(valueClass)));
+		}
+		
+		boolean[][] retrieveTotal = new boolean[rowBuckets.size() + 1][columnBuckets.size() + 1];
+		for (boolean[] rowTotals : retrieveTotal)
+		{
+			Arrays.fill(rowTotals, true);
+		}
+		
+		return new CrosstabBucketingService(new TestContext(jasperReportsContext), 
+				rowBuckets, columnBuckets, measureDefinitions, false, retrieveTotal);
+	}
+	
+	protected String describe(CrosstabBucketingService service)
+	{
+		StringBuilder description = new StringBuilder();
+		for (HeaderCell[] headers : service.getRowHeaders())
+		{
+			describe(description, headers);
+		}
+		for (HeaderCell[] headers : service.getColumnHeaders())
+		{
+			describe(description, headers);
+		}
+		for (CrosstabCell[] cells : service.getCrosstabCells())
+		{
+			for (CrosstabCell cell : cells)
+			{
+				if (cell != null)
+				{
+					description.append(Arrays.toString(cell.getRowBucketValues()));
+					description.append(Arrays.toString(cell.getColumnBucketValues()));
+					describe(description, cell.getMesureValues());
+					for (MeasureValue[][] totals : cell.getTotals())
+					{
+						for (MeasureValue[] values : totals)
+						{
+							describe(description, values);
+						}
+					}
+				}
+				description.append('\n');
+			}
+		}
+		return description.toString();
+	}
+
+	protected void describe(StringBuilder description, HeaderCell[] headers)
+	{
+		for (HeaderCell header : headers)
+		{
+			if (header != null)
+			{
+				description.append(Arrays.toString(header.getBucketValues()));
+				description.append(header.getLevelSpan()).append('/').append(header.getDepthSpan());
+				if (header.getTotals() != null)
+				{
+					for (MeasureValue[] values : header.getTotals())
+					{
+						describe(description, values);
+					}
+				}
+			}
+			description.append('\n');
+		}
+	}
+	
+	protected void describe(StringBuilder description, MeasureValue[] values)
+	{
+		if (values != null)
+		{
+			for (MeasureValue value : values)
+			{
+				description.append(value == null ? null : value.getValue()).append(',');
+			}
+		}
+		description.append(';');
+	}
+	
+	protected static class TestContext implements BucketingServiceContext
+	{
+		private final JasperReportsContext jasperReportsContext;
+		
+		public TestContext(JasperReportsContext jasperReportsContext)
+		{
+			this.jasperReportsContext = jasperReportsContext;
+		}
+
+		@Override
+		public JasperReportsContext getJasperReportsContext()
+		{
+			return jasperReportsContext;
+		}
+
+		@Override
+		public JRFillExpressionEvaluator getExpressionEvaluator()
+		{
+			return null;
+		}
+
+		@Override
+		public Object evaluateMeasuresExpression(JRExpression expression, MeasureValue[] measureValues) throws JRException
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRCsvDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class CsvParallelDataSourceTest
+{
+
+	@Test
+	public void parallelRecords() throws JRException, IOException
+	{
+		StringBuilder csvData = new StringBuilder();
+		csvData.append("name,amount,date,note\n");
+		for (int i = 0; i < 500; i++)
+		{
+			csvData.append("name ").append(i).append(',');
+			csvData.append(i % 7 == 0 ? "" : String.valueOf(i * 1.5)).append(',');
+			csvData.append("2020-01-").append(10 + i % 20).append(',');
+			if (i % 5 == 0)
+			{
+				csvData.append("\"multi\nline, \"\"quoted\"\" ").append(i).append('"');
+			}
+			else if (i % 11 != 0)
+			{
+				csvData.append("\u00e9t\u00e9 ").append(i);
+			}
+			csvData.append('\n');
+		}
+		
+		List<Object[]> records = readParallelRecords(csvData.toString(), 500);
+		assert "multi\nline, \"quoted\" 5".equals(records.get(5)[3]);
+	}
+	
+	/**
+	 * Checks that a quote inside an unquoted field close to a chunk boundary does not start quoted text,
+	 * so that the records are split in the same places as when reading on a single thread.
+	 */
+	@Test
+	public void strayQuoteAtChunkBoundary() throws JRException, IOException
+	{
+		StringBuilder csvData = new StringBuilder();
+		csvData.append("name,amount,date,note\n");
+		int strayRecord = -1;
+		for (int i = 0; i < 100; i++)
+		{
+			csvData.append("name ").append(i).append(',');
+			csvData.append(i).append(',');
+			csvData.append("2020-01-10,");
+			if (strayRecord < 0 && csvData.length() > 950)
+			{
+				// the record delimiter that follows is the first one after the chunk size
+				csvData.append("size 5\" screen");
+				strayRecord = i;
+			}
+			else
+			{
+				csvData.append("\"multi\nline \"\"").append(i).append("\"\"\"");
+			}
+			csvData.append('\n');
+		}
+		
+		File file = File.createTempFile("parallel", ".csv");
+		try
+		{
+			Files.write(file.toPath(), csvData.toString().getBytes(StandardCharsets.UTF_8));
+			
+			JRField[] fields = {field("name", String.class), field("note", String.class)};
+			List<Object[]> expected = new ArrayList<Object[]>();
+			String expectedError = readRecordsUntilError(createDataSource(file, 0, fields), fields, expected);
+			List<Object[]> records = new ArrayList<Object[]>();
+			String error = readRecordsUntilError(createDataSource(file, 3, fields), fields, records);
+			
+			// the parser does not accept quotes inside unquoted fields,
+			// the records parsed in the same chunk before the failing one are not returned
+			assert expectedError != null && expectedError.equals(error) : error;
+			assert expected.size() == strayRecord : expected.size();
+			assert records.size() <= expected.size() : records.size();
+			for (int i = 0; i < records.size(); i++)
+			{
+				assert Objects.equals(records.get(i)[1], expected.get(i)[1]) : "record " + i + ": " + records.get(i)[1];
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+	
+	private List<Object[]> readParallelRecords(String csvData, int recordCount) throws JRException, IOException
+	{
+		File file = File.createTempFile("parallel", ".csv");
+		try
+		{
+			Files.write(file.toPath(), csvData.getBytes(StandardCharsets.UTF_8));
+			
+			JRField[] fields = {field("name", String.class), field("amount", Double.class), 
+					field("date", Date.class), field("note", String.class)};
+			List<Object[]> expected = readRecords(createDataSource(file, 0, fields), fields);
+			List<Object[]> records = readRecords(createDataSource(file, 3, fields), fields);
+			
+			assert expected.size() == recordCount : expected.size();
+			assert records.size() == expected.size() : records.size();
+			for (int i = 0; i < records.size(); i++)
+			{
+				for (int j = 0; j < fields.length; j++)
+				{
+					assert Objects.equals(records.get(i)[j], expected.get(i)[j])
+						: "record " + i + " field " + fields[j].getName() + ": " + records.get(i)[j];
+				}
+			}
+			return records;
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+	
+	private JRCsvDataSource createDataSource(File file, int threads, JRField[] fields) throws IOException
+	{
+		JRCsvDataSource dataSource = new JRCsvDataSource(file, "UTF-8");
+		dataSource.setUseFirstRowAsHeader(true);
+		dataSource.setDatePattern("yyyy-MM-dd");
+		dataSource.setParallelThreads(threads);
+		// small chunks so that records are split across several threads
+		dataSource.setParallelChunkSize(1000);
+		dataSource.setFields(fields);
+		return dataSource;
+	}
+	
+	private JRField field(String name, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClass(valueClass);
+		return field;
+	}
+	
+	private String readRecordsUntilError(JRCsvDataSource dataSource, JRField[] fields, List<Object[]> records)
+	{
+		try
+		{
+			readRecords(dataSource, fields, records);
+			return null;
+		}
+		catch (JRException e)
+		{
+			return e.getMessage();
+		}
+	}
+	
+	private List<Object[]> readRecords(JRCsvDataSource dataSource, JRField[] fields) throws JRException
+	{
+		List<Object[]> records = new ArrayList<Object[]>();
+		readRecords(dataSource, fields, records);
+		return records;
+	}
+	
+	private void readRecords(JRCsvDataSource dataSource, JRField[] fields, List<Object[]> records) throws JRException
+	{
+		try
+		{
+			while (dataSource.next())
+			{
+				Object[] record = new Object[fields.length];
+				for (int i = 0; i < fields.length; i++)
+				{
+					record[i] = dataSource.getFieldValue(fields[i]);
+				}
+				records.add(record);
+			}
+		}
+		finally
+		{
+			dataSource.close();
+		}
+	}
+
+}
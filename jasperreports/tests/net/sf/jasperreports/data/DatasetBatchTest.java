@@ -0,0 +1,101 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.Report;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.data.JRCsvDataSource;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.fill.JRFillDataset;
+import net.sf.jasperreports.engine.query.JRCsvQueryExecuterFactory;
+
+public class DatasetBatchTest
+{
+	
+	private Report report;
+
+	@BeforeClass
+	public void initReport()
+	{
+		report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml", 
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			public void init()
+			{
+				super.init();
+				// the report has 830 records, the last batch is not full
+				jasperReportsContext.setProperty(JRFillDataset.PROPERTY_BATCH_SIZE, "64");
+			}
+		};
+		report.init();
+	}
+	
+	@Test
+	public void batchReport() throws JRException, UnsupportedEncodingException
+	{
+		JRField[] fields = report.getReport().getMainDataset().getFields();
+		String[] fieldNames = new String[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldNames[i] = fields[i].getName();
+		}
+		
+		JRCsvDataSource csvDataSource = new JRCsvDataSource("net/sf/jasperreports/virtualization/repo/orders.csv", "UTF-8");
+		csvDataSource.setDatePattern(report.getReport().getProperty(JRCsvQueryExecuterFactory.CSV_DATE_PATTERN));
+		csvDataSource.setUseFirstRowAsHeader(true);
+		csvDataSource.setRecordDelimiter("\n");
+		csvDataSource.setLocale(Locale.US);
+		csvDataSource.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		List<Object[]> records = new ArrayList<Object[]>();
+		while (csvDataSource.next())
+		{
+			Object[] record = new Object[fields.length];
+			for (int i = 0; i < fields.length; i++)
+			{
+				record[i] = csvDataSource.getFieldValue(fields[i]);
+			}
+			records.add(record);
+		}
+		csvDataSource.close();
+		
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(JRParameter.REPORT_DATA_SOURCE, new ListOfArrayDataSource(records, fieldNames));
+		report.runReport(params);
+	}
+}
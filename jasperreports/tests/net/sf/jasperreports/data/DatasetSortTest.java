@@ -0,0 +1,59 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.Report;
+import net.sf.jasperreports.engine.fill.DatasetSortUtil;
+
+public class DatasetSortTest
+{
+	
+	private Report report;
+
+	@BeforeClass
+	public void initReport()
+	{
+		report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml", 
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			public void init()
+			{
+				super.init();
+				// the report has 830 records, sorted in several runs
+				jasperReportsContext.setProperty(DatasetSortUtil.PROPERTY_MAX_MEMORY_RECORDS, "100");
+			}
+		};
+		report.init();
+	}
+	
+	@Test
+	public void externalSortReport()
+	{
+		report.runReport(null);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JsonData;
+import net.sf.jasperreports.engine.data.JsonDataSource;
+import net.sf.jasperreports.engine.data.StreamingJsonDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class JsonDataSourceTest
+{
+	
+	private static final String ORDERS = "net/sf/jasperreports/jsonql/orders.json";
+
+	@Test
+	public void streamingRecords() throws JRException
+	{
+		JRField[] fields = {field("orderId", Object.class), field("orderDate", String.class), 
+				field("products", Object.class), field("prodId", Integer.class)};
+		String[] expressions = {null, "customerXorders", "customerYorders", "customerYorders.products", 
+				"customerXorders.products", "customerXorders.products.product_1", 
+				"customerYorders.products.prodId", "customerXorders.orderId", "missing"};
+		for (String expression : expressions)
+		{
+			List<Object[]> expected = readRecords(new JsonDataSource(stream(), expression), fields);
+			List<Object[]> records = readRecords(new StreamingJsonDataSource(stream(), expression), fields);
+			assert records.size() == expected.size() 
+				: expression + ": " + records.size() + " records instead of " + expected.size();
+			for (int i = 0; i < records.size(); i++)
+			{
+				for (int j = 0; j < fields.length; j++)
+				{
+					assert Objects.equals(records.get(i)[j], expected.get(i)[j])
+						: expression + " record " + i + " field " + fields[j].getName();
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void streamingRewind() throws JRException
+	{
+		JRField[] fields = {field("orderId", Long.class)};
+		StreamingJsonDataSource dataSource = new StreamingJsonDataSource(ORDERS, "customerYorders");
+		List<Object[]> records = readRecords(dataSource, fields);
+		dataSource.moveFirst();
+		List<Object[]> rewound = readRecords(dataSource, fields);
+		dataSource.close();
+		
+		assert records.size() == 2;
+		assert rewound.size() == 2;
+		assert Long.valueOf(1200).equals(records.get(0)[0]);
+		assert Long.valueOf(1201).equals(rewound.get(1)[0]);
+	}
+	
+	@Test
+	public void streamingSubDataSource() throws JRException
+	{
+		StreamingJsonDataSource dataSource = new StreamingJsonDataSource(stream(), "customerYorders");
+		assert dataSource.next();
+		JsonDataSource products = dataSource.subDataSource("products");
+		List<Object[]> records = readRecords(products, new JRField[]{field("prodQty", Integer.class)});
+		dataSource.close();
+		
+		assert records.size() == 3;
+		assert Integer.valueOf(20).equals(records.get(1)[0]);
+	}
+	
+	@Test(expectedExceptions = JRException.class)
+	public void streamingUnsupportedExpression() throws JRException
+	{
+		new StreamingJsonDataSource(stream(), "customerYorders(orderId == 1200)");
+	}
+	
+	private InputStream stream()
+	{
+		return JsonDataSourceTest.class.getClassLoader().getResourceAsStream(ORDERS);
+	}
+	
+	private JRField field(String name, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClass(valueClass);
+		return field;
+	}
+	
+	private List<Object[]> readRecords(JsonData<?> dataSource, JRField[] fields) throws JRException
+	{
+		List<Object[]> records = new ArrayList<Object[]>();
+		while (dataSource.next())
+		{
+			Object[] record = new Object[fields.length];
+			for (int i = 0; i < fields.length; i++)
+			{
+				record[i] = dataSource.getFieldValue(fields[i]);
+			}
+			records.add(record);
+		}
+		return records;
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRResultSetDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class ResultSetDataSourceTest
+{
+
+	private static final String[] COLUMNS = {"ID", "AMOUNT", "NAME", "PRICE", "FLAG", "DAY", "TS", "DATA", "STREAM"};
+	private static final int[] COLUMN_TYPES = {Types.INTEGER, Types.DOUBLE, Types.VARCHAR, Types.DECIMAL,
+			Types.BOOLEAN, Types.DATE, Types.TIMESTAMP, Types.VARBINARY, Types.VARBINARY};
+
+	private static final java.sql.Date DAY = new java.sql.Date(86400000L * 10000);
+	private static final Timestamp TS = new Timestamp(86400000L * 10000 + 3600000);
+
+	private static final Object[][] ROWS = {
+		{7, 2.5d, "first", new BigDecimal("10.25"), true, DAY, TS, new byte[]{1, 2, 3}, new byte[]{4, 5}},
+		{null, null, null, null, null, null, null, null, null},
+	};
+
+	private final JRField[] fields = {
+			field("ID", Integer.class),
+			field("AMOUNT", Double.class),
+			field("NAME", String.class),
+			field("PRICE", BigDecimal.class),
+			field("FLAG", Boolean.class),
+			field("DAY", java.util.Date.class),
+			field("TS", Timestamp.class),
+			field("DATA", byte[].class),
+			field("STREAM", InputStream.class),
+	};
+
+	@Test
+	public void fieldValues() throws Exception
+	{
+		JRResultSetDataSource dataSource = new JRResultSetDataSource(createResultSet());
+
+		assert dataSource.next();
+		assert Integer.valueOf(7).equals(dataSource.getFieldValue(fields[0]));
+		assert Double.valueOf(2.5d).equals(dataSource.getFieldValue(fields[1]));
+		assert "first".equals(dataSource.getFieldValue(fields[2]));
+		assert new BigDecimal("10.25").equals(dataSource.getFieldValue(fields[3]));
+		assert Boolean.TRUE.equals(dataSource.getFieldValue(fields[4]));
+		assert DAY.equals(dataSource.getFieldValue(fields[5]));
+		assert TS.equals(dataSource.getFieldValue(fields[6]));
+		assert Arrays.equals(new byte[]{1, 2, 3}, (byte[]) dataSource.getFieldValue(fields[7]));
+		assert Arrays.equals(new byte[]{4, 5}, readStream((InputStream) dataSource.getFieldValue(fields[8])));
+
+		// reading fields out of order
+		assert dataSource.next();
+		for (int i = fields.length - 1; i >= 0; i--)
+		{
+			assert dataSource.getFieldValue(fields[i]) == null : fields[i].getName();
+		}
+
+		assert !dataSource.next();
+	}
+
+	@Test
+	public void fieldInstancesPerRequest() throws Exception
+	{
+		JRResultSetDataSource dataSource = new JRResultSetDataSource(createResultSet());
+		
+		// new field objects for each request share the accessors of equal fields
+		assert dataSource.next();
+		assert "first".equals(dataSource.getFieldValue(field("NAME", String.class)));
+		assert Integer.valueOf(7).equals(dataSource.getFieldValue(field("ID", Integer.class)));
+		assert "first".equals(dataSource.getFieldValue(field("NAME", String.class)));
+		
+		assert dataSource.next();
+		assert dataSource.getFieldValue(field("NAME", String.class)) == null;
+		assert dataSource.getFieldValue(field("ID", Integer.class)) == null;
+	}
+
+	@Test
+	public void overriddenReadMethods() throws Exception
+	{
+		JRResultSetDataSource dataSource = new JRResultSetDataSource(createResultSet())
+		{
+			@Override
+			protected Object readDate(Integer columnIndex, JRField field) throws SQLException
+			{
+				return "date " + columnIndex;
+			}
+
+			@Override
+			protected Object readTimestamp(Integer columnIndex, JRField field) throws SQLException
+			{
+				return "timestamp " + columnIndex;
+			}
+
+			@Override
+			protected byte[] readBytes(Integer columnIndex)
+			{
+				return new byte[]{columnIndex.byteValue()};
+			}
+		};
+
+		for (int row = 0; row < ROWS.length; row++)
+		{
+			assert dataSource.next();
+			assert "date 6".equals(dataSource.getFieldValue(fields[5]));
+			assert "timestamp 7".equals(dataSource.getFieldValue(fields[6]));
+			assert Arrays.equals(new byte[]{8}, (byte[]) dataSource.getFieldValue(fields[7]));
+			assert Arrays.equals(new byte[]{9}, readStream((InputStream) dataSource.getFieldValue(fields[8])));
+		}
+	}
+
+	protected static JRField field(String name, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClassName(valueClass.getCanonicalName());
+		return field;
+	}
+
+	protected static byte[] readStream(InputStream input) throws Exception
+	{
+		byte[] bytes = new byte[input.available()];
+		int read = input.read(bytes);
+		assert read == bytes.length;
+		return bytes;
+	}
+
+	protected static ResultSet createResultSet()
+	{
+		final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+				ResultSetDataSourceTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+				new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args)
+					{
+						switch (method.getName())
+						{
+						case "getColumnCount":
+							return COLUMNS.length;
+						case "getColumnName":
+						case "getColumnLabel":
+							return COLUMNS[(Integer) args[0] - 1];
+						case "getColumnType":
+							return COLUMN_TYPES[(Integer) args[0] - 1];
+						default:
+							return null;
+						}
+					}
+				});
+
+		return (ResultSet) Proxy.newProxyInstance(
+				ResultSetDataSourceTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+				new InvocationHandler()
+				{
+					private int row = -1;
+					private boolean wasNull;
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args)
+					{
+						String name = method.getName();
+						if (name.equals("next"))
+						{
+							return ++row < ROWS.length;
+						}
+						if (name.equals("getMetaData"))
+						{
+							return metaData;
+						}
+						if (name.equals("wasNull"))
+						{
+							return wasNull;
+						}
+						if (name.startsWith("get") && args != null && args[0] instanceof Integer)
+						{
+							Object value = ROWS[row][(Integer) args[0] - 1];
+							wasNull = value == null;
+							if (name.equals("getBinaryStream") && value != null)
+							{
+								return new ByteArrayInputStream((byte[]) value);
+							}
+							if (value == null && method.getReturnType().isPrimitive())
+							{
+								// primitive getters return 0/false for SQL nulls
+								return method.getReturnType() == boolean.class ? Boolean.FALSE
+										: method.getReturnType() == double.class ? (Object) 0d : (Object) 0;
+							}
+							return value;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+}
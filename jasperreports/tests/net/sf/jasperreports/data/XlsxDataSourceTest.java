@@ -0,0 +1,191 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.AbstractXlsDataSource;
+import net.sf.jasperreports.engine.data.JRXlsxDataSource;
+import net.sf.jasperreports.engine.data.StreamingXlsxDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class XlsxDataSourceTest
+{
+	
+	private File xlsxFile;
+	private JRField[] fields;
+
+	@BeforeClass
+	public void createWorkbook() throws IOException
+	{
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		CellStyle dateStyle = workbook.createCellStyle();
+		dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+		
+		Sheet sheet = workbook.createSheet("data");
+		Row header = sheet.createRow(0);
+		String[] names = {"name", "count", "amount", "date", "flag", "total"};
+		for (int i = 0; i < names.length; i++)
+		{
+			header.createCell(i).setCellValue(names[i]);
+		}
+		
+		Calendar calendar = Calendar.getInstance();
+		for (int i = 1; i <= 50; i++)
+		{
+			Row row = sheet.createRow(i);
+			row.createCell(0).setCellValue("name " + (i % 7));
+			row.createCell(1).setCellValue(i);
+			if (i % 5 != 0)
+			{
+				row.createCell(2).setCellValue(i * 1.25);
+			}
+			calendar.clear();
+			calendar.set(2020, Calendar.JANUARY, i);
+			Cell dateCell = row.createCell(3);
+			dateCell.setCellValue(calendar.getTime());
+			dateCell.setCellStyle(dateStyle);
+			row.createCell(4).setCellValue(i % 2 == 0);
+			row.createCell(5).setCellFormula("B" + (i + 1) + "*2");
+		}
+		
+		Sheet other = workbook.createSheet("other");
+		other.createRow(0).createCell(0).setCellValue("other");
+		other.createRow(1).createCell(0).setCellValue("value");
+		
+		workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+		
+		xlsxFile = File.createTempFile("jr_tests_", ".xlsx");
+		try (OutputStream out = new FileOutputStream(xlsxFile))
+		{
+			workbook.write(out);
+		}
+		workbook.close();
+		
+		fields = new JRField[]{
+				field("name", String.class), field("count", Integer.class), 
+				field("amount", Double.class), field("date", java.util.Date.class),
+				field("flag", Boolean.class), field("total", Double.class)};
+	}
+	
+	private JRField field(String name, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClass(valueClass);
+		return field;
+	}
+	
+	@AfterClass
+	public void deleteWorkbook()
+	{
+		if (xlsxFile != null)
+		{
+			xlsxFile.delete();
+		}
+	}
+	
+	@Test
+	public void streamingValues() throws JRException, IOException
+	{
+		List<Object[]> expected = readRecords(new JRXlsxDataSource(xlsxFile), "data");
+		List<Object[]> records = readRecords(new StreamingXlsxDataSource(xlsxFile), "data");
+		assert expected.size() == 50;
+		assert records.size() == expected.size();
+		for (int i = 0; i < records.size(); i++)
+		{
+			for (int j = 0; j < fields.length; j++)
+			{
+				assert Objects.equals(records.get(i)[j], expected.get(i)[j]) 
+					: "record " + i + " field " + fields[j].getName() + ": " + records.get(i)[j] + " != " + expected.get(i)[j];
+			}
+		}
+	}
+	
+	@Test
+	public void streamingSheetSelection() throws JRException, IOException
+	{
+		StreamingXlsxDataSource dataSource = new StreamingXlsxDataSource(xlsxFile);
+		try
+		{
+			dataSource.setSheetSelection("1");
+			dataSource.setUseFirstRowAsHeader(true);
+			
+			assert dataSource.next();
+			assert "value".equals(dataSource.getFieldValue(field("other", String.class)));
+			assert !dataSource.next();
+			
+			dataSource.moveFirst();
+			assert dataSource.next();
+			assert "value".equals(dataSource.getFieldValue(field("COLUMN_0", String.class)));
+		}
+		finally
+		{
+			dataSource.close();
+		}
+	}
+	
+	private List<Object[]> readRecords(AbstractXlsDataSource dataSource, String sheet) throws JRException
+	{
+		List<Object[]> records = new ArrayList<Object[]>();
+		try
+		{
+			dataSource.setSheetSelection(sheet);
+			dataSource.setUseFirstRowAsHeader(true);
+			while (dataSource.next())
+			{
+				Object[] record = new Object[fields.length];
+				for (int i = 0; i < fields.length; i++)
+				{
+					record[i] = dataSource.getFieldValue(fields[i]);
+				}
+				records.add(record);
+			}
+		}
+		finally
+		{
+			dataSource.close();
+		}
+		return records;
+	}
+
+}
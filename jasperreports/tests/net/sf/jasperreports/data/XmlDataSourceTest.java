@@ -0,0 +1,168 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRXmlDataSource;
+import net.sf.jasperreports.engine.data.StreamingXmlDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class XmlDataSourceTest
+{
+
+	private static final String ORDERS =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<!-- orders -->"
+			+ "<Northwind>"
+			+ "<Customers id=\"ALFKI\" country=\"Germany\">"
+			+ "<Name>Alfreds Futterkiste</Name>"
+			+ "<Orders><OrderID>10643</OrderID><Freight>29.46</Freight><Note><![CDATA[a < b]]></Note></Orders>"
+			+ "<Orders><OrderID>10692</OrderID><Freight>61.02</Freight></Orders>"
+			+ "</Customers>"
+			+ "<Shippers><Name>Speedy Express</Name></Shippers>"
+			+ "<Customers id=\"ANATR\" country=\"Mexico\">"
+			+ "<Name>Ana Trujillo</Name>"
+			+ "<Orders><OrderID>10308</OrderID><Freight>1.61</Freight></Orders>"
+			+ "</Customers>"
+			+ "<Customers country=\"Germany\">"
+			+ "<Name>Anonymous</Name>"
+			+ "</Customers>"
+			+ "</Northwind>";
+
+	@Test
+	public void streamingRecords() throws JRException
+	{
+		JRField[] fields = {field("id", "@id", String.class), field("name", "Name", String.class),
+				field("orderId", "OrderID", Integer.class), field("freight", "Freight", Double.class),
+				field("orderCount", "count(Orders)", Integer.class), field("note", "Note", String.class)};
+		String[] expressions = {"/Northwind/Customers", "/Northwind/Customers/Orders", "/Northwind/*/Name",
+				"/Northwind/Customers[2]", "/Northwind/Customers[@id]", "/Northwind/Customers[@country='Germany']",
+				"/Northwind/Customers[@id=\"ANATR\"]/Orders", "/Northwind/Customers/Orders[2]", "/Northwind/Missing", "/Other"};
+		for (String expression : expressions)
+		{
+			assert StreamingXmlDataSource.isSupportedExpression(expression) : expression;
+
+			List<Object[]> expected = readRecords(new JRXmlDataSource(stream(), expression), fields);
+			List<Object[]> records = readRecords(new StreamingXmlDataSource(stream(), expression), fields);
+			assert records.size() == expected.size()
+				: expression + ": " + records.size() + " records instead of " + expected.size();
+			for (int i = 0; i < records.size(); i++)
+			{
+				for (int j = 0; j < fields.length; j++)
+				{
+					assert Objects.equals(records.get(i)[j], expected.get(i)[j])
+						: expression + " record " + i + " field " + fields[j].getName()
+						+ ": " + records.get(i)[j] + " instead of " + expected.get(i)[j];
+				}
+			}
+		}
+	}
+
+	@Test
+	public void unsupportedExpressions()
+	{
+		String[] expressions = {null, "", "/", "Northwind/Customers", "//Customers", "/Northwind//Orders",
+				"/Northwind/Customers[Name='Ana Trujillo']", "/Northwind/Customers/@id", "/Northwind/ns:Customers",
+				"/Northwind/Customers[1][@id]", "/Northwind/Customers/.."};
+		for (String expression : expressions)
+		{
+			assert !StreamingXmlDataSource.isSupportedExpression(expression) : expression;
+		}
+	}
+
+	@Test
+	public void streamingSubDataSource() throws JRException
+	{
+		StreamingXmlDataSource dataSource = new StreamingXmlDataSource(stream(), "/Northwind/Customers");
+		assert dataSource.next();
+		JRXmlDataSource orders = dataSource.subDataSource("/Customers/Orders");
+		List<Object[]> records = readRecords(orders, new JRField[]{field("orderId", "OrderID", Integer.class)});
+
+		assert records.size() == 2;
+		assert Integer.valueOf(10692).equals(records.get(1)[0]);
+
+		assert dataSource.next();
+		orders = dataSource.subDataSource("/Customers/Orders");
+		records = readRecords(orders, new JRField[]{field("orderId", "OrderID", Integer.class)});
+		dataSource.close();
+
+		assert records.size() == 1;
+		assert Integer.valueOf(10308).equals(records.get(0)[0]);
+	}
+
+	@Test(expectedExceptions = JRException.class)
+	public void streamingInputRewind() throws JRException
+	{
+		StreamingXmlDataSource dataSource = new StreamingXmlDataSource(stream(), "/Northwind/Customers");
+		readRecords(dataSource, new JRField[0]);
+		dataSource.moveFirst();
+	}
+
+	@Test(expectedExceptions = JRException.class)
+	public void streamingUnsupportedExpression() throws JRException
+	{
+		new StreamingXmlDataSource(stream(), "//Customers");
+	}
+
+	private InputStream stream()
+	{
+		return new ByteArrayInputStream(ORDERS.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private JRField field(String name, String description, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setDescription(description);
+		field.setValueClass(valueClass);
+		return field;
+	}
+
+	private List<Object[]> readRecords(JRDataSource dataSource, JRField[] fields) throws JRException
+	{
+		List<Object[]> records = new ArrayList<Object[]>();
+		while (dataSource.next())
+		{
+			Object[] record = new Object[fields.length];
+			for (int i = 0; i < fields.length; i++)
+			{
+				record[i] = dataSource.getFieldValue(fields[i]);
+			}
+			records.add(record);
+		}
+		return records;
+	}
+
+}
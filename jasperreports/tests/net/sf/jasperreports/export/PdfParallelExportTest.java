@@ -0,0 +1,185 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.lowagie.text.pdf.PdfReader;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.base.JRBasePrintFrame;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.export.PdfExporterConfiguration;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+
+public class PdfParallelExportTest
+{
+	
+	private static final int PAGE_COUNT = 20;
+
+	@Test
+	public void pageContents() throws JRException, IOException
+	{
+		JasperPrint sequentialPrint = createPrint();
+		byte[] sequential = export(sequentialPrint);
+
+		JasperPrint parallelPrint = createPrint();
+		parallelPrint.setProperty(PdfExporterConfiguration.PROPERTY_PARALLEL_THREADS, "3");
+		byte[] parallel = export(parallelPrint);
+		
+		PdfReader sequentialReader = new PdfReader(sequential);
+		PdfReader parallelReader = new PdfReader(parallel);
+		assert sequentialReader.getNumberOfPages() == PAGE_COUNT;
+		assert parallelReader.getNumberOfPages() == PAGE_COUNT;
+		for (int page = 1; page <= PAGE_COUNT; ++page)
+		{
+			assert Arrays.equals(sequentialReader.getPageContent(page), parallelReader.getPageContent(page));
+		}
+	}
+	
+	@Test
+	public void virtualizedPages() throws JRException, IOException
+	{
+		CountingVirtualizer sequentialVirtualizer = new CountingVirtualizer();
+		JasperPrint sequentialPrint = createPrint(sequentialVirtualizer);
+		sequentialVirtualizer.pageIns = 0;
+		byte[] sequential = export(sequentialPrint);
+		
+		CountingVirtualizer parallelVirtualizer = new CountingVirtualizer();
+		JasperPrint parallelPrint = createPrint(parallelVirtualizer);
+		parallelPrint.setProperty(PdfExporterConfiguration.PROPERTY_PARALLEL_THREADS, "3");
+		parallelVirtualizer.pageIns = 0;
+		byte[] parallel = export(parallelPrint);
+		
+		// pages ahead are not loaded from the virtualizer
+		assert sequentialVirtualizer.pageIns > 0;
+		assert parallelVirtualizer.pageIns == sequentialVirtualizer.pageIns 
+				: parallelVirtualizer.pageIns + " instead of " + sequentialVirtualizer.pageIns;
+		
+		PdfReader sequentialReader = new PdfReader(sequential);
+		PdfReader parallelReader = new PdfReader(parallel);
+		for (int page = 1; page <= PAGE_COUNT; ++page)
+		{
+			assert Arrays.equals(sequentialReader.getPageContent(page), parallelReader.getPageContent(page));
+		}
+		
+		sequentialVirtualizer.cleanup();
+		parallelVirtualizer.cleanup();
+	}
+	
+	protected JasperPrint createPrint()
+	{
+		return createPrint(null);
+	}
+	
+	protected JasperPrint createPrint(JRVirtualizer virtualizer)
+	{
+		JRVirtualizationContext virtualizationContext = null;
+		if (virtualizer != null)
+		{
+			virtualizationContext = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+			virtualizationContext.setVirtualizer(virtualizer);
+		}
+		
+		JasperPrint print = new JasperPrint();
+		print.setName("parallel");
+		print.setPageWidth(595);
+		print.setPageHeight(842);
+		for (int pageIndex = 0; pageIndex < PAGE_COUNT; ++pageIndex)
+		{
+			JRPrintPage page = virtualizationContext == null 
+					? new JRBasePrintPage() : new JRVirtualPrintPage(virtualizationContext);
+			for (int row = 0; row < 10; ++row)
+			{
+				page.addElement(createText(print, 20, 20 + row * 30, 
+						"page " + pageIndex + " <b>row</b> <style forecolor=\"#FF0000\" size=\"12\">" + row + "</style>"));
+			}
+			
+			JRBasePrintFrame frame = new JRBasePrintFrame(print.getDefaultStyleProvider());
+			frame.setX(20);
+			frame.setY(400);
+			frame.setWidth(400);
+			frame.setHeight(100);
+			frame.addElement(createText(print, 0, 0, "framed <i>text</i> on page " + pageIndex));
+			page.addElement(frame);
+			
+			print.addPage(page);
+		}
+		return print;
+	}
+	
+	protected JRBasePrintText createText(JasperPrint print, int x, int y, String text)
+	{
+		JRBasePrintText printText = new JRBasePrintText(print.getDefaultStyleProvider());
+		printText.setX(x);
+		printText.setY(y);
+		printText.setWidth(300);
+		printText.setHeight(25);
+		printText.setMarkup("styled");
+		printText.setText(text);
+		return printText;
+	}
+	
+	protected byte[] export(JasperPrint print) throws JRException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JRPdfExporter exporter = new JRPdfExporter();
+		exporter.setExporterInput(new SimpleExporterInput(print));
+		exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+		exporter.exportReport();
+		return out.toByteArray();
+	}
+	
+	protected static class CountingVirtualizer extends JRGzipVirtualizer
+	{
+		private int pageIns;
+		
+		public CountingVirtualizer()
+		{
+			super(2);
+		}
+		
+		@Override
+		protected void pageIn(JRVirtualizable o) throws IOException
+		{
+			++pageIns;
+			super.pageIn(o);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.extensions;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.component.ComponentsBundle;
+
+public class ExtensionsRegistryTest
+{
+
+	@Test
+	public void cachedExtensions()
+	{
+		DefaultExtensionsRegistry registry = new DefaultExtensionsRegistry();
+		DefaultExtensionsRegistry.RegistrySnapshot snapshot = registry.getSnapshot();
+		List<ComponentsBundle> bundles = registry.getExtensions(ComponentsBundle.class);
+		assert !bundles.isEmpty();
+		assert registry.getSnapshot() == snapshot;
+		
+		// the returned lists can be modified without altering the cached extensions
+		List<ComponentsBundle> cachedBundles = new ArrayList<ComponentsBundle>(bundles);
+		bundles.clear();
+		assert registry.getExtensions(ComponentsBundle.class).equals(cachedBundles);
+		
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+		try
+		{
+			thread.setContextClassLoader(new URLClassLoader(new URL[0], contextClassLoader));
+			assert registry.getSnapshot() != snapshot;
+			assert registry.getExtensions(ComponentsBundle.class).equals(cachedBundles);
+		}
+		finally
+		{
+			thread.setContextClassLoader(contextClassLoader);
+		}
+		
+		assert registry.getSnapshot() == snapshot;
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.fill;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.design.JRCompiler;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class BooleanExpressionsTest
+{
+
+	private static final String REPORT =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"BooleanExpressions\" "
+			+ "pageWidth=\"200\" pageHeight=\"2000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"name\" class=\"java.lang.String\"/>"
+			+ "<field name=\"value\" class=\"java.lang.Integer\"/>"
+			+ "<field name=\"flag\" class=\"java.lang.Boolean\"/>"
+			// primitive boolean filter
+			+ "<filterExpression><![CDATA[$F{value} != 3]]></filterExpression>"
+			+ "<detail><band height=\"40\">"
+			+ "<printWhenExpression><![CDATA[$F{flag}]]></printWhenExpression>"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$F{name}]]></textFieldExpression></textField>"
+			+ "<textField><reportElement x=\"0\" y=\"20\" width=\"200\" height=\"20\">"
+			+ "<printWhenExpression><![CDATA[$F{value} > 1 ? Boolean.TRUE : null]]></printWhenExpression></reportElement>"
+			+ "<textFieldExpression><![CDATA[\"big \" + $F{name}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void printWhenAndFilter() throws JRException
+	{
+		JasperReport report = JasperCompileManager.compileReport(
+				JRXmlLoader.load(new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8))));
+
+		List<Map<String, ?>> data = new ArrayList<Map<String, ?>>();
+		data.add(row("a", 1, true));
+		data.add(row("b", 2, true));
+		data.add(row("c", 3, true));
+		data.add(row("d", 4, null));
+		data.add(row("e", 5, false));
+		data.add(row("f", 6, true));
+
+		JasperPrint print = JasperFillManager.fillReport(report,
+				new HashMap<String, Object>(), new JRMapCollectionDataSource(data));
+
+		List<String> texts = new ArrayList<String>();
+		for (JRPrintPage page : print.getPages())
+		{
+			for (JRPrintElement element : page.getElements())
+			{
+				if (element instanceof JRPrintText)
+				{
+					texts.add(((JRPrintText) element).getFullText());
+				}
+			}
+		}
+
+		assert texts.equals(Arrays.asList("a", "b", "big b", "f", "big f")) : texts;
+	}
+
+	/**
+	 * Checks that the code of boolean expressions is only generated in the boolean evaluation methods.
+	 */
+	@Test
+	public void expressionCodeGeneratedOnce() throws JRException, IOException
+	{
+		File tempDir = Files.createTempDirectory("jrboolean").toFile();
+		try
+		{
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setProperty(JRCompiler.COMPILER_KEEP_JAVA_FILE, "true");
+			context.setProperty(JRCompiler.COMPILER_TEMP_DIR, tempDir.getAbsolutePath());
+			JasperCompileManager.getInstance(context).compile(
+					JRXmlLoader.load(context, new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8))));
+
+			int filterLines = 0;
+			for (File file : tempDir.listFiles())
+			{
+				for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+				{
+					if (line.contains("!= 3"))
+					{
+						assert line.contains("booleanValue(") : line;
+						++filterLines;
+					}
+				}
+			}
+			assert filterLines > 0;
+		}
+		finally
+		{
+			for (File file : tempDir.listFiles())
+			{
+				file.delete();
+			}
+			tempDir.delete();
+		}
+	}
+
+	protected Map<String, Object> row(String name, Integer value, Boolean flag)
+	{
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("name", name);
+		row.put("value", value);
+		row.put("flag", flag);
+		return row;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.fill;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.FillProfileListener;
+import net.sf.jasperreports.engine.fill.FillProfiler;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class FillProfilerTest
+{
+
+	private static final String REPORT =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"Profiled\" "
+			+ "pageWidth=\"200\" pageHeight=\"100\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"name\" class=\"java.lang.String\"/>"
+			+ "<field name=\"value\" class=\"java.lang.Integer\"/>"
+			+ "<variable name=\"total\" class=\"java.lang.Integer\" calculation=\"Sum\">"
+			+ "<variableExpression><![CDATA[$F{value}]]></variableExpression></variable>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField textAdjust=\"StretchHeight\"><reportElement key=\"nameField\" x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$F{name} + \" \" + $V{total}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void profiledFill() throws JRException
+	{
+		List<FillProfiler> profiles = fill("1");
+		assert profiles.size() == 1 : profiles.size();
+		
+		FillProfiler profiler = profiles.get(0);
+		assert profiler.getReportName().equals("Profiled");
+		assert profiler.getFillTime() > 0;
+		
+		Set<FillProfiler.Activity> activities = EnumSet.noneOf(FillProfiler.Activity.class);
+		for (FillProfiler.Entry entry : profiler.getEntries())
+		{
+			activities.add(entry.getActivity());
+			assert entry.getCount() > 0 : entry.getLocation();
+			assert entry.getMaxTime() <= entry.getTotalTime() : entry.getLocation();
+			
+			if (entry.getActivity() == FillProfiler.Activity.FIELD_VALUE)
+			{
+				assert "Profiled".equals(entry.getDataset()) : entry.getDataset();
+				assert entry.getCount() == 12 : entry.getLocation() + ": " + entry.getCount();
+			}
+			else if (entry.getActivity() == FillProfiler.Activity.DATA_SOURCE_NEXT)
+			{
+				// 12 records and the end of data
+				assert entry.getCount() >= 13 : entry.getCount();
+			}
+			else if (entry.getActivity() == FillProfiler.Activity.TEXT_MEASUREMENT)
+			{
+				assert entry.getLocation().endsWith("/nameField") : entry.getLocation();
+			}
+		}
+		
+		assert activities.containsAll(EnumSet.of(FillProfiler.Activity.EXPRESSION_EVALUATION, 
+				FillProfiler.Activity.DATA_SOURCE_NEXT, FillProfiler.Activity.FIELD_VALUE, 
+				FillProfiler.Activity.TEXT_MEASUREMENT, FillProfiler.Activity.VIRTUALIZER_EVICTION)) : activities;
+		
+		String json = profiler.toJson();
+		assert json.startsWith("{\"report\":\"Profiled\",\"fillTime\":") : json;
+		assert json.contains("\"activity\":\"fieldValue\",\"dataset\":\"Profiled\",\"location\":\"field name\",\"count\":12") : json;
+	}
+
+	@Test
+	public void notProfiledFill() throws JRException
+	{
+		List<FillProfiler> profiles = fill("0");
+		assert profiles.isEmpty();
+	}
+	
+	protected List<FillProfiler> fill(String sampleRate) throws JRException
+	{
+		List<FillProfiler> profiles = new ArrayList<FillProfiler>();
+		
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(FillProfiler.PROPERTY_SAMPLE_RATE, sampleRate);
+		context.setExtensions(FillProfileListener.class, 
+				Collections.singletonList((FillProfileListener) profiles::add));
+		
+		JasperReport report = JasperCompileManager.getInstance(context).compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8))));
+		
+		List<Map<String, ?>> data = new ArrayList<Map<String, ?>>();
+		for (int i = 1; i <= 12; i++)
+		{
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("name", "row " + i);
+			row.put("value", i);
+			data.add(row);
+		}
+		
+		JRGzipVirtualizer virtualizer = new JRGzipVirtualizer(1);
+		try
+		{
+			Map<String, Object> parameters = new HashMap<String, Object>();
+			parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+			JasperFillManager.getInstance(context).fill(report, parameters, new JRMapCollectionDataSource(data));
+		}
+		finally
+		{
+			virtualizer.cleanup();
+		}
+		return profiles;
+	}
+}
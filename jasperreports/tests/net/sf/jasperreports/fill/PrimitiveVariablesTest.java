@@ -0,0 +1,183 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.fill;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRDefaultScriptlet;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRScriptletException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRFillDataset;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class PrimitiveVariablesTest
+{
+
+	private static final String REPORT =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"PrimitiveVariables\" "
+			+ "pageWidth=\"400\" pageHeight=\"2000\" columnWidth=\"400\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"group\" class=\"java.lang.String\"/>"
+			+ "<field name=\"value\" class=\"java.lang.Integer\"/>"
+			+ "<variable name=\"IntSum\" class=\"java.lang.Integer\" resetType=\"Group\" resetGroup=\"Group\" calculation=\"Sum\">"
+			+ "<variableExpression><![CDATA[$F{value}]]></variableExpression></variable>"
+			+ "<variable name=\"LongCount\" class=\"java.lang.Long\" resetType=\"Group\" resetGroup=\"Group\" calculation=\"Count\">"
+			+ "<variableExpression><![CDATA[$F{value}]]></variableExpression></variable>"
+			+ "<variable name=\"IntAverage\" class=\"java.lang.Integer\" resetType=\"Group\" resetGroup=\"Group\" calculation=\"Average\">"
+			+ "<variableExpression><![CDATA[$F{value}]]></variableExpression></variable>"
+			+ "<variable name=\"DoubleAverage\" class=\"java.lang.Double\" calculation=\"Average\">"
+			+ "<variableExpression><![CDATA[$F{value} == null ? null : $F{value} / 2d]]></variableExpression></variable>"
+			+ "<variable name=\"DoubleSum\" class=\"java.lang.Double\" calculation=\"Sum\">"
+			+ "<variableExpression><![CDATA[$F{value} == null ? null : $F{value} / 3d]]></variableExpression></variable>"
+			+ "<group name=\"Group\"><groupExpression><![CDATA[$F{group}]]></groupExpression>"
+			+ "<groupFooter><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"400\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$V{IntSum} + \"/\" + $V{LongCount} + \"/\" + $V{IntAverage}]]></textFieldExpression></textField>"
+			+ "</band></groupFooter></group>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"400\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$V{IntSum} + \"/\" + $V{DoubleSum} + \"/\" + $V{DoubleAverage}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "<summary><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"400\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$V{DoubleSum} + \"/\" + $V{DoubleAverage} + \"/\" + $V{REPORT_COUNT}]]></textFieldExpression></textField>"
+			+ "</band></summary>"
+			+ "</jasperReport>";
+
+	@Test
+	public void sameValues() throws JRException
+	{
+		List<String> primitiveTexts = fillTexts(true);
+		List<String> objectTexts = fillTexts(false);
+		assert primitiveTexts.equals(objectTexts) : primitiveTexts + " vs " + objectTexts;
+
+		// footers for groups A and B
+		assert primitiveTexts.contains("6/3/2");
+		assert primitiveTexts.contains("14/2/7");
+	}
+
+	/**
+	 * Checks that a primitive variable returns the same value object until the next increment.
+	 */
+	@Test
+	public void valueBoxedOnce() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRFillDataset.PROPERTY_PRIMITIVE_VARIABLES, "true");
+
+		String reportXml = REPORT.replace("name=\"PrimitiveVariables\" ",
+				"name=\"PrimitiveVariables\" scriptletClass=\"" + BoxingScriptlet.class.getName() + "\" ");
+		JasperReport report = compile(context, reportXml);
+
+		List<Object> values = new ArrayList<Object>();
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(BoxingScriptlet.PARAMETER_VALUES, values);
+		JasperFillManager.getInstance(context).fill(report, params, new JRMapCollectionDataSource(data()));
+
+		assert values.size() == 12 : values;
+		for (int i = 0; i < values.size(); i += 2)
+		{
+			assert values.get(i) == values.get(i + 1) : values;
+		}
+		assert values.get(0) != values.get(2);
+	}
+
+	public static class BoxingScriptlet extends JRDefaultScriptlet
+	{
+		public static final String PARAMETER_VALUES = "BoxedValues";
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void afterDetailEval() throws JRScriptletException
+		{
+			List<Object> values = (List<Object>) getParameterValue(PARAMETER_VALUES, false);
+			values.add(getVariableValue("DoubleSum"));
+			values.add(getVariableValue("DoubleSum"));
+		}
+	}
+
+	protected List<String> fillTexts(boolean primitiveVariables) throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRFillDataset.PROPERTY_PRIMITIVE_VARIABLES, String.valueOf(primitiveVariables));
+
+		JasperReport report = compile(context, REPORT);
+		JasperPrint print = JasperFillManager.getInstance(context).fill(report,
+				new HashMap<String, Object>(), new JRMapCollectionDataSource(data()));
+
+		List<String> texts = new ArrayList<String>();
+		for (JRPrintPage page : print.getPages())
+		{
+			for (JRPrintElement element : page.getElements())
+			{
+				if (element instanceof JRPrintText)
+				{
+					texts.add(((JRPrintText) element).getFullText());
+				}
+			}
+		}
+		return texts;
+	}
+
+	protected JasperReport compile(SimpleJasperReportsContext context, String reportXml) throws JRException
+	{
+		return JasperCompileManager.getInstance(context).compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(reportXml.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	protected List<Map<String, ?>> data()
+	{
+		List<Map<String, ?>> data = new ArrayList<Map<String, ?>>();
+		data.add(row("A", 1));
+		data.add(row("A", 2));
+		data.add(row("A", 3));
+		data.add(row("B", null));
+		data.add(row("B", 4));
+		data.add(row("B", 10));
+		return data;
+	}
+
+	protected Map<String, Object> row(String group, Integer value)
+	{
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("group", group);
+		row.put("value", value);
+		return row;
+	}
+}
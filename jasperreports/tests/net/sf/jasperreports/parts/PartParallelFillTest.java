@@ -0,0 +1,232 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.parts;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.PrintBookmark;
+import net.sf.jasperreports.engine.PrintPart;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.PartReportFiller;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class PartParallelFillTest
+{
+
+	private static final String BOOK =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ParallelBook\" sectionType=\"Part\" "
+			+ "pageWidth=\"200\" pageHeight=\"100\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<property name=\"net.sf.jasperreports.print.create.bookmarks\" value=\"true\"/>"
+			+ "<parameter name=\"ChapterReport\" class=\"net.sf.jasperreports.engine.JasperReport\"/>"
+			+ "<parameter name=\"ContentsReport\" class=\"net.sf.jasperreports.engine.JasperReport\"/>"
+			+ "<field name=\"name\" class=\"java.lang.String\"/>"
+			+ "<field name=\"items\" class=\"java.util.List\"/>"
+			+ "<group name=\"dummy\"><groupExpression><![CDATA[1]]></groupExpression><groupHeader>"
+			+ "<part evaluationTime=\"Report\">"
+			+ "<property name=\"net.sf.jasperreports.bookmarks.data.source.parameter\" value=\"REPORT_DATA_SOURCE\"/>"
+			+ "<partNameExpression><![CDATA[\"Contents\"]]></partNameExpression>"
+			+ "<p:subreportPart xmlns:p=\"http://jasperreports.sourceforge.net/jasperreports/parts\">"
+			+ "<subreportExpression><![CDATA[$P{ContentsReport}]]></subreportExpression>"
+			+ "</p:subreportPart></part>"
+			+ "</groupHeader></group>"
+			+ "<detail><part>"
+			+ "<partNameExpression><![CDATA[\"chapter \" + $F{name}]]></partNameExpression>"
+			+ "<p:subreportPart xmlns:p=\"http://jasperreports.sourceforge.net/jasperreports/parts\">"
+			+ "<subreportParameter name=\"Name\"><subreportParameterExpression><![CDATA[$F{name}]]></subreportParameterExpression></subreportParameter>"
+			+ "<subreportParameter name=\"REPORT_DATA_SOURCE\"><subreportParameterExpression>"
+			+ "<![CDATA[new net.sf.jasperreports.engine.data.JRMapCollectionDataSource($F{items})]]></subreportParameterExpression></subreportParameter>"
+			+ "<subreportExpression><![CDATA[$P{ChapterReport}]]></subreportExpression>"
+			+ "</p:subreportPart></part></detail>"
+			+ "</jasperReport>";
+	
+	private static final String CHAPTER =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ParallelChapter\" "
+			+ "pageWidth=\"200\" pageHeight=\"100\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"Name\" class=\"java.lang.String\"/>"
+			+ "<field name=\"item\" class=\"java.lang.Integer\"/>"
+			+ "<title><band height=\"20\">"
+			+ "<textField bookmarkLevel=\"1\"><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"title \" + $P{Name}]]></textFieldExpression>"
+			+ "<anchorNameExpression><![CDATA[$P{Name}]]></anchorNameExpression></textField>"
+			+ "</band></title>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$P{Name} + \" item \" + $F{item}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "<pageFooter><band height=\"20\">"
+			+ "<textField evaluationTime=\"Master\"><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"page \" + $V{MASTER_CURRENT_PAGE} + \" of \" + $V{MASTER_TOTAL_PAGES}]]></textFieldExpression></textField>"
+			+ "</band></pageFooter>"
+			+ "</jasperReport>";
+	
+	private static final String CONTENTS =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ParallelContents\" "
+			+ "pageWidth=\"200\" pageHeight=\"100\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"label\" class=\"java.lang.String\"/>"
+			+ "<field name=\"pageIndex\" class=\"java.lang.Integer\"/>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[$F{label} + \" at \" + $F{pageIndex}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void sameOutput() throws JRException
+	{
+		JasperPrint sequentialPrint = fill(0);
+		JasperPrint parallelPrint = fill(3);
+		
+		List<List<String>> sequentialPages = pageTexts(sequentialPrint);
+		List<List<String>> parallelPages = pageTexts(parallelPrint);
+		assert parallelPages.equals(sequentialPages) : parallelPages + " instead of " + sequentialPages;
+		
+		List<String> sequentialParts = partNames(sequentialPrint);
+		List<String> parallelParts = partNames(parallelPrint);
+		assert parallelParts.equals(sequentialParts) : parallelParts + " instead of " + sequentialParts;
+		assert sequentialParts.size() == 9 : sequentialParts;
+		
+		List<String> sequentialBookmarks = bookmarks(sequentialPrint);
+		List<String> parallelBookmarks = bookmarks(parallelPrint);
+		assert parallelBookmarks.equals(sequentialBookmarks) : parallelBookmarks + " instead of " + sequentialBookmarks;
+		assert !sequentialBookmarks.isEmpty();
+	}
+
+	protected JasperPrint fill(int threads) throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(PartReportFiller.PROPERTY_PARALLEL_FILL_THREADS, String.valueOf(threads));
+		
+		JasperCompileManager compileManager = JasperCompileManager.getInstance(context);
+		JasperReport book = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(BOOK.getBytes(StandardCharsets.UTF_8))));
+		JasperReport chapter = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(CHAPTER.getBytes(StandardCharsets.UTF_8))));
+		JasperReport contents = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(CONTENTS.getBytes(StandardCharsets.UTF_8))));
+		
+		List<Map<String, ?>> records = new ArrayList<Map<String, ?>>();
+		for (int i = 0; i < 8; i++)
+		{
+			records.add(record(String.valueOf((char) ('A' + i)), (i * 5) % 7 + 1));
+		}
+		
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("ChapterReport", chapter);
+		parameters.put("ContentsReport", contents);
+		return JasperFillManager.getInstance(context).fill(book, parameters, 
+				new JRMapCollectionDataSource(records));
+	}
+	
+	protected List<List<String>> pageTexts(JasperPrint print)
+	{
+		List<List<String>> pages = new ArrayList<List<String>>();
+		for (JRPrintPage page : print.getPages())
+		{
+			List<String> texts = new ArrayList<String>();
+			collectTexts(page.getElements(), texts);
+			pages.add(texts);
+		}
+		return pages;
+	}
+	
+	protected void collectTexts(List<JRPrintElement> elements, List<String> texts)
+	{
+		for (JRPrintElement element : elements)
+		{
+			if (element instanceof JRPrintText)
+			{
+				texts.add(((JRPrintText) element).getFullText());
+			}
+			else if (element instanceof JRPrintFrame)
+			{
+				collectTexts(((JRPrintFrame) element).getElements(), texts);
+			}
+		}
+	}
+	
+	protected List<String> partNames(JasperPrint print)
+	{
+		List<String> names = new ArrayList<String>();
+		for (Iterator<Map.Entry<Integer, PrintPart>> it = print.getParts().partsIterator(); it.hasNext();)
+		{
+			Map.Entry<Integer, PrintPart> partEntry = it.next();
+			names.add(partEntry.getValue().getName() + " at " + partEntry.getKey());
+		}
+		return names;
+	}
+	
+	protected List<String> bookmarks(JasperPrint print)
+	{
+		List<String> bookmarks = new ArrayList<String>();
+		collectBookmarks(print.getBookmarks(), "", bookmarks);
+		return bookmarks;
+	}
+	
+	protected void collectBookmarks(List<PrintBookmark> bookmarks, String prefix, List<String> labels)
+	{
+		if (bookmarks != null)
+		{
+			for (PrintBookmark bookmark : bookmarks)
+			{
+				labels.add(prefix + bookmark.getLabel() + " at " + bookmark.getPageIndex());
+				collectBookmarks(bookmark.getBookmarks(), prefix + "  ", labels);
+			}
+		}
+	}
+	
+	protected Map<String, Object> record(String name, int itemCount)
+	{
+		List<Map<String, Object>> items = new ArrayList<Map<String, Object>>();
+		for (int i = 1; i <= itemCount; i++)
+		{
+			Map<String, Object> item = new HashMap<String, Object>();
+			item.put("item", i);
+			items.add(item);
+		}
+		
+		Map<String, Object> record = new HashMap<String, Object>();
+		record.put("name", name);
+		record.put("items", items);
+		return record;
+	}
+
+}
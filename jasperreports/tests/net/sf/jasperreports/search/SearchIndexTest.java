@@ -0,0 +1,208 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.SimpleReportContext;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.engine.fill.FillListenerFactory;
+
+public class SearchIndexTest
+{
+
+	@Test
+	public void incrementalIndex() throws IOException, JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		SimpleReportContext reportContext = new SimpleReportContext();
+		
+		JasperPrint jasperPrint = new JasperPrint();
+		JasperPrintSearchIndex index = new JasperPrintSearchIndex(context, false, false);
+		for (int i = 0; i < 3; i++)
+		{
+			addPage(jasperPrint, i, "Quick brown fox " + i, "Lazy dog jumps");
+			index.pageGenerated(jasperPrint, i);
+		}
+		
+		SpansInfo spansInfo = index.search(jasperPrint, "brown fox", true);
+		assert spansInfo.getHitTermsPerPage().size() == 3;
+		
+		// a page that was not reported to the index
+		addPage(jasperPrint, 3, "Brown fox", "sleeps");
+		spansInfo = index.search(jasperPrint, "brown fox", true);
+		assert spansInfo.getHitTermsPerPage().size() == 4;
+		
+		// updated page
+		JRBasePrintText text = (JRBasePrintText) jasperPrint.getPages().get(1).getElements().get(0);
+		text.setText("Slow turtle");
+		index.pageUpdated(jasperPrint, 1);
+		spansInfo = index.search(jasperPrint, "brown fox", true);
+		assert spansInfo.getHitTermsPerPage().size() == 3;
+		assert !spansInfo.getHitTermsPerPage().containsKey("1");
+		
+		SpansInfo contextSpansInfo = JasperPrintSearchIndex.search(context, reportContext, jasperPrint, "fo", false, false, false);
+		SpansInfo directSpansInfo = new LuceneUtil(context, false, false, false).getSpansInfo(jasperPrint, "fo");
+		assert contextSpansInfo.getHitTermsPerPage().equals(directSpansInfo.getHitTermsPerPage());
+		
+		index.close();
+	}
+	
+	@Test
+	public void discardedIndex() throws IOException, JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JasperPrintSearchIndex.PROPERTY_INDEX_MAX_MEMORY, "1");
+		SimpleReportContext reportContext = new SimpleReportContext();
+		
+		JasperPrint jasperPrint = new JasperPrint();
+		for (int i = 0; i < 3; i++)
+		{
+			addPage(jasperPrint, i, "Quick brown fox " + i, "Lazy dog jumps");
+		}
+		
+		SpansInfo directSpansInfo = new LuceneUtil(context, false, false, false).getSpansInfo(jasperPrint, "fox");
+		SpansInfo spansInfo = JasperPrintSearchIndex.search(context, reportContext, jasperPrint, "fox", false, false, false);
+		assert spansInfo.getHitTermsPerPage().equals(directSpansInfo.getHitTermsPerPage());
+		
+		// the discarded index is kept so that the report is not indexed again
+		JasperPrintSearchIndex index = (JasperPrintSearchIndex) reportContext.getParameterValue(
+				"net.sf.jasperreports.search.index.false.false");
+		assert index != null;
+		assert index.isDiscardedFor(jasperPrint);
+		
+		spansInfo = JasperPrintSearchIndex.search(context, reportContext, jasperPrint, "fox", false, false, false);
+		assert spansInfo.getHitTermsPerPage().equals(directSpansInfo.getHitTermsPerPage());
+		assert reportContext.getParameterValue("net.sf.jasperreports.search.index.false.false") == index;
+		
+		// a different report gets a new index
+		JasperPrint otherPrint = new JasperPrint();
+		addPage(otherPrint, 0, "Brown fox");
+		JasperPrintSearchIndex.search(context, reportContext, otherPrint, "fox", false, false, false);
+		assert reportContext.getParameterValue("net.sf.jasperreports.search.index.false.false") != index;
+	}
+	
+	@Test
+	public void persistentDirectory() throws IOException, JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		File indexDirectory = Files.createTempDirectory("jrsearchtest").toFile();
+		try
+		{
+			JasperPrint jasperPrint = new JasperPrint();
+			addPage(jasperPrint, 0, "Quick brown fox", "Lazy dog jumps");
+			
+			JasperPrintSearchIndex index = new JasperPrintSearchIndex(context, false, false, indexDirectory);
+			SpansInfo spansInfo = index.search(jasperPrint, "fox", true);
+			assert spansInfo.getHitTermsPerPage().size() == 1;
+			index.close();
+			
+			String[] indexFiles = indexDirectory.list();
+			assert indexFiles != null && indexFiles.length > 0;
+		}
+		finally
+		{
+			File[] files = indexDirectory.listFiles();
+			if (files != null)
+			{
+				for (File file : files)
+				{
+					file.delete();
+				}
+			}
+			indexDirectory.delete();
+		}
+	}
+	
+	@Test
+	public void closeIndexes() throws IOException, JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		SimpleReportContext reportContext = new SimpleReportContext();
+		
+		JasperPrint jasperPrint = new JasperPrint();
+		addPage(jasperPrint, 0, "Brown fox");
+		JasperPrintSearchIndex.search(context, reportContext, jasperPrint, "fox", false, false, false);
+		JasperPrintSearchIndex index = (JasperPrintSearchIndex) reportContext.getParameterValue(
+				"net.sf.jasperreports.search.index.false.false");
+		assert index.isUsableFor(jasperPrint);
+		
+		JasperPrintSearchIndex.closeIndexes(reportContext);
+		assert reportContext.getParameterValue("net.sf.jasperreports.search.index.false.false") == null;
+		assert !index.isUsableFor(jasperPrint);
+	}
+	
+	@Test
+	public void indexOnFill() throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		SimpleReportContext reportContext = new SimpleReportContext();
+		JasperDesign design = new JasperDesign();
+		design.setName("indexed");
+		
+		JasperReport report = JasperCompileManager.getInstance(context).compile(design);
+		FillListenerFactory listenerFactory = SearchIndexFillListenerFactory.getInstance();
+		assert listenerFactory.createFillListener(context, report, reportContext) == null;
+		
+		design.setProperty(JasperPrintSearchIndex.PROPERTY_INDEX_ON_FILL, "true");
+		report = JasperCompileManager.getInstance(context).compile(design);
+		assert listenerFactory.createFillListener(context, report, null) == null;
+		
+		FillListener listener = listenerFactory.createFillListener(context, report, reportContext);
+		assert listener instanceof JasperPrintSearchIndex;
+		assert reportContext.getParameterValue("net.sf.jasperreports.search.index.false.false") == listener;
+		assert context.getExtensions(FillListenerFactory.class).contains(listenerFactory);
+		
+		JasperPrintSearchIndex.closeIndexes(reportContext);
+	}
+	
+	protected void addPage(JasperPrint jasperPrint, int pageIndex, String... texts)
+	{
+		JRBasePrintPage page = new JRBasePrintPage();
+		for (int i = 0; i < texts.length; i++)
+		{
+			JRBasePrintText text = new JRBasePrintText(jasperPrint.getDefaultStyleProvider());
+			text.setSourceElementId(pageIndex * 100 + i);
+			text.setX(0);
+			text.setY(i * 20);
+			text.setWidth(200);
+			text.setHeight(20);
+			text.setText(texts[i]);
+			page.addElement(text);
+		}
+		jasperPrint.addPage(page);
+	}
+}
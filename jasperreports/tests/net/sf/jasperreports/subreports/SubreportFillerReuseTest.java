@@ -0,0 +1,183 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.subreports;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRFillSubreport;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class SubreportFillerReuseTest
+{
+
+	private static final String MASTER =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ReuseMaster\" "
+			+ "pageWidth=\"200\" pageHeight=\"5000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"OrdersReport\" class=\"net.sf.jasperreports.engine.JasperReport\"/>"
+			+ "<field name=\"customer\" class=\"java.lang.String\"/>"
+			+ "<field name=\"orders\" class=\"java.util.List\"/>"
+			+ "<detail><band height=\"40\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"customer \" + $F{customer}]]></textFieldExpression></textField>"
+			+ "<subreport isUsingCache=\"true\"><reportElement x=\"0\" y=\"20\" width=\"200\" height=\"20\"/>"
+			+ "<dataSourceExpression><![CDATA[new net.sf.jasperreports.engine.data.JRMapCollectionDataSource($F{orders})]]></dataSourceExpression>"
+			+ "<subreportExpression><![CDATA[$P{OrdersReport}]]></subreportExpression>"
+			+ "</subreport>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+	
+	private static final String ORDERS =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"ReuseOrders\" "
+			+ "pageWidth=\"200\" pageHeight=\"5000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"status\" class=\"java.lang.String\"/>"
+			+ "<field name=\"amount\" class=\"java.lang.Integer\"/>"
+			+ "<variable name=\"StatusAmount\" class=\"java.lang.Integer\" resetType=\"Group\" resetGroup=\"Status\" calculation=\"Sum\">"
+			+ "<variableExpression><![CDATA[$F{amount}]]></variableExpression></variable>"
+			+ "<group name=\"Status\"><groupExpression><![CDATA[$F{status}]]></groupExpression>"
+			+ "<groupHeader><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"status \" + $F{status}]]></textFieldExpression></textField>"
+			+ "</band></groupHeader>"
+			+ "<groupFooter><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"total \" + $V{StatusAmount}]]></textFieldExpression></textField>"
+			+ "</band></groupFooter></group>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"order \" + $F{amount} + \" of \" + $V{REPORT_COUNT}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void sameOutput() throws JRException
+	{
+		Set<Integer> newFillerIds = new HashSet<Integer>();
+		List<String> newFillerTexts = fill(false, newFillerIds);
+		
+		Set<Integer> reusedFillerIds = new HashSet<Integer>();
+		List<String> reusedFillerTexts = fill(true, reusedFillerIds);
+		
+		assert reusedFillerTexts.equals(newFillerTexts) : reusedFillerTexts + " instead of " + newFillerTexts;
+		assert newFillerTexts.contains("total 5");
+		assert newFillerTexts.contains("order 7 of 3");
+		
+		// the detail text field of the subreport comes from a single filler when reused
+		assert newFillerIds.size() == 3 : newFillerIds;
+		assert reusedFillerIds.size() == 1 : reusedFillerIds;
+	}
+
+	protected List<String> fill(boolean reuse, Set<Integer> orderElementIds) throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRFillSubreport.PROPERTY_FILLER_REUSE, String.valueOf(reuse));
+		
+		JasperCompileManager compileManager = JasperCompileManager.getInstance(context);
+		JasperReport master = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(MASTER.getBytes(StandardCharsets.UTF_8))));
+		JasperReport orders = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(ORDERS.getBytes(StandardCharsets.UTF_8))));
+		
+		List<Map<String, ?>> customers = new ArrayList<Map<String, ?>>();
+		customers.add(customer("A", order("open", 2), order("open", 3), order("closed", 7)));
+		customers.add(customer("B"));
+		customers.add(customer("C", order("closed", 1)));
+		customers.add(customer("D", order("closed", 4), order("open", 5)));
+		
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("OrdersReport", orders);
+		JasperPrint print = JasperFillManager.getInstance(context).fill(master, parameters, 
+				new JRMapCollectionDataSource(customers));
+		
+		List<String> texts = new ArrayList<String>();
+		for (JRPrintPage page : print.getPages())
+		{
+			collectTexts(page.getElements(), texts, orderElementIds);
+		}
+		return texts;
+	}
+	
+	protected void collectTexts(List<JRPrintElement> elements, List<String> texts, Set<Integer> orderElementIds)
+	{
+		for (JRPrintElement element : elements)
+		{
+			if (element instanceof JRPrintText)
+			{
+				String text = ((JRPrintText) element).getFullText();
+				texts.add(text);
+				if (text.startsWith("order "))
+				{
+					orderElementIds.add(element.getSourceElementId());
+				}
+			}
+			else if (element instanceof JRPrintFrame)
+			{
+				collectTexts(((JRPrintFrame) element).getElements(), texts, orderElementIds);
+			}
+		}
+	}
+	
+	@SafeVarargs
+	protected final Map<String, Object> customer(String name, Map<String, Object> ... orders)
+	{
+		List<Map<String, Object>> orderList = new ArrayList<Map<String, Object>>();
+		for (Map<String, Object> order : orders)
+		{
+			orderList.add(order);
+		}
+		
+		Map<String, Object> customer = new HashMap<String, Object>();
+		customer.put("customer", name);
+		customer.put("orders", orderList);
+		return customer;
+	}
+	
+	protected Map<String, Object> order(String status, Integer amount)
+	{
+		Map<String, Object> order = new HashMap<String, Object>();
+		order.put("status", status);
+		order.put("amount", amount);
+		return order;
+	}
+
+}
@@ -0,0 +1,288 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.subreports;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRFillSubreport;
+import net.sf.jasperreports.engine.query.AbstractQueryExecuterFactory;
+import net.sf.jasperreports.engine.query.JRQueryExecuter;
+import net.sf.jasperreports.engine.query.JRQueryExecuterFactoryBundle;
+import net.sf.jasperreports.engine.query.QueryExecuterFactory;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class SubreportPrefetchTest
+{
+
+	private static final String QUERY_LANGUAGE = "prefetchTestOrders";
+	
+	private static final String MASTER =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"PrefetchMaster\" "
+			+ "pageWidth=\"200\" pageHeight=\"5000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"OrdersReport\" class=\"net.sf.jasperreports.engine.JasperReport\"/>"
+			+ "<parameter name=\"RegionSplit\" class=\"java.lang.Integer\"/>"
+			+ "<field name=\"customerId\" class=\"java.lang.Integer\"/>"
+			+ "<detail><band height=\"40\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"customer \" + $F{customerId}]]></textFieldExpression></textField>"
+			+ "<subreport><reportElement x=\"0\" y=\"20\" width=\"200\" height=\"20\">"
+			+ "<property name=\"net.sf.jasperreports.subreport.prefetch.master.field\" value=\"customerId\"/>"
+			+ "<property name=\"net.sf.jasperreports.subreport.prefetch.keys.parameter\" value=\"CustomerIds\"/>"
+			+ "<property name=\"net.sf.jasperreports.subreport.prefetch.key.field\" value=\"customerId\"/>"
+			+ "</reportElement>"
+			+ "<subreportParameter name=\"CustomerId\"><subreportParameterExpression><![CDATA[$F{customerId}]]></subreportParameterExpression></subreportParameter>"
+			+ "<subreportParameter name=\"Region\"><subreportParameterExpression><![CDATA["
+			+ "$F{customerId} <= $P{RegionSplit} ? \"A\" : \"B\"]]></subreportParameterExpression></subreportParameter>"
+			+ "<connectionExpression><![CDATA[$P{REPORT_CONNECTION}]]></connectionExpression>"
+			+ "<subreportExpression><![CDATA[$P{OrdersReport}]]></subreportExpression>"
+			+ "</subreport>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+	
+	private static final String ORDERS =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"PrefetchOrders\" "
+			+ "pageWidth=\"200\" pageHeight=\"5000\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"CustomerId\" class=\"java.lang.Integer\"/>"
+			+ "<parameter name=\"Region\" class=\"java.lang.String\"/>"
+			+ "<parameter name=\"CustomerIds\" class=\"java.util.Collection\">"
+			+ "<defaultValueExpression><![CDATA[java.util.Collections.singletonList($P{CustomerId})]]></defaultValueExpression></parameter>"
+			+ "<queryString language=\"" + QUERY_LANGUAGE + "\"><![CDATA[orders $P{Region}]]></queryString>"
+			+ "<field name=\"customerId\" class=\"java.lang.Integer\"/>"
+			+ "<field name=\"orderId\" class=\"java.lang.Integer\"/>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"order \" + $F{orderId}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void prefetchOrders() throws JRException
+	{
+		AtomicInteger queryCount = new AtomicInteger();
+		List<String> perRowTexts = fill(queryCount, null, 10);
+		assert queryCount.get() == 7 : queryCount.get();
+		
+		queryCount.set(0);
+		List<String> prefetchTexts = fill(queryCount, "3", 10);
+		assert queryCount.get() == 3 : queryCount.get();
+		assert prefetchTexts.equals(perRowTexts) : prefetchTexts + " instead of " + perRowTexts;
+		
+		assert perRowTexts.get(0).equals("customer 1");
+		assert perRowTexts.get(1).equals("order 10");
+		assert perRowTexts.get(2).equals("order 11");
+		assert perRowTexts.get(3).equals("customer 2");
+		assert perRowTexts.get(4).equals("customer 3");
+	}
+
+	@Test
+	public void queryParameterChange() throws JRException
+	{
+		AtomicInteger queryCount = new AtomicInteger();
+		List<String> perRowTexts = fill(queryCount, null, 2);
+		assert queryCount.get() == 7 : queryCount.get();
+		assert perRowTexts.get(4).equals("customer 3");
+		assert perRowTexts.get(5).equals("order 1030");
+		
+		// the third customer is not served from the batch fetched for the first customer
+		queryCount.set(0);
+		List<String> prefetchTexts = fill(queryCount, "3", 2);
+		assert queryCount.get() == 4 : queryCount.get();
+		assert prefetchTexts.equals(perRowTexts) : prefetchTexts + " instead of " + perRowTexts;
+	}
+
+	protected List<String> fill(AtomicInteger queryCount, String prefetchSize, int regionSplit) throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setExtensions(JRQueryExecuterFactoryBundle.class, 
+				Collections.singletonList(new OrdersQueryExecuterFactoryBundle(queryCount)));
+		if (prefetchSize != null)
+		{
+			context.setProperty(JRFillSubreport.PROPERTY_PREFETCH_SIZE, prefetchSize);
+		}
+		
+		JasperCompileManager compileManager = JasperCompileManager.getInstance(context);
+		JasperReport master = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(MASTER.getBytes(StandardCharsets.UTF_8))));
+		JasperReport orders = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(ORDERS.getBytes(StandardCharsets.UTF_8))));
+		
+		List<Map<String, ?>> customers = new ArrayList<Map<String, ?>>();
+		for (int customerId = 1; customerId <= 7; customerId++)
+		{
+			customers.add(Collections.singletonMap("customerId", customerId));
+		}
+		
+		Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), 
+				new Class<?>[]{Connection.class}, (proxy, method, args) -> null);
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("OrdersReport", orders);
+		parameters.put("RegionSplit", regionSplit);
+		parameters.put(JRParameter.REPORT_CONNECTION, connection);
+		JasperPrint print = JasperFillManager.getInstance(context).fill(master, parameters, 
+				new JRMapCollectionDataSource(customers));
+		
+		List<String> texts = new ArrayList<String>();
+		for (JRPrintPage page : print.getPages())
+		{
+			collectTexts(page.getElements(), texts);
+		}
+		return texts;
+	}
+	
+	protected void collectTexts(List<JRPrintElement> elements, List<String> texts)
+	{
+		for (JRPrintElement element : elements)
+		{
+			if (element instanceof JRPrintText)
+			{
+				texts.add(((JRPrintText) element).getFullText());
+			}
+			else if (element instanceof JRPrintFrame)
+			{
+				collectTexts(((JRPrintFrame) element).getElements(), texts);
+			}
+		}
+	}
+	
+	/**
+	 * Returns two orders for odd customer IDs and no orders for even IDs.
+	 * Order IDs are increased by 1000 for the B region.
+	 */
+	protected static class OrdersQueryExecuterFactoryBundle implements JRQueryExecuterFactoryBundle
+	{
+		private final AtomicInteger queryCount;
+		
+		public OrdersQueryExecuterFactoryBundle(AtomicInteger queryCount)
+		{
+			this.queryCount = queryCount;
+		}
+
+		@Override
+		public String[] getLanguages()
+		{
+			return new String[]{QUERY_LANGUAGE};
+		}
+
+		@Override
+		public QueryExecuterFactory getQueryExecuterFactory(String language)
+		{
+			if (!QUERY_LANGUAGE.equals(language))
+			{
+				return null;
+			}
+			
+			return new AbstractQueryExecuterFactory()
+			{
+				@Override
+				public Object[] getBuiltinParameters()
+				{
+					return new Object[0];
+				}
+
+				@Override
+				public JRQueryExecuter createQueryExecuter(JasperReportsContext jasperReportsContext, JRDataset dataset,
+						Map<String, ? extends JRValueParameter> parameters)
+				{
+					Collection<?> customerIds = (Collection<?>) parameters.get("CustomerIds").getValue();
+					int regionOffset = "B".equals(parameters.get("Region").getValue()) ? 1000 : 0;
+					return new JRQueryExecuter()
+					{
+						@Override
+						public JRDataSource createDatasource()
+						{
+							queryCount.incrementAndGet();
+							
+							List<Map<String, ?>> records = new ArrayList<Map<String, ?>>();
+							for (Object customerId : customerIds)
+							{
+								int id = (Integer) customerId;
+								if (id % 2 == 1)
+								{
+									records.add(order(id, regionOffset + id * 10));
+									records.add(order(id, regionOffset + id * 10 + 1));
+								}
+							}
+							return new JRMapCollectionDataSource(records);
+						}
+
+						@Override
+						public void close()
+						{
+							// NOP
+						}
+
+						@Override
+						public boolean cancelQuery()
+						{
+							return false;
+						}
+					};
+				}
+
+				@Override
+				public boolean supportsQueryParameterType(String className)
+				{
+					return true;
+				}
+			};
+		}
+	}
+	
+	protected static Map<String, Object> order(Integer customerId, Integer orderId)
+	{
+		Map<String, Object> order = new HashMap<String, Object>();
+		order.put("customerId", customerId);
+		order.put("orderId", orderId);
+		return order;
+	}
+
+}
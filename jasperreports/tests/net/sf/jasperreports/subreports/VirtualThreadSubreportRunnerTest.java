@@ -0,0 +1,158 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.subreports;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRSubreportRunnerFactory;
+import net.sf.jasperreports.engine.fill.JRThreadSubreportRunnerFactory;
+import net.sf.jasperreports.engine.fill.VirtualThreadSubreportRunnerFactory;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class VirtualThreadSubreportRunnerTest
+{
+
+	private static final String MASTER =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"VirtualMaster\" "
+			+ "pageWidth=\"200\" pageHeight=\"100\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<parameter name=\"ItemsReport\" class=\"net.sf.jasperreports.engine.JasperReport\"/>"
+			+ "<field name=\"name\" class=\"java.lang.String\"/>"
+			+ "<field name=\"items\" class=\"java.util.List\"/>"
+			+ "<pageHeader><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"page \" + $V{PAGE_NUMBER}]]></textFieldExpression></textField>"
+			+ "</band></pageHeader>"
+			+ "<detail><band height=\"40\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"name \" + $F{name}]]></textFieldExpression></textField>"
+			+ "<subreport><reportElement x=\"0\" y=\"20\" width=\"200\" height=\"20\"/>"
+			+ "<dataSourceExpression><![CDATA[new net.sf.jasperreports.engine.data.JRMapCollectionDataSource($F{items})]]></dataSourceExpression>"
+			+ "<subreportExpression><![CDATA[$P{ItemsReport}]]></subreportExpression>"
+			+ "</subreport>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+	
+	private static final String ITEMS =
+			"<jasperReport xmlns=\"http://jasperreports.sourceforge.net/jasperreports\" name=\"VirtualItems\" "
+			+ "pageWidth=\"200\" pageHeight=\"100\" columnWidth=\"200\" leftMargin=\"0\" rightMargin=\"0\" topMargin=\"0\" bottomMargin=\"0\">"
+			+ "<field name=\"item\" class=\"java.lang.Integer\"/>"
+			+ "<detail><band height=\"20\">"
+			+ "<textField><reportElement x=\"0\" y=\"0\" width=\"200\" height=\"20\"/>"
+			+ "<textFieldExpression><![CDATA[\"item \" + $F{item}]]></textFieldExpression></textField>"
+			+ "</band></detail>"
+			+ "</jasperReport>";
+
+	@Test
+	public void sameOutput() throws JRException
+	{
+		List<List<String>> threadPages = fill(JRThreadSubreportRunnerFactory.class.getName());
+		List<List<String>> virtualPages = fill(VirtualThreadSubreportRunnerFactory.class.getName());
+		
+		assert virtualPages.equals(threadPages) : virtualPages + " instead of " + threadPages;
+		// the subreports overflow on several pages
+		assert threadPages.size() > 4 : threadPages;
+	}
+
+	protected List<List<String>> fill(String runnerFactory) throws JRException
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRSubreportRunnerFactory.SUBREPORT_RUNNER_FACTORY, runnerFactory);
+		
+		JasperCompileManager compileManager = JasperCompileManager.getInstance(context);
+		JasperReport master = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(MASTER.getBytes(StandardCharsets.UTF_8))));
+		JasperReport items = compileManager.compile(
+				JRXmlLoader.load(context, new ByteArrayInputStream(ITEMS.getBytes(StandardCharsets.UTF_8))));
+		
+		List<Map<String, ?>> records = new ArrayList<Map<String, ?>>();
+		records.add(record("A", 7));
+		records.add(record("B", 0));
+		records.add(record("C", 2));
+		records.add(record("D", 11));
+		
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("ItemsReport", items);
+		JasperPrint print = JasperFillManager.getInstance(context).fill(master, parameters, 
+				new JRMapCollectionDataSource(records));
+		
+		List<List<String>> pages = new ArrayList<List<String>>();
+		for (JRPrintPage page : print.getPages())
+		{
+			List<String> texts = new ArrayList<String>();
+			collectTexts(page.getElements(), texts);
+			pages.add(texts);
+		}
+		return pages;
+	}
+	
+	protected void collectTexts(List<JRPrintElement> elements, List<String> texts)
+	{
+		for (JRPrintElement element : elements)
+		{
+			if (element instanceof JRPrintText)
+			{
+				texts.add(((JRPrintText) element).getFullText());
+			}
+			else if (element instanceof JRPrintFrame)
+			{
+				collectTexts(((JRPrintFrame) element).getElements(), texts);
+			}
+		}
+	}
+	
+	protected Map<String, Object> record(String name, int itemCount)
+	{
+		List<Map<String, Object>> items = new ArrayList<Map<String, Object>>();
+		for (int i = 1; i <= itemCount; i++)
+		{
+			Map<String, Object> item = new HashMap<String, Object>();
+			item.put("item", i);
+			items.add(item);
+		}
+		
+		Map<String, Object> record = new HashMap<String, Object>();
+		record.put("name", name);
+		record.put("items", items);
+		return record;
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.util;
+
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator.Attribute;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import net.sf.jasperreports.engine.JRPrintHyperlink;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.JRStyledText;
+import net.sf.jasperreports.engine.util.JRStyledText.Run;
+import net.sf.jasperreports.engine.util.JRStyledTextParser;
+
+public class StyledTextParserTest
+{
+	
+	// a leading comment is not handled by the markup reader and forces the DOM parser
+	private static final String DOM_MARKER = "<!---->";
+	
+	private static final String[] MARKUP = {
+		"",
+		"plain text",
+		"<b>bold</b> and <i>italic</i> and <u>underline</u>",
+		"<B>upper</B><sup>1</sup><sub>2</sub>",
+		"<style isBold=\"true\" isItalic='false' isUnderline=\"true\" isStrikeThrough=\"true\" size=\"12\" forecolor=\"#FF0000\" backcolor=\"blue\">styled</style>",
+		"<style fontName=\"DejaVu Sans\" pdfFontName=\"Helvetica\" pdfEncoding=\"Cp1252\" isPdfEmbedded=\"false\">nested <b>bold <i>italic</i></b></style> tail",
+		"<font size=\"14\" color=\"#00FF00\" face=\"Unknown, DejaVu Serif\">font</font>",
+		"line<br/>break<br>inside</br>end",
+		"<br/><br/>",
+		"items<li>one</li><li>two</li>after",
+		"<li>first</li>\nsecond<li>third</li><b>bold</b><li>x</li><b>\nnew line</b><li>y</li><br/>",
+		"<li>a</li><b><i></i>&#10;text</b><li>b</li><b><i></i>&#13;text</b>",
+		"<a href=\"http://localhost/?a=1&amp;b=2\" type=\"Reference\" target=\"Blank\">link</a> text",
+		"entities &lt;&gt;&amp;&quot;&apos; &#65;&#x42;&#x1F600;",
+		"carriage\r\nreturns\rhere <style forecolor=\"\r\n#FF0000\">attr</style>",
+		"attribute with > <style fontName=\"a>b\">x</style>",
+		"invalid &nbsp; entity",
+		"unknown <span>tag</span>",
+		"unclosed <b>bold",
+		"mismatched <b>bold</i>",
+		"<a href=\"x\"><a href=\"y\">nested</a></a>",
+		"<style size = '10' >spaced</style >",
+		"<b/>empty<i />",
+		"<li/>empty item",
+		"<li>item</li><!-- comment -->",
+	};
+
+	/**
+	 * Parses each markup with the markup reader and, prefixed by a comment, with the DOM parser, and compares the runs.
+	 */
+	@Test
+	public void markupReaderMatchesDom()
+	{
+		JRStyledTextParser parser = JRStyledTextParser.getInstance();
+		Map<Attribute,Object> attributes = new HashMap<Attribute,Object>();
+		attributes.put(TextAttribute.SIZE, 10f);
+		for (String markup : MARKUP)
+		{
+			JRStyledText expected = parser.getStyledText(attributes, DOM_MARKER + markup, true, Locale.US);
+			JRStyledText styledText = parser.getStyledText(attributes, markup, true, Locale.US);
+			if (expected.getText().startsWith(DOM_MARKER))
+			{
+				// invalid markup, parsed as plain text
+				assert styledText.getText().equals(markup) : markup;
+				assert styledText.getRuns().size() == 1 : markup;
+			}
+			else
+			{
+				assert styledText.getText().equals(expected.getText()) : markup + ": " + styledText.getText();
+				assert describeRuns(styledText).equals(describeRuns(expected)) 
+					: markup + ": " + describeRuns(styledText) + " instead of " + describeRuns(expected);
+			}
+		}
+	}
+	
+	@Test
+	public void cachedCopies() throws SAXException
+	{
+		JRStyledTextParser parser = JRStyledTextParser.getInstance();
+		String markup = "<style size=\"12\">cached</style> <b>text</b>";
+		Map<Attribute,Object> attributes = new HashMap<Attribute,Object>();
+		
+		JRStyledText first = parser.parse(attributes, markup, Locale.US);
+		String firstRuns = describeRuns(first);
+		for (Run run : first.getRuns())
+		{
+			if (run.attributes != attributes)
+			{
+				run.attributes.put(TextAttribute.SIZE, 20f);
+			}
+		}
+		first.append(" altered");
+		
+		JRStyledText second = parser.parse(attributes, markup, Locale.GERMAN);
+		assert second.getText().equals("cached text");
+		assert describeRuns(second).equals(firstRuns);
+		assert second.getLocale().equals(Locale.GERMAN);
+		assert second.getGlobalAttributes() == attributes;
+	}
+	
+	@Test
+	public void cacheSizeFromReport()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		context.setProperty(JRStyledTextParser.PROPERTY_CACHE_SIZE, "10");
+		JasperDesign report = new JasperDesign();
+		
+		JRStyledTextParser contextParser = JRStyledTextParser.getInstance(context, report);
+		assert JRStyledTextParser.getInstance(context, report) == contextParser;
+		
+		report.setProperty(JRStyledTextParser.PROPERTY_CACHE_SIZE, "0");
+		JRStyledTextParser reportParser = JRStyledTextParser.getInstance(context, report);
+		assert reportParser != contextParser;
+		assert JRStyledTextParser.getInstance(context, report) == reportParser;
+	}
+	
+	private String describeRuns(JRStyledText styledText)
+	{
+		List<String> runs = new ArrayList<String>();
+		for (Run run : styledText.getRuns())
+		{
+			Map<String,String> attributes = new TreeMap<String,String>();
+			if (run.attributes != null)
+			{
+				for (Map.Entry<Attribute,Object> entry : run.attributes.entrySet())
+				{
+					Object value = entry.getValue();
+					if (value instanceof JRPrintHyperlink)
+					{
+						JRPrintHyperlink hyperlink = (JRPrintHyperlink) value;
+						value = hyperlink.getHyperlinkReference() + "|" + hyperlink.getLinkType() + "|" + hyperlink.getLinkTarget();
+					}
+					attributes.put(entry.getKey().toString(), String.valueOf(value));
+				}
+			}
+			runs.add(run.startIndex + "-" + run.endIndex + attributes);
+		}
+		return runs.toString();
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.util.AsyncSwapFileVirtualizerStore;
+import net.sf.jasperreports.engine.util.JRConcurrentSwapFile;
+import net.sf.jasperreports.engine.util.JRMappedSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+
+public class SwapFileTest
+{
+	
+	private static final String TMP_DIR = System.getProperty("java.io.tmpdir");
+
+	@Test(dataProvider = "swapFiles")
+	public void writeRead(JRSwapFile swapFile) throws IOException
+	{
+		try
+		{
+			Random random = new Random(1);
+			List<byte[]> datas = new ArrayList<byte[]>();
+			List<JRSwapFile.SwapHandle> handles = new ArrayList<JRSwapFile.SwapHandle>();
+			for (int i = 0; i < 50; i++)
+			{
+				byte[] data = new byte[1 + random.nextInt(1000)];
+				random.nextBytes(data);
+				datas.add(data);
+				handles.add(swapFile.write(data));
+			}
+			
+			for (int i = 0; i < datas.size(); i++)
+			{
+				byte[] data = swapFile.read(handles.get(i), i % 2 == 0);
+				assert Arrays.equals(data, datas.get(i));
+			}
+			
+			// reusing the freed blocks
+			for (int i = 0; i < datas.size(); i += 2)
+			{
+				handles.set(i, swapFile.write(datas.get(i)));
+			}
+			
+			for (int i = 0; i < datas.size(); i++)
+			{
+				byte[] data = swapFile.read(handles.get(i), true);
+				assert Arrays.equals(data, datas.get(i));
+			}
+		}
+		finally
+		{
+			swapFile.dispose();
+		}
+	}
+
+	@Test(dataProvider = "swapFiles")
+	public void concurrentWriteRead(final JRSwapFile swapFile) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 8; t++)
+			{
+				final int seed = t;
+				results.add(executor.submit(new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call() throws IOException
+					{
+						Random random = new Random(seed);
+						for (int i = 0; i < 200; i++)
+						{
+							byte[] data = new byte[1 + random.nextInt(3000)];
+							random.nextBytes(data);
+							JRSwapFile.SwapHandle handle = swapFile.write(data);
+							byte[] read = swapFile.read(handle, true);
+							if (!Arrays.equals(data, read))
+							{
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			
+			for (Future<Boolean> result : results)
+			{
+				assert result.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+			swapFile.dispose();
+		}
+	}
+	
+	@DataProvider
+	public Object[][] swapFiles()
+	{
+		return new Object[][] {
+			{new JRSwapFile(TMP_DIR, 256, 10)},
+			{new JRConcurrentSwapFile(TMP_DIR, 256, 10)},
+			{new JRMappedSwapFile(TMP_DIR, 256, 10)},
+			// small segments to grow the file by several segments
+			{new JRMappedSwapFile(DefaultJasperReportsContext.getInstance(), TMP_DIR, 256, 10, 2560)},
+		};
+	}
+	
+	@Test
+	public void mappedShrink() throws IOException
+	{
+		// segments of 10 blocks
+		JRMappedSwapFile swapFile = new JRMappedSwapFile(DefaultJasperReportsContext.getInstance(), 
+				TMP_DIR, 256, 10, 2560, true);
+		try
+		{
+			List<JRSwapFile.SwapHandle> handles = new ArrayList<JRSwapFile.SwapHandle>();
+			for (int i = 0; i < 50; i++)
+			{
+				handles.add(swapFile.write(new byte[]{(byte) i}));
+			}
+			assert swapFile.getSegmentCount() == 5 : swapFile.getSegmentCount();
+			
+			for (int i = handles.size() - 1; i >= 10; i--)
+			{
+				swapFile.free(handles.remove(i));
+			}
+			// one free segment is kept
+			assert swapFile.getSegmentCount() == 2 : swapFile.getSegmentCount();
+			
+			// growing again after shrinking
+			for (int i = 10; i < 40; i++)
+			{
+				handles.add(swapFile.write(new byte[]{(byte) i}));
+			}
+			for (int i = 0; i < handles.size(); i++)
+			{
+				assert swapFile.read(handles.get(i), false)[0] == (byte) i;
+			}
+		}
+		finally
+		{
+			swapFile.dispose();
+		}
+	}
+	
+	@Test
+	public void asyncWriteFailure() throws Exception
+	{
+		JRSwapFile swapFile = new JRSwapFile(TMP_DIR, 256, 10)
+		{
+			@Override
+			public SwapHandle write(byte[] data) throws IOException
+			{
+				throw new IOException("write failure");
+			}
+		};
+		TestAsyncStore store = new TestAsyncStore(swapFile);
+		try
+		{
+			store.store("a", new byte[]{1});
+			store.waitForWrites();
+			
+			// the failure is reported to the next store
+			try
+			{
+				store.store("b", new byte[]{2});
+				assert false;
+			}
+			catch (IOException e)
+			{
+				assert "write failure".equals(e.getCause().getMessage());
+			}
+			
+			// and to the retrieval of the object
+			try
+			{
+				store.retrieve("a");
+				assert false;
+			}
+			catch (IOException e)
+			{
+				assert "write failure".equals(e.getCause().getMessage());
+			}
+			
+			assert store.getWriteQueueSize() == 0;
+		}
+		finally
+		{
+			store.dispose();
+		}
+	}
+	
+	protected static class TestAsyncStore extends AsyncSwapFileVirtualizerStore
+	{
+		public TestAsyncStore(JRSwapFile swap)
+		{
+			super(swap, true, null, 4, 0);
+		}
+		
+		public void store(String objectId, byte[] data) throws IOException
+		{
+			storeData(objectId, data);
+		}
+		
+		public byte[] retrieve(String objectId) throws IOException
+		{
+			return retrieveData(objectId, true);
+		}
+		
+		public void waitForWrites() throws InterruptedException
+		{
+			for (int i = 0; i < 500 && getWriteQueueSize() > 0; i++)
+			{
+				Thread.sleep(10);
+			}
+		}
+	}
+}
@@ -34,6 +34,9 @@ import net.sf.jasperreports.Report;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.StoreVirtualizer;
+import net.sf.jasperreports.engine.util.AsyncSwapFileVirtualizerStore;
+import net.sf.jasperreports.engine.util.JRSwapFile;
 
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
@@ -66,4 +69,20 @@ public class ReportTest
 		
 		report.runReport(params);
 	}
+	
+	@Test
+	public void asyncSwapFileReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 20);
+		AsyncSwapFileVirtualizerStore store = new AsyncSwapFileVirtualizerStore(swapFile, true, null, 4, 2);
+		StoreVirtualizer virtualizer = new StoreVirtualizer(3, store);
+		params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+		
+		report.runReport(params);
+		
+		// the export iterates the pages in order, reading ahead the next pages
+		assert store.getPrefetchReads() > 0;
+		assert store.getPrefetchHits() > 0;
+	}
 }